@@ -0,0 +1,198 @@
+package com.ascargon.rocketshow;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare the JMH results (JSON) with the committed baseline and fail, if a benchmark allocates more than the
+ * tolerance allows. With --record, the baseline is replaced by the results instead.
+ * <p>
+ * The time per operation depends on the machine, so it's only reported by default. It fails the check with
+ * -Dbenchmark.checkTime=true, which should only be used on the device the baseline has been recorded on. The
+ * allocations per operation are independent of the machine.
+ * <p>
+ * Usage: BenchmarkBaselineCheck results.json baseline.json [--record]
+ */
+public class BenchmarkBaselineCheck {
+
+    private final static String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private final static ObjectMapper mapper = new ObjectMapper();
+
+    private static class Score {
+        private Double nanosPerOperation;
+        private Double bytesPerOperation;
+    }
+
+    private static double getNanos(double score, String unit) {
+        switch (unit) {
+            case "s/op":
+                return score * 1e9;
+            case "ms/op":
+                return score * 1e6;
+            case "us/op":
+                return score * 1e3;
+            case "ns/op":
+                return score;
+            default:
+                throw new IllegalArgumentException("Unsupported unit '" + unit + "'. Use the average time mode.");
+        }
+    }
+
+    // The benchmark name with its parameters, e.g. "...DesignerFrameBenchmark.frame:size=LARGE"
+    private static String getKey(JsonNode benchmarkNode) {
+        StringBuilder key = new StringBuilder(benchmarkNode.get("benchmark").asText());
+        JsonNode paramsNode = benchmarkNode.get("params");
+
+        if (paramsNode != null) {
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = paramsNode.fields();
+
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+
+            for (Map.Entry<String, String> param : params.entrySet()) {
+                key.append(':').append(param.getKey()).append('=').append(param.getValue());
+            }
+        }
+
+        return key.toString();
+    }
+
+    private static Map<String, Score> readResults(File file) throws Exception {
+        Map<String, Score> scores = new LinkedHashMap<>();
+
+        for (JsonNode benchmarkNode : mapper.readTree(file)) {
+            JsonNode primaryMetricNode = benchmarkNode.get("primaryMetric");
+            JsonNode allocationNode = benchmarkNode.path("secondaryMetrics").get(ALLOCATION_METRIC);
+
+            Score score = new Score();
+            score.nanosPerOperation = getNanos(primaryMetricNode.get("score").asDouble(), primaryMetricNode.get("scoreUnit").asText());
+
+            // Only available with the GC profiler
+            if (allocationNode != null) {
+                score.bytesPerOperation = allocationNode.get("score").asDouble();
+            }
+
+            scores.put(getKey(benchmarkNode), score);
+        }
+
+        return scores;
+    }
+
+    private static Map<String, Score> readBaseline(File file) throws Exception {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = mapper.readTree(file).get("benchmarks").fields();
+
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+
+            Score score = new Score();
+            score.nanosPerOperation = field.getValue().get("nanosPerOperation").asDouble();
+
+            if (field.getValue().hasNonNull("bytesPerOperation")) {
+                score.bytesPerOperation = field.getValue().get("bytesPerOperation").asDouble();
+            }
+
+            scores.put(field.getKey(), score);
+        }
+
+        return scores;
+    }
+
+    private static void recordBaseline(Map<String, Score> results, File file) throws Exception {
+        ObjectNode baselineNode = mapper.createObjectNode();
+        baselineNode.put("recorded", LocalDate.now().toString());
+        baselineNode.put("java", System.getProperty("java.vm.name") + " " + System.getProperty("java.version"));
+        baselineNode.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        baselineNode.put("processors", Runtime.getRuntime().availableProcessors());
+
+        ObjectNode benchmarksNode = baselineNode.putObject("benchmarks");
+
+        for (Map.Entry<String, Score> result : results.entrySet()) {
+            ObjectNode scoreNode = benchmarksNode.putObject(result.getKey());
+            scoreNode.put("nanosPerOperation", Math.round(result.getValue().nanosPerOperation));
+
+            if (result.getValue().bytesPerOperation != null) {
+                scoreNode.put("bytesPerOperation", Math.round(result.getValue().bytesPerOperation));
+            }
+        }
+
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file, baselineNode);
+        System.out.println("Recorded the baseline of " + results.size() + " benchmarks in " + file);
+    }
+
+    // Compare a score and return whether it exceeds the tolerance. Not checked scores are only reported.
+    private static boolean compare(String key, String metric, Double baseline, Double result, double tolerance, boolean check) {
+        if (baseline == null || result == null) {
+            return false;
+        }
+
+        double change = result / baseline - 1;
+        boolean regression = check && change > tolerance;
+
+        System.out.printf("%-8s %-86s %-10s %16.0f %16.0f %+7.1f%%%n", regression ? "FAILED" : check ? "OK" : "INFO", key, metric, baseline, result, change * 100);
+
+        return regression;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkBaselineCheck results.json baseline.json [--record]");
+            System.exit(2);
+        }
+
+        Map<String, Score> results = readResults(new File(args[0]));
+        File baselineFile = new File(args[1]);
+
+        if (args.length > 2 && "--record".equals(args[2])) {
+            recordBaseline(results, baselineFile);
+            return;
+        }
+
+        Map<String, Score> baseline = readBaseline(baselineFile);
+        double timeTolerance = Double.parseDouble(System.getProperty("benchmark.timeTolerance", "0.15"));
+        double allocationTolerance = Double.parseDouble(System.getProperty("benchmark.allocationTolerance", "0.05"));
+        boolean checkTime = Boolean.parseBoolean(System.getProperty("benchmark.checkTime", "false"));
+        int regressions = 0;
+
+        if (baseline.isEmpty()) {
+            System.out.println("The baseline is empty. Record it with -Dbenchmark.baseline=--record on the reference device.");
+        }
+
+        System.out.printf("%-8s %-86s %-10s %16s %16s %8s%n", "", "Benchmark", "Metric", "Baseline", "Result", "Change");
+
+        for (Map.Entry<String, Score> result : results.entrySet()) {
+            Score baselineScore = baseline.get(result.getKey());
+
+            if (baselineScore == null) {
+                System.out.println("NEW      " + result.getKey());
+                continue;
+            }
+
+            if (compare(result.getKey(), "ns/op", baselineScore.nanosPerOperation, result.getValue().nanosPerOperation, timeTolerance, checkTime)) {
+                regressions++;
+            }
+
+            if (compare(result.getKey(), "B/op", baselineScore.bytesPerOperation, result.getValue().bytesPerOperation, allocationTolerance, true)) {
+                regressions++;
+            }
+        }
+
+        if (regressions > 0) {
+            System.err.println(regressions + " regressions against the baseline");
+            System.exit(1);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.ascargon.rocketshow.composition;
+
+import com.ascargon.rocketshow.audio.AudioCompositionFile;
+import com.ascargon.rocketshow.midi.MidiCompositionFile;
+import com.ascargon.rocketshow.util.DefaultJaxbService;
+import com.ascargon.rocketshow.util.DefaultMetricsService;
+import com.ascargon.rocketshow.util.JaxbService;
+import jakarta.xml.bind.JAXBContext;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure loading the compositions of a library at startup. Each invocation reads all composition files, once
+ * with the shared context and pooled unmarshallers of the {@link JaxbService} and once with a new context per
+ * file, as before the service existed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+@State(Scope.Thread)
+public class CompositionLoadBenchmark {
+
+    @Param({"20", "200"})
+    public int compositions;
+
+    private File directory;
+    private File[] files;
+    private JaxbService jaxbService;
+
+    private static Composition createComposition(int index) {
+        Composition composition = new Composition();
+        composition.setName("Composition " + index);
+        composition.setDurationMillis(240000);
+        composition.setNotes("Notes of composition " + index);
+
+        List<CompositionFile> compositionFileList = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) {
+            AudioCompositionFile audioCompositionFile = new AudioCompositionFile();
+            audioCompositionFile.setName("track-" + index + "-" + i + ".wav");
+            audioCompositionFile.setDurationMillis(240000);
+            compositionFileList.add(audioCompositionFile);
+        }
+
+        MidiCompositionFile midiCompositionFile = new MidiCompositionFile();
+        midiCompositionFile.setName("lights-" + index + ".mid");
+        compositionFileList.add(midiCompositionFile);
+
+        composition.setCompositionFileList(compositionFileList);
+
+        return composition;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("rocketshow-benchmark").toFile();
+        jaxbService = new DefaultJaxbService(new DefaultMetricsService());
+        files = new File[compositions];
+
+        for (int i = 0; i < compositions; i++) {
+            files[i] = new File(directory, "composition-" + i + ".xml");
+            jaxbService.marshal(createComposition(i), files[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public List<Composition> pooledContext() throws Exception {
+        List<Composition> compositionList = new ArrayList<>();
+
+        for (File file : files) {
+            compositionList.add(jaxbService.unmarshal(Composition.class, file));
+        }
+
+        return compositionList;
+    }
+
+    @Benchmark
+    public List<Composition> contextPerFile() throws Exception {
+        List<Composition> compositionList = new ArrayList<>();
+
+        for (File file : files) {
+            compositionList.add((Composition) JAXBContext.newInstance(Composition.class).createUnmarshaller().unmarshal(file));
+        }
+
+        return compositionList;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import com.ascargon.rocketshow.Settings;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.lighting.LightingService;
+import com.ascargon.rocketshow.util.DefaultMetricsService;
+import com.ascargon.rocketshow.util.FileFilterService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the calculation of a designer frame while playing a synthetic project, see {@link SyntheticProject}.
+ * Each invocation calculates the next frame at 40 Hz, so a measurement covers fades, overlapping scenes and the
+ * effect phases of the whole composition. Run with the GC profiler to get the allocations per frame, see
+ * src/jmh/README.md.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+@State(Scope.Thread)
+public class DesignerFrameBenchmark {
+
+    private final static long FRAME_MILLIS = 25;
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public String size;
+
+    private DefaultDesignerService designerService;
+    private long positionMillis;
+
+    // Implement a service interface, returning the passed values by type and defaults otherwise
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Object... returnValues) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            for (Object returnValue : returnValues) {
+                if (method.getReturnType().isInstance(returnValue)) {
+                    return returnValue;
+                }
+            }
+
+            if (method.getReturnType().isPrimitive() && method.getReturnType() != void.class) {
+                return Array.get(Array.newInstance(method.getReturnType(), 1), 0);
+            }
+
+            return null;
+        });
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        Settings settings = new Settings();
+        settings.setDesignerLivePreview(false);
+        settings.setBasePath(Files.createTempDirectory("rocketshow-benchmark") + File.separator);
+        settings.setDesignerPath("designer");
+
+        designerService = new DefaultDesignerService(stub(SettingsService.class, settings), stub(FileFilterService.class), stub(LightingService.class), stub(FixtureProfileCacheService.class), new DefaultMetricsService());
+        designerService.load(null, SyntheticProject.create(SyntheticProject.Size.valueOf(size)), null);
+        designerService.setPreviewComposition(SyntheticProject.COMPOSITION_NAME);
+
+        positionMillis = 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        designerService.close();
+    }
+
+    @Benchmark
+    public HashMap<Integer, Integer> frame() {
+        positionMillis = (positionMillis + FRAME_MILLIS) % SyntheticProject.DURATION_MILLIS;
+        return designerService.calculateFrame(positionMillis);
+    }
+
+}
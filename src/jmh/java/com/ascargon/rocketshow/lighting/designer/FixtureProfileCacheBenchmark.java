@@ -0,0 +1,97 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import com.ascargon.rocketshow.Settings;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.util.DefaultMetricsService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure getting the parsed profile of a profile embedded in a project from the
+ * {@link DefaultFixtureProfileCacheService} (hashing the profile and comparing it to the cached one, cacheHit) compared to binding the
+ * profile again (bind), as each project load did before the cache. A small profile has 6 channels, a large one
+ * 40 channels with 16 capabilities each, like a big moving head of the fixture library.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms256m", "-Xmx256m"})
+@State(Scope.Thread)
+public class FixtureProfileCacheBenchmark {
+
+    private final static int CAPABILITIES = 16;
+
+    @Param({"6", "40"})
+    public int channels;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private DefaultFixtureProfileCacheService fixtureProfileCacheService;
+    private JsonNode profileNode;
+
+    private ObjectNode createProfile() {
+        ObjectNode profile = mapper.createObjectNode();
+        profile.put("uuid", "profile-benchmark");
+        profile.put("name", "Benchmark");
+        profile.putArray("categories").add("Moving Head");
+
+        ObjectNode availableChannels = profile.putObject("availableChannels");
+        ArrayNode modeChannels = profile.putArray("modes").addObject().put("name", channels + "ch").put("shortName", channels + "ch").putArray("channels");
+
+        for (int i = 0; i < channels; i++) {
+            String name = "Channel " + (i + 1);
+            ObjectNode channel = availableChannels.putObject(name);
+            channel.putArray("fineChannelAliases");
+            channel.put("defaultValue", "0");
+
+            if (channels <= 6) {
+                channel.putObject("capability").put("type", "Intensity");
+            } else {
+                ArrayNode capabilities = channel.putArray("capabilities");
+
+                for (int j = 0; j < CAPABILITIES; j++) {
+                    ObjectNode capability = capabilities.addObject();
+                    capability.put("type", j % 2 == 0 ? "WheelSlot" : "Generic");
+                    capability.putArray("dmxRange").add(j * 16).add(j * 16 + 15);
+                    capability.put("comment", "Capability " + (j + 1) + " of " + name);
+
+                    if (j % 2 == 0) {
+                        capability.put("slotNumber", j / 2 + 1);
+                    }
+                }
+            }
+
+            modeChannels.addObject().put("name", name).putArray("repeatFor");
+        }
+
+        return profile;
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        fixtureProfileCacheService = new DefaultFixtureProfileCacheService(DesignerFrameBenchmark.stub(SettingsService.class, new Settings()), new DefaultMetricsService());
+
+        // Parse the profile twice, like the designer reading two projects embedding it
+        byte[] profile = mapper.writeValueAsBytes(createProfile());
+        fixtureProfileCacheService.getProfile(mapper.readTree(profile));
+        profileNode = mapper.readTree(profile);
+    }
+
+    // The profile class is not visible to the generated benchmark code
+    @Benchmark
+    public Object cacheHit() throws Exception {
+        return fixtureProfileCacheService.getProfile(profileNode);
+    }
+
+    @Benchmark
+    public Object bind() throws Exception {
+        return mapper.treeToValue(profileNode, FixtureProfile.class);
+    }
+
+}
@@ -0,0 +1,363 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generate designer projects of a given size in the JSON format of the designer, to be read like a saved project.
+ * The projects contain RGB pars, moving heads with 16 bit pan/tilt and a color wheel and pixel bars. The presets
+ * set capabilities and channels, run chasing effects and fade in and out of overlapping scenes.
+ */
+class SyntheticProject {
+
+    final static String COMPOSITION_NAME = "Benchmark";
+    final static long DURATION_MILLIS = 180000;
+
+    private final static String PAR_PROFILE_UUID = "profile-par";
+    private final static String HEAD_PROFILE_UUID = "profile-head";
+    private final static String BAR_PROFILE_UUID = "profile-bar";
+
+    // The large project fills a DMX universe
+    enum Size {
+        SMALL(8, 2, 1, 8, 4, 2),
+        MEDIUM(16, 4, 2, 16, 12, 4),
+        LARGE(32, 8, 4, 24, 24, 6);
+
+        private final int pars;
+        private final int heads;
+        private final int bars;
+        private final int barPixels;
+        private final int presets;
+        private final int scenes;
+
+        Size(int pars, int heads, int bars, int barPixels, int presets, int scenes) {
+            this.pars = pars;
+            this.heads = heads;
+            this.bars = bars;
+            this.barPixels = barPixels;
+            this.presets = presets;
+            this.scenes = scenes;
+        }
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Size size;
+
+    // The fixture uuids and pixel keys (null for the whole fixture) in the order of the project
+    private final List<String[]> presetFixtures = new ArrayList<>();
+
+    private SyntheticProject(Size size) {
+        this.size = size;
+    }
+
+    static Project create(Size size) throws Exception {
+        SyntheticProject syntheticProject = new SyntheticProject(size);
+        return syntheticProject.mapper.treeToValue(syntheticProject.createProject(), Project.class);
+    }
+
+    private ObjectNode createChannel(String capabilityType, String color, String defaultValue, String... fineChannelAliases) {
+        ObjectNode channel = mapper.createObjectNode();
+        ArrayNode aliases = channel.putArray("fineChannelAliases");
+
+        for (String fineChannelAlias : fineChannelAliases) {
+            aliases.add(fineChannelAlias);
+        }
+
+        if (defaultValue != null) {
+            channel.put("defaultValue", defaultValue);
+        }
+
+        ObjectNode capability = channel.putObject("capability");
+        capability.put("type", capabilityType);
+
+        if (color != null) {
+            capability.put("color", color);
+        }
+
+        return channel;
+    }
+
+    private ObjectNode createModeChannel(String name) {
+        ObjectNode modeChannel = mapper.createObjectNode();
+        modeChannel.put("name", name);
+        modeChannel.putArray("repeatFor");
+        return modeChannel;
+    }
+
+    private ObjectNode createProfile(String uuid, String name) {
+        ObjectNode profile = mapper.createObjectNode();
+        profile.put("uuid", uuid);
+        profile.put("name", name);
+        profile.putObject("availableChannels");
+        profile.putObject("templateChannels");
+        profile.putObject("wheels");
+        return profile;
+    }
+
+    private ObjectNode createParProfile() {
+        ObjectNode profile = createProfile(PAR_PROFILE_UUID, "RGB Par");
+
+        ObjectNode channels = (ObjectNode) profile.get("availableChannels");
+        channels.set("Dimmer", createChannel("Intensity", null, "0"));
+        channels.set("Red", createChannel("ColorIntensity", "Red", null));
+        channels.set("Green", createChannel("ColorIntensity", "Green", null));
+        channels.set("Blue", createChannel("ColorIntensity", "Blue", null));
+        channels.set("Strobe", createChannel("ShutterStrobe", null, "0"));
+
+        ArrayNode modeChannels = profile.putArray("modes").addObject().put("name", "5ch").put("shortName", "5ch").putArray("channels");
+
+        for (String channel : new String[]{"Dimmer", "Red", "Green", "Blue", "Strobe"}) {
+            modeChannels.add(createModeChannel(channel));
+        }
+
+        return profile;
+    }
+
+    private ObjectNode createHeadProfile() {
+        ObjectNode profile = createProfile(HEAD_PROFILE_UUID, "Moving Head");
+
+        ObjectNode channels = (ObjectNode) profile.get("availableChannels");
+        channels.set("Pan", createChannel("Pan", null, "50%", "Pan fine"));
+        channels.set("Tilt", createChannel("Tilt", null, "50%", "Tilt fine"));
+        channels.set("Dimmer", createChannel("Intensity", null, "0"));
+
+        // A color wheel with an open slot and three colors
+        ObjectNode colorWheelChannel = mapper.createObjectNode();
+        colorWheelChannel.putArray("fineChannelAliases");
+        ArrayNode capabilities = colorWheelChannel.putArray("capabilities");
+        ArrayNode slots = ((ObjectNode) profile.get("wheels")).putObject("Color Wheel").putArray("slots");
+        slots.addObject().put("type", "Open");
+
+        String[] colors = {"#ff0000", "#00ff00", "#0000ff"};
+
+        for (int i = 0; i <= colors.length; i++) {
+            ObjectNode capability = capabilities.addObject();
+            capability.put("type", "WheelSlot");
+            capability.put("slotNumber", i + 1);
+            capability.putArray("dmxRange").add(i * 32).add(i * 32 + 31);
+
+            if (i > 0) {
+                slots.addObject().put("type", "Color").putArray("colors").add(colors[i - 1]);
+            }
+        }
+
+        channels.set("Color Wheel", colorWheelChannel);
+
+        ArrayNode modeChannels = profile.putArray("modes").addObject().put("name", "6ch").put("shortName", "6ch").putArray("channels");
+
+        for (String channel : new String[]{"Pan", "Pan fine", "Tilt", "Tilt fine", "Color Wheel", "Dimmer"}) {
+            modeChannels.add(createModeChannel(channel));
+        }
+
+        return profile;
+    }
+
+    private ObjectNode createBarProfile() {
+        ObjectNode profile = createProfile(BAR_PROFILE_UUID, "Pixel Bar");
+
+        ((ObjectNode) profile.get("availableChannels")).set("Dimmer", createChannel("Intensity", null, "0"));
+
+        ObjectNode templateChannels = (ObjectNode) profile.get("templateChannels");
+        templateChannels.set("Red $pixelKey", createChannel("ColorIntensity", "Red", null));
+        templateChannels.set("Green $pixelKey", createChannel("ColorIntensity", "Green", null));
+        templateChannels.set("Blue $pixelKey", createChannel("ColorIntensity", "Blue", null));
+
+        ObjectNode matrix = profile.putObject("matrix");
+        ArrayNode pixelKeys = matrix.putArray("pixelKeys").addArray().addArray();
+
+        for (int i = 1; i <= size.barPixels; i++) {
+            pixelKeys.add(String.valueOf(i));
+        }
+
+        matrix.putArray("pixelCount").add(size.barPixels).add(1).add(1);
+        matrix.putObject("pixelGroups");
+
+        ArrayNode modeChannels = profile.putArray("modes").addObject().put("name", "RGB").put("shortName", "RGB").putArray("channels");
+        modeChannels.add(createModeChannel("Dimmer"));
+
+        ObjectNode matrixChannels = modeChannels.addObject();
+        matrixChannels.put("insert", "matrixChannels");
+        matrixChannels.putArray("repeatFor").add("eachPixelXYZ");
+        matrixChannels.put("channelOrder", "perPixel");
+        matrixChannels.putArray("templateChannels").add("Red $pixelKey").add("Green $pixelKey").add("Blue $pixelKey");
+
+        return profile;
+    }
+
+    private int addFixtures(ArrayNode fixtures, String profileUuid, String mode, String name, int count, int channels, int dmxChannel, String... pixelKeys) {
+        for (int i = 0; i < count; i++) {
+            String uuid = profileUuid + "-" + i;
+
+            ObjectNode fixture = fixtures.addObject();
+            fixture.put("uuid", uuid);
+            fixture.put("profileUuid", profileUuid);
+            fixture.put("name", name + " " + (i + 1));
+            fixture.put("dmxFirstChannel", dmxChannel);
+            fixture.put("modeShortName", mode);
+
+            presetFixtures.add(new String[]{uuid, null});
+
+            for (String pixelKey : pixelKeys) {
+                presetFixtures.add(new String[]{uuid, pixelKey});
+            }
+
+            dmxChannel += channels;
+        }
+
+        return dmxChannel;
+    }
+
+    private void addCapabilityValue(ArrayNode capabilityValues, String type, String color, Double valuePercentage, Integer slotNumber) {
+        ObjectNode capabilityValue = capabilityValues.addObject();
+        capabilityValue.put("type", type);
+
+        if (color != null) {
+            capabilityValue.put("color", color);
+        }
+
+        if (valuePercentage != null) {
+            capabilityValue.put("valuePercentage", valuePercentage);
+        }
+
+        if (slotNumber != null) {
+            capabilityValue.put("slotNumber", slotNumber);
+            capabilityValue.put("wheel", "Color Wheel");
+        }
+    }
+
+    private ObjectNode createPreset(int index) {
+        ObjectNode preset = mapper.createObjectNode();
+        preset.put("uuid", "preset-" + index);
+        preset.put("name", "Preset " + (index + 1));
+
+        // Every second fixture of the project, shifted per preset, so the presets overlap partially
+        ArrayNode fixtures = preset.putArray("fixtures");
+
+        for (int i = index % 2; i < presetFixtures.size(); i += 2) {
+            ObjectNode presetFixture = fixtures.addObject();
+            presetFixture.put("fixtureUuid", presetFixtures.get(i)[0]);
+
+            if (presetFixtures.get(i)[1] != null) {
+                presetFixture.put("pixelKey", presetFixtures.get(i)[1]);
+            }
+        }
+
+        ArrayNode capabilityValues = preset.putArray("fixtureCapabilityValues");
+        addCapabilityValue(capabilityValues, "Intensity", null, 0.8, null);
+        addCapabilityValue(capabilityValues, "ColorIntensity", index % 3 == 0 ? "Red" : index % 3 == 1 ? "Green" : "Blue", 1d, null);
+        addCapabilityValue(capabilityValues, "Pan", null, (index % 10) / 10d, null);
+        addCapabilityValue(capabilityValues, "Tilt", null, 0.3, null);
+        addCapabilityValue(capabilityValues, "WheelSlot", null, null, index % 4 + 1);
+
+        ArrayNode channelValues = preset.putArray("fixtureChannelValues");
+        channelValues.addObject().put("channelName", "Strobe").put("profileUuid", PAR_PROFILE_UUID).put("value", index % 2 == 0 ? 0 : 128);
+
+        // A chase on the dimmers and a color curve on the pixels
+        ArrayNode effects = preset.putArray("effects");
+
+        ObjectNode dimmerChase = effects.addObject();
+        dimmerChase.put("type", "curve");
+        dimmerChase.put("curveType", "sine");
+        dimmerChase.put("lengthMillis", 2000);
+        dimmerChase.put("phasingMillis", 100);
+        dimmerChase.putArray("capabilities").addObject().put("type", "Intensity");
+
+        ObjectNode pixelCurve = effects.addObject();
+        pixelCurve.put("type", "curve");
+        pixelCurve.put("curveType", "square");
+        pixelCurve.put("lengthMillis", 500);
+        pixelCurve.put("phasingMillis", 50);
+        ObjectNode pixelChannels = pixelCurve.putArray("channels").addObject();
+        pixelChannels.put("profileUuid", BAR_PROFILE_UUID);
+        pixelChannels.putArray("channels").add("Blue 1").add("Blue 2");
+
+        // Fade the presets inside the scene, partially before the start
+        preset.put("fadeInMillis", 1500);
+        preset.put("fadeOutMillis", 1500);
+        preset.put("fadeInPre", index % 2 == 0);
+
+        if (index % 3 == 1) {
+            preset.put("startMillis", 2000);
+            preset.put("endMillis", 12000);
+        }
+
+        return preset;
+    }
+
+    private ObjectNode createProject() {
+        ObjectNode project = mapper.createObjectNode();
+        project.put("uuid", "benchmark-" + size.name().toLowerCase());
+        project.put("name", "Benchmark " + size.name().toLowerCase());
+
+        ArrayNode profiles = project.putArray("fixtureProfiles");
+        profiles.add(createParProfile());
+        profiles.add(createHeadProfile());
+        profiles.add(createBarProfile());
+
+        String[] barPixelKeys = new String[size.barPixels];
+
+        for (int i = 0; i < size.barPixels; i++) {
+            barPixelKeys[i] = String.valueOf(i + 1);
+        }
+
+        ArrayNode fixtures = project.putArray("fixtures");
+        int dmxChannel = 1;
+        dmxChannel = addFixtures(fixtures, PAR_PROFILE_UUID, "5ch", "Par", size.pars, 5, dmxChannel);
+        dmxChannel = addFixtures(fixtures, HEAD_PROFILE_UUID, "6ch", "Head", size.heads, 6, dmxChannel);
+        addFixtures(fixtures, BAR_PROFILE_UUID, "RGB", "Bar", size.bars, 1 + size.barPixels * 3, dmxChannel, barPixelKeys);
+
+        ArrayNode projectPresetFixtures = project.putArray("presetFixtures");
+
+        for (String[] presetFixture : presetFixtures) {
+            ObjectNode projectPresetFixture = projectPresetFixtures.addObject().put("fixtureUuid", presetFixture[0]);
+
+            if (presetFixture[1] != null) {
+                projectPresetFixture.put("pixelKey", presetFixture[1]);
+            }
+        }
+
+        ArrayNode presets = project.putArray("presets");
+
+        for (int i = 0; i < size.presets; i++) {
+            presets.add(createPreset(i));
+        }
+
+        // Each scene contains the presets in a sliding window, the regions overlap by their fading time
+        ArrayNode scenes = project.putArray("scenes");
+        ObjectNode composition = project.putArray("compositions").addObject();
+        composition.put("name", COMPOSITION_NAME);
+        composition.put("uuid", "composition");
+        composition.put("durationMillis", DURATION_MILLIS);
+        ArrayNode regions = composition.putArray("scenePlaybackRegions");
+
+        long regionMillis = DURATION_MILLIS / size.scenes;
+        int presetsPerScene = Math.max(2, size.presets * 2 / size.scenes);
+
+        for (int i = 0; i < size.scenes; i++) {
+            ObjectNode scene = scenes.addObject();
+            scene.put("uuid", "scene-" + i);
+            scene.put("name", "Scene " + (i + 1));
+            scene.put("fadeInMillis", 2000);
+            scene.put("fadeOutMillis", 2000);
+            scene.put("fadeOutPost", true);
+
+            ArrayNode presetUuids = scene.putArray("presetUuids");
+
+            for (int j = 0; j < presetsPerScene; j++) {
+                presetUuids.add("preset-" + ((i * presetsPerScene / 2 + j) % size.presets));
+            }
+
+            ObjectNode region = regions.addObject();
+            region.put("sceneUuid", "scene-" + i);
+            region.put("startMillis", Math.max(0, i * regionMillis - 2000));
+            region.put("endMillis", (i + 1) * regionMillis);
+        }
+
+        return project;
+    }
+
+}
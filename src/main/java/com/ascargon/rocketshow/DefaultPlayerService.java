@@ -3,6 +3,7 @@ package com.ascargon.rocketshow;
 import com.ascargon.rocketshow.api.ActivityNotificationAudioService;
 import com.ascargon.rocketshow.api.ActivityNotificationMidiService;
 import com.ascargon.rocketshow.api.NotificationService;
+import com.ascargon.rocketshow.api.PositionNotificationService;
 import com.ascargon.rocketshow.audio.AudioService;
 import com.ascargon.rocketshow.composition.Composition;
 import com.ascargon.rocketshow.composition.CompositionPlayer;
@@ -12,6 +13,7 @@ import com.ascargon.rocketshow.lighting.LightingService;
 import com.ascargon.rocketshow.lighting.Midi2LightingConvertService;
 import com.ascargon.rocketshow.lighting.designer.DesignerService;
 import com.ascargon.rocketshow.midi.MidiDeviceOutService;
+import com.ascargon.rocketshow.util.MetricsService;
 import com.ascargon.rocketshow.util.OperatingSystemInformationService;
 import com.sun.jna.Platform;
 import org.freedesktop.gstreamer.Gst;
@@ -46,12 +48,15 @@ public class DefaultPlayerService implements PlayerService {
     private final AudioService audioService;
     private final DesignerService designerService;
     private final OperatingSystemInformationService operatingSystemInformationService;
+    private final MetricsService metricsService;
+    private final RemoteDeviceSyncService remoteDeviceSyncService;
+    private final PositionNotificationService positionNotificationService;
 
     private final CompositionPlayer defaultCompositionPlayer;
     private final CompositionPlayer currentCompositionPlayer;
     private final List<CompositionPlayer> sampleCompositionPlayerList = new ArrayList<>();
 
-    public DefaultPlayerService(NotificationService notificationService, ActivityNotificationMidiService activityNotificationMidiService, SettingsService settingsService, CompositionService compositionService, SetService setService, SessionService sessionService, LightingService lightingService, CapabilitiesService capabilitiesService, ActivityNotificationAudioService activityNotificationAudioService, Midi2LightingConvertService midi2LightingConvertService, MidiDeviceOutService midiDeviceOutService, AudioService audioService, DesignerService designerService, OperatingSystemInformationService operatingSystemInformationService) {
+    public DefaultPlayerService(NotificationService notificationService, ActivityNotificationMidiService activityNotificationMidiService, SettingsService settingsService, CompositionService compositionService, SetService setService, SessionService sessionService, LightingService lightingService, CapabilitiesService capabilitiesService, ActivityNotificationAudioService activityNotificationAudioService, Midi2LightingConvertService midi2LightingConvertService, MidiDeviceOutService midiDeviceOutService, AudioService audioService, DesignerService designerService, OperatingSystemInformationService operatingSystemInformationService, RemoteDeviceSyncService remoteDeviceSyncService, MetricsService metricsService, PositionNotificationService positionNotificationService) {
         this.notificationService = notificationService;
         this.activityNotificationMidiService = activityNotificationMidiService;
         this.settingsService = settingsService;
@@ -66,12 +71,17 @@ public class DefaultPlayerService implements PlayerService {
         this.audioService = audioService;
         this.designerService = designerService;
         this.operatingSystemInformationService = operatingSystemInformationService;
+        this.remoteDeviceSyncService = remoteDeviceSyncService;
+        this.metricsService = metricsService;
+        this.positionNotificationService = positionNotificationService;
 
-        currentCompositionPlayer = new CompositionPlayer(notificationService, activityNotificationMidiService, this, settingsService, capabilitiesService, activityNotificationAudioService, setService, midi2LightingConvertService, lightingService, midiDeviceOutService, audioService, designerService, operatingSystemInformationService);
+        currentCompositionPlayer = new CompositionPlayer(notificationService, activityNotificationMidiService, this, settingsService, capabilitiesService, activityNotificationAudioService, setService, midi2LightingConvertService, lightingService, midiDeviceOutService, audioService, designerService, operatingSystemInformationService, metricsService);
 
-        defaultCompositionPlayer = new CompositionPlayer(notificationService, activityNotificationMidiService, this, settingsService, capabilitiesService, activityNotificationAudioService, setService, midi2LightingConvertService, lightingService, midiDeviceOutService, audioService, designerService, operatingSystemInformationService);
+        defaultCompositionPlayer = new CompositionPlayer(notificationService, activityNotificationMidiService, this, settingsService, capabilitiesService, activityNotificationAudioService, setService, midi2LightingConvertService, lightingService, midiDeviceOutService, audioService, designerService, operatingSystemInformationService, metricsService);
         defaultCompositionPlayer.setDefaultComposition(true);
 
+        positionNotificationService.start(this);
+
         try {
             // Setup the Gstreamer paths
             if (Platform.isMac()) {
@@ -133,7 +143,7 @@ public class DefaultPlayerService implements PlayerService {
             if (compositions.size() > 0) {
                 logger.debug("Set initial composition '" + compositions.get(0).getName() + "'...");
 
-                setComposition(compositions.get(0));
+                setCompositionName(compositions.get(0).getName());
             } else {
                 setComposition(null);
             }
@@ -221,6 +231,9 @@ public class DefaultPlayerService implements PlayerService {
         // Play the composition locally
         currentCompositionPlayer.play();
 
+        // Keep the remote devices in sync with the local pipeline
+        remoteDeviceSyncService.start(this);
+
         logger.debug("Playing on all devices");
     }
 
@@ -256,7 +269,7 @@ public class DefaultPlayerService implements PlayerService {
         // to share the same instance) and play it
         Composition composition = compositionService
                 .cloneComposition(compositionService.getComposition(compositionName));
-        CompositionPlayer compositionPlayer = new CompositionPlayer(notificationService, activityNotificationMidiService, this, settingsService, capabilitiesService, activityNotificationAudioService, setService, midi2LightingConvertService, lightingService, midiDeviceOutService, audioService, designerService, operatingSystemInformationService);
+        CompositionPlayer compositionPlayer = new CompositionPlayer(notificationService, activityNotificationMidiService, this, settingsService, capabilitiesService, activityNotificationAudioService, setService, midi2LightingConvertService, lightingService, midiDeviceOutService, audioService, designerService, operatingSystemInformationService, metricsService);
         compositionPlayer.setSample(true);
         compositionPlayer.setComposition(composition);
         sampleCompositionPlayerList.add(compositionPlayer);
@@ -287,6 +300,8 @@ public class DefaultPlayerService implements PlayerService {
 
     @Override
     public synchronized void stop(boolean playDefaultComposition) throws Exception {
+        remoteDeviceSyncService.stop();
+
         ExecutorService executor = Executors.newFixedThreadPool(30);
 
         // Stop all remote devices
@@ -330,6 +345,14 @@ public class DefaultPlayerService implements PlayerService {
         if (currentCompositionPlayer != null) {
             currentCompositionPlayer.seek(positionMillis);
         }
+
+        // Don't let the clients wait for the next tick (or forever, if not playing)
+        positionNotificationService.notifyClients();
+    }
+
+    @Override
+    public void setPlaybackRate(double rate) {
+        currentCompositionPlayer.setPlaybackRate(rate);
     }
 
     private synchronized void playDefaultComposition() throws Exception {
@@ -457,9 +480,18 @@ public class DefaultPlayerService implements PlayerService {
         return currentCompositionPlayer.getPositionMillis();
     }
 
+    public long getClockTimeMillis() {
+        return currentCompositionPlayer.getClockTimeMillis();
+    }
+
     public void setComposition(Composition composition, boolean playDefaultCompositionWhenStoppingComposition,
                                boolean forceLoad) throws Exception {
 
+        // A summary of the library can't be played -> load the composition itself
+        if (composition != null && composition.isSummary()) {
+            composition = compositionService.getComposition(composition.getName());
+        }
+
         if (composition != null && composition.getName().equals(this.getCompositionName()) && !forceLoad) {
             // This composition is already loaded, don't stop/load again
             return;
@@ -469,6 +501,8 @@ public class DefaultPlayerService implements PlayerService {
         stop(playDefaultCompositionWhenStoppingComposition);
 
         currentCompositionPlayer.setComposition(composition);
+
+        positionNotificationService.notifyClients();
     }
 
     public void setComposition(Composition currentComposition) throws Exception {
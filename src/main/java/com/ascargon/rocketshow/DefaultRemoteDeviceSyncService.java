@@ -0,0 +1,219 @@
+package com.ascargon.rocketshow;
+
+import com.ascargon.rocketshow.composition.CompositionPlayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically compare the position of each synchronized remote device with the position of the local pipeline.
+ * Small drifts are corrected by nudging the playback rate of the remote device, large drifts by seeking it to the
+ * local position. Each rate change flushes the remote pipeline, so the rate only takes a few fixed steps and is
+ * changed as rarely as possible.
+ */
+@Service
+public class DefaultRemoteDeviceSyncService implements RemoteDeviceSyncService {
+
+    private final static Logger logger = LoggerFactory.getLogger(DefaultRemoteDeviceSyncService.class);
+
+    // A correction only starts above this drift...
+    private final static long DRIFT_DEAD_BAND_MILLIS = 20;
+
+    // ...and is kept until the drift is below this value or has been overshot
+    private final static long DRIFT_TOLERANCE_MILLIS = 5;
+
+    // The amount of sync intervals a drift should be corrected within
+    private final static int CORRECTION_INTERVALS = 4;
+
+    // The maximum deviation from the normal playback rate (0.5%), to keep the correction inaudible
+    private final static double MAX_RATE_DEVIATION = 0.005;
+
+    // The playback rate is only changed in steps of this size (0.25%)
+    private final static double RATE_STEP = 0.0025;
+
+    private final SettingsService settingsService;
+
+    private final Map<String, Long> driftMillisMap = new ConcurrentHashMap<>();
+
+    // The playback rate last sent to each remote device
+    private final Map<String, Double> rateMap = new ConcurrentHashMap<>();
+
+    // Only start and stop are synchronized. The synchronization itself makes blocking HTTP calls and must not
+    // hold the lock, which the player service waits for when stopping.
+    private volatile ScheduledExecutorService executor;
+    private volatile PlayerService playerService;
+    private volatile int intervalMillis;
+
+    public DefaultRemoteDeviceSyncService(SettingsService settingsService) {
+        this.settingsService = settingsService;
+    }
+
+    @Override
+    public synchronized void start(PlayerService playerService) {
+        stop();
+
+        Integer intervalMillis = settingsService.getSettings().getRemoteSyncIntervalMillis();
+
+        if (intervalMillis == null || intervalMillis <= 0) {
+            // Synchronization is disabled
+            return;
+        }
+
+        boolean hasSynchronizedDevice = false;
+
+        for (RemoteDevice remoteDevice : settingsService.getSettings().getRemoteDeviceList()) {
+            if (remoteDevice.isSynchronize()) {
+                hasSynchronizedDevice = true;
+                break;
+            }
+        }
+
+        if (!hasSynchronizedDevice) {
+            return;
+        }
+
+        this.playerService = playerService;
+        this.intervalMillis = intervalMillis;
+
+        executor = Executors.newSingleThreadScheduledExecutor();
+        executor.scheduleWithFixedDelay(this::synchronize, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+        logger.debug("Remote device synchronization started");
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdownNow();
+        executor = null;
+
+        driftMillisMap.clear();
+        rateMap.clear();
+
+        logger.debug("Remote device synchronization stopped");
+    }
+
+    private static double getStepRate(long driftMillis, int intervalMillis) {
+        // Slow down a device ahead of us and speed up one behind us, so that the drift
+        // is gone after a few intervals. Round up to the next step, capped at the maximum deviation.
+        double deviation = Math.abs((double) driftMillis) / (CORRECTION_INTERVALS * Math.max(1, intervalMillis));
+        long steps = Math.min(Math.round(MAX_RATE_DEVIATION / RATE_STEP), (long) Math.ceil(deviation / RATE_STEP));
+
+        return 1 - Math.signum(driftMillis) * steps * RATE_STEP;
+    }
+
+    // The rate a remote device with the given drift and current rate should play at
+    static double getCorrectionRate(long driftMillis, double currentRate, int intervalMillis) {
+        if (currentRate == 1) {
+            if (Math.abs(driftMillis) <= DRIFT_DEAD_BAND_MILLIS) {
+                return 1;
+            }
+
+            return getStepRate(driftMillis, intervalMillis);
+        }
+
+        boolean correctingAhead = currentRate < 1;
+
+        if (Math.abs(driftMillis) <= DRIFT_TOLERANCE_MILLIS || correctingAhead != driftMillis > 0) {
+            // Caught up (or overshot) -> back to the normal rate
+            return 1;
+        }
+
+        // Keep the current step, unless the drift still grows and needs a larger one
+        double rate = getStepRate(driftMillis, intervalMillis);
+
+        return Math.abs(rate - 1) > Math.abs(currentRate - 1) + RATE_STEP / 2 ? rate : currentRate;
+    }
+
+    // Correct a measured drift by seeking the remote device to the given position or by changing its rate
+    void correct(RemoteDevice remoteDevice, long driftMillis, long positionMillis) {
+        if (Math.abs(driftMillis) > settingsService.getSettings().getRemoteSyncMaxDriftMillis()) {
+            // Too far off to catch up smoothly -> jump to the local position. The seek resets the rate.
+            logger.info("Remote device '" + remoteDevice.getName() + "' drifts by " + driftMillis + " ms. Seek to the local position.");
+
+            remoteDevice.seek(positionMillis);
+            rateMap.remove(remoteDevice.getName());
+            return;
+        }
+
+        double lastRate = rateMap.getOrDefault(remoteDevice.getName(), 1d);
+        double rate = getCorrectionRate(driftMillis, lastRate, intervalMillis);
+
+        if (rate == lastRate) {
+            // Each rate change is a flushing seek on the remote pipeline -> only send changes
+            return;
+        }
+
+        logger.debug("Remote device '" + remoteDevice.getName() + "' drifts by " + driftMillis + " ms. Set the playback rate to " + rate + ".");
+
+        remoteDevice.setPlaybackRate(rate);
+        rateMap.put(remoteDevice.getName(), rate);
+    }
+
+    private void synchronize(ScheduledExecutorService executor, RemoteDevice remoteDevice) throws Exception {
+        // Assume a symmetric network delay and compare the remote position with the
+        // local position in the middle of the request
+        long requestStartMillis = playerService.getPositionMillis();
+        long remotePositionMillis = remoteDevice.queryPositionMillis();
+        long requestEndMillis = playerService.getPositionMillis();
+
+        if (this.executor != executor) {
+            // Stopped during the request
+            return;
+        }
+
+        long driftMillis = remotePositionMillis - (requestStartMillis + requestEndMillis) / 2;
+        driftMillisMap.put(remoteDevice.getName(), driftMillis);
+
+        logger.trace("Remote device '" + remoteDevice.getName() + "' drifts by " + driftMillis + " ms");
+
+        // A seek arrives after about half the request time
+        correct(remoteDevice, driftMillis, requestEndMillis + (requestEndMillis - requestStartMillis) / 2);
+    }
+
+    private void synchronize() {
+        ScheduledExecutorService executor = this.executor;
+
+        if (executor == null || playerService.getPlayState() != CompositionPlayer.PlayState.PLAYING) {
+            return;
+        }
+
+        for (RemoteDevice remoteDevice : settingsService.getSettings().getRemoteDeviceList()) {
+            if (!remoteDevice.isSynchronize()) {
+                continue;
+            }
+
+            if (this.executor != executor) {
+                return;
+            }
+
+            try {
+                synchronize(executor, remoteDevice);
+            } catch (Exception e) {
+                logger.warn("Could not synchronize remote device '" + remoteDevice.getName() + "'", e);
+                driftMillisMap.remove(remoteDevice.getName());
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Long> getDriftMillis() {
+        return driftMillisMap;
+    }
+
+    @PreDestroy
+    public void close() {
+        stop();
+    }
+
+}
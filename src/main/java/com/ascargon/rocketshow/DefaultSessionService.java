@@ -2,10 +2,8 @@ package com.ascargon.rocketshow;
 
 import com.ascargon.rocketshow.api.NotificationService;
 import com.ascargon.rocketshow.composition.SetService;
-import jakarta.xml.bind.JAXBContext;
+import com.ascargon.rocketshow.util.JaxbService;
 import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
-import jakarta.xml.bind.Unmarshaller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -26,13 +24,15 @@ public class DefaultSessionService implements SessionService {
     private final SettingsService settingsService;
     private final SetService setService;
     private final NotificationService notificationService;
+    private final JaxbService jaxbService;
 
     private Session session;
 
-    public DefaultSessionService(SettingsService settingsService, SetService setService, NotificationService notificationService) {
+    public DefaultSessionService(SettingsService settingsService, SetService setService, NotificationService notificationService, JaxbService jaxbService) {
         this.settingsService = settingsService;
         this.setService = setService;
         this.notificationService = notificationService;
+        this.jaxbService = jaxbService;
 
         try {
             loadSession();
@@ -62,13 +62,7 @@ public class DefaultSessionService implements SessionService {
             createDirectoryIfNotExists(directory);
 
             File file = new File(directory + File.separator + FILE_NAME + ".xml");
-            JAXBContext jaxbContext = JAXBContext.newInstance(Session.class);
-            Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-
-            // output pretty printed
-            jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-
-            jaxbMarshaller.marshal(session, file);
+            jaxbService.marshal(session, file);
 
             logger.info("Session saved");
         } catch (JAXBException | IOException e) {
@@ -82,10 +76,7 @@ public class DefaultSessionService implements SessionService {
         if (file.exists()) {
             // We already have a session -> restore it from the file
             try {
-                JAXBContext jaxbContext = JAXBContext.newInstance(Session.class);
-
-                Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-                session = (Session) jaxbUnmarshaller.unmarshal(file);
+                session = jaxbService.unmarshal(Session.class, file);
 
                 logger.info("Session restored");
             } catch (JAXBException e) {
@@ -7,12 +7,11 @@ import com.ascargon.rocketshow.midi.MidiMapping;
 import com.ascargon.rocketshow.midi.MidiService;
 import com.ascargon.rocketshow.raspberry.RaspberryResetUsbService;
 import com.ascargon.rocketshow.util.OperatingSystemInformation;
+import com.ascargon.rocketshow.util.JaxbService;
+import com.ascargon.rocketshow.util.MetricsService;
 import com.ascargon.rocketshow.util.OperatingSystemInformationService;
 import com.ascargon.rocketshow.util.ShellManager;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Marshaller;
-import jakarta.xml.bind.Unmarshaller;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.config.Configurator;
 import org.slf4j.Logger;
@@ -38,15 +37,19 @@ public class DefaultSettingsService implements SettingsService {
     private final OperatingSystemInformationService operatingSystemInformationService;
     private final RaspberryResetUsbService raspberryResetUsbService;
     private final MidiService midiService;
+    private final JaxbService jaxbService;
+    private final MetricsService metricsService;
 
     private Settings settings;
 
     private final ApplicationHome applicationHome = new ApplicationHome(RocketShowApplication.class);
 
-    public DefaultSettingsService(RaspberryResetUsbService raspberryResetUsbService, OperatingSystemInformationService operatingSystemInformationService, MidiService midiService) {
+    public DefaultSettingsService(RaspberryResetUsbService raspberryResetUsbService, OperatingSystemInformationService operatingSystemInformationService, MidiService midiService, JaxbService jaxbService, MetricsService metricsService) {
         this.operatingSystemInformationService = operatingSystemInformationService;
         this.raspberryResetUsbService = raspberryResetUsbService;
         this.midiService = midiService;
+        this.jaxbService = jaxbService;
+        this.metricsService = metricsService;
 
         // Load the settings
         try {
@@ -172,6 +175,18 @@ public class DefaultSettingsService implements SettingsService {
             settings.setOffsetMillisVideo(0);
         }
 
+        if (settings.getRemoteSyncIntervalMillis() == null) {
+            settings.setRemoteSyncIntervalMillis(1000);
+        }
+
+        if (settings.getRemoteSyncMaxDriftMillis() == null) {
+            settings.setRemoteSyncMaxDriftMillis(200);
+        }
+
+        if (settings.getLibraryWatchDebounceMillis() == null) {
+            settings.setLibraryWatchDebounceMillis(500);
+        }
+
         if (settings.getAudioOutput() == null) {
             if (OperatingSystemInformation.Type.OS_X.equals(operatingSystemInformationService.getOperatingSystemInformation().getType())) {
                 settings.setAudioOutput(Settings.AudioOutput.DEFAULT);
@@ -248,10 +263,30 @@ public class DefaultSettingsService implements SettingsService {
             settings.setEnableMonitor(false);
         }
 
+        if (settings.getAudioMonitorFrequencyHertz() == null) {
+            settings.setAudioMonitorFrequencyHertz(25);
+        }
+
         if (settings.getDesignerFrequencyHertz() == null) {
             settings.setDesignerFrequencyHertz(40);
         }
 
+        if (settings.getPositionFrequencyHertz() == null) {
+            settings.setPositionFrequencyHertz(10);
+        }
+
+        if (settings.getEnableMetrics() == null) {
+            settings.setEnableMetrics(false);
+        }
+
+        if (settings.getEnableFlightRecorder() == null) {
+            settings.setEnableFlightRecorder(false);
+        }
+
+        if (settings.getFlightRecorderMaxAgeMinutes() == null) {
+            settings.setFlightRecorderMaxAgeMinutes(15);
+        }
+
         if (settings.getDesignerLivePreview() == null) {
             settings.setDesignerLivePreview(true);
         }
@@ -534,6 +569,8 @@ public class DefaultSettingsService implements SettingsService {
     private void updateSystem() {
         // Update all system settings
 
+        metricsService.setEnabled(settings.getEnableMetrics());
+
         if (OperatingSystemInformation.Type.LINUX.equals(operatingSystemInformationService.getOperatingSystemInformation().getType())) {
             try {
                 updateAudioSystem();
@@ -560,13 +597,7 @@ public class DefaultSettingsService implements SettingsService {
     @Override
     public void save() throws JAXBException {
         File file = new File(applicationHome.getDir() + File.separator + FILE_NAME + ".xml");
-        JAXBContext jaxbContext = JAXBContext.newInstance(Settings.class);
-        Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-
-        // output pretty printed
-        jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-
-        jaxbMarshaller.marshal(settings, file);
+        jaxbService.marshal(settings, file);
 
         logger.info("Settings saved");
     }
@@ -581,10 +612,7 @@ public class DefaultSettingsService implements SettingsService {
         }
 
         // Restore the session from the file
-        JAXBContext jaxbContext = JAXBContext.newInstance(Settings.class);
-
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-        this.setSettings((Settings) jaxbUnmarshaller.unmarshal(file));
+        this.setSettings(jaxbService.unmarshal(Settings.class, file));
 
         // Reset the USB interface, if needed
         try {
@@ -24,6 +24,8 @@ public interface PlayerService {
 
     void seek(long positionMillis) throws Exception;
 
+    void setPlaybackRate(double rate) throws Exception;
+
     void setNextComposition() throws Exception;
 
     void setPreviousComposition() throws Exception;
@@ -47,6 +49,9 @@ public interface PlayerService {
 
     long getPositionMillis();
 
+    // The time of the pipeline clock, to relate the position to, or -1 without a pipeline
+    long getClockTimeMillis();
+
     void compositionPlayerFinishedPlaying(CompositionPlayer compositionPlayer) throws Exception;
 
 }
@@ -4,6 +4,7 @@ import jakarta.xml.bind.annotation.XmlRootElement;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.util.EntityUtils;
@@ -25,6 +26,10 @@ public class RemoteDevice {
 
     private final static Logger logger = LoggerFactory.getLogger(RemoteDevice.class);
 
+    // Timeout for the position queries used by the synchronization. These have to
+    // be answered quickly, otherwise the measured drift is meaningless anyway.
+    private final static int POSITION_QUERY_TIMEOUT_MILLIS = 1000;
+
     private final HttpClient httpClient;
 
     // The name of the remote device
@@ -43,11 +48,15 @@ public class RemoteDevice {
     }
 
     private void executeRequest(String url) {
+        RemoteDeviceCommandEvent event = new RemoteDeviceCommandEvent();
+        event.begin();
+
         try {
             HttpPost httpPost = new HttpPost(url);
             HttpResponse response;
 
             response = httpClient.execute(httpPost);
+            event.statusCode = response.getStatusLine().getStatusCode();
 
             // Read the response. The POST connection will not be
             // released
@@ -67,6 +76,14 @@ public class RemoteDevice {
             }
         } catch (Exception e) {
             logger.error("Could not execute action on remote device '" + name + "' with url '" + url + "'", e);
+        } finally {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.device = name;
+                event.url = url;
+                event.commit();
+            }
         }
     }
 
@@ -85,6 +102,28 @@ public class RemoteDevice {
         doPost(apiUrl, false);
     }
 
+    private String doGet(String apiUrl, int timeoutMillis) throws Exception {
+        HttpGet httpGet = new HttpGet("http://" + host + "/api/" + apiUrl);
+        httpGet.setConfig(RequestConfig.custom().setConnectTimeout(timeoutMillis).setSocketTimeout(timeoutMillis).build());
+
+        HttpResponse response = httpClient.execute(httpGet);
+
+        // Always consume the entity to release the connection
+        String body = EntityUtils.toString(response.getEntity());
+
+        if (response.getStatusLine().getStatusCode() != 200) {
+            throw new Exception("Could not execute GET on remote device '" + name + "' with url '" + apiUrl + "'. Reason: '"
+                    + response.getStatusLine().getReasonPhrase() + "'. Body: " + body);
+        }
+
+        return body;
+    }
+
+    // Not named as a getter on purpose, because this class is serialized with the settings
+    public long queryPositionMillis() throws Exception {
+        return Long.parseLong(doGet("transport/position", POSITION_QUERY_TIMEOUT_MILLIS).trim());
+    }
+
     public void reboot() {
         doPost("system/reboot");
     }
@@ -114,6 +153,14 @@ public class RemoteDevice {
         doPost("transport/pause");
     }
 
+    public void seek(long positionMillis) {
+        doPost("transport/seek?positionMillis=" + positionMillis);
+    }
+
+    public void setPlaybackRate(double rate) {
+        doPost("transport/playback-rate?rate=" + rate);
+    }
+
     public void stop(boolean playDefaultComposition) {
         doPost("transport/stop?playDefaultComposition=" + playDefaultComposition);
     }
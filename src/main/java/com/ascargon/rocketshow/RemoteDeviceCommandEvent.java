@@ -0,0 +1,23 @@
+package com.ascargon.rocketshow;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event for a command sent to a remote device.
+ */
+@Name("rocketshow.RemoteDeviceCommand")
+@Label("Remote Device Command")
+@Category({"Rocket Show", "Remote Device"})
+@StackTrace(false)
+class RemoteDeviceCommandEvent extends Event {
+
+    @Label("Device")
+    String device;
+
+    @Label("URL")
+    String url;
+
+    @Label("Status Code")
+    int statusCode;
+
+}
@@ -0,0 +1,20 @@
+package com.ascargon.rocketshow;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+
+/**
+ * Keep the play position of synchronized remote devices aligned with the local one.
+ */
+@Service
+public interface RemoteDeviceSyncService {
+
+    void start(PlayerService playerService);
+
+    void stop();
+
+    // The last measured drift per remote device name (positive, if the remote device is ahead)
+    Map<String, Long> getDriftMillis();
+
+}
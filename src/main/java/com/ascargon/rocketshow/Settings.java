@@ -57,6 +57,14 @@ public class Settings {
     private Integer offsetMillisAudio;
     private Integer offsetMillisVideo;
 
+    // Interval to compare the play position of synchronized remote devices with the local one (0 to disable)
+    // and the drift, above which a remote device is seeked instead of being slowly caught up
+    private Integer remoteSyncIntervalMillis;
+    private Integer remoteSyncMaxDriftMillis;
+
+    // Wait for this time after the last change in the library folders, before the changes are reloaded
+    private Integer libraryWatchDebounceMillis;
+
     private List<MidiRouting> deviceInMidiRoutingList = new ArrayList<>();
     private List<MidiRouting> remoteMidiRoutingList = new ArrayList<>();
     private String defaultComposition;
@@ -87,7 +95,14 @@ public class Settings {
     private int raspberryGpioTimerPeriodMillis = 2;
     private int raspberryGpioCyclesHigh = 3;
     private Boolean enableMonitor;
+    private Integer audioMonitorFrequencyHertz;
     private Integer designerFrequencyHertz;
+    private Integer positionFrequencyHertz;
+    private Boolean enableMetrics;
+
+    // Keep a flight recording of the last minutes, to analyze glitches after a show
+    private Boolean enableFlightRecorder;
+    private Integer flightRecorderMaxAgeMinutes;
     private Boolean designerLivePreview = false;
     private Boolean updateTestBranch = false;
 
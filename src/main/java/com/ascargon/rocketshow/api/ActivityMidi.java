@@ -20,6 +20,11 @@ public class ActivityMidi {
 
     private List<MidiDestination> midiDestinations = new ArrayList<>();
 
+    // All signals of the activity with their count. The signal above is the first one.
+    private List<ActivityMidiSignal> midiSignals = new ArrayList<>();
+
+    private int signalCount;
+
     public ActivityMidiSignal getMidiSignal() {
         return midiSignal;
     }
@@ -51,4 +56,20 @@ public class ActivityMidi {
     public void setMidiDestinations(List<MidiDestination> midiDestinations) {
         this.midiDestinations = midiDestinations;
     }
+
+    public List<ActivityMidiSignal> getMidiSignals() {
+        return midiSignals;
+    }
+
+    public void setMidiSignals(List<ActivityMidiSignal> midiSignals) {
+        this.midiSignals = midiSignals;
+    }
+
+    public int getSignalCount() {
+        return signalCount;
+    }
+
+    public void setSignalCount(int signalCount) {
+        this.signalCount = signalCount;
+    }
 }
@@ -1,11 +1,11 @@
 package com.ascargon.rocketshow.api;
 
-import com.ascargon.rocketshow.lighting.LightingUniverse;
 import org.springframework.stereotype.Service;
 
 @Service
 public interface ActivityNotificationLightingService {
 
-    void notifyClients(LightingUniverse lightingUniverse);
+    // Notify the clients about the values of the mixed universe
+    void notifyClients(short[] universe);
 
 }
@@ -0,0 +1,149 @@
+package com.ascargon.rocketshow.api;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Apply peak-hold and decay to the audio levels of the pipeline and encode them into compact binary frames for the
+ * monitor:
+ *
+ * <pre>
+ * byte    bus count
+ * per bus:
+ *   byte    channel count
+ *   per channel: byte level, byte held peak
+ * </pre>
+ * <p>
+ * A level is encoded in steps of 0.5 dB below full scale, i.e. 0 is 0 dB and 255 is -127.5 dB or less. The buses are
+ * in the order of the settings. Channels not assigned to a bus and the channels of buses not subscribed by a client
+ * are not sent.
+ */
+class AudioLevelMeter {
+
+    final static double SILENCE_DB = -127.5;
+
+    private final static double DECAY_DB_PER_SECOND = 20;
+    private final static long PEAK_HOLD_MILLIS = 1000;
+
+    // The channels of each bus, mapped once for all frames
+    private int[] busChannelCounts = new int[0];
+
+    private double[] levelDbs = new double[0];
+    private double[] holdDbs = new double[0];
+    private long[] holdUntilMillis = new long[0];
+
+    private long lastUpdateMillis;
+    private boolean active = false;
+
+    // Assign the channels of the pipeline to the buses in order
+    void mapChannels(int[] audioBusChannels) {
+        int[] counts = new int[audioBusChannels.length];
+        int busCount = 0;
+        int mappedChannels = 0;
+
+        for (int audioBusChannel : audioBusChannels) {
+            if (mappedChannels >= levelDbs.length) {
+                break;
+            }
+
+            counts[busCount] = Math.min(audioBusChannel, levelDbs.length - mappedChannels);
+            mappedChannels += counts[busCount];
+            busCount++;
+        }
+
+        busChannelCounts = Arrays.copyOf(counts, busCount);
+    }
+
+    int getChannelCount() {
+        return levelDbs.length;
+    }
+
+    void setChannelCount(int channelCount) {
+        levelDbs = new double[channelCount];
+        holdDbs = new double[channelCount];
+        holdUntilMillis = new long[channelCount];
+
+        Arrays.fill(levelDbs, SILENCE_DB);
+        Arrays.fill(holdDbs, SILENCE_DB);
+    }
+
+    // Decay the levels since the last update and raise them to the new peaks, if available
+    void update(double[] peakDbs, long nowMillis) {
+        double decayDb = lastUpdateMillis == 0 ? 0 : DECAY_DB_PER_SECOND * (nowMillis - lastUpdateMillis) / 1000d;
+        lastUpdateMillis = nowMillis;
+
+        for (int i = 0; i < levelDbs.length; i++) {
+            double levelDb = Math.max(levelDbs[i] - decayDb, SILENCE_DB);
+
+            if (peakDbs != null && i < peakDbs.length) {
+                levelDb = Math.max(levelDb, peakDbs[i]);
+            }
+
+            levelDbs[i] = levelDb;
+
+            if (levelDb >= holdDbs[i]) {
+                holdDbs[i] = levelDb;
+                holdUntilMillis[i] = nowMillis + PEAK_HOLD_MILLIS;
+            } else if (nowMillis > holdUntilMillis[i]) {
+                holdDbs[i] = Math.max(holdDbs[i] - decayDb, levelDb);
+            }
+        }
+    }
+
+    private static byte encodeDb(double db) {
+        return (byte) Math.max(0, Math.min(255, Math.round(-db * 2)));
+    }
+
+    // Whether a frame has to be sent, i.e. the levels are not silent or have just become silent. Must be called
+    // once per update.
+    boolean isFrameRequired() {
+        boolean wasActive = active;
+        active = false;
+
+        for (double holdDb : holdDbs) {
+            if (holdDb > SILENCE_DB) {
+                active = true;
+                break;
+            }
+        }
+
+        return active || wasActive;
+    }
+
+    // Encode the current levels of the buses or all buses, if null
+    ByteBuffer encode(Set<Integer> audioBuses) {
+        int size = 1 + busChannelCounts.length;
+
+        for (int bus = 0; bus < busChannelCounts.length; bus++) {
+            if (audioBuses == null || audioBuses.contains(bus)) {
+                size += busChannelCounts[bus] * 2;
+            }
+        }
+
+        ByteBuffer frame = ByteBuffer.allocate(size);
+        frame.put((byte) busChannelCounts.length);
+
+        int channel = 0;
+
+        for (int bus = 0; bus < busChannelCounts.length; bus++) {
+            if (audioBuses != null && !audioBuses.contains(bus)) {
+                frame.put((byte) 0);
+                channel += busChannelCounts[bus];
+                continue;
+            }
+
+            frame.put((byte) busChannelCounts[bus]);
+
+            for (int i = 0; i < busChannelCounts[bus]; i++) {
+                frame.put(encodeDb(levelDbs[channel]));
+                frame.put(encodeDb(holdDbs[channel]));
+                channel++;
+            }
+        }
+
+        frame.flip();
+        return frame;
+    }
+
+}
@@ -2,14 +2,15 @@ package com.ascargon.rocketshow.api;
 
 import com.ascargon.rocketshow.composition.CompositionFile;
 import com.ascargon.rocketshow.composition.CompositionFileService;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
+import com.ascargon.rocketshow.composition.MediaMetadataService;
+import com.ascargon.rocketshow.util.FileDownloadService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.FileInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @RestController()
@@ -19,10 +20,14 @@ public class CompositionFileController {
 
     private final ControllerService controllerService;
     private final CompositionFileService compositionFileService;
+    private final MediaMetadataService mediaMetadataService;
+    private final FileDownloadService fileDownloadService;
 
-    public CompositionFileController(ControllerService controllerService, CompositionFileService compositionFileService) {
+    public CompositionFileController(ControllerService controllerService, CompositionFileService compositionFileService, MediaMetadataService mediaMetadataService, FileDownloadService fileDownloadService) {
         this.controllerService = controllerService;
         this.compositionFileService = compositionFileService;
+        this.mediaMetadataService = mediaMetadataService;
+        this.fileDownloadService = fileDownloadService;
     }
 
     @ExceptionHandler(Exception.class)
@@ -39,10 +44,21 @@ public class CompositionFileController {
     public CompositionFile upload(
             @RequestParam("file") MultipartFile file,
             @RequestParam("dzchunkindex") Long dzchunkindex,
-            @RequestParam("dztotalchunkcount") Long dztotalchunkcount
+            @RequestParam("dztotalchunkcount") Long dztotalchunkcount,
+            @RequestParam(value = "dzuuid", required = false) String dzuuid,
+            @RequestParam(value = "dzchunkbyteoffset", required = false) Long dzchunkbyteoffset,
+            @RequestParam(value = "dztotalfilesize", required = false) Long dztotalfilesize,
+            @RequestParam(value = "checksum", required = false) String checksum
     ) throws Exception {
         String fileName = file.getOriginalFilename();
         CompositionFile compositionFile = null;
+        if (dzuuid != null && dzchunkbyteoffset != null && dztotalfilesize != null) {
+            // Write the chunk at its offset, which allows retries and resuming
+            if (compositionFileService.saveFileAddChunk(file.getInputStream(), fileName, dzuuid, dzchunkbyteoffset, dztotalfilesize, checksum)) {
+                compositionFile = compositionFileService.saveFileFinish(fileName);
+            }
+            return compositionFile;
+        }
         if (dzchunkindex == 0) {
             compositionFileService.saveFileInit(fileName);
         }
@@ -59,13 +75,17 @@ public class CompositionFileController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
-    @GetMapping("get")
-    public ResponseEntity<Resource> getFile(@RequestParam("name") String name, @RequestParam("type") String type) throws Exception {
-        InputStreamResource resource = new InputStreamResource(new FileInputStream(compositionFileService.getFile(name, type)));
+    // Discover the metadata of all media files again in the background
+    @PostMapping("rescan")
+    public ResponseEntity<Void> rescan() {
+        mediaMetadataService.rescanAll();
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
 
-        return ResponseEntity
-                .ok()
-                .body(resource);
+    // Supports range requests, to seek in the preview of long audio and video files
+    @GetMapping("get")
+    public void getFile(@RequestParam("name") String name, @RequestParam("type") String type, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        fileDownloadService.sendFile(compositionFileService.getFile(name, type), request, response);
     }
 
 }
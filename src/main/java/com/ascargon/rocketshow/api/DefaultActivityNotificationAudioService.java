@@ -2,104 +2,186 @@ package com.ascargon.rocketshow.api;
 
 import com.ascargon.rocketshow.SettingsService;
 import com.ascargon.rocketshow.audio.AudioBus;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
 
-import java.io.IOException;
+import javax.annotation.PreDestroy;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Notify all connected websocket clients about an audio event.
+ * Notify all connected websocket clients about the audio levels. The levels posted by the pipeline only replace
+ * the pending peaks, without blocking its bus thread. A single sender meters them at the configured frequency and
+ * sends binary frames, see {@link AudioLevelMeter}.
  */
 @Service
-public class DefaultActivityNotificationAudioService extends TextWebSocketHandler implements ActivityNotificationAudioService {
+public class DefaultActivityNotificationAudioService extends BinaryWebSocketHandler implements ActivityNotificationAudioService {
 
     private final static Logger logger = LoggerFactory.getLogger(DefaultActivityNotificationAudioService.class);
 
     private final SettingsService settingsService;
 
-    private final List<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+    private final WebSocketBroadcaster broadcaster;
 
-    public DefaultActivityNotificationAudioService(SettingsService settingsService) {
+    // The highest peaks posted since the last frame
+    private final AtomicReference<double[]> pendingPeakDbs = new AtomicReference<>();
+
+    // Only used by the sender
+    private final AudioLevelMeter audioLevelMeter = new AudioLevelMeter();
+    private List<AudioBus> mappedAudioBusList;
+
+    private final ScheduledExecutorService meterScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audio-meter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Running while clients are connected
+    private ScheduledFuture<?> meterFuture;
+    private long meterPeriodMillis;
+
+    public DefaultActivityNotificationAudioService(SettingsService settingsService, WebSocketBroadcastService webSocketBroadcastService) {
         this.settingsService = settingsService;
+
+        broadcaster = webSocketBroadcastService.createBroadcaster("activity/audio");
+    }
+
+    private long getPeriodMillis() {
+        return Math.max(1, 1000 / Math.max(1, settingsService.getSettings().getAudioMonitorFrequencyHertz()));
+    }
+
+    private synchronized void startMeter() {
+        if (meterFuture != null) {
+            return;
+        }
+
+        meterPeriodMillis = getPeriodMillis();
+        meterFuture = meterScheduler.scheduleAtFixedRate(this::meter, 0, meterPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stopMeter() {
+        if (meterFuture == null) {
+            return;
+        }
+
+        meterFuture.cancel(false);
+        meterFuture = null;
+    }
+
+    // Checked in the lock, to not stop the meter for a client connecting meanwhile
+    private synchronized boolean stopMeterIfIdle() {
+        if (broadcaster.hasSubscribers()) {
+            return false;
+        }
+
+        stopMeter();
+        return true;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        sessions.add(session);
+        broadcaster.addSession(session);
+        startMeter();
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session);
+        broadcaster.removeSession(session);
     }
 
-    private synchronized void sendWebsocketMessage(double[] volumeDbs) throws IOException {
-        ActivityAudio activityAudio = new ActivityAudio();
-
-        int currentAudioBusIndex = -1;
-        AudioBus currentAudioBus = settingsService.getSettings().getAudioBusList().get(0);
-        ActivityAudioBus currentActivityAudioBus = null;
-        int currentChannel = Integer.MAX_VALUE;
-
-        // Fill all volumes into the corresponding buses
-        for (double volumeDb : volumeDbs) {
-            if (currentChannel >= currentAudioBus.getChannels()) {
-                currentAudioBusIndex++;
-
-                if (settingsService.getSettings().getAudioBusList().size() > currentAudioBusIndex) {
-                    // Create a new activity channel
-                    currentAudioBus = settingsService.getSettings().getAudioBusList().get(currentAudioBusIndex);
-                    currentActivityAudioBus = new ActivityAudioBus();
-                    currentActivityAudioBus.setName(currentAudioBus.getName());
-                    activityAudio.getActivityAudioBusList().add(currentActivityAudioBus);
-                    currentChannel = 0;
-                } else {
-                    // More channels present than defined in the audio buses
-                    break;
-                }
-            }
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        broadcaster.subscribe(session, message.getPayload());
+        startMeter();
+    }
 
-            // Add this channel to the current activity-bus
-            ActivityAudioChannel activityAudioChannel = new ActivityAudioChannel();
-            activityAudioChannel.setIndex(currentChannel);
-            activityAudioChannel.setVolumeDb(volumeDb);
-            currentActivityAudioBus.getActivityAudioChannelList().add(activityAudioChannel);
+    private void mapChannels(int channelCount) {
+        List<AudioBus> audioBusList = settingsService.getSettings().getAudioBusList();
 
-            currentChannel++;
+        if (audioBusList == mappedAudioBusList && channelCount == audioLevelMeter.getChannelCount()) {
+            return;
         }
 
-        ObjectMapper mapper = new ObjectMapper();
-        String returnValue = mapper.writeValueAsString(activityAudio);
+        int[] audioBusChannels = new int[audioBusList.size()];
 
-        for (WebSocketSession webSocketSession : sessions) {
-            try {
-                webSocketSession.sendMessage(new TextMessage(returnValue));
-            } catch (Exception e) {
-                sessions.remove(webSocketSession);
+        for (int i = 0; i < audioBusList.size(); i++) {
+            audioBusChannels[i] = audioBusList.get(i).getChannels();
+        }
+
+        if (channelCount != audioLevelMeter.getChannelCount()) {
+            audioLevelMeter.setChannelCount(channelCount);
+        }
+
+        audioLevelMeter.mapChannels(audioBusChannels);
+        mappedAudioBusList = audioBusList;
+    }
+
+    private void meter() {
+        try {
+            if (stopMeterIfIdle()) {
+                return;
+            }
+
+            // Apply a changed frequency
+            if (getPeriodMillis() != meterPeriodMillis) {
+                stopMeter();
+                startMeter();
+                return;
+            }
+
+            double[] peakDbs = pendingPeakDbs.getAndSet(null);
+
+            if (peakDbs != null) {
+                mapChannels(peakDbs.length);
             }
+
+            audioLevelMeter.update(peakDbs, System.currentTimeMillis());
+
+            if (audioLevelMeter.isFrameRequired()) {
+                broadcaster.broadcastSample(subscription -> new BinaryMessage(audioLevelMeter.encode(subscription.getAudioBuses())));
+            }
+        } catch (Exception e) {
+            // An exception would cancel the meter
+            logger.error("Could not send the audio levels", e);
         }
     }
 
     @Override
     public void notifyClients(double[] volumeDbs) {
-        // Wrap in a thread, to not block the main thread and make synchronized calls
-        // to websocket (two writes to the same session from different threads is not allowed)
-        Thread thread = new Thread(() -> {
-            try {
-                sendWebsocketMessage(volumeDbs);
-            } catch (IOException e) {
-                logger.error("Could not send audio activity message", e);
+        if (!broadcaster.hasSubscribers()) {
+            return;
+        }
+
+        // Keep the highest peaks, if the sender hasn't taken the previous ones yet. The accumulator is retried on
+        // contention and must not change its arguments.
+        pendingPeakDbs.accumulateAndGet(volumeDbs, (previousDbs, peakDbs) -> {
+            if (previousDbs == null || previousDbs.length != peakDbs.length) {
+                return peakDbs;
             }
+
+            double[] maxDbs = new double[peakDbs.length];
+
+            for (int i = 0; i < peakDbs.length; i++) {
+                maxDbs[i] = Math.max(peakDbs[i], previousDbs[i]);
+            }
+
+            return maxDbs;
         });
-        thread.start();
+    }
+
+    @PreDestroy
+    public void close() {
+        meterScheduler.shutdownNow();
     }
 
 }
@@ -1,85 +1,74 @@
 package com.ascargon.rocketshow.api;
 
-import com.ascargon.rocketshow.lighting.LightingUniverse;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.BinaryMessage;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
 
-import java.io.IOException;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.nio.ByteBuffer;
 
 /**
- * Notify all connected websocket clients about a MIDI event.
+ * Notify all connected websocket clients about the lighting universe. Each frame only contains the channels
+ * changed since the previous one, see {@link LightingActivityFrameEncoder}.
  */
 @Service
-public class DefaultActivityNotificationLightingService extends TextWebSocketHandler implements ActivityNotificationLightingService {
+public class DefaultActivityNotificationLightingService extends BinaryWebSocketHandler implements ActivityNotificationLightingService {
 
-    private final static Logger logger = LoggerFactory.getLogger(DefaultActivityNotificationLightingService.class);
+    private final WebSocketBroadcaster broadcaster;
 
-    private final List<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+    // The universe sent to OLA
+    private final static int UNIVERSE_ID = 1;
 
-    private Timer sendActivityTimer;
+    private final LightingActivityFrameEncoder frameEncoder = new LightingActivityFrameEncoder(UNIVERSE_ID);
+
+    private static boolean isSubscribed(WebSocketSubscription subscription) {
+        return subscription.getUniverses() == null || subscription.getUniverses().contains(UNIVERSE_ID);
+    }
+
+    public DefaultActivityNotificationLightingService(WebSocketBroadcastService webSocketBroadcastService) {
+        broadcaster = webSocketBroadcastService.createBroadcaster("activity/lighting");
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        sessions.add(session);
+        // Send the current universe to all clients, after the new one has been added to be in sequence
+        synchronized (frameEncoder) {
+            broadcaster.addSession(session);
+            broadcaster.broadcast(new BinaryMessage(frameEncoder.encodeNextKeyframe()), DefaultActivityNotificationLightingService::isSubscribed);
+        }
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session);
+        broadcaster.removeSession(session);
     }
 
-    private synchronized void sendWebsocketMessage(LightingUniverse lightingUniverse) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        String returnValue = mapper.writeValueAsString(lightingUniverse);
-
-        for (WebSocketSession webSocketSession : sessions) {
-            try {
-                webSocketSession.sendMessage(new TextMessage(returnValue));
-            } catch (Exception e) {
-                sessions.remove(webSocketSession);
-            }
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        // The client missed the frames while not subscribed
+        synchronized (frameEncoder) {
+            broadcaster.subscribe(session, message.getPayload());
+            broadcaster.broadcast(new BinaryMessage(frameEncoder.encodeNextKeyframe()), DefaultActivityNotificationLightingService::isSubscribed);
         }
     }
 
     @Override
-    public void notifyClients(LightingUniverse lightingUniverse) {
-        // Mix all pending events into one instead of dropping information
-
-        if (sendActivityTimer != null) {
-            // There is already a timer running -> let it finish and ignore this event for performance reasons
-            return;
-        }
-
-        TimerTask timerTask = new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    // Send the universe
-                    sendWebsocketMessage(lightingUniverse);
-                } catch (Exception e) {
-                    logger.error("Could not send the lighting activity", e);
-                }
+    public void notifyClients(short[] universe) {
+        synchronized (frameEncoder) {
+            if (!broadcaster.hasSubscribers(DefaultActivityNotificationLightingService::isSubscribed)) {
+                // Keep the current universe for the keyframe, as soon as a client connects
+                frameEncoder.update(universe);
+                return;
+            }
 
-                if (sendActivityTimer != null) {
-                    sendActivityTimer.cancel();
-                }
+            ByteBuffer frame = frameEncoder.encode(universe);
 
-                sendActivityTimer = null;
+            if (frame != null) {
+                broadcaster.broadcast(new BinaryMessage(frame), DefaultActivityNotificationLightingService::isSubscribed);
             }
-        };
-
-        sendActivityTimer = new Timer();
-        sendActivityTimer.schedule(timerTask, 50);
+        }
     }
 
 }
@@ -1,10 +1,8 @@
 package com.ascargon.rocketshow.api;
 
-import com.ascargon.rocketshow.midi.ActivityMidiSignal;
 import com.ascargon.rocketshow.midi.MidiDestination;
 import com.ascargon.rocketshow.midi.MidiDirection;
 import com.ascargon.rocketshow.midi.MidiSource;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -13,121 +11,118 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import javax.annotation.PreDestroy;
 import javax.sound.midi.MidiMessage;
 import javax.sound.midi.ShortMessage;
-import java.io.IOException;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Notify all connected websocket clients about a MIDI event.
+ * Notify all connected websocket clients about MIDI events. All events of a short window are recorded and sent
+ * together as one activity.
  */
 @Service
 public class DefaultActivityNotificationMidiService extends TextWebSocketHandler implements ActivityNotificationMidiService {
 
     private final static Logger logger = LoggerFactory.getLogger(DefaultActivityNotificationMidiService.class);
 
-    private final List<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+    private final static long WINDOW_MILLIS = 50;
 
-    private Timer sendActivityTimer;
+    private final WebSocketBroadcaster broadcaster;
 
-    private ActivityMidi activityMidi;
+    // The window currently recording and the cleared one to continue with, which is only used by the scheduler
+    private final AtomicReference<MidiActivityWindow> activeWindow = new AtomicReference<>(new MidiActivityWindow());
+    private MidiActivityWindow spareWindow = new MidiActivityWindow();
+
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "midi-activity");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DefaultActivityNotificationMidiService(WebSocketBroadcastService webSocketBroadcastService) {
+        broadcaster = webSocketBroadcastService.createBroadcaster("activity/midi");
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        sessions.add(session);
+        broadcaster.addSession(session);
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session);
+        broadcaster.removeSession(session);
     }
 
-    private synchronized void sendWebsocketMessage() throws IOException {
-        if (activityMidi == null) {
-            return;
-        }
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        broadcaster.subscribe(session, message.getPayload());
+    }
 
-        ObjectMapper mapper = new ObjectMapper();
-        String returnValue = mapper.writeValueAsString(activityMidi);
+    private static boolean isSubscribed(WebSocketSubscription subscription, ActivityMidi activityMidi) {
+        return (subscription.getMidiSources() == null || !Collections.disjoint(subscription.getMidiSources(), activityMidi.getMidiSources()))
+                && (subscription.getMidiDestinations() == null || !Collections.disjoint(subscription.getMidiDestinations(), activityMidi.getMidiDestinations()));
+    }
 
-        for (WebSocketSession webSocketSession : sessions) {
-            try {
-                webSocketSession.sendMessage(new TextMessage(returnValue));
-            } catch (Exception e) {
-                sessions.remove(webSocketSession);
+    private void flush() {
+        // Continue with the spare window and wait for the signals still being recorded into the previous one
+        MidiActivityWindow window = activeWindow.getAndSet(spareWindow);
+        window.awaitWriters();
+
+        try {
+            if (!window.isEmpty()) {
+                ActivityMidi activityMidi = window.createActivity();
+                broadcaster.broadcast(activityMidi, subscription -> isSubscribed(subscription, activityMidi));
             }
+        } catch (Exception e) {
+            logger.error("Could not send the MIDI activity", e);
+        } finally {
+            window.reset();
+            spareWindow = window;
         }
-
-        activityMidi = null;
     }
 
     @Override
     public void notifyClients(MidiMessage midiMessage, MidiDirection midiDirection, MidiSource midiSource, MidiDestination midiDestination) {
         // only notify short messages
-        if (!(midiMessage instanceof ShortMessage)) {
+        if (!(midiMessage instanceof ShortMessage) || !broadcaster.hasSubscribers()) {
             return;
         }
 
-        ShortMessage shortMessage = (ShortMessage) midiMessage;
+        MidiActivityWindow window;
 
-        // Mix the current event into the pending activity or create a new one
-        if (activityMidi == null) {
-            // Create a new MIDI activity
-            activityMidi = new ActivityMidi();
+        // Make sure, the window is still active after entering it. Otherwise, the signal might be recorded after
+        // the window has been sent.
+        while (true) {
+            window = activeWindow.get();
+            window.enter();
 
-            activityMidi.setMidiSignal(new ActivityMidiSignal(shortMessage));
-            activityMidi.setMidiDirection(midiDirection);
-            if (midiSource != null) {
-                activityMidi.getMidiSources().add(midiSource);
-            }
-            if (midiDestination != null) {
-                activityMidi.getMidiDestinations().add(midiDestination);
-            }
-        } else {
-            // Mix the current MIDI event into the pending activity
-            // TODO mix the signal
-
-            if (!activityMidi.getMidiDirection().equals(midiDirection)) {
-                activityMidi.setMidiDirection(MidiDirection.IN_OUT);
-            }
-
-            if (midiSource != null && !activityMidi.getMidiSources().contains(midiSource)) {
-                activityMidi.getMidiSources().add(midiSource);
+            if (activeWindow.get() == window) {
+                break;
             }
 
-            if (midiDestination != null && !activityMidi.getMidiDestinations().contains(midiDestination)) {
-                activityMidi.getMidiDestinations().add(midiDestination);
-            }
+            window.exit();
         }
 
-        if (sendActivityTimer != null) {
-            // There is already a timer running -> let it finish and ignore this event for performance reasons
-            return;
-        }
+        try {
+            window.record((ShortMessage) midiMessage, midiDirection, midiSource, midiDestination);
 
-        TimerTask timerTask = new TimerTask() {
-            @Override
-            public void run() {
-                try {
-                    // Send the universe
-                    sendWebsocketMessage();
-                } catch (Exception e) {
-                    logger.error("Could not send the MIDI activity", e);
-                }
-
-                if (sendActivityTimer != null) {
-                    sendActivityTimer.cancel();
-                }
-
-                sendActivityTimer = null;
+            // Send the window after its first signal. Scheduled before exiting, because the window can be reused
+            // afterwards.
+            if (window.scheduled.compareAndSet(false, true)) {
+                flushScheduler.schedule(this::flush, WINDOW_MILLIS, TimeUnit.MILLISECONDS);
             }
-        };
+        } finally {
+            window.exit();
+        }
+    }
 
-        sendActivityTimer = new Timer();
-        sendActivityTimer.schedule(timerTask, 50);
+    @PreDestroy
+    public void close() {
+        flushScheduler.shutdownNow();
     }
 
 }
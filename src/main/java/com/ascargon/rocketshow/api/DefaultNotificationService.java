@@ -4,7 +4,6 @@ import com.ascargon.rocketshow.PlayerService;
 import com.ascargon.rocketshow.composition.CompositionService;
 import com.ascargon.rocketshow.composition.SetService;
 import com.ascargon.rocketshow.util.UpdateService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
@@ -12,8 +11,6 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Notify all connected websocket clients about the current device state.
@@ -24,76 +21,85 @@ public class DefaultNotificationService extends TextWebSocketHandler implements
     private final StateService stateService;
     private final CompositionService compositionService;
 
-    private final List<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+    private final WebSocketBroadcaster broadcaster;
 
-    public DefaultNotificationService(StateService stateService, CompositionService compositionService) {
+    public DefaultNotificationService(StateService stateService, CompositionService compositionService, WebSocketBroadcastService webSocketBroadcastService) {
         this.stateService = stateService;
         this.compositionService = compositionService;
+
+        broadcaster = webSocketBroadcastService.createBroadcaster("state");
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        sessions.add(session);
+        broadcaster.addSession(session);
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
-        sessions.remove(session);
+        broadcaster.removeSession(session);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        broadcaster.subscribe(session, message.getPayload());
     }
 
-    private synchronized void notifyClients(PlayerService playerService, SetService setService, UpdateService.UpdateState updateState, Boolean isUpdateFinished, String error) throws IOException {
+    private synchronized void notifyClients(PlayerService playerService, SetService setService, UpdateService.UpdateState updateState, Boolean isUpdateFinished, String error, Boolean libraryChanged) throws IOException {
+        // Don't even collect the state, if no client needs it
+        if (!broadcaster.hasSubscribers()) {
+            return;
+        }
+
         State currentState = stateService.getCurrentState(playerService, setService, compositionService);
         currentState.setUpdateState(updateState);
         currentState.setUpdateFinished(isUpdateFinished);
         currentState.setError(error);
+        currentState.setLibraryChanged(libraryChanged);
 
-        ObjectMapper mapper = new ObjectMapper();
-        String returnValue = mapper.writeValueAsString(currentState);
-
-        for (WebSocketSession webSocketSession : sessions) {
-            try {
-                webSocketSession.sendMessage(new TextMessage(returnValue));
-            } catch (Exception e) {
-                sessions.remove(webSocketSession);
-            }
-        }
+        broadcaster.broadcast(currentState);
     }
 
     // Notify the clients about the current state and include update
     // information, if an update is running
     @Override
     public void notifyClients(UpdateService.UpdateState updateState) throws IOException {
-        notifyClients(null, null, updateState, null, null);
+        notifyClients(null, null, updateState, null, null, null);
     }
 
     @Override
     public void notifyClients(PlayerService playerService) throws IOException {
-        notifyClients(playerService, null, null, null, null);
+        notifyClients(playerService, null, null, null, null, null);
     }
 
     @Override
     public void notifyClients(SetService setService) throws IOException {
-        notifyClients(null, setService, null, null, null);
+        notifyClients(null, setService, null, null, null, null);
     }
 
     @Override
     public void notifyClients(PlayerService playerService, SetService setService) throws IOException {
-        notifyClients(playerService, setService, null, null, null);
+        notifyClients(playerService, setService, null, null, null, null);
     }
 
     @Override
     public void notifyClients(PlayerService playerService, SetService setService, boolean isUpdateFinished) throws IOException {
-        notifyClients(playerService, setService, null, isUpdateFinished, null);
+        notifyClients(playerService, setService, null, isUpdateFinished, null, null);
     }
 
     @Override
     public void notifyClients(String error) throws IOException {
-        notifyClients(null, null, null, null, error);
+        notifyClients(null, null, null, null, error, null);
     }
 
     @Override
     public void notifyClients() throws IOException {
-        notifyClients(null, null, null, null, null);
+        notifyClients(null, null, null, null, null, null);
+    }
+
+    @Override
+    public void notifyClientsLibraryChanged(PlayerService playerService, SetService setService) throws IOException {
+        notifyClients(playerService, setService, null, null, null, true);
     }
 
 }
@@ -0,0 +1,180 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.PlayerService;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.composition.CompositionPlayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notify all connected websocket clients about the playback position. A single ticker queries the pipeline at the
+ * configured frequency while playing and shares the position with all clients, instead of each client polling it.
+ */
+@Service
+public class DefaultPositionNotificationService extends TextWebSocketHandler implements PositionNotificationService {
+
+    private final static Logger logger = LoggerFactory.getLogger(DefaultPositionNotificationService.class);
+
+    private final SettingsService settingsService;
+
+    // Set, when the player service has been created
+    private volatile PlayerService playerService;
+
+    private final WebSocketBroadcaster broadcaster;
+
+    private final ScheduledExecutorService tickScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "position-ticker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Running while clients are connected
+    private ScheduledFuture<?> tickFuture;
+    private long tickPeriodMillis;
+
+    // Only used by the ticker, to send the position once more after stopping
+    private boolean wasPlaying = false;
+
+    public DefaultPositionNotificationService(SettingsService settingsService, WebSocketBroadcastService webSocketBroadcastService) {
+        this.settingsService = settingsService;
+
+        broadcaster = webSocketBroadcastService.createBroadcaster("position");
+    }
+
+    private long getPeriodMillis() {
+        return Math.max(1, 1000 / Math.max(1, settingsService.getSettings().getPositionFrequencyHertz()));
+    }
+
+    private synchronized void startTicker() {
+        if (tickFuture != null) {
+            return;
+        }
+
+        tickPeriodMillis = getPeriodMillis();
+        tickFuture = tickScheduler.scheduleAtFixedRate(this::tick, 0, tickPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized boolean isTickerRunning() {
+        return tickFuture != null;
+    }
+
+    private synchronized void stopTicker() {
+        if (tickFuture == null) {
+            return;
+        }
+
+        tickFuture.cancel(false);
+        tickFuture = null;
+    }
+
+    // Checked in the lock, to not stop the ticker for a client connecting meanwhile
+    private synchronized boolean stopTickerIfIdle() {
+        if (broadcaster.hasSubscribers()) {
+            return false;
+        }
+
+        stopTicker();
+        return true;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        broadcaster.addSession(session);
+        startTicker();
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        broadcaster.removeSession(session);
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        broadcaster.subscribe(session, message.getPayload());
+        startTicker();
+    }
+
+    private void tick() {
+        try {
+            if (stopTickerIfIdle()) {
+                wasPlaying = false;
+                return;
+            }
+
+            PlayerService playerService = this.playerService;
+
+            if (playerService == null) {
+                return;
+            }
+
+            // Apply a changed frequency
+            if (getPeriodMillis() != tickPeriodMillis) {
+                stopTicker();
+                startTicker();
+                return;
+            }
+
+            boolean playing = playerService.getPlayState() == CompositionPlayer.PlayState.PLAYING;
+
+            if (playing || wasPlaying) {
+                sendPosition(playerService, playing);
+            }
+
+            wasPlaying = playing;
+        } catch (Exception e) {
+            // An exception would cancel the ticker
+            logger.error("Could not send the position", e);
+        }
+    }
+
+    // Send the position with the play state already queried by the ticker, to send a stopped position only once
+    private void sendPosition(PlayerService playerService, boolean playing) {
+        Position position = new Position();
+        position.setCompositionName(playerService.getCompositionName());
+
+        // Query the clock right after the position, to relate them as exactly as possible
+        position.setPositionMillis(playerService.getPositionMillis());
+        position.setClockTimeMillis(playerService.getClockTimeMillis());
+        position.setTimestampMillis(System.currentTimeMillis());
+        position.setPlaying(playing);
+
+        try {
+            broadcaster.broadcast(position);
+        } catch (Exception e) {
+            logger.error("Could not send the position", e);
+        }
+    }
+
+    @Override
+    public void start(PlayerService playerService) {
+        this.playerService = playerService;
+    }
+
+    @Override
+    public void notifyClients() {
+        PlayerService playerService = this.playerService;
+
+        if (playerService == null || !broadcaster.hasSubscribers()) {
+            return;
+        }
+
+        sendPosition(playerService, playerService.getPlayState() == CompositionPlayer.PlayState.PLAYING);
+    }
+
+    @PreDestroy
+    public void close() {
+        tickScheduler.shutdownNow();
+    }
+
+}
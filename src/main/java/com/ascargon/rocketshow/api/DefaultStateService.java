@@ -1,14 +1,23 @@
 package com.ascargon.rocketshow.api;
 
 import com.ascargon.rocketshow.PlayerService;
+import com.ascargon.rocketshow.RemoteDeviceSyncService;
 import com.ascargon.rocketshow.composition.CompositionPlayer;
 import com.ascargon.rocketshow.composition.CompositionService;
 import com.ascargon.rocketshow.composition.SetService;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+
 @Service
 public class DefaultStateService implements StateService {
 
+    private final RemoteDeviceSyncService remoteDeviceSyncService;
+
+    public DefaultStateService(RemoteDeviceSyncService remoteDeviceSyncService) {
+        this.remoteDeviceSyncService = remoteDeviceSyncService;
+    }
+
     private int getCompositionIndexWithoutSet(CompositionService compositionService, String compositionName) {
         return compositionService.getCompositionIndex(compositionName);
     }
@@ -25,6 +34,10 @@ public class DefaultStateService implements StateService {
             currentState.setCurrentCompositionName(playerService.getCompositionName());
             currentState.setCurrentCompositionDurationMillis(playerService.getCompositionDurationMillis());
             currentState.setPositionMillis(playerService.getPositionMillis());
+
+            if (!remoteDeviceSyncService.getDriftMillis().isEmpty()) {
+                currentState.setRemoteDeviceDriftMillis(new HashMap<>(remoteDeviceSyncService.getDriftMillis()));
+            }
         }
 
         if (setService == null) {
@@ -0,0 +1,66 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.util.MetricsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+public class DefaultWebSocketBroadcastService implements WebSocketBroadcastService {
+
+    // Sends block only on slow clients, so a few threads are enough for all endpoints
+    private final static int SENDER_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final ExecutorService senderExecutor = Executors.newFixedThreadPool(SENDER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "websocket-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<WebSocketBroadcaster> broadcasterList = new CopyOnWriteArrayList<>();
+
+    private final MetricsService metricsService;
+
+    public DefaultWebSocketBroadcastService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
+    @Override
+    public WebSocketBroadcaster createBroadcaster(String name) {
+        WebSocketBroadcaster broadcaster = new WebSocketBroadcaster(name, mapper, senderExecutor);
+        broadcasterList.add(broadcaster);
+
+        metricsService.registerGauge("websocket_sessions", "Connected websocket sessions", () -> broadcaster.getStatistics().getSessions(), "endpoint", name);
+        metricsService.registerGauge("websocket_queued_messages", "Messages waiting to be sent to the websocket sessions", () -> broadcaster.getStatistics().getQueuedMessages(), "endpoint", name);
+        metricsService.registerGauge("websocket_queued_bytes", "Bytes waiting to be sent to the websocket sessions", () -> broadcaster.getStatistics().getQueuedBytes(), "endpoint", name);
+        metricsService.registerCounter("websocket_messages", "Messages broadcasted since the start", () -> broadcaster.getStatistics().getMessages(), "endpoint", name);
+        metricsService.registerCounter("websocket_evicted_sessions", "Sessions disconnected for not keeping up since the start", () -> broadcaster.getStatistics().getEvictedSessions(), "endpoint", name);
+
+        return broadcaster;
+    }
+
+    @Override
+    public List<WebSocketBroadcastStatistics> getStatistics() {
+        List<WebSocketBroadcastStatistics> statisticsList = new ArrayList<>();
+
+        for (WebSocketBroadcaster broadcaster : broadcasterList) {
+            statisticsList.add(broadcaster.getStatistics());
+        }
+
+        return statisticsList;
+    }
+
+    @PreDestroy
+    public void close() {
+        senderExecutor.shutdownNow();
+    }
+
+}
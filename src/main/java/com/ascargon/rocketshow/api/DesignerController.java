@@ -3,6 +3,9 @@ package com.ascargon.rocketshow.api;
 import com.ascargon.rocketshow.SettingsService;
 import com.ascargon.rocketshow.composition.DefaultCompositionFileService;
 import com.ascargon.rocketshow.lighting.designer.DesignerService;
+import com.ascargon.rocketshow.lighting.designer.FixtureProfileCacheService;
+import com.ascargon.rocketshow.lighting.designer.FixtureProfileCacheStatistics;
+import com.ascargon.rocketshow.lighting.designer.FixtureSearchResult;
 import com.ascargon.rocketshow.lighting.designer.FixtureService;
 import com.ascargon.rocketshow.lighting.designer.Project;
 import com.ascargon.rocketshow.lighting.designer.SearchFixtureTemplate;
@@ -10,6 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
@@ -28,12 +32,14 @@ public class DesignerController {
     private final FixtureService fixtureService;
     private final DesignerService designerService;
     private final SettingsService settingsService;
+    private final FixtureProfileCacheService fixtureProfileCacheService;
 
-    public DesignerController(ControllerService controllerService, FixtureService fixtureService, DesignerService designerService, SettingsService settingsService) {
+    public DesignerController(ControllerService controllerService, FixtureService fixtureService, DesignerService designerService, SettingsService settingsService, FixtureProfileCacheService fixtureProfileCacheService) {
         this.controllerService = controllerService;
         this.fixtureService = fixtureService;
         this.designerService = designerService;
         this.settingsService = settingsService;
+        this.fixtureProfileCacheService = fixtureProfileCacheService;
     }
 
     @ExceptionHandler(Exception.class)
@@ -46,6 +52,16 @@ public class DesignerController {
         return fixtureService.searchFixtures(uuid, manufacturerShortName, name, mainCategory);
     }
 
+    @GetMapping("fixtures/search")
+    public FixtureSearchResult searchFixtures(@RequestParam(value = "query", required = false) String query, @RequestParam(value = "manufacturerShortName", required = false) String manufacturerShortName, @RequestParam(value = "mainCategory", required = false) String mainCategory, @RequestParam(value = "page", required = false, defaultValue = "0") int page, @RequestParam(value = "pageSize", required = false, defaultValue = "50") int pageSize) throws Exception {
+        return fixtureService.searchFixtures(query, manufacturerShortName, mainCategory, page, pageSize);
+    }
+
+    @GetMapping("fixtures/cache-statistics")
+    public FixtureProfileCacheStatistics getFixtureCacheStatistics() {
+        return fixtureProfileCacheService.getStatistics();
+    }
+
     @GetMapping("fixture")
     public String getFixture(@RequestParam("uuid") String uuid) throws Exception {
         return fixtureService.getFixture(uuid);
@@ -104,8 +120,23 @@ public class DesignerController {
     }
 
     @PostMapping("update-profiles")
-    public void updateProfiles() throws Exception {
-        fixtureService.updateProfiles();
+    public void updateProfiles(@RequestParam(value = "file", required = false) MultipartFile file) throws Exception {
+        if (file == null) {
+            fixtureService.updateProfiles();
+            return;
+        }
+
+        // Update from an uploaded library instead of downloading it
+        File zipFile = File.createTempFile("fixtures", ".zip");
+
+        try {
+            file.transferTo(zipFile);
+            fixtureService.updateProfiles(zipFile);
+        } finally {
+            if (!zipFile.delete()) {
+                logger.error("Could not delete uploaded fixtures ZIP file '" + zipFile.getPath() + "'");
+            }
+        }
     }
 
 }
@@ -0,0 +1,66 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.util.FlightRecorderService;
+import com.ascargon.rocketshow.util.FlightRecording;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.nio.file.Files;
+
+@RestController()
+@RequestMapping("${spring.data.rest.base-path}/flight-recorder")
+@CrossOrigin
+class FlightRecorderController {
+
+    private final ControllerService controllerService;
+    private final FlightRecorderService flightRecorderService;
+
+    private FlightRecorderController(ControllerService controllerService, FlightRecorderService flightRecorderService) {
+        this.controllerService = controllerService;
+        this.flightRecorderService = flightRecorderService;
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleException(Exception exception) {
+        return controllerService.handleException(exception);
+    }
+
+    @GetMapping
+    public FlightRecording getFlightRecording() {
+        return flightRecorderService.getFlightRecording();
+    }
+
+    @PostMapping("start")
+    public ResponseEntity<Void> start() throws Exception {
+        flightRecorderService.start();
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @PostMapping("stop")
+    public ResponseEntity<Void> stop() throws Exception {
+        flightRecorderService.stop();
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @GetMapping("download")
+    public void download(HttpServletResponse response) throws Exception {
+        File file = flightRecorderService.createRecordingFile();
+
+        try {
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setContentLengthLong(file.length());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + FlightRecorderService.RECORDING_FILE_NAME + "\"");
+
+            Files.copy(file.toPath(), response.getOutputStream());
+        } finally {
+            // Each download gets its own file
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+}
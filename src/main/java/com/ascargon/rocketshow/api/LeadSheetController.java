@@ -2,14 +2,14 @@ package com.ascargon.rocketshow.api;
 
 import com.ascargon.rocketshow.composition.LeadSheet;
 import com.ascargon.rocketshow.composition.LeadSheetService;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
+import com.ascargon.rocketshow.util.FileDownloadService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.FileInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 @RestController()
@@ -19,10 +19,12 @@ public class LeadSheetController {
 
     private final ControllerService controllerService;
     private final LeadSheetService leadSheetService;
+    private final FileDownloadService fileDownloadService;
 
-    public LeadSheetController(ControllerService controllerService, LeadSheetService leadSheetService) {
+    public LeadSheetController(ControllerService controllerService, LeadSheetService leadSheetService, FileDownloadService fileDownloadService) {
         this.controllerService = controllerService;
         this.leadSheetService = leadSheetService;
+        this.fileDownloadService = fileDownloadService;
     }
 
     @ExceptionHandler(Exception.class)
@@ -39,10 +41,21 @@ public class LeadSheetController {
     public LeadSheet upload(
             @RequestParam("file") MultipartFile file,
             @RequestParam("dzchunkindex") Long dzchunkindex,
-            @RequestParam("dztotalchunkcount") Long dztotalchunkcount
+            @RequestParam("dztotalchunkcount") Long dztotalchunkcount,
+            @RequestParam(value = "dzuuid", required = false) String dzuuid,
+            @RequestParam(value = "dzchunkbyteoffset", required = false) Long dzchunkbyteoffset,
+            @RequestParam(value = "dztotalfilesize", required = false) Long dztotalfilesize,
+            @RequestParam(value = "checksum", required = false) String checksum
     ) throws Exception {
         String fileName = file.getOriginalFilename();
         LeadSheet leadSheet = null;
+        if (dzuuid != null && dzchunkbyteoffset != null && dztotalfilesize != null) {
+            // Write the chunk at its offset, which allows retries and resuming
+            if (leadSheetService.saveLeadSheetAddChunk(file.getInputStream(), fileName, dzuuid, dzchunkbyteoffset, dztotalfilesize, checksum)) {
+                leadSheet = leadSheetService.saveLeadSheetFinish(fileName);
+            }
+            return leadSheet;
+        }
         if (dzchunkindex == 0) {
             leadSheetService.saveLeadSheetInit(fileName);
         }
@@ -60,12 +73,8 @@ public class LeadSheetController {
     }
 
     @GetMapping("image")
-    public ResponseEntity<Resource> downloadLogs(@RequestParam("name") String name) throws Exception {
-        InputStreamResource resource = new InputStreamResource(new FileInputStream(leadSheetService.getImage(name)));
-
-        return ResponseEntity
-                .ok()
-                .body(resource);
+    public void downloadLogs(@RequestParam("name") String name, HttpServletRequest request, HttpServletResponse response) throws Exception {
+        fileDownloadService.sendFile(leadSheetService.getImage(name), request, response);
     }
 
 }
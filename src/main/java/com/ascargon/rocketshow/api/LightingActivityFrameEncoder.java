@@ -0,0 +1,170 @@
+package com.ascargon.rocketshow.api;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encode the values of a lighting universe into compact binary frames for the monitor. A frame is either a
+ * keyframe with all channels or a delta with the runs of channels changed since the previous frame:
+ *
+ * <pre>
+ * byte    type (0 = keyframe, 1 = delta)
+ * byte    universe id
+ * int     sequence number, increased with each frame
+ * keyframe: 512 bytes, one value per channel
+ * delta:    repeated runs of short start channel, short channel count, one byte per channel
+ * </pre>
+ * <p>
+ * All numbers are big-endian. A delta is only valid for a client, which received the frame with the previous
+ * sequence number. The frames are sent to all clients in order, so a client only has to skip the deltas until the
+ * next keyframe after connecting or missing a frame.
+ */
+class LightingActivityFrameEncoder {
+
+    final static byte TYPE_KEYFRAME = 0;
+    final static byte TYPE_DELTA = 1;
+
+    private final static int CHANNELS = 512;
+    private final static int HEADER_SIZE = 6;
+    private final static int RUN_HEADER_SIZE = 4;
+
+    // Send a keyframe at least every this amount of frames, to let clients recover
+    private final static int KEYFRAME_INTERVAL = 40;
+
+    private final int universeId;
+
+    // The values of the last encoded frame
+    private final byte[] values = new byte[CHANNELS];
+    private final byte[] previousValues = new byte[CHANNELS];
+
+    private int sequence = 0;
+    private int framesSinceKeyframe = 0;
+    private boolean keyframeRequired = true;
+
+    LightingActivityFrameEncoder(int universeId) {
+        this.universeId = universeId;
+    }
+
+    private ByteBuffer createFrame(byte type, int size) {
+        ByteBuffer frame = ByteBuffer.allocate(size);
+
+        frame.put(type);
+        frame.put((byte) universeId);
+        frame.putInt(sequence);
+
+        return frame;
+    }
+
+    private ByteBuffer encodeKeyframe() {
+        ByteBuffer frame = createFrame(TYPE_KEYFRAME, HEADER_SIZE + CHANNELS);
+        frame.put(values);
+        frame.flip();
+
+        framesSinceKeyframe = 0;
+        keyframeRequired = false;
+
+        return frame;
+    }
+
+    // Get the size of the delta. Close runs are merged, if the gap is cheaper than a new run header.
+    private int getDeltaSize() {
+        int size = HEADER_SIZE;
+        int runEnd = -1;
+
+        for (int i = 0; i < CHANNELS; i++) {
+            if (values[i] == previousValues[i]) {
+                continue;
+            }
+
+            if (runEnd >= 0 && i - runEnd <= RUN_HEADER_SIZE) {
+                // Include the unchanged channels in between
+                size += i - runEnd + 1;
+            } else {
+                size += RUN_HEADER_SIZE + 1;
+            }
+
+            runEnd = i + 1;
+        }
+
+        return size;
+    }
+
+    private ByteBuffer encodeDelta(int size) {
+        ByteBuffer frame = createFrame(TYPE_DELTA, size);
+        int i = 0;
+
+        while (i < CHANNELS) {
+            if (values[i] == previousValues[i]) {
+                i++;
+                continue;
+            }
+
+            // Find the end of the run with the same merging rule as in the size calculation
+            int runStart = i;
+            int runEnd = i + 1;
+
+            for (int j = runEnd; j < CHANNELS; j++) {
+                if (values[j] != previousValues[j]) {
+                    if (j - runEnd > RUN_HEADER_SIZE) {
+                        break;
+                    }
+
+                    runEnd = j + 1;
+                }
+            }
+
+            frame.putShort((short) runStart);
+            frame.putShort((short) (runEnd - runStart));
+            frame.put(values, runStart, runEnd - runStart);
+
+            i = runEnd;
+        }
+
+        frame.flip();
+        framesSinceKeyframe++;
+
+        return frame;
+    }
+
+    private void setValues(short[] universe) {
+        System.arraycopy(values, 0, previousValues, 0, CHANNELS);
+
+        for (int i = 0; i < CHANNELS; i++) {
+            values[i] = (byte) Math.max(0, Math.min(255, i < universe.length ? universe[i] : 0));
+        }
+    }
+
+    // Keep the values without encoding a frame, while no client is connected. The next frame is a keyframe.
+    void update(short[] universe) {
+        setValues(universe);
+        keyframeRequired = true;
+    }
+
+    // Encode the next frame or return null, if nothing has changed
+    ByteBuffer encode(short[] universe) {
+        setValues(universe);
+
+        if (keyframeRequired || framesSinceKeyframe >= KEYFRAME_INTERVAL) {
+            return encodeNextKeyframe();
+        }
+
+        int deltaSize = getDeltaSize();
+
+        if (deltaSize == HEADER_SIZE) {
+            return null;
+        }
+
+        if (deltaSize >= HEADER_SIZE + CHANNELS) {
+            return encodeNextKeyframe();
+        }
+
+        sequence++;
+        return encodeDelta(deltaSize);
+    }
+
+    // Encode the current values as the next frame, e.g. for a newly connected client
+    ByteBuffer encodeNextKeyframe() {
+        sequence++;
+        return encodeKeyframe();
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.util.Metric;
+import com.ascargon.rocketshow.util.MetricsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController()
+@RequestMapping("${spring.data.rest.base-path}/metrics")
+@CrossOrigin
+class MetricsController {
+
+    private final ControllerService controllerService;
+    private final MetricsService metricsService;
+
+    private MetricsController(ControllerService controllerService, MetricsService metricsService) {
+        this.controllerService = controllerService;
+        this.metricsService = metricsService;
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleException(Exception exception) {
+        return controllerService.handleException(exception);
+    }
+
+    @GetMapping
+    public List<Metric> getMetrics() {
+        return metricsService.getMetrics();
+    }
+
+    // Scraped by Prometheus
+    @GetMapping(value = "prometheus", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String getPrometheusMetrics() {
+        return metricsService.getPrometheusText();
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.midi.ActivityMidiSignal;
+import com.ascargon.rocketshow.midi.MidiDestination;
+import com.ascargon.rocketshow.midi.MidiDirection;
+import com.ascargon.rocketshow.midi.MidiSource;
+
+import javax.sound.midi.ShortMessage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Record all MIDI signals of a time window without locks. Each signal is counted per command, channel and note
+ * with its last velocity. The slots used in the window are appended to a list in the order of their first signal,
+ * to create the activity without scanning all slots.
+ */
+class MidiActivityWindow {
+
+    // Channel voice messages from note off (0x80) to pitch bend (0xE0)
+    private final static int COMMANDS = 7;
+    private final static int CHANNELS = 16;
+    private final static int NOTES = 128;
+    private final static int SLOTS = COMMANDS * CHANNELS * NOTES;
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(SLOTS);
+    private final AtomicIntegerArray velocities = new AtomicIntegerArray(SLOTS);
+
+    // Atomic as well, so the slots are visible to the flush without relying on the writer count
+    private final AtomicIntegerArray usedSlots = new AtomicIntegerArray(SLOTS);
+    private final AtomicInteger usedSlotCount = new AtomicInteger();
+
+    private final AtomicInteger directionMask = new AtomicInteger();
+    private final AtomicInteger sourceMask = new AtomicInteger();
+    private final AtomicInteger destinationMask = new AtomicInteger();
+
+    // The signals currently being recorded, to wait for them before reading the window
+    private final AtomicInteger writers = new AtomicInteger();
+
+    // Whether the flush of this window has been scheduled already
+    final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private static int getSlot(int command, int channel, int note) {
+        return (((command >> 4) - 8) * CHANNELS + channel) * NOTES + note;
+    }
+
+    void enter() {
+        writers.incrementAndGet();
+    }
+
+    void exit() {
+        writers.decrementAndGet();
+    }
+
+    void awaitWriters() {
+        while (writers.get() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    void record(ShortMessage shortMessage, MidiDirection midiDirection, MidiSource midiSource, MidiDestination midiDestination) {
+        // System messages are not monitored
+        if (shortMessage.getCommand() < 0x80 || shortMessage.getCommand() >= 0xF0) {
+            return;
+        }
+
+        int slot = getSlot(shortMessage.getCommand(), shortMessage.getChannel(), shortMessage.getData1());
+
+        velocities.set(slot, shortMessage.getData2());
+
+        if (counts.getAndIncrement(slot) == 0) {
+            usedSlots.set(usedSlotCount.getAndIncrement(), slot);
+        }
+
+        directionMask.getAndAccumulate(1 << midiDirection.ordinal(), (a, b) -> a | b);
+
+        if (midiSource != null) {
+            sourceMask.getAndAccumulate(1 << midiSource.ordinal(), (a, b) -> a | b);
+        }
+
+        if (midiDestination != null) {
+            destinationMask.getAndAccumulate(1 << midiDestination.ordinal(), (a, b) -> a | b);
+        }
+    }
+
+    boolean isEmpty() {
+        return usedSlotCount.get() == 0;
+    }
+
+    private MidiDirection getMidiDirection() {
+        int mask = directionMask.get();
+
+        if ((mask & (1 << MidiDirection.IN_OUT.ordinal())) != 0 || mask == ((1 << MidiDirection.IN.ordinal()) | (1 << MidiDirection.OUT.ordinal()))) {
+            return MidiDirection.IN_OUT;
+        }
+
+        return (mask & (1 << MidiDirection.IN.ordinal())) != 0 ? MidiDirection.IN : MidiDirection.OUT;
+    }
+
+    // Create the activity of all recorded signals. Must only be called without writers.
+    ActivityMidi createActivity() {
+        ActivityMidi activityMidi = new ActivityMidi();
+        int slotCount = usedSlotCount.get();
+
+        for (int i = 0; i < slotCount; i++) {
+            int slot = usedSlots.get(i);
+
+            ActivityMidiSignal midiSignal = new ActivityMidiSignal();
+            midiSignal.setCommand(((slot / (CHANNELS * NOTES)) + 8) << 4);
+            midiSignal.setChannel((slot / NOTES) % CHANNELS);
+            midiSignal.setNote(slot % NOTES);
+            midiSignal.setVelocity(velocities.get(slot));
+            midiSignal.setCount(counts.get(slot));
+
+            activityMidi.getMidiSignals().add(midiSignal);
+            activityMidi.setSignalCount(activityMidi.getSignalCount() + midiSignal.getCount());
+        }
+
+        if (!activityMidi.getMidiSignals().isEmpty()) {
+            activityMidi.setMidiSignal(activityMidi.getMidiSignals().get(0));
+        }
+
+        activityMidi.setMidiDirection(getMidiDirection());
+
+        for (MidiSource midiSource : MidiSource.values()) {
+            if ((sourceMask.get() & (1 << midiSource.ordinal())) != 0) {
+                activityMidi.getMidiSources().add(midiSource);
+            }
+        }
+
+        for (MidiDestination midiDestination : MidiDestination.values()) {
+            if ((destinationMask.get() & (1 << midiDestination.ordinal())) != 0) {
+                activityMidi.getMidiDestinations().add(midiDestination);
+            }
+        }
+
+        return activityMidi;
+    }
+
+    // Clear the window to be used again. Must only be called without writers.
+    void reset() {
+        int slotCount = usedSlotCount.get();
+
+        for (int i = 0; i < slotCount; i++) {
+            counts.set(usedSlots.get(i), 0);
+        }
+
+        usedSlotCount.set(0);
+        directionMask.set(0);
+        sourceMask.set(0);
+        destinationMask.set(0);
+        scheduled.set(false);
+    }
+
+}
@@ -27,6 +27,9 @@ public interface NotificationService {
 
     void notifyClients(String error) throws Exception;
 
+    // Notify the clients, that the library has been changed outside the application
+    void notifyClientsLibraryChanged(PlayerService playerService, SetService setService) throws Exception;
+
     void notifyClients() throws Exception;
 
 }
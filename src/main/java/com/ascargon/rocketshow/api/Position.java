@@ -0,0 +1,21 @@
+package com.ascargon.rocketshow.api;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The position of the pipeline and the time it has been queried at, to let clients interpolate between the updates.
+ * The clock time is the time of the pipeline clock the position runs on (-1 without a pipeline), the timestamp the
+ * wall clock time of the device.
+ */
+@Getter
+@Setter
+public class Position {
+
+    private String compositionName;
+    private long positionMillis;
+    private long clockTimeMillis;
+    private long timestampMillis;
+    private boolean playing;
+
+}
@@ -0,0 +1,18 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.PlayerService;
+import org.springframework.stereotype.Service;
+
+/**
+ * Notify clients about the current playback position.
+ */
+@Service
+public interface PositionNotificationService {
+
+    // Start sending the position of the player. The player notifies this service, so it can't be injected.
+    void start(PlayerService playerService);
+
+    // Send the current position right away, e.g. after seeking
+    void notifyClients();
+
+}
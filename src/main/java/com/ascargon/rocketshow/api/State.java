@@ -4,6 +4,7 @@ import com.ascargon.rocketshow.composition.CompositionPlayer;
 import com.ascargon.rocketshow.util.UpdateService;
 
 import jakarta.xml.bind.annotation.XmlRootElement;
+import java.util.Map;
 
 @XmlRootElement
 public class State {
@@ -18,6 +19,12 @@ public class State {
     private Boolean updateFinished;
     private String error;
 
+    // Compositions, sets, designer projects or lead sheets have been changed outside the application
+    private Boolean libraryChanged;
+
+    // The drift of each synchronized remote device against the local position
+    private Map<String, Long> remoteDeviceDriftMillis;
+
     public int getCurrentCompositionIndex() {
         return currentCompositionIndex;
     }
@@ -90,4 +97,20 @@ public class State {
         this.error = error;
     }
 
+    public Boolean getLibraryChanged() {
+        return libraryChanged;
+    }
+
+    public void setLibraryChanged(Boolean libraryChanged) {
+        this.libraryChanged = libraryChanged;
+    }
+
+    public Map<String, Long> getRemoteDeviceDriftMillis() {
+        return remoteDeviceDriftMillis;
+    }
+
+    public void setRemoteDeviceDriftMillis(Map<String, Long> remoteDeviceDriftMillis) {
+        this.remoteDeviceDriftMillis = remoteDeviceDriftMillis;
+    }
+
 }
@@ -10,17 +10,20 @@ import com.ascargon.rocketshow.lighting.designer.DesignerService;
 import com.ascargon.rocketshow.midi.MidiDeviceInService;
 import com.ascargon.rocketshow.midi.MidiDeviceOutService;
 import com.ascargon.rocketshow.util.*;
-import jakarta.xml.bind.JAXBException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.FileInputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 @RestController()
 @RequestMapping("${spring.data.rest.base-path}/system")
@@ -47,8 +50,9 @@ class SystemController {
     private final CompositionService compositionService;
     private final DesignerService designerService;
     private final BackupService backupService;
+    private final FlightRecorderService flightRecorderService;
 
-    public SystemController(ControllerService controllerService, StateService stateService, SetService setService, PlayerService playerService, RebootService rebootService, ShutdownService shutdownService, SettingsService settingsService, MidiDeviceInService midiDeviceInService, MidiDeviceOutService midiDeviceOutService, UpdateService updateService, FactoryResetService factoryResetService, LogDownloadService logDownloadService, DiskSpaceService diskSpaceService, OperatingSystemInformationService operatingSystemInformationService, SessionService sessionService, CompositionService compositionService, DesignerService designerService, BackupService backupService) {
+    public SystemController(ControllerService controllerService, StateService stateService, SetService setService, PlayerService playerService, RebootService rebootService, ShutdownService shutdownService, SettingsService settingsService, MidiDeviceInService midiDeviceInService, MidiDeviceOutService midiDeviceOutService, UpdateService updateService, FactoryResetService factoryResetService, LogDownloadService logDownloadService, DiskSpaceService diskSpaceService, OperatingSystemInformationService operatingSystemInformationService, SessionService sessionService, CompositionService compositionService, DesignerService designerService, BackupService backupService, FlightRecorderService flightRecorderService) {
         this.controllerService = controllerService;
         this.stateService = stateService;
         this.setService = setService;
@@ -67,6 +71,7 @@ class SystemController {
         this.compositionService = compositionService;
         this.designerService = designerService;
         this.backupService = backupService;
+        this.flightRecorderService = flightRecorderService;
     }
 
     @ExceptionHandler(Exception.class)
@@ -129,10 +134,12 @@ class SystemController {
     }
 
     @PostMapping("settings")
-    public ResponseEntity<Void> saveSettings(@RequestBody Settings settings) throws JAXBException {
+    public ResponseEntity<Void> saveSettings(@RequestBody Settings settings) throws Exception {
         settingsService.setSettings(settings);
         settingsService.save();
 
+        flightRecorderService.updateSettings();
+
         if (settings.getDesignerLivePreview()) {
             designerService.startPreview(0);
         } else {
@@ -165,17 +172,37 @@ class SystemController {
     }
 
     @GetMapping("create-backup")
-    public ResponseEntity<Resource> createBackup() throws Exception {
-        InputStreamResource resource = new InputStreamResource(new FileInputStream(backupService.create()));
-        return ResponseEntity.ok().body(resource);
+    public void createBackup(HttpServletResponse response, @RequestParam(value = "incremental", required = false, defaultValue = "false") boolean incremental, @RequestParam(value = "id", required = false) String id) throws Exception {
+        // Sort the backups in the order of their creation by name, which is also the order to restore them
+        String fileName = "rocket-show-backup-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd-HHmmss")) + (incremental ? "-incremental" : "") + ".tar.gz";
+
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        backupService.create(response.getOutputStream(), incremental, id);
+    }
+
+    @GetMapping("backup-state")
+    public BackupState getBackupState() {
+        return backupService.getState();
     }
 
     @PostMapping("restore-backup")
     public ResponseEntity<Void> restoreBackup(
             @RequestParam("file") MultipartFile file,
             @RequestParam("dzchunkindex") Long dzchunkindex,
-            @RequestParam("dztotalchunkcount") Long dztotalchunkcount
+            @RequestParam("dztotalchunkcount") Long dztotalchunkcount,
+            @RequestParam(value = "dzuuid", required = false) String dzuuid,
+            @RequestParam(value = "dzchunkbyteoffset", required = false) Long dzchunkbyteoffset,
+            @RequestParam(value = "dztotalfilesize", required = false) Long dztotalfilesize,
+            @RequestParam(value = "checksum", required = false) String checksum
     ) throws Exception {
+        if (dzuuid != null && dzchunkbyteoffset != null && dztotalfilesize != null) {
+            // Write the chunk at its offset, which allows retries and resuming
+            if (backupService.restoreAddChunk(file.getInputStream(), dzuuid, dzchunkbyteoffset, dztotalfilesize, checksum)) {
+                backupService.restoreFinish();
+            }
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
         if (dzchunkindex == 0) {
             backupService.restoreInit();
         }
@@ -186,4 +213,16 @@ class SystemController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    @PostMapping("restore-backup-apply")
+    public ResponseEntity<Void> restoreBackupApply() throws Exception {
+        backupService.restoreApply();
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @PostMapping("restore-backup-cancel")
+    public ResponseEntity<Void> restoreBackupCancel() {
+        backupService.restoreCancel();
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
 }
@@ -90,6 +90,20 @@ class TransportController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    @GetMapping("position")
+    public long position() {
+        // Queried periodically by a synchronizing master device -> don't log
+        return playerService.getPositionMillis();
+    }
+
+    @PostMapping("playback-rate")
+    public ResponseEntity<Void> playbackRate(@RequestParam("rate") double rate) throws Exception {
+        logger.debug("Received API request for transport/playback-rate");
+
+        playerService.setPlaybackRate(rate);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
     @PostMapping("next-composition")
     public ResponseEntity<Void> nextComposition() throws Exception {
         logger.info("Received API request for transport/next-composition");
@@ -0,0 +1,39 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.util.ChunkedFileUploadService;
+import com.ascargon.rocketshow.util.UploadState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController()
+@RequestMapping("${spring.data.rest.base-path}/upload")
+@CrossOrigin
+class UploadController {
+
+    private final ControllerService controllerService;
+    private final ChunkedFileUploadService chunkedFileUploadService;
+
+    private UploadController(ControllerService controllerService, ChunkedFileUploadService chunkedFileUploadService) {
+        this.controllerService = controllerService;
+        this.chunkedFileUploadService = chunkedFileUploadService;
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleException(Exception exception) {
+        return controllerService.handleException(exception);
+    }
+
+    // Get the received ranges of an interrupted upload (of media files, lead sheets or backups), to resume it
+    @GetMapping("state")
+    public ResponseEntity<UploadState> getState(@RequestParam("uploadId") String uploadId) {
+        UploadState uploadState = chunkedFileUploadService.getUploadState(uploadId);
+
+        if (uploadState == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        return new ResponseEntity<>(uploadState, HttpStatus.OK);
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.ascargon.rocketshow.api;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event for creating and queueing a websocket message for the sessions of an endpoint.
+ */
+@Name("rocketshow.WebSocketBroadcast")
+@Label("Websocket Broadcast")
+@Category({"Rocket Show", "Websocket"})
+@StackTrace(false)
+class WebSocketBroadcastEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Sessions")
+    int sessions;
+
+    @Label("Messages")
+    @Description("The different messages created for the subscriptions")
+    int messages;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+}
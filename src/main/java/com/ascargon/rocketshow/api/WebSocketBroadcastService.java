@@ -0,0 +1,17 @@
+package com.ascargon.rocketshow.api;
+
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Create the broadcasters of the websocket endpoints, which share a pool to send the messages.
+ */
+@Service
+public interface WebSocketBroadcastService {
+
+    WebSocketBroadcaster createBroadcaster(String name);
+
+    List<WebSocketBroadcastStatistics> getStatistics();
+
+}
@@ -0,0 +1,31 @@
+package com.ascargon.rocketshow.api;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The messages sent to the clients of a websocket endpoint since the start.
+ */
+@Getter
+@Setter
+public class WebSocketBroadcastStatistics {
+
+    private String name;
+    private int sessions;
+
+    // Broadcasted messages and their size, each counted once for all sessions
+    private long messages;
+    private long bytes;
+
+    // Messages sent to a single session
+    private long sentMessages;
+    private long failedMessages;
+
+    // Sessions disconnected, because they couldn't keep up
+    private long evictedSessions;
+
+    // Messages currently waiting to be sent, summed over all sessions
+    private int queuedMessages;
+    private long queuedBytes;
+
+}
@@ -0,0 +1,338 @@
+package com.ascargon.rocketshow.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Send messages to all sessions connected to a websocket endpoint. A message is serialized once and queued for
+ * each session. The queues are sent on a shared pool, one message of a session at a time and in order, so a slow
+ * client never blocks the caller or the other clients. Clients, which can't keep up, are disconnected.
+ * <p>
+ * Messages are only sent to the sessions subscribed to them, see {@link WebSocketSubscription}. A message is not
+ * created at all, if no session needs it.
+ */
+public class WebSocketBroadcaster {
+
+    private final static Logger logger = LoggerFactory.getLogger(WebSocketBroadcaster.class);
+
+    // Disconnect a session, if it has this amount of data queued or a single message takes this long to be sent
+    private final static int BUFFER_SIZE_LIMIT = 512 * 1024;
+    private final static long SEND_TIME_LIMIT_MILLIS = 5000;
+
+    // Let Tomcat abort a blocking send after the time limit, so a stalled client can't block a sender thread
+    private final static String BLOCKING_SEND_TIMEOUT_PROPERTY = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final String name;
+    private final ObjectMapper mapper;
+    private final ObjectReader subscriptionReader;
+    private final Executor executor;
+
+    private final Map<String, BroadcastSession> sessionMap = new ConcurrentHashMap<>();
+
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong sentMessages = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+    private final AtomicLong evictedSessions = new AtomicLong();
+
+    private class BroadcastSession {
+        private final WebSocketSession session;
+        private final Queue<WebSocketMessage<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong queuedBytes = new AtomicLong();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        // The start of the current send or 0, if idle
+        private volatile long sendStartMillis;
+
+        private volatile WebSocketSubscription subscription = new WebSocketSubscription();
+
+        // The last sample sent, to limit the frequency
+        private long lastSampleMillis;
+
+        private BroadcastSession(WebSocketSession session) {
+            this.session = session;
+        }
+
+        private void send(WebSocketMessage<?> message) {
+            if (closed.get()) {
+                return;
+            }
+
+            long sendStartMillis = this.sendStartMillis;
+
+            if (queuedBytes.get() + message.getPayloadLength() > BUFFER_SIZE_LIMIT || (sendStartMillis > 0 && System.currentTimeMillis() - sendStartMillis > SEND_TIME_LIMIT_MILLIS)) {
+                evict("slow consumer");
+                return;
+            }
+
+            queuedBytes.addAndGet(message.getPayloadLength());
+            queue.add(message);
+
+            if (sending.compareAndSet(false, true)) {
+                executor.execute(this::sendQueue);
+            }
+        }
+
+        private void sendQueue() {
+            while (true) {
+                if (closed.get()) {
+                    // Evicted or disconnected meanwhile. The flag stays set, so no other thread sends anymore.
+                    discardQueue();
+                    close();
+                    return;
+                }
+
+                WebSocketMessage<?> message = queue.poll();
+
+                if (message == null) {
+                    sending.set(false);
+
+                    // Another message might have been queued or the session evicted after polling, but before
+                    // resetting the flag
+                    if ((queue.isEmpty() && !closed.get()) || !sending.compareAndSet(false, true)) {
+                        return;
+                    }
+
+                    continue;
+                }
+
+                sendStartMillis = System.currentTimeMillis();
+
+                try {
+                    session.sendMessage(message);
+                    sentMessages.incrementAndGet();
+                } catch (Exception e) {
+                    failedMessages.incrementAndGet();
+                    evict(e.getMessage());
+                } finally {
+                    sendStartMillis = 0;
+                    queuedBytes.addAndGet(-message.getPayloadLength());
+                }
+            }
+        }
+
+        private boolean isSampleDue(long nowMillis) {
+            Integer maxFrequencyHertz = subscription.getMaxFrequencyHertz();
+
+            return maxFrequencyHertz == null || maxFrequencyHertz <= 0 || nowMillis - lastSampleMillis >= 1000 / maxFrequencyHertz;
+        }
+
+        private void discardQueue() {
+            WebSocketMessage<?> message;
+
+            while ((message = queue.poll()) != null) {
+                queuedBytes.addAndGet(-message.getPayloadLength());
+            }
+        }
+
+        private void close() {
+            if (!session.isOpen()) {
+                return;
+            }
+
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (Exception e) {
+                logger.debug("Could not close websocket session", e);
+            }
+        }
+
+        private void evict(String reason) {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+
+            sessionMap.remove(session.getId());
+            evictedSessions.incrementAndGet();
+
+            logger.warn("Disconnect websocket client " + session.getRemoteAddress() + " from '" + name + "': " + reason);
+
+            // Close the session directly, if no message is being sent. Otherwise, the thread sending to this session
+            // closes it after the current message, which is limited by the send timeout. The close is not queued on
+            // the sender pool, which might be busy with other slow clients.
+            if (sending.compareAndSet(false, true)) {
+                discardQueue();
+                close();
+            }
+        }
+    }
+
+    WebSocketBroadcaster(String name, ObjectMapper mapper, Executor executor) {
+        this.name = name;
+        this.mapper = mapper;
+        this.executor = executor;
+
+        subscriptionReader = mapper.readerFor(WebSocketSubscription.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    public void addSession(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession) {
+            Object nativeSession = ((NativeWebSocketSession) session).getNativeSession();
+
+            if (nativeSession instanceof javax.websocket.Session) {
+                ((javax.websocket.Session) nativeSession).getUserProperties().put(BLOCKING_SEND_TIMEOUT_PROPERTY, SEND_TIME_LIMIT_MILLIS);
+            }
+        }
+
+        sessionMap.put(session.getId(), new BroadcastSession(session));
+    }
+
+    public void removeSession(WebSocketSession session) {
+        BroadcastSession broadcastSession = sessionMap.remove(session.getId());
+
+        if (broadcastSession != null) {
+            broadcastSession.closed.set(true);
+        }
+    }
+
+    // Replace the subscription of the session with the one sent by the client
+    public void subscribe(WebSocketSession session, String payload) {
+        BroadcastSession broadcastSession = sessionMap.get(session.getId());
+
+        if (broadcastSession == null) {
+            return;
+        }
+
+        try {
+            broadcastSession.subscription = subscriptionReader.readValue(payload);
+        } catch (Exception e) {
+            logger.warn("Invalid websocket subscription from " + session.getRemoteAddress() + " on '" + name + "': " + e.getMessage());
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return hasSubscribers(subscription -> true);
+    }
+
+    public boolean hasSubscribers(Predicate<WebSocketSubscription> filter) {
+        for (BroadcastSession broadcastSession : sessionMap.values()) {
+            WebSocketSubscription subscription = broadcastSession.subscription;
+
+            if (subscription.isSubscribed() && filter.test(subscription)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Send the message created for each subscription. Sessions with equal subscriptions share the message. Sampled
+    // messages are only sent with the frequency of the subscription.
+    private void send(Function<WebSocketSubscription, WebSocketMessage<?>> messageFactory, boolean sampled) {
+        Map<WebSocketSubscription, WebSocketMessage<?>> messageMap = new HashMap<>();
+        long nowMillis = System.currentTimeMillis();
+
+        WebSocketBroadcastEvent event = new WebSocketBroadcastEvent();
+        event.begin();
+
+        for (BroadcastSession broadcastSession : sessionMap.values()) {
+            WebSocketSubscription subscription = broadcastSession.subscription;
+
+            if (!subscription.isSubscribed() || (sampled && !broadcastSession.isSampleDue(nowMillis))) {
+                continue;
+            }
+
+            WebSocketMessage<?> message;
+
+            if (messageMap.containsKey(subscription)) {
+                message = messageMap.get(subscription);
+            } else {
+                message = messageFactory.apply(subscription);
+                messageMap.put(subscription, message);
+
+                if (message != null) {
+                    messages.incrementAndGet();
+                    bytes.addAndGet(message.getPayloadLength());
+
+                    event.messages++;
+                    event.bytes += message.getPayloadLength();
+                }
+            }
+
+            if (message != null) {
+                if (sampled) {
+                    broadcastSession.lastSampleMillis = nowMillis;
+                }
+
+                broadcastSession.send(message);
+                event.sessions++;
+            }
+        }
+
+        event.end();
+
+        // Broadcasts without a message are not of interest
+        if (event.messages > 0 && event.shouldCommit()) {
+            event.endpoint = name;
+            event.commit();
+        }
+    }
+
+    public void broadcast(WebSocketMessage<?> message) {
+        broadcast(message, subscription -> true);
+    }
+
+    public void broadcast(WebSocketMessage<?> message, Predicate<WebSocketSubscription> filter) {
+        send(subscription -> filter.test(subscription) ? message : null, false);
+    }
+
+    public void broadcast(Object object) throws JsonProcessingException {
+        broadcast(object, subscription -> true);
+    }
+
+    // Serialize the object as JSON once for all sessions, if any session needs it
+    public void broadcast(Object object, Predicate<WebSocketSubscription> filter) throws JsonProcessingException {
+        if (!hasSubscribers(filter)) {
+            return;
+        }
+
+        broadcast(new TextMessage(mapper.writeValueAsString(object)), filter);
+    }
+
+    // Send the current sample of a value created for each subscription, e.g. with only the requested channels.
+    // Sessions are skipped until the next sample is due, if they limit the frequency. A null sample is not sent.
+    public void broadcastSample(Function<WebSocketSubscription, WebSocketMessage<?>> sampleFactory) {
+        send(sampleFactory, true);
+    }
+
+    public WebSocketBroadcastStatistics getStatistics() {
+        WebSocketBroadcastStatistics statistics = new WebSocketBroadcastStatistics();
+
+        statistics.setName(name);
+        statistics.setSessions(sessionMap.size());
+        statistics.setMessages(messages.get());
+        statistics.setBytes(bytes.get());
+        statistics.setSentMessages(sentMessages.get());
+        statistics.setFailedMessages(failedMessages.get());
+        statistics.setEvictedSessions(evictedSessions.get());
+
+        for (BroadcastSession broadcastSession : sessionMap.values()) {
+            statistics.setQueuedMessages(statistics.getQueuedMessages() + broadcastSession.queue.size());
+            statistics.setQueuedBytes(statistics.getQueuedBytes() + broadcastSession.queuedBytes.get());
+        }
+
+        return statistics;
+    }
+
+}
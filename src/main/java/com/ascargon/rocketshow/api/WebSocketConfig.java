@@ -15,12 +15,14 @@ class WebSocketConfig implements WebSocketConfigurer {
     private final DefaultActivityNotificationMidiService defaultActivityNotificationMidiService;
     private final DefaultActivityNotificationAudioService defaultActivityNotificationAudioService;
     private final DefaultActivityNotificationLightingService defaultActivityNotificationLightingService;
+    private final DefaultPositionNotificationService defaultPositionNotificationService;
 
-    public WebSocketConfig(DefaultNotificationService defaultNotificationService, DefaultActivityNotificationMidiService defaultActivityNotificationMidiService, DefaultActivityNotificationAudioService defaultActivityNotificationAudioService, DefaultActivityNotificationLightingService defaultActivityNotificationLightingService) {
+    public WebSocketConfig(DefaultNotificationService defaultNotificationService, DefaultActivityNotificationMidiService defaultActivityNotificationMidiService, DefaultActivityNotificationAudioService defaultActivityNotificationAudioService, DefaultActivityNotificationLightingService defaultActivityNotificationLightingService, DefaultPositionNotificationService defaultPositionNotificationService) {
         this.defaultNotificationService = defaultNotificationService;
         this.defaultActivityNotificationMidiService = defaultActivityNotificationMidiService;
         this.defaultActivityNotificationAudioService = defaultActivityNotificationAudioService;
         this.defaultActivityNotificationLightingService = defaultActivityNotificationLightingService;
+        this.defaultPositionNotificationService = defaultPositionNotificationService;
     }
 
     @Override
@@ -29,6 +31,7 @@ class WebSocketConfig implements WebSocketConfigurer {
         registry.addHandler(defaultActivityNotificationMidiService, "/api/activity/midi").setAllowedOrigins("*");
         registry.addHandler(defaultActivityNotificationAudioService, "/api/activity/audio").setAllowedOrigins("*");
         registry.addHandler(defaultActivityNotificationLightingService, "/api/activity/lighting").setAllowedOrigins("*");
+        registry.addHandler(defaultPositionNotificationService, "/api/position").setAllowedOrigins("*");
     }
 
 }
\ No newline at end of file
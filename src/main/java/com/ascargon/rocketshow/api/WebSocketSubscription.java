@@ -0,0 +1,39 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.midi.MidiDestination;
+import com.ascargon.rocketshow.midi.MidiSource;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Set;
+
+/**
+ * The messages a websocket client wants to receive, sent by the client as JSON text message at any time. Each
+ * endpoint only uses the filters it supports. A missing filter doesn't restrict the messages. Clients not sending a
+ * subscription receive all messages.
+ * <p>
+ * The subscription must not be modified after it has been set to a session.
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+public class WebSocketSubscription {
+
+    // Pause all messages, e.g. while the monitor is not visible
+    private boolean subscribed = true;
+
+    // Lighting: the universe ids
+    private Set<Integer> universes;
+
+    // MIDI: only activities with one of these sources or destinations
+    private Set<MidiSource> midiSources;
+    private Set<MidiDestination> midiDestinations;
+
+    // Audio: the indexes of the buses. Other buses are sent without channels.
+    private Set<Integer> audioBuses;
+
+    // Audio: send the levels at most with this frequency
+    private Integer maxFrequencyHertz;
+
+}
@@ -9,6 +9,21 @@ public class AudioCompositionFile extends CompositionFile {
     private String outputBus;
     private int channels = 2;
 
+    public AudioCompositionFile() {
+    }
+
+    public AudioCompositionFile(AudioCompositionFile audioCompositionFile) {
+        super(audioCompositionFile);
+
+        this.outputBus = audioCompositionFile.outputBus;
+        this.channels = audioCompositionFile.channels;
+    }
+
+    @Override
+    public AudioCompositionFile copy() {
+        return new AudioCompositionFile(this);
+    }
+
     public String getOutputBus() {
         return outputBus;
     }
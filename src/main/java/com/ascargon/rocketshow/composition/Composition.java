@@ -9,6 +9,7 @@ import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlElementWrapper;
 import jakarta.xml.bind.annotation.XmlElements;
 import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlTransient;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,6 +28,29 @@ public class Composition {
 
     private List<LeadSheet> leadSheetList = new ArrayList<>();
 
+    // Only the summary of the composition index without the files, while the composition is not loaded yet
+    private boolean summary = false;
+
+    public Composition() {
+    }
+
+    // Create a deep copy of a composition
+    public Composition(Composition composition) {
+        this.name = composition.name;
+        this.notes = composition.notes;
+        this.durationMillis = composition.durationMillis;
+        this.loop = composition.loop;
+        this.summary = composition.summary;
+
+        for (CompositionFile compositionFile : composition.compositionFileList) {
+            this.compositionFileList.add(compositionFile.copy());
+        }
+
+        for (LeadSheet leadSheet : composition.leadSheetList) {
+            this.leadSheetList.add(new LeadSheet(leadSheet));
+        }
+    }
+
     @XmlElementWrapper(name = "fileList")
     @XmlElements({@XmlElement(type = MidiCompositionFile.class, name = "midiFile"),
             @XmlElement(type = VideoCompositionFile.class, name = "videoFile"),
@@ -81,4 +105,13 @@ public class Composition {
     public void setLeadSheetList(List<LeadSheet> leadSheetList) {
         this.leadSheetList = leadSheetList;
     }
+
+    @XmlTransient
+    public boolean isSummary() {
+        return summary;
+    }
+
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
 }
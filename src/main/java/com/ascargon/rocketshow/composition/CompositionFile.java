@@ -32,6 +32,17 @@ abstract public class CompositionFile {
     protected CompositionFile() {
     }
 
+    protected CompositionFile(CompositionFile compositionFile) {
+        this.name = compositionFile.name;
+        this.active = compositionFile.active;
+        this.durationMillis = compositionFile.durationMillis;
+        this.loop = compositionFile.loop;
+        this.offsetMillis = compositionFile.offsetMillis;
+    }
+
+    // Create a deep copy of this file
+    public abstract CompositionFile copy();
+
     public String getName() {
         return name;
     }
@@ -17,6 +17,9 @@ public interface CompositionFileService {
 
     void saveFileAddChunk(InputStream inputStream, String fileName) throws Exception;
 
+    // Save a chunk at its offset. Returns true, if the file is complete.
+    boolean saveFileAddChunk(InputStream inputStream, String fileName, String uploadId, long offset, long totalSizeBytes, String checksum) throws Exception;
+
     CompositionFile saveFileFinish(String fileName) throws Exception;
 
     File getFile(String name, String type) throws Exception;
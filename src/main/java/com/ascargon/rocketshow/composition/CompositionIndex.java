@@ -0,0 +1,102 @@
+package com.ascargon.rocketshow.composition;
+
+import java.util.*;
+
+/**
+ * An immutable index of all available compositions, sorted by name. Compositions can be looked up by name and by
+ * position in constant time. Changes create a new index, which can be swapped without locking the readers.
+ */
+public class CompositionIndex {
+
+    private final List<CompositionIndexEntry> entryList;
+    private final Map<String, Integer> positionMap;
+
+    public CompositionIndex(Collection<CompositionIndexEntry> entries) {
+        List<CompositionIndexEntry> sortedEntryList = new ArrayList<>(entries);
+        sortedEntryList.sort(Comparator.comparing(CompositionIndexEntry::getName));
+
+        Map<String, Integer> positionMap = new HashMap<>(sortedEntryList.size() * 2);
+
+        for (int i = 0; i < sortedEntryList.size(); i++) {
+            positionMap.put(sortedEntryList.get(i).getName(), i);
+        }
+
+        this.entryList = Collections.unmodifiableList(sortedEntryList);
+        this.positionMap = positionMap;
+    }
+
+    public CompositionIndex() {
+        this(Collections.emptyList());
+    }
+
+    // Return a new index, containing the entry instead of an existing one with the same name
+    public CompositionIndex withEntry(CompositionIndexEntry entry) {
+        List<CompositionIndexEntry> newEntryList = new ArrayList<>(entryList);
+        int position = getPosition(entry.getName());
+
+        if (position >= 0) {
+            newEntryList.set(position, entry);
+        } else {
+            newEntryList.add(entry);
+        }
+
+        return new CompositionIndex(newEntryList);
+    }
+
+    // Return a new index without the entry with the specified name
+    public CompositionIndex withoutEntry(String name) {
+        int position = getPosition(name);
+
+        if (position < 0) {
+            return this;
+        }
+
+        List<CompositionIndexEntry> newEntryList = new ArrayList<>(entryList);
+        newEntryList.remove(position);
+
+        return new CompositionIndex(newEntryList);
+    }
+
+    public List<CompositionIndexEntry> getEntryList() {
+        return entryList;
+    }
+
+    public CompositionIndexEntry getEntry(String name) {
+        int position = getPosition(name);
+
+        if (position < 0) {
+            return null;
+        }
+
+        return entryList.get(position);
+    }
+
+    // Return the entry at the specified position or null, if the position is out of range
+    public CompositionIndexEntry getEntry(int position) {
+        if (position < 0 || position >= entryList.size()) {
+            return null;
+        }
+
+        return entryList.get(position);
+    }
+
+    // Get the position of a composition, based on its name or -1, if it has not been found
+    public int getPosition(String name) {
+        if (name == null) {
+            return -1;
+        }
+
+        Integer position = positionMap.get(name);
+
+        if (position == null) {
+            return -1;
+        }
+
+        return position;
+    }
+
+    public int size() {
+        return entryList.size();
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.ascargon.rocketshow.composition;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The summary of a composition, which is available without parsing the composition file itself. The last
+ * modification and size of the composition file are used to detect an outdated entry.
+ */
+public class CompositionIndexEntry {
+
+    private String name;
+    private long durationMillis;
+    private List<String> fileNameList = new ArrayList<>();
+    private long lastModifiedMillis;
+    private long sizeBytes;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public List<String> getFileNameList() {
+        return fileNameList;
+    }
+
+    public void setFileNameList(List<String> fileNameList) {
+        this.fileNameList = fileNameList;
+    }
+
+    public long getLastModifiedMillis() {
+        return lastModifiedMillis;
+    }
+
+    public void setLastModifiedMillis(long lastModifiedMillis) {
+        this.lastModifiedMillis = lastModifiedMillis;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    // Check, whether this entry is still up to date with the composition file
+    public boolean matches(File file) {
+        return lastModifiedMillis == file.lastModified() && sizeBytes == file.length();
+    }
+
+}
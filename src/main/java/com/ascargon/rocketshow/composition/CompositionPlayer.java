@@ -15,6 +15,8 @@ import com.ascargon.rocketshow.lighting.Midi2LightingConvertService;
 import com.ascargon.rocketshow.lighting.designer.DesignerService;
 import com.ascargon.rocketshow.lighting.designer.Project;
 import com.ascargon.rocketshow.midi.*;
+import com.ascargon.rocketshow.util.MetricsService;
+import com.ascargon.rocketshow.util.MetricsTimer;
 import com.ascargon.rocketshow.util.OperatingSystemInformation;
 import com.ascargon.rocketshow.util.OperatingSystemInformationService;
 import com.ascargon.rocketshow.video.VideoCompositionFile;
@@ -23,6 +25,8 @@ import org.freedesktop.gstreamer.elements.AppSink;
 import org.freedesktop.gstreamer.elements.BaseSink;
 import org.freedesktop.gstreamer.elements.PlayBin;
 import org.freedesktop.gstreamer.elements.URIDecodeBin;
+import org.freedesktop.gstreamer.event.SeekFlags;
+import org.freedesktop.gstreamer.event.SeekType;
 import org.freedesktop.gstreamer.lowlevel.GType;
 import org.freedesktop.gstreamer.lowlevel.GValueAPI;
 import org.freedesktop.gstreamer.message.Message;
@@ -36,6 +40,7 @@ import javax.sound.midi.ShortMessage;
 import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -72,6 +77,10 @@ public class CompositionPlayer {
     private final AudioService audioService;
     private final DesignerService designerService;
     private final OperatingSystemInformationService operatingSystemInformationService;
+    private final MetricsService metricsService;
+
+    // The start of playing until the pipeline is playing, which includes the pre-roll
+    private volatile long playStartNanos = MetricsTimer.DISABLED;
 
     private Composition composition;
     private PlayState playState = PlayState.STOPPED;
@@ -91,7 +100,7 @@ public class CompositionPlayer {
     // All MIDI routers
     private List<MidiRouter> midiRouterList = new ArrayList<>();
 
-    public CompositionPlayer(NotificationService notificationService, ActivityNotificationMidiService activityNotificationMidiService, PlayerService playerService, SettingsService settingsService, CapabilitiesService capabilitiesService, ActivityNotificationAudioService activityNotificationAudioService, SetService setService, Midi2LightingConvertService midi2LightingConvertService, LightingService lightingService, MidiDeviceOutService midiDeviceOutService, AudioService audioService, DesignerService designerService, OperatingSystemInformationService operatingSystemInformationService) {
+    public CompositionPlayer(NotificationService notificationService, ActivityNotificationMidiService activityNotificationMidiService, PlayerService playerService, SettingsService settingsService, CapabilitiesService capabilitiesService, ActivityNotificationAudioService activityNotificationAudioService, SetService setService, Midi2LightingConvertService midi2LightingConvertService, LightingService lightingService, MidiDeviceOutService midiDeviceOutService, AudioService audioService, DesignerService designerService, OperatingSystemInformationService operatingSystemInformationService, MetricsService metricsService) {
         this.notificationService = notificationService;
         this.activityNotificationMidiService = activityNotificationMidiService;
         this.playerService = playerService;
@@ -105,6 +114,7 @@ public class CompositionPlayer {
         this.audioService = audioService;
         this.designerService = designerService;
         this.operatingSystemInformationService = operatingSystemInformationService;
+        this.metricsService = metricsService;
 
         this.midiMapping.setParent(settingsService.getSettings().getMidiMapping());
     }
@@ -260,6 +270,11 @@ public class CompositionPlayer {
         bus.connect((GstObject source, State old, State newState, State pending) -> {
             if (source.getTypeName().equals("GstPipeline")) {
                 if (newState == State.PLAYING) {
+                    if (playStartNanos != MetricsTimer.DISABLED) {
+                        getCompositionTimer("composition_start_seconds", "Time from playing a composition until the pipeline is playing").stop(playStartNanos);
+                        playStartNanos = MetricsTimer.DISABLED;
+                    }
+
                     // We changed to playing, maybe we need to seek to the start position (not possible before playing)
                     if (startPosition > 0) {
                         try {
@@ -332,8 +347,8 @@ public class CompositionPlayer {
             Element level = null;
             if (!isSample && settingsService.getSettings().getEnableMonitor()) {
                 level = ElementFactory.make("level", "level");
-                // 1000 Milliseconds
-                level.set("interval", 1000 * 1000000);
+                // The interval in nanoseconds
+                level.set("interval", 1000000000L / Math.max(1, settingsService.getSettings().getAudioMonitorFrequencyHertz()));
                 level.set("post-messages", true);
                 pipeline.add(level);
             }
@@ -355,7 +370,7 @@ public class CompositionPlayer {
             if (compositionFile.isActive()) {
                 if (compositionFile instanceof MidiCompositionFile) {
                     MidiCompositionFile midiCompositionFile = (MidiCompositionFile) compositionFile;
-                    MidiRouter midiRouter = new MidiRouter(settingsService, midi2LightingConvertService, lightingService, midiDeviceOutService, activityNotificationMidiService, midiCompositionFile.getMidiRoutingList());
+                    MidiRouter midiRouter = new MidiRouter(settingsService, midi2LightingConvertService, lightingService, midiDeviceOutService, activityNotificationMidiService, metricsService, MidiSource.MIDI_FILE, midiCompositionFile.getMidiRoutingList());
 
                     midiRouterList.add(midiRouter);
 
@@ -482,6 +497,22 @@ public class CompositionPlayer {
         }
     }
 
+    private MetricsTimer getCompositionTimer(String name, String description) {
+        // Not labeled with the composition, which would create a series per composition in the library
+        return metricsService.getTimer(name, description);
+    }
+
+    private void commitEvent(CompositionPlayerEvent event, String action, long positionMillis) {
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.composition = composition.getName();
+            event.positionMillis = positionMillis;
+            event.commit();
+        }
+    }
+
     // Load all files and construct the complete GST pipeline
     public void loadFiles() throws Exception {
         boolean hasActiveFile = false;
@@ -524,6 +555,12 @@ public class CompositionPlayer {
 
         playState = PlayState.LOADING;
 
+        MetricsTimer loadTimer = getCompositionTimer("composition_load_seconds", "Time to create the pipeline of a composition");
+        long loadStartNanos = loadTimer.start();
+
+        CompositionPlayerEvent event = new CompositionPlayerEvent();
+        event.begin();
+
         if (!isDefaultComposition && !isSample) {
             notificationService.notifyClients(playerService, setService);
         }
@@ -548,6 +585,9 @@ public class CompositionPlayer {
             createGstreamerPipeline(hasAudioFile);
         }
 
+        loadTimer.stop(loadStartNanos);
+        commitEvent(event, "load", startPosition);
+
         logger.debug("Composition '" + composition.getName() + "' loaded");
 
         // Maybe we are stopping meanwhile
@@ -562,6 +602,11 @@ public class CompositionPlayer {
             return;
         }
 
+        playStartNanos = getCompositionTimer("composition_start_seconds", "Time from playing a composition until the pipeline is playing").start();
+
+        CompositionPlayerEvent event = new CompositionPlayerEvent();
+        event.begin();
+
         // Load the files, if not already done by a previously by a separate call
         loadFiles();
 
@@ -582,6 +627,8 @@ public class CompositionPlayer {
         }
 
         designerService.play();
+
+        commitEvent(event, "play", startPosition);
     }
 
     public void pause() throws Exception {
@@ -656,6 +703,9 @@ public class CompositionPlayer {
     }
 
     public void seek(long positionMillis) throws Exception {
+        CompositionPlayerEvent event = new CompositionPlayerEvent();
+        event.begin();
+
         // When we seek before pressing play
         startPosition = positionMillis;
 
@@ -667,11 +717,52 @@ public class CompositionPlayer {
 
         designerService.seek(positionMillis);
 
+        commitEvent(event, "seek", positionMillis);
+
         if (!isSample) {
             notificationService.notifyClients(playerService, setService);
         }
     }
 
+    // Change the playback rate (e.g. to correct a drift against a synchronized device). A non-flushing seek
+    // without a position is ignored by most elements and the binding does not support instant rate changes
+    // -> flush and seek to the current position with the new rate. The caller is an HTTP request of the
+    // synchronizing device, so don't wait for the seek to complete.
+    public void setPlaybackRate(double rate) {
+        if (pipeline == null || playState != PlayState.PLAYING) {
+            return;
+        }
+
+        Segment segment = pipeline.querySegment(Format.TIME);
+
+        if (segment != null && Math.abs(segment.getRate() - rate) < 1e-6) {
+            // Already playing at this rate -> don't flush
+            return;
+        }
+
+        logger.debug("Set playback rate to " + rate + " (current rate " + (segment == null ? "unknown" : segment.getRate()) + ")");
+
+        long positionNanos = pipeline.queryPosition(Format.TIME);
+
+        if (positionNanos < 0 || !pipeline.seek(rate, Format.TIME, EnumSet.of(SeekFlags.FLUSH, SeekFlags.ACCURATE), SeekType.SET, positionNanos, SeekType.NONE, -1)) {
+            logger.warn("Could not set playback rate to " + rate);
+        }
+    }
+
+    public long getClockTimeMillis() {
+        if (pipeline == null) {
+            return -1;
+        }
+
+        Clock clock = pipeline.getClock();
+
+        if (clock == null) {
+            return -1;
+        }
+
+        return clock.getTime() / 1000000;
+    }
+
     public long getPositionMillis() {
         if (startPosition > 0) {
             return startPosition;
@@ -0,0 +1,23 @@
+package com.ascargon.rocketshow.composition;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event for loading, playing or seeking a composition.
+ */
+@Name("rocketshow.CompositionPlayer")
+@Label("Composition Player")
+@Category({"Rocket Show", "Composition"})
+class CompositionPlayerEvent extends Event {
+
+    @Label("Action")
+    String action;
+
+    @Label("Composition")
+    String composition;
+
+    @Label("Position")
+    @Timespan(Timespan.MILLISECONDS)
+    long positionMillis;
+
+}
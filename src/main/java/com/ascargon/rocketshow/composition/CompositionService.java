@@ -12,12 +12,14 @@ import java.util.List;
 @Service
 public interface CompositionService {
 
-    Composition cloneComposition(Composition composition) throws Exception;
+    Composition cloneComposition(Composition composition);
 
     Composition getComposition(String name);
 
     Set getSet(String name);
 
+    // Get all compositions. Compositions not loaded yet are returned as summaries without files, see
+    // Composition.isSummary().
     List<Composition> getAllCompositions();
 
     List<Set> getAllSets();
@@ -26,6 +28,14 @@ public interface CompositionService {
 
     void loadAllSets();
 
+    // Reload a composition after its file has been changed, created or deleted outside the application. Returns
+    // true, if the library has changed.
+    boolean reloadComposition(String name);
+
+    // Reload a set after its file has been changed, created or deleted outside the application. Returns true, if
+    // the library has changed.
+    boolean reloadSet(String name);
+
     void saveComposition(Composition composition) throws Exception;
 
     void saveSet(Set set, boolean checkCompositions) throws Exception;
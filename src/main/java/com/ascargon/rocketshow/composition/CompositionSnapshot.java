@@ -0,0 +1,472 @@
+package com.ascargon.rocketshow.composition;
+
+import com.ascargon.rocketshow.audio.AudioCompositionFile;
+import com.ascargon.rocketshow.lighting.Midi2LightingMapping;
+import com.ascargon.rocketshow.midi.*;
+import com.ascargon.rocketshow.video.VideoCompositionFile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A versioned binary snapshot of the parsed composition library. It is read memory-mapped at startup, which is
+ * a lot faster than parsing each XML file. Compositions are only decoded on first access, sets right away.
+ * <p>
+ * Each entry contains the last modification and size of its XML file. Entries not matching their file anymore
+ * have to be parsed from the XML instead.
+ */
+public class CompositionSnapshot {
+
+    // "RSCS" followed by the version. Increase the version on each change of the format.
+    private final static int MAGIC = 0x52534353;
+    private final static int VERSION = 1;
+
+    public static class SetEntry {
+
+        private final long lastModifiedMillis;
+        private final long sizeBytes;
+        private final Set set;
+
+        public SetEntry(long lastModifiedMillis, long sizeBytes, Set set) {
+            this.lastModifiedMillis = lastModifiedMillis;
+            this.sizeBytes = sizeBytes;
+            this.set = set;
+        }
+
+        public boolean matches(File file) {
+            return file.lastModified() == lastModifiedMillis && file.length() == sizeBytes;
+        }
+
+        public Set getSet() {
+            return set;
+        }
+
+    }
+
+    private final List<CompositionIndexEntry> compositionIndexEntryList = new ArrayList<>();
+    private final Map<String, ByteBuffer> compositionDataMap = new HashMap<>();
+    private final Map<String, SetEntry> setEntryMap = new HashMap<>();
+
+    public void addComposition(CompositionIndexEntry indexEntry, ByteBuffer data) {
+        compositionIndexEntryList.add(indexEntry);
+        compositionDataMap.put(indexEntry.getName(), data);
+    }
+
+    public void addSet(SetEntry setEntry) {
+        setEntryMap.put(setEntry.getSet().getName(), setEntry);
+    }
+
+    public List<CompositionIndexEntry> getCompositionIndexEntryList() {
+        return compositionIndexEntryList;
+    }
+
+    // The encoded compositions by name. Decode them with decodeComposition.
+    public Map<String, ByteBuffer> getCompositionDataMap() {
+        return compositionDataMap;
+    }
+
+    public Map<String, SetEntry> getSetEntryMap() {
+        return setEntryMap;
+    }
+
+    public static CompositionSnapshot read(File file) throws IOException {
+        CompositionSnapshot snapshot = new CompositionSnapshot();
+
+        // The mapping stays valid after closing the channel
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("File '" + file.getPath() + "' is not a composition snapshot");
+        }
+
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Composition snapshot version " + version + " is not supported");
+        }
+
+        int compositionCount = buffer.getInt();
+        for (int i = 0; i < compositionCount; i++) {
+            CompositionIndexEntry indexEntry = new CompositionIndexEntry();
+            indexEntry.setName(readString(buffer));
+            indexEntry.setLastModifiedMillis(buffer.getLong());
+            indexEntry.setSizeBytes(buffer.getLong());
+            indexEntry.setDurationMillis(buffer.getLong());
+
+            int fileNameCount = buffer.getInt();
+            for (int j = 0; j < fileNameCount; j++) {
+                indexEntry.getFileNameList().add(readString(buffer));
+            }
+
+            // Only remember the position of the composition data, it's decoded on first access
+            int dataLength = buffer.getInt();
+            ByteBuffer data = buffer.slice(buffer.position(), dataLength);
+            buffer.position(buffer.position() + dataLength);
+
+            snapshot.addComposition(indexEntry, data);
+        }
+
+        int setCount = buffer.getInt();
+        for (int i = 0; i < setCount; i++) {
+            long lastModifiedMillis = buffer.getLong();
+            long sizeBytes = buffer.getLong();
+            snapshot.addSet(new SetEntry(lastModifiedMillis, sizeBytes, readSet(buffer)));
+        }
+
+        return snapshot;
+    }
+
+    public void write(File file) throws IOException {
+        // Write a temporary file and replace the snapshot afterwards. An existing mapping of the old
+        // snapshot stays valid this way.
+        File temporaryFile = new File(file.getPath() + ".tmp");
+
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+
+            outputStream.writeInt(compositionIndexEntryList.size());
+            for (CompositionIndexEntry indexEntry : compositionIndexEntryList) {
+                writeString(outputStream, indexEntry.getName());
+                outputStream.writeLong(indexEntry.getLastModifiedMillis());
+                outputStream.writeLong(indexEntry.getSizeBytes());
+                outputStream.writeLong(indexEntry.getDurationMillis());
+
+                outputStream.writeInt(indexEntry.getFileNameList().size());
+                for (String fileName : indexEntry.getFileNameList()) {
+                    writeString(outputStream, fileName);
+                }
+
+                ByteBuffer data = compositionDataMap.get(indexEntry.getName()).duplicate();
+                byte[] bytes = new byte[data.remaining()];
+                data.get(bytes);
+
+                outputStream.writeInt(bytes.length);
+                outputStream.write(bytes);
+            }
+
+            outputStream.writeInt(setEntryMap.size());
+            for (SetEntry setEntry : setEntryMap.values()) {
+                outputStream.writeLong(setEntry.lastModifiedMillis);
+                outputStream.writeLong(setEntry.sizeBytes);
+                writeSet(outputStream, setEntry.set);
+            }
+        }
+
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static ByteBuffer encodeComposition(Composition composition) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        try (DataOutputStream outputStream = new DataOutputStream(byteArrayOutputStream)) {
+            writeComposition(outputStream, composition);
+        }
+
+        return ByteBuffer.wrap(byteArrayOutputStream.toByteArray());
+    }
+
+    public static Composition decodeComposition(ByteBuffer data) throws IOException {
+        // Don't change the position of the shared buffer
+        return readComposition(data.duplicate());
+    }
+
+    private static void writeString(DataOutputStream outputStream, String value) throws IOException {
+        if (value == null) {
+            outputStream.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(DataOutputStream outputStream, Integer value) throws IOException {
+        outputStream.writeBoolean(value != null);
+
+        if (value != null) {
+            outputStream.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(ByteBuffer buffer) {
+        return buffer.get() != 0 ? buffer.getInt() : null;
+    }
+
+    private static void writeBoolean(DataOutputStream outputStream, Boolean value) throws IOException {
+        // 0 = null, 1 = false, 2 = true
+        outputStream.writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    private static Boolean readBoolean(ByteBuffer buffer) {
+        byte value = buffer.get();
+        return value == 0 ? null : value == 2;
+    }
+
+    private static <T extends Enum<T>> T readEnum(ByteBuffer buffer, Class<T> type) {
+        String name = readString(buffer);
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+
+    private static void writeEnum(DataOutputStream outputStream, Enum<?> value) throws IOException {
+        writeString(outputStream, value == null ? null : value.name());
+    }
+
+    private static void writeStringList(DataOutputStream outputStream, List<String> list) throws IOException {
+        if (list == null) {
+            outputStream.writeInt(-1);
+            return;
+        }
+
+        outputStream.writeInt(list.size());
+        for (String value : list) {
+            writeString(outputStream, value);
+        }
+    }
+
+    private static List<String> readStringList(ByteBuffer buffer) {
+        int size = buffer.getInt();
+
+        if (size < 0) {
+            return null;
+        }
+
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readString(buffer));
+        }
+        return list;
+    }
+
+    private static void writeMidiMapping(DataOutputStream outputStream, MidiMapping midiMapping) throws IOException {
+        outputStream.writeBoolean(midiMapping != null);
+
+        if (midiMapping == null) {
+            return;
+        }
+
+        if (midiMapping.getChannelMap() == null) {
+            outputStream.writeInt(-1);
+        } else {
+            outputStream.writeInt(midiMapping.getChannelMap().size());
+            for (ChannelMapping channelMapping : midiMapping.getChannelMap()) {
+                outputStream.writeInt(channelMapping.getChannelFrom());
+                outputStream.writeInt(channelMapping.getChannelTo());
+            }
+        }
+
+        writeInteger(outputStream, midiMapping.getChannelOffset());
+        writeInteger(outputStream, midiMapping.getNoteOffset());
+        writeBoolean(outputStream, midiMapping.isOverrideParent());
+    }
+
+    private static MidiMapping readMidiMapping(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+
+        MidiMapping midiMapping = new MidiMapping();
+
+        int channelMappingCount = buffer.getInt();
+        if (channelMappingCount < 0) {
+            midiMapping.setChannelMap(null);
+        }
+
+        for (int i = 0; i < channelMappingCount; i++) {
+            ChannelMapping channelMapping = new ChannelMapping();
+            channelMapping.setChannelFrom(buffer.getInt());
+            channelMapping.setChannelTo(buffer.getInt());
+            midiMapping.getChannelMap().add(channelMapping);
+        }
+
+        midiMapping.setChannelOffset(readInteger(buffer));
+        midiMapping.setNoteOffset(readInteger(buffer));
+        midiMapping.setOverrideParent(readBoolean(buffer));
+
+        return midiMapping;
+    }
+
+    private static void writeMidiRouting(DataOutputStream outputStream, MidiRouting midiRouting) throws IOException {
+        writeEnum(outputStream, midiRouting.getMidiDestination());
+        writeMidiMapping(outputStream, midiRouting.getMidiMapping());
+
+        outputStream.writeBoolean(midiRouting.getMidi2LightingMapping() != null);
+        if (midiRouting.getMidi2LightingMapping() != null) {
+            writeEnum(outputStream, midiRouting.getMidi2LightingMapping().getMappingType());
+        }
+
+        writeStringList(outputStream, midiRouting.getRemoteDeviceIdList());
+    }
+
+    private static MidiRouting readMidiRouting(ByteBuffer buffer) {
+        MidiRouting midiRouting = new MidiRouting();
+
+        midiRouting.setMidiDestination(readEnum(buffer, MidiDestination.class));
+        midiRouting.setMidiMapping(readMidiMapping(buffer));
+
+        if (buffer.get() == 0) {
+            midiRouting.setMidi2LightingMapping(null);
+        } else {
+            midiRouting.getMidi2LightingMapping().setMappingType(readEnum(buffer, Midi2LightingMapping.MappingType.class));
+        }
+
+        midiRouting.setRemoteDeviceIdList(readStringList(buffer));
+
+        return midiRouting;
+    }
+
+    private static void writeCompositionFile(DataOutputStream outputStream, CompositionFile compositionFile) throws IOException {
+        writeEnum(outputStream, compositionFile.getType());
+        writeString(outputStream, compositionFile.getName());
+        outputStream.writeBoolean(compositionFile.isActive());
+        outputStream.writeLong(compositionFile.getDurationMillis());
+        outputStream.writeBoolean(compositionFile.isLoop());
+        outputStream.writeInt(compositionFile.getOffsetMillis());
+
+        if (compositionFile instanceof AudioCompositionFile) {
+            AudioCompositionFile audioCompositionFile = (AudioCompositionFile) compositionFile;
+            writeString(outputStream, audioCompositionFile.getOutputBus());
+            outputStream.writeInt(audioCompositionFile.getChannels());
+        } else if (compositionFile instanceof MidiCompositionFile) {
+            List<MidiRouting> midiRoutingList = ((MidiCompositionFile) compositionFile).getMidiRoutingList();
+
+            outputStream.writeInt(midiRoutingList.size());
+            for (MidiRouting midiRouting : midiRoutingList) {
+                writeMidiRouting(outputStream, midiRouting);
+            }
+        }
+    }
+
+    private static CompositionFile readCompositionFile(ByteBuffer buffer) throws IOException {
+        CompositionFile.CompositionFileType type = readEnum(buffer, CompositionFile.CompositionFileType.class);
+        CompositionFile compositionFile;
+
+        if (type == CompositionFile.CompositionFileType.MIDI) {
+            compositionFile = new MidiCompositionFile();
+        } else if (type == CompositionFile.CompositionFileType.AUDIO) {
+            compositionFile = new AudioCompositionFile();
+        } else if (type == CompositionFile.CompositionFileType.VIDEO) {
+            compositionFile = new VideoCompositionFile();
+        } else {
+            throw new IOException("Unknown composition file type " + type);
+        }
+
+        compositionFile.setName(readString(buffer));
+        compositionFile.setActive(buffer.get() != 0);
+        compositionFile.setDurationMillis(buffer.getLong());
+        compositionFile.setLoop(buffer.get() != 0);
+        compositionFile.setOffsetMillis(buffer.getInt());
+
+        if (compositionFile instanceof AudioCompositionFile) {
+            AudioCompositionFile audioCompositionFile = (AudioCompositionFile) compositionFile;
+            audioCompositionFile.setOutputBus(readString(buffer));
+            audioCompositionFile.setChannels(buffer.getInt());
+        } else if (compositionFile instanceof MidiCompositionFile) {
+            MidiCompositionFile midiCompositionFile = (MidiCompositionFile) compositionFile;
+
+            int midiRoutingCount = buffer.getInt();
+            for (int i = 0; i < midiRoutingCount; i++) {
+                midiCompositionFile.getMidiRoutingList().add(readMidiRouting(buffer));
+            }
+        }
+
+        return compositionFile;
+    }
+
+    private static void writeComposition(DataOutputStream outputStream, Composition composition) throws IOException {
+        writeString(outputStream, composition.getName());
+        writeString(outputStream, composition.getNotes());
+        outputStream.writeLong(composition.getDurationMillis());
+        outputStream.writeBoolean(composition.isLoop());
+
+        outputStream.writeInt(composition.getCompositionFileList().size());
+        for (CompositionFile compositionFile : composition.getCompositionFileList()) {
+            writeCompositionFile(outputStream, compositionFile);
+        }
+
+        outputStream.writeInt(composition.getLeadSheetList().size());
+        for (LeadSheet leadSheet : composition.getLeadSheetList()) {
+            writeString(outputStream, leadSheet.getName());
+            writeString(outputStream, leadSheet.getInstrumentUuid());
+        }
+    }
+
+    private static Composition readComposition(ByteBuffer buffer) throws IOException {
+        Composition composition = new Composition();
+
+        composition.setName(readString(buffer));
+        composition.setNotes(readString(buffer));
+        composition.setDurationMillis(buffer.getLong());
+        composition.setLoop(buffer.get() != 0);
+
+        int fileCount = buffer.getInt();
+        for (int i = 0; i < fileCount; i++) {
+            composition.getCompositionFileList().add(readCompositionFile(buffer));
+        }
+
+        int leadSheetCount = buffer.getInt();
+        for (int i = 0; i < leadSheetCount; i++) {
+            LeadSheet leadSheet = new LeadSheet();
+            leadSheet.setName(readString(buffer));
+            leadSheet.setInstrumentUuid(readString(buffer));
+            composition.getLeadSheetList().add(leadSheet);
+        }
+
+        return composition;
+    }
+
+    private static void writeSet(DataOutputStream outputStream, Set set) throws IOException {
+        writeString(outputStream, set.getName());
+        writeString(outputStream, set.getNotes());
+
+        outputStream.writeInt(set.getSetCompositionList().size());
+        for (SetComposition setComposition : set.getSetCompositionList()) {
+            writeString(outputStream, setComposition.getName());
+            outputStream.writeLong(setComposition.getDurationMillis());
+            outputStream.writeBoolean(setComposition.isAutoStartNextComposition());
+        }
+    }
+
+    private static Set readSet(ByteBuffer buffer) {
+        Set set = new Set();
+
+        set.setName(readString(buffer));
+        set.setNotes(readString(buffer));
+
+        int setCompositionCount = buffer.getInt();
+        for (int i = 0; i < setCompositionCount; i++) {
+            SetComposition setComposition = new SetComposition();
+            setComposition.setName(readString(buffer));
+            setComposition.setDurationMillis(buffer.getLong());
+            setComposition.setAutoStartNextComposition(buffer.get() != 0);
+            set.getSetCompositionList().add(setComposition);
+        }
+
+        return set;
+    }
+
+}
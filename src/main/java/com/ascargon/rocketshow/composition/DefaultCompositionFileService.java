@@ -27,15 +27,18 @@ public class DefaultCompositionFileService implements CompositionFileService {
     private final SettingsService settingsService;
     private final FileFilterService fileFilterService;
     private final ChunkedFileUploadService chunkedFileUploadService;
+    private final MediaMetadataService mediaMetadataService;
 
     public DefaultCompositionFileService(
             SettingsService settingsService,
             FileFilterService fileFilterService,
-            ChunkedFileUploadService chunkedFileUploadService
+            ChunkedFileUploadService chunkedFileUploadService,
+            MediaMetadataService mediaMetadataService
     ) {
         this.settingsService = settingsService;
         this.fileFilterService = fileFilterService;
         this.chunkedFileUploadService = chunkedFileUploadService;
+        this.mediaMetadataService = mediaMetadataService;
     }
 
     @Override
@@ -114,6 +117,7 @@ public class DefaultCompositionFileService implements CompositionFileService {
         logger.info("Delete file '" + path + "'");
 
         File systemFile = new File(path);
+        mediaMetadataService.remove(systemFile);
 
         if (!systemFile.exists()) {
             return;
@@ -198,6 +202,11 @@ public class DefaultCompositionFileService implements CompositionFileService {
         chunkedFileUploadService.handleChunk(inputStream, saveFileGetFile(fileName));
     }
 
+    @Override
+    public boolean saveFileAddChunk(InputStream inputStream, String fileName, String uploadId, long offset, long totalSizeBytes, String checksum) throws Exception {
+        return chunkedFileUploadService.handleChunk(inputStream, saveFileGetFile(fileName), uploadId, offset, totalSizeBytes, checksum);
+    }
+
     @Override
     public CompositionFile saveFileFinish(String fileName) throws Exception {
         CompositionFile compositionFile = null;
@@ -217,6 +226,13 @@ public class DefaultCompositionFileService implements CompositionFileService {
 
         compositionFile.setName(fileName);
 
+        // Discover the metadata in the background, to have it ready when the composition gets saved
+        mediaMetadataService.discover(saveFileGetFile(fileName), fileType).whenComplete((mediaMetadata, throwable) -> {
+            if (throwable != null) {
+                logger.error("Could not discover the metadata of file '" + fileName + "'", throwable);
+            }
+        });
+
         return compositionFile;
     }
 
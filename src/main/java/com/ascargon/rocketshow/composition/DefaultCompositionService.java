@@ -1,31 +1,23 @@
 package com.ascargon.rocketshow.composition;
 
-import com.ascargon.rocketshow.CapabilitiesService;
 import com.ascargon.rocketshow.PlayerService;
 import com.ascargon.rocketshow.SettingsService;
 import com.ascargon.rocketshow.audio.AudioCompositionFile;
-import com.ascargon.rocketshow.gstreamer.GstDiscovererService;
 import com.ascargon.rocketshow.midi.MidiCompositionFile;
+import com.ascargon.rocketshow.util.JaxbService;
 import com.ascargon.rocketshow.video.VideoCompositionFile;
-import com.sun.jna.Pointer;
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.Marshaller;
-import jakarta.xml.bind.Unmarshaller;
-import jakarta.xml.bind.util.JAXBSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import javax.sound.midi.MidiSystem;
-import javax.sound.midi.Sequence;
+import javax.annotation.PreDestroy;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Handle storage, sorting, etc. of compositions and sets.
@@ -35,33 +27,87 @@ public class DefaultCompositionService implements CompositionService {
 
     private final static Logger logger = LoggerFactory.getLogger(DefaultCompositionService.class);
 
-    private final static String COMPOSITIONS_PATH = "compositions";
-    private final static String SETS_PATH = "sets";
+    final static String COMPOSITIONS_PATH = "compositions";
+    final static String SETS_PATH = "sets";
+    private final static String SNAPSHOT_FILE_NAME = "library.snapshot";
 
     private final SettingsService settingsService;
-    private final CapabilitiesService capabilitiesService;
-    private final GstDiscovererService gstDiscovererService;
+    private final MediaMetadataService mediaMetadataService;
+    private final JaxbService jaxbService;
+
+    // The summaries of all available compositions, sorted by name. Replaced as a whole on changes.
+    private volatile CompositionIndex compositionIndex = new CompositionIndex();
+
+    // All compositions loaded so far. Compositions are loaded on first access or by the background loader.
+    private final Map<String, Composition> compositionCache = new ConcurrentHashMap<>();
+
+    // The binary encoded compositions (see CompositionSnapshot), from which they are loaded and which are
+    // written to the snapshot
+    private final Map<String, ByteBuffer> compositionDataMap = new ConcurrentHashMap<>();
 
-    // All available compositions
-    private final List<Composition> compositionCache = new ArrayList<>();
     private final List<Set> compositionSetCache = new ArrayList<>();
+    private final Map<String, Set> setMap = new ConcurrentHashMap<>();
+
+    // The names of the sets, each composition is part of
+    private final Map<String, java.util.Set<String>> compositionSetNameMap = new HashMap<>();
+
+    // The sets including the state of their files, to be written to the snapshot
+    private final Map<String, CompositionSnapshot.SetEntry> setSnapshotEntryMap = new HashMap<>();
+
+    // Loads all compositions not accessed yet in the background after the startup
+    private final ExecutorService backgroundLoadExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+        Thread thread = new Thread(runnable, "composition-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    public DefaultCompositionService(SettingsService settingsService, CapabilitiesService capabilitiesService, GstDiscovererService gstDiscovererService) {
+    public DefaultCompositionService(SettingsService settingsService, MediaMetadataService mediaMetadataService, JaxbService jaxbService) {
         this.settingsService = settingsService;
-        this.capabilitiesService = capabilitiesService;
-        this.gstDiscovererService = gstDiscovererService;
+        this.mediaMetadataService = mediaMetadataService;
+        this.jaxbService = jaxbService;
 
         // Initialize the cache
-        this.loadAllCompositions();
-        this.loadAllSets();
-    }
+        long startMillis = System.currentTimeMillis();
+
+        this.loadAll();
+
+        logger.info("Indexed " + compositionIndex.size() + " compositions and loaded " + compositionSetCache.size() + " sets in " + (System.currentTimeMillis() - startMillis) + " ms");
 
-    private void sortCompositionCache() {
-        compositionCache.sort(Comparator.comparing(Composition::getName));
+        loadCompositionsInBackground();
     }
 
-    private void sortSetCache() {
+    private void addSetToCache(Set set) {
+        removeSetFromCache(set.getName());
+
+        compositionSetCache.add(set);
         compositionSetCache.sort(Comparator.comparing(Set::getName));
+        setMap.put(set.getName(), set);
+
+        for (SetComposition setComposition : set.getSetCompositionList()) {
+            compositionSetNameMap.computeIfAbsent(setComposition.getName(), key -> new HashSet<>()).add(set.getName());
+        }
+    }
+
+    private void removeSetFromCache(String name) {
+        Set set = setMap.remove(name);
+
+        if (set == null) {
+            return;
+        }
+
+        compositionSetCache.remove(set);
+
+        for (SetComposition setComposition : set.getSetCompositionList()) {
+            java.util.Set<String> setNameSet = compositionSetNameMap.get(setComposition.getName());
+
+            if (setNameSet != null) {
+                setNameSet.remove(name);
+
+                if (setNameSet.isEmpty()) {
+                    compositionSetNameMap.remove(setComposition.getName());
+                }
+            }
+        }
     }
 
     private void finalizeLoadedComposition(Composition composition, String name) {
@@ -69,19 +115,29 @@ public class DefaultCompositionService implements CompositionService {
     }
 
     @Override
-    public Composition cloneComposition(Composition composition) throws Exception {
-        // Return a deep cloned instance of the composition
-        Composition clonedComposition;
-        JAXBContext jaxbContext = JAXBContext.newInstance(Composition.class);
+    public Composition cloneComposition(Composition composition) {
+        // Return a deep cloned instance of the composition. A summary has no files to copy -> load it first.
+        if (composition.isSummary()) {
+            composition = getComposition(composition.getName());
 
-        JAXBSource source = new JAXBSource(jaxbContext, composition);
+            if (composition == null) {
+                return null;
+            }
+        }
 
-        Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-        clonedComposition = (Composition) unmarshaller.unmarshal(source);
+        return new Composition(composition);
+    }
 
-        finalizeLoadedComposition(clonedComposition, composition.getName());
+    private File getCompositionFile(String name) {
+        return new File(settingsService.getSettings().getBasePath() + File.separator + COMPOSITIONS_PATH + File.separator + name + ".xml");
+    }
 
-        return clonedComposition;
+    private File getSetFile(String name) {
+        return new File(settingsService.getSettings().getBasePath() + File.separator + SETS_PATH + File.separator + name + ".xml");
+    }
+
+    private File getSnapshotFile() {
+        return new File(settingsService.getSettings().getBasePath() + File.separator + SNAPSHOT_FILE_NAME);
     }
 
     private Composition loadComposition(String name) throws Exception {
@@ -90,9 +146,7 @@ public class DefaultCompositionService implements CompositionService {
         logger.debug("Loading composition " + name + "...");
 
         // Load a composition
-        JAXBContext jaxbContext = JAXBContext.newInstance(Composition.class);
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-        composition = (Composition) jaxbUnmarshaller.unmarshal(new File(settingsService.getSettings().getBasePath() + File.separator + COMPOSITIONS_PATH + File.separator + name + ".xml"));
+        composition = jaxbService.unmarshal(Composition.class, getCompositionFile(name));
 
         finalizeLoadedComposition(composition, name);
 
@@ -107,53 +161,163 @@ public class DefaultCompositionService implements CompositionService {
         logger.debug("Loading set '" + name + "'...");
 
         // Load a set
-        JAXBContext jaxbContext = JAXBContext.newInstance(Set.class);
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-        set = (Set) jaxbUnmarshaller.unmarshal(new File(settingsService.getSettings().getBasePath() + File.separator + SETS_PATH + File.separator + name + ".xml"));
+        set = jaxbService.unmarshal(Set.class, getSetFile(name));
 
         logger.info("Set '" + name + "' successfully loaded");
 
         return set;
     }
 
+    private CompositionIndexEntry createIndexEntry(Composition composition) {
+        CompositionIndexEntry indexEntry = new CompositionIndexEntry();
+        File file = getCompositionFile(composition.getName());
+
+        indexEntry.setName(composition.getName());
+        indexEntry.setDurationMillis(composition.getDurationMillis());
+        indexEntry.setLastModifiedMillis(file.lastModified());
+        indexEntry.setSizeBytes(file.length());
+
+        for (CompositionFile compositionFile : composition.getCompositionFileList()) {
+            indexEntry.getFileNameList().add(compositionFile.getName());
+        }
+
+        return indexEntry;
+    }
+
+    // Create a composition out of the index, to be used as long as the composition itself is not loaded
+    private Composition createCompositionSummary(CompositionIndexEntry indexEntry) {
+        Composition composition = new Composition();
+
+        composition.setName(indexEntry.getName());
+        composition.setDurationMillis(indexEntry.getDurationMillis());
+        composition.setSummary(true);
+
+        return composition;
+    }
+
+    private CompositionSnapshot readSnapshot() {
+        File snapshotFile = getSnapshotFile();
+
+        if (!snapshotFile.exists()) {
+            return null;
+        }
+
+        try {
+            return CompositionSnapshot.read(snapshotFile);
+        } catch (Exception e) {
+            logger.error("Could not read the library snapshot. Load all compositions and sets from their files.", e);
+            return null;
+        }
+    }
+
+    private synchronized void saveSnapshot() {
+        CompositionSnapshot snapshot = new CompositionSnapshot();
+
+        for (CompositionIndexEntry indexEntry : compositionIndex.getEntryList()) {
+            ByteBuffer data = compositionDataMap.get(indexEntry.getName());
+
+            if (data != null) {
+                snapshot.addComposition(indexEntry, data);
+            }
+        }
+
+        for (CompositionSnapshot.SetEntry setEntry : setSnapshotEntryMap.values()) {
+            snapshot.addSet(setEntry);
+        }
+
+        try {
+            snapshot.write(getSnapshotFile());
+        } catch (Exception e) {
+            logger.error("Could not save the library snapshot", e);
+        }
+    }
+
+    private Composition loadCompositionFromSnapshotOrFile(String name) throws Exception {
+        ByteBuffer data = compositionDataMap.get(name);
+
+        if (data == null) {
+            Composition composition = loadComposition(name);
+            compositionDataMap.put(name, CompositionSnapshot.encodeComposition(composition));
+            return composition;
+        }
+
+        Composition composition = CompositionSnapshot.decodeComposition(data);
+        finalizeLoadedComposition(composition, name);
+        return composition;
+    }
+
+    private void loadCompositionsInBackground() {
+        long startMillis = System.currentTimeMillis();
+        List<CompletableFuture<Void>> futureList = new ArrayList<>();
+
+        for (CompositionIndexEntry indexEntry : compositionIndex.getEntryList()) {
+            futureList.add(CompletableFuture.runAsync(() -> getComposition(indexEntry.getName()), backgroundLoadExecutor));
+        }
+
+        CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0]))
+                .thenRun(() -> logger.info("Loaded " + compositionCache.size() + " compositions in the background in " + (System.currentTimeMillis() - startMillis) + " ms"));
+    }
+
     @Override
     public Composition getComposition(String name) {
-        for (Composition cachedComposition : compositionCache) {
-            if (cachedComposition.getName().equals(name)) {
-                return cachedComposition;
-            }
+        if (compositionIndex.getPosition(name) < 0) {
+            return null;
         }
 
-        return null;
+        // Load the composition on first access
+        return compositionCache.computeIfAbsent(name, key -> {
+            try {
+                return loadCompositionFromSnapshotOrFile(key);
+            } catch (Exception e) {
+                logger.error("Could not load composition '" + key + "'", e);
+                return null;
+            }
+        });
     }
 
     @Override
     public Set getSet(String name) {
-        for (Set cachedCompositionSet : compositionSetCache) {
-            if (cachedCompositionSet.getName().equals(name)) {
-                return cachedCompositionSet;
-            }
+        if (name == null) {
+            return null;
         }
 
-        return null;
+        return setMap.get(name);
     }
 
-    private void updateSets() throws Exception {
-        // Update all sets (remove deleted files, update playing times),
-        // when a composition has been changed/deleted
+    private void updateSets(String compositionName) throws Exception {
+        // Update the sets containing a composition (remove deleted files, update playing times),
+        // when it has been changed/deleted
+        java.util.Set<String> setNameSet = compositionSetNameMap.get(compositionName);
+
+        if (setNameSet == null) {
+            return;
+        }
 
-        List<Set> sets = new ArrayList<>(getAllSets());
+        for (String setName : new ArrayList<>(setNameSet)) {
+            Set set = setMap.get(setName);
 
-        for (Set set : sets) {
-            // Load the full set
-            Set loadedSet = loadSet(set.getName());
-            saveSet(loadedSet);
+            if (set != null) {
+                saveSetFile(set, true);
+            }
         }
     }
 
     @Override
     public List<Composition> getAllCompositions() {
-        return compositionCache;
+        List<Composition> compositionList = new ArrayList<>();
+
+        for (CompositionIndexEntry indexEntry : compositionIndex.getEntryList()) {
+            Composition composition = compositionCache.get(indexEntry.getName());
+
+            if (composition == null) {
+                // Not loaded yet -> don't block and return the summary
+                composition = createCompositionSummary(indexEntry);
+            }
+
+            compositionList.add(composition);
+        }
+
+        return compositionList;
     }
 
     @Override
@@ -161,29 +325,98 @@ public class DefaultCompositionService implements CompositionService {
         return compositionSetCache;
     }
 
+    // Load the compositions and the sets from a single read of the snapshot and save it once, if required
+    private synchronized void loadAll() {
+        CompositionSnapshot snapshot = readSnapshot();
+
+        boolean compositionsChanged = loadAllCompositions(snapshot);
+        boolean setsChanged = loadAllSets(snapshot);
+
+        if (compositionsChanged || setsChanged) {
+            saveSnapshot();
+        }
+    }
+
     @Override
     public synchronized void loadAllCompositions() {
+        if (loadAllCompositions(readSnapshot())) {
+            saveSnapshot();
+        }
+    }
+
+    // Build the composition index from the snapshot. Only compositions changed since the snapshot has been
+    // saved are parsed (in parallel). All other compositions are decoded from the snapshot on first access.
+    // Returns true, if the snapshot has to be saved.
+    private boolean loadAllCompositions(CompositionSnapshot snapshot) {
+        Map<String, CompositionIndexEntry> savedIndexEntryMap = new HashMap<>();
+
+        if (snapshot != null) {
+            for (CompositionIndexEntry indexEntry : snapshot.getCompositionIndexEntryList()) {
+                savedIndexEntryMap.put(indexEntry.getName(), indexEntry);
+            }
+        }
+
+        compositionCache.clear();
+        compositionDataMap.clear();
+
+        List<CompositionIndexEntry> indexEntryList = new ArrayList<>();
+        List<String> staleNameList = new ArrayList<>();
+
         File folder = new File(settingsService.getSettings().getBasePath() + File.separator + COMPOSITIONS_PATH);
         File[] fileList = folder.listFiles();
 
         if (fileList != null) {
             for (File file : fileList) {
                 if (file.isFile()) {
-                    try {
-                        Composition composition = loadComposition(file.getName().substring(0, file.getName().length() - 4));
-                        compositionCache.add(composition);
-                    } catch (Exception e) {
-                        logger.error("Could not load composition '" + file.getName() + "'", e);
+                    String name = file.getName().substring(0, file.getName().length() - 4);
+                    CompositionIndexEntry indexEntry = savedIndexEntryMap.get(name);
+
+                    if (indexEntry != null && indexEntry.matches(file)) {
+                        indexEntryList.add(indexEntry);
+                        compositionDataMap.put(name, snapshot.getCompositionDataMap().get(name));
+                    } else {
+                        staleNameList.add(name);
                     }
                 }
             }
         }
 
-        sortCompositionCache();
+        // Parse the new or changed compositions in parallel
+        List<CompositionIndexEntry> staleIndexEntryList = staleNameList.parallelStream().map(name -> {
+            try {
+                Composition composition = loadComposition(name);
+                compositionCache.put(name, composition);
+                compositionDataMap.put(name, CompositionSnapshot.encodeComposition(composition));
+                return createIndexEntry(composition);
+            } catch (Exception e) {
+                logger.error("Could not load composition '" + name + "'", e);
+                return null;
+            }
+        }).filter(Objects::nonNull).toList();
+
+        indexEntryList.addAll(staleIndexEntryList);
+
+        compositionIndex = new CompositionIndex(indexEntryList);
+
+        return !staleNameList.isEmpty() || savedIndexEntryMap.size() != indexEntryList.size();
     }
 
     @Override
     public synchronized void loadAllSets() {
+        if (loadAllSets(readSnapshot())) {
+            saveSnapshot();
+        }
+    }
+
+    // Load the sets from the snapshot or from their files, if changed. Returns true, if the snapshot has to be saved.
+    private boolean loadAllSets(CompositionSnapshot snapshot) {
+        boolean snapshotChanged = snapshot == null;
+
+        compositionSetCache.clear();
+        setMap.clear();
+        compositionSetNameMap.clear();
+        setSnapshotEntryMap.clear();
+
         File folder = new File(settingsService.getSettings().getBasePath() + File.separator + SETS_PATH);
         File[] fileList = folder.listFiles();
 
@@ -191,10 +424,18 @@ public class DefaultCompositionService implements CompositionService {
             for (File file : fileList) {
                 if (file.isFile()) {
                     String setName = file.getName().substring(0, file.getName().length() - 4);
+                    CompositionSnapshot.SetEntry setEntry = snapshot == null ? null : snapshot.getSetEntryMap().get(setName);
+
                     try {
-                        Set set = loadSet(setName);
-                        set.setName(setName);
-                        compositionSetCache.add(set);
+                        if (setEntry == null || !setEntry.matches(file)) {
+                            Set set = loadSet(setName);
+                            setEntry = new CompositionSnapshot.SetEntry(file.lastModified(), file.length(), set);
+                            snapshotChanged = true;
+                        }
+
+                        setEntry.getSet().setName(setName);
+                        setSnapshotEntryMap.put(setName, setEntry);
+                        addSetToCache(setEntry.getSet());
                     } catch (Exception e) {
                         logger.error("Could not load composition '" + file.getName() + "'", e);
                     }
@@ -202,7 +443,83 @@ public class DefaultCompositionService implements CompositionService {
             }
         }
 
-        sortSetCache();
+        return snapshotChanged || snapshot.getSetEntryMap().size() != setSnapshotEntryMap.size();
+    }
+
+    @Override
+    public synchronized boolean reloadComposition(String name) {
+        File file = getCompositionFile(name);
+        CompositionIndexEntry indexEntry = compositionIndex.getEntry(name);
+
+        // The sets are not updated, because they might be synchronized from outside as well
+        if (file.isFile()) {
+            if (indexEntry != null && indexEntry.matches(file)) {
+                // Not changed (e.g. saved by ourselves)
+                return false;
+            }
+
+            try {
+                Composition composition = loadComposition(name);
+                compositionCache.put(name, composition);
+                compositionDataMap.put(name, CompositionSnapshot.encodeComposition(composition));
+                compositionIndex = compositionIndex.withEntry(createIndexEntry(composition));
+            } catch (Exception e) {
+                logger.error("Could not reload composition '" + name + "'", e);
+                return false;
+            }
+
+            logger.info("Composition '" + name + "' reloaded");
+        } else {
+            if (indexEntry == null) {
+                return false;
+            }
+
+            compositionIndex = compositionIndex.withoutEntry(name);
+            compositionCache.remove(name);
+            compositionDataMap.remove(name);
+
+            logger.info("Composition '" + name + "' removed");
+        }
+
+        saveSnapshot();
+        return true;
+    }
+
+    @Override
+    public synchronized boolean reloadSet(String name) {
+        File file = getSetFile(name);
+        CompositionSnapshot.SetEntry setEntry = setSnapshotEntryMap.get(name);
+
+        if (file.isFile()) {
+            if (setEntry != null && setEntry.matches(file)) {
+                // Not changed (e.g. saved by ourselves)
+                return false;
+            }
+
+            try {
+                Set set = loadSet(name);
+                set.setName(name);
+                setSnapshotEntryMap.put(name, new CompositionSnapshot.SetEntry(file.lastModified(), file.length(), set));
+                addSetToCache(set);
+            } catch (Exception e) {
+                logger.error("Could not reload set '" + name + "'", e);
+                return false;
+            }
+
+            logger.info("Set '" + name + "' reloaded");
+        } else {
+            if (setMap.get(name) == null) {
+                return false;
+            }
+
+            removeSetFromCache(name);
+            setSnapshotEntryMap.remove(name);
+
+            logger.info("Set '" + name + "' removed");
+        }
+
+        saveSnapshot();
+        return true;
     }
 
     private void createDirectoryIfNotExists(String directory) throws IOException {
@@ -213,41 +530,48 @@ public class DefaultCompositionService implements CompositionService {
         }
     }
 
-    private long getMidiDuration(String path) throws Exception {
-        long duration;
+    private File getMediaFile(CompositionFile compositionFile) {
+        String path = settingsService.getSettings().getBasePath() + settingsService.getSettings().getMediaPath() + File.separator;
 
-        Sequence sequence = MidiSystem.getSequence(new File(path));
-        duration = sequence.getMicrosecondLength() / 1000;
+        if (compositionFile instanceof MidiCompositionFile) {
+            path += settingsService.getSettings().getMidiPath();
+        } else if (compositionFile instanceof AudioCompositionFile) {
+            path += settingsService.getSettings().getAudioPath();
+        } else if (compositionFile instanceof VideoCompositionFile) {
+            path += settingsService.getSettings().getVideoPath();
+        }
 
-        return duration;
+        return new File(path + File.separator + compositionFile.getName());
     }
 
     @Override
     public synchronized void saveComposition(Composition composition) throws Exception {
-        // Set additional information for each file
+        // Set additional information for each file. Usually, the metadata has been discovered after the upload
+        // already. Otherwise, the files are discovered in parallel.
+        List<CompletableFuture<MediaMetadata>> metadataFutureList = new ArrayList<>();
+
         for (CompositionFile compositionFile : composition.getCompositionFileList()) {
-            String path = settingsService.getSettings().getBasePath() + settingsService.getSettings().getMediaPath() + File.separator;
-
-            if (compositionFile instanceof MidiCompositionFile) {
-                // Getting duration with Gstreamer does not work (missing plugins)
-                compositionFile.setDurationMillis(getMidiDuration(path + settingsService.getSettings().getMidiPath() + File.separator + compositionFile.getName()));
-            } else if (compositionFile instanceof AudioCompositionFile) {
-                if (!capabilitiesService.getCapabilities().isGstreamer()) {
-                    throw new Exception("Gstreamer is not available");
-                }
+            metadataFutureList.add(mediaMetadataService.discover(getMediaFile(compositionFile), compositionFile.getType()));
+        }
 
-                AudioCompositionFile audioCompositionFile = ((AudioCompositionFile) compositionFile);
+        for (int i = 0; i < metadataFutureList.size(); i++) {
+            CompositionFile compositionFile = composition.getCompositionFileList().get(i);
+            MediaMetadata mediaMetadata;
 
-                Pointer discovererInformation = gstDiscovererService.getDiscovererInformation(path + settingsService.getSettings().getAudioPath() + File.separator + compositionFile.getName());
-                audioCompositionFile.setDurationMillis(gstDiscovererService.getDurationMillis(discovererInformation));
-                audioCompositionFile.setChannels(gstDiscovererService.getChannels(discovererInformation));
-            } else if (compositionFile instanceof VideoCompositionFile) {
-                if (!capabilitiesService.getCapabilities().isGstreamer()) {
-                    throw new Exception("Gstreamer is not available");
+            try {
+                mediaMetadata = metadataFutureList.get(i).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
                 }
 
-                Pointer discovererInformation = gstDiscovererService.getDiscovererInformation(path + settingsService.getSettings().getVideoPath() + File.separator + compositionFile.getName());
-                compositionFile.setDurationMillis(gstDiscovererService.getDurationMillis(discovererInformation));
+                throw e;
+            }
+
+            compositionFile.setDurationMillis(mediaMetadata.getDurationMillis());
+
+            if (compositionFile instanceof AudioCompositionFile) {
+                ((AudioCompositionFile) compositionFile).setChannels(mediaMetadata.getChannels());
             }
         }
 
@@ -267,29 +591,21 @@ public class DefaultCompositionService implements CompositionService {
         createDirectoryIfNotExists(directory);
 
         File file = new File(directory + File.separator + composition.getName() + ".xml");
-        JAXBContext jaxbContext = JAXBContext.newInstance(Composition.class);
-        Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
+        jaxbService.marshal(composition, file);
 
-        jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        jaxbMarshaller.marshal(composition, file);
+        // Update the cache and the index
+        compositionCache.put(composition.getName(), composition);
+        compositionDataMap.put(composition.getName(), CompositionSnapshot.encodeComposition(composition));
 
-        // Update the cache
-        for (Composition cachedComposition : compositionCache) {
-            if (cachedComposition.getName().equals(composition.getName())) {
-                compositionCache.remove(cachedComposition);
-                break;
-            }
-        }
-        compositionCache.add(composition);
-        sortCompositionCache();
+        compositionIndex = compositionIndex.withEntry(createIndexEntry(composition));
 
-        updateSets();
+        updateSets(composition.getName());
+        saveSnapshot();
 
         logger.info("Composition '" + composition.getName() + "' saved");
     }
 
-    @Override
-    public synchronized void saveSet(Set set, boolean checkCompositions) throws Exception {
+    private void saveSetFile(Set set, boolean checkCompositions) throws Exception {
         if (checkCompositions) {
             // Update all composition information
             Iterator<SetComposition> iterator = set.getSetCompositionList().iterator();
@@ -297,21 +613,15 @@ public class DefaultCompositionService implements CompositionService {
             while (iterator.hasNext()) {
                 SetComposition setComposition = iterator.next();
 
-                Composition composition = null;
-
-                try {
-                    composition = loadComposition(setComposition.getName());
-                } catch (Exception e) {
-                    logger.error("Could not load composition", e);
-                }
+                CompositionIndexEntry indexEntry = compositionIndex.getEntry(setComposition.getName());
 
-                if (composition == null) {
+                if (indexEntry == null) {
                     // The composition does not exist anymore (has been deleted)
                     // --> delete it from the set
                     iterator.remove();
                 } else {
                     // The composition still exists -> update some information
-                    setComposition.setDurationMillis(composition.getDurationMillis());
+                    setComposition.setDurationMillis(indexEntry.getDurationMillis());
                 }
             }
         }
@@ -320,25 +630,21 @@ public class DefaultCompositionService implements CompositionService {
         createDirectoryIfNotExists(directory);
 
         File file = new File(directory + File.separator + set.getName() + ".xml");
-        JAXBContext jaxbContext = JAXBContext.newInstance(Set.class);
-        Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
-
-        jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-        jaxbMarshaller.marshal(set, file);
+        jaxbService.marshal(set, file);
 
         // Update the cache
-        for (Set cachedCompositionSet : compositionSetCache) {
-            if (cachedCompositionSet.getName().equals(set.getName())) {
-                compositionSetCache.remove(cachedCompositionSet);
-                break;
-            }
-        }
-        compositionSetCache.add(set);
-        sortSetCache();
+        setSnapshotEntryMap.put(set.getName(), new CompositionSnapshot.SetEntry(file.lastModified(), file.length(), set));
+        addSetToCache(set);
 
         logger.info("Set '" + set.getName() + "' saved");
     }
 
+    @Override
+    public synchronized void saveSet(Set set, boolean checkCompositions) throws Exception {
+        saveSetFile(set, checkCompositions);
+        saveSnapshot();
+    }
+
     @Override
     public synchronized void saveSet(Set set) throws Exception {
         saveSet(set, true);
@@ -347,7 +653,7 @@ public class DefaultCompositionService implements CompositionService {
     @Override
     public synchronized void deleteComposition(String name, PlayerService playerService) throws Exception {
         // Delete the composition
-        File file = new File(settingsService.getSettings().getBasePath() + File.separator + COMPOSITIONS_PATH + File.separator + name + ".xml");
+        File file = getCompositionFile(name);
 
         if (file.exists()) {
             boolean result = file.delete();
@@ -357,19 +663,18 @@ public class DefaultCompositionService implements CompositionService {
             }
         }
 
-        for (Composition cachedComposition : compositionCache) {
-            if (cachedComposition.getName().equals(name)) {
-                compositionCache.remove(cachedComposition);
-                break;
-            }
-        }
+        compositionIndex = compositionIndex.withoutEntry(name);
+        compositionCache.remove(name);
+        compositionDataMap.remove(name);
 
-        updateSets();
+        updateSets(name);
+        compositionSetNameMap.remove(name);
+        saveSnapshot();
 
         // Set another composition, if we deleted the current one
-        if (playerService.getCompositionName().equals(name)) {
-            if (compositionCache.size() > 0) {
-                playerService.setComposition(compositionCache.get(0));
+        if (name.equals(playerService.getCompositionName())) {
+            if (compositionIndex.size() > 0) {
+                playerService.setComposition(getComposition(compositionIndex.getEntry(0).getName()));
             }
         }
 
@@ -379,7 +684,7 @@ public class DefaultCompositionService implements CompositionService {
     @Override
     public synchronized void deleteSet(String name) {
         // Delete the set
-        File file = new File(settingsService.getSettings().getBasePath() + File.separator + SETS_PATH + File.separator + name + ".xml");
+        File file = getSetFile(name);
 
         if (file.exists()) {
             boolean result = file.delete();
@@ -389,12 +694,9 @@ public class DefaultCompositionService implements CompositionService {
             }
         }
 
-        for (Set cachedCompositionSet : compositionSetCache) {
-            if (cachedCompositionSet.getName().equals(name)) {
-                compositionSetCache.remove(cachedCompositionSet);
-                break;
-            }
-        }
+        removeSetFromCache(name);
+        setSnapshotEntryMap.remove(name);
+        saveSnapshot();
 
         logger.info("Set '" + name + "' deleted");
     }
@@ -403,13 +705,7 @@ public class DefaultCompositionService implements CompositionService {
     // or -1, if it has not been found
     @Override
     public int getCompositionIndex(String compositionName) {
-        for (int i = 0; i < compositionCache.size(); i++) {
-            if (compositionCache.get(i).getName().equals(compositionName)) {
-                return i;
-            }
-        }
-
-        return -1;
+        return compositionIndex.getPosition(compositionName);
     }
 
     @Override
@@ -419,13 +715,20 @@ public class DefaultCompositionService implements CompositionService {
             return null;
         }
 
-        int currentIndex = getCompositionIndex(currentComposition.getName());
+        CompositionIndex index = compositionIndex;
+        int currentIndex = index.getPosition(currentComposition.getName());
+
+        if (currentIndex < 0) {
+            return null;
+        }
+
+        CompositionIndexEntry nextIndexEntry = index.getEntry(currentIndex + 1);
 
-        if (currentIndex >= 0 && compositionCache.size() > currentIndex + 1) {
-            return compositionCache.get(currentIndex + 1);
+        if (nextIndexEntry == null) {
+            return null;
         }
 
-        return null;
+        return getComposition(nextIndexEntry.getName());
     }
 
     @Override
@@ -435,13 +738,25 @@ public class DefaultCompositionService implements CompositionService {
             return null;
         }
 
-        int currentIndex = getCompositionIndex(currentComposition.getName());
+        CompositionIndex index = compositionIndex;
+        int currentIndex = index.getPosition(currentComposition.getName());
 
-        if (currentIndex >= 0 && currentIndex - 1 >= 0) {
-            return compositionCache.get(currentIndex - 1);
+        if (currentIndex < 0) {
+            return null;
         }
 
-        return null;
+        CompositionIndexEntry previousIndexEntry = index.getEntry(currentIndex - 1);
+
+        if (previousIndexEntry == null) {
+            return null;
+        }
+
+        return getComposition(previousIndexEntry.getName());
+    }
+
+    @PreDestroy
+    public void close() {
+        backgroundLoadExecutor.shutdownNow();
     }
 
 }
@@ -12,6 +12,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipOutputStream;
 
 @Service
@@ -22,12 +25,49 @@ public class DefaultLeadSheetService implements LeadSheetService {
     private final SettingsService settingsService;
     private final ChunkedFileUploadService chunkedFileUploadService;
 
+    // The modification time of each known lead sheet, to detect outside changes
+    private final Map<String, Long> leadSheetFileModifiedMap = new ConcurrentHashMap<>();
+
+    // The number of writes in progress per lead sheet, which are not outside changes
+    private final Map<String, Integer> writeCountMap = new ConcurrentHashMap<>();
+
     public DefaultLeadSheetService(
             SettingsService settingsService,
             ChunkedFileUploadService chunkedFileUploadService
     ) {
         this.settingsService = settingsService;
         this.chunkedFileUploadService = chunkedFileUploadService;
+
+        File[] fileList = getFile("").listFiles();
+
+        if (fileList != null) {
+            for (File file : fileList) {
+                if (file.isFile()) {
+                    leadSheetFileModifiedMap.put(file.getName(), file.lastModified());
+                }
+            }
+        }
+    }
+
+    private File getFile(String name) {
+        return new File(settingsService.getSettings().getBasePath() + File.separator + settingsService.getSettings().getMediaPath() + File.separator + settingsService.getSettings().getLeadSheetPath() + File.separator + name);
+    }
+
+    private void startWrite(String name) {
+        writeCountMap.merge(name, 1, Integer::sum);
+    }
+
+    // Take the modification of our own write, before the file is checked again
+    private void finishWrite(String name) {
+        File file = getFile(name);
+
+        if (file.isFile()) {
+            leadSheetFileModifiedMap.put(name, file.lastModified());
+        } else {
+            leadSheetFileModifiedMap.remove(name);
+        }
+
+        writeCountMap.computeIfPresent(name, (key, count) -> count == 1 ? null : count - 1);
     }
 
     @Override
@@ -65,10 +105,16 @@ public class DefaultLeadSheetService implements LeadSheetService {
             return;
         }
 
-        boolean result = systemFile.delete();
+        startWrite(name);
+
+        try {
+            boolean result = systemFile.delete();
 
-        if (!result) {
-            logger.error("Could not delete lead sheet '" + name + "'");
+            if (!result) {
+                logger.error("Could not delete lead sheet '" + name + "'");
+            }
+        } finally {
+            finishWrite(name);
         }
     }
 
@@ -100,16 +146,40 @@ public class DefaultLeadSheetService implements LeadSheetService {
     public void saveLeadSheetInit(String fileName) throws Exception {
         File file = saveLeadSheetGetFile(fileName);
         if (file.exists()) {
-            boolean result = file.delete();
-            if (!result) {
-                throw new Exception("Could not delete lead sheet '" + file.getPath() + "'");
+            startWrite(fileName);
+            try {
+                boolean result = file.delete();
+                if (!result) {
+                    throw new Exception("Could not delete lead sheet '" + file.getPath() + "'");
+                }
+            } finally {
+                finishWrite(fileName);
             }
         }
     }
 
     @Override
     public void saveLeadSheetAddChunk(InputStream inputStream, String fileName) throws Exception {
-        chunkedFileUploadService.handleChunk(inputStream, saveLeadSheetGetFile(fileName));
+        File file = saveLeadSheetGetFile(fileName);
+        startWrite(fileName);
+
+        try {
+            chunkedFileUploadService.handleChunk(inputStream, file);
+        } finally {
+            finishWrite(fileName);
+        }
+    }
+
+    @Override
+    public boolean saveLeadSheetAddChunk(InputStream inputStream, String fileName, String uploadId, long offset, long totalSizeBytes, String checksum) throws Exception {
+        File file = saveLeadSheetGetFile(fileName);
+        startWrite(fileName);
+
+        try {
+            return chunkedFileUploadService.handleChunk(inputStream, file, uploadId, offset, totalSizeBytes, checksum);
+        } finally {
+            finishWrite(fileName);
+        }
     }
 
     @Override
@@ -121,7 +191,22 @@ public class DefaultLeadSheetService implements LeadSheetService {
 
     @Override
     public File getImage(String name) throws Exception {
-        return new File(settingsService.getSettings().getBasePath() + File.separator + settingsService.getSettings().getMediaPath() + File.separator + settingsService.getSettings().getLeadSheetPath() + File.separator + name);
+        return getFile(name);
+    }
+
+    @Override
+    public boolean reloadLeadSheet(String name) {
+        // Not changed outside, while being written by ourselves
+        if (writeCountMap.containsKey(name)) {
+            return false;
+        }
+
+        // Lead sheets are not cached -> only remember the modification
+        File file = getFile(name);
+        Long lastModifiedMillis = file.isFile() ? file.lastModified() : null;
+        Long knownLastModifiedMillis = lastModifiedMillis == null ? leadSheetFileModifiedMap.remove(name) : leadSheetFileModifiedMap.put(name, lastModifiedMillis);
+
+        return !Objects.equals(lastModifiedMillis, knownLastModifiedMillis);
     }
 
 }
@@ -0,0 +1,292 @@
+package com.ascargon.rocketshow.composition;
+
+import com.ascargon.rocketshow.PlayerService;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.api.NotificationService;
+import com.ascargon.rocketshow.lighting.designer.DesignerService;
+import com.ascargon.rocketshow.lighting.designer.Project;
+import com.ascargon.rocketshow.util.FileFilterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watch the library folders with the file system's watch service. Changes are collected until no more changes
+ * arrive for the configured debounce time (e.g. while a show is synchronized with rsync) and only the changed
+ * files are reloaded afterwards.
+ */
+@Service
+public class DefaultLibraryWatcherService implements LibraryWatcherService {
+
+    private final static Logger logger = LoggerFactory.getLogger(DefaultLibraryWatcherService.class);
+
+    private enum LibraryFolder {
+        COMPOSITIONS, SETS, DESIGNER, LEAD_SHEETS
+    }
+
+    private final SettingsService settingsService;
+    private final CompositionService compositionService;
+    private final DesignerService designerService;
+    private final NotificationService notificationService;
+    private final PlayerService playerService;
+    private final SetService setService;
+    private final FileFilterService fileFilterService;
+    private final LeadSheetService leadSheetService;
+
+    private final Map<WatchKey, LibraryFolder> watchKeyMap = new ConcurrentHashMap<>();
+    private final Map<LibraryFolder, Path> folderPathMap = new EnumMap<>(LibraryFolder.class);
+
+    // The names of the files changed since the last reload
+    private final Map<LibraryFolder, java.util.Set<String>> pendingChangeMap = new EnumMap<>(LibraryFolder.class);
+
+    // Events have been lost -> all files of all folders need to be checked
+    private boolean pendingOverflow = false;
+
+    private final ScheduledExecutorService reloadExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "library-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> reloadFuture;
+
+    private WatchService watchService;
+    private Thread watchThread;
+
+    public DefaultLibraryWatcherService(SettingsService settingsService, CompositionService compositionService, DesignerService designerService, NotificationService notificationService, PlayerService playerService, SetService setService, FileFilterService fileFilterService, LeadSheetService leadSheetService) {
+        this.settingsService = settingsService;
+        this.compositionService = compositionService;
+        this.designerService = designerService;
+        this.notificationService = notificationService;
+        this.playerService = playerService;
+        this.setService = setService;
+        this.fileFilterService = fileFilterService;
+        this.leadSheetService = leadSheetService;
+
+        start();
+    }
+
+    private void register(LibraryFolder folder, Path path) throws IOException {
+        Files.createDirectories(path);
+
+        WatchKey watchKey = path.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        watchKeyMap.put(watchKey, folder);
+        folderPathMap.put(folder, path);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (watchService != null) {
+            return;
+        }
+
+        String basePath = settingsService.getSettings().getBasePath();
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+
+            register(LibraryFolder.COMPOSITIONS, Paths.get(basePath, DefaultCompositionService.COMPOSITIONS_PATH));
+            register(LibraryFolder.SETS, Paths.get(basePath, DefaultCompositionService.SETS_PATH));
+            register(LibraryFolder.DESIGNER, Paths.get(basePath, settingsService.getSettings().getDesignerPath()));
+            register(LibraryFolder.LEAD_SHEETS, Paths.get(basePath, settingsService.getSettings().getMediaPath(), settingsService.getSettings().getLeadSheetPath()));
+        } catch (Exception e) {
+            logger.error("Could not start the library watcher", e);
+            stop();
+            return;
+        }
+
+        watchThread = new Thread(this::watch, "library-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        logger.info("Library watcher started");
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (watchService == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.error("Could not close the library watch service", e);
+        }
+
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+
+        watchService = null;
+        watchThread = null;
+        watchKeyMap.clear();
+        folderPathMap.clear();
+    }
+
+    private void watch() {
+        WatchService currentWatchService = watchService;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            WatchKey watchKey;
+
+            try {
+                watchKey = currentWatchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+
+            LibraryFolder folder = watchKeyMap.get(watchKey);
+
+            for (WatchEvent<?> event : watchKey.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    addOverflow();
+                } else if (folder != null) {
+                    addChange(folder, ((Path) event.context()).getFileName().toString());
+                }
+            }
+
+            watchKey.reset();
+        }
+    }
+
+    private synchronized void addChange(LibraryFolder folder, String fileName) {
+        // Skip hidden and temporary files (e.g. written by rsync before being renamed)
+        if (fileName.startsWith(".") || fileFilterService.filterFile(fileName)) {
+            return;
+        }
+
+        pendingChangeMap.computeIfAbsent(folder, key -> new HashSet<>()).add(fileName);
+        scheduleReload();
+    }
+
+    private synchronized void addOverflow() {
+        pendingOverflow = true;
+        scheduleReload();
+    }
+
+    private void scheduleReload() {
+        // Restart the debounce time with each change
+        if (reloadFuture != null) {
+            reloadFuture.cancel(false);
+        }
+
+        reloadFuture = reloadExecutor.schedule(this::reload, settingsService.getSettings().getLibraryWatchDebounceMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private String getNameWithoutExtension(String fileName, String extension) {
+        if (!fileName.endsWith(extension)) {
+            return null;
+        }
+
+        return fileName.substring(0, fileName.length() - extension.length());
+    }
+
+    private void addAllFileNames(LibraryFolder folder, java.util.Set<String> fileNameSet) {
+        Path path = folderPathMap.get(folder);
+
+        if (path == null) {
+            return;
+        }
+
+        File[] fileList = path.toFile().listFiles();
+
+        if (fileList != null) {
+            for (File file : fileList) {
+                fileNameSet.add(file.getName());
+            }
+        }
+    }
+
+    private Map<LibraryFolder, java.util.Set<String>> takePendingChanges() {
+        Map<LibraryFolder, java.util.Set<String>> changeMap;
+
+        synchronized (this) {
+            changeMap = new EnumMap<>(pendingChangeMap);
+            pendingChangeMap.clear();
+
+            if (!pendingOverflow) {
+                return changeMap;
+            }
+
+            pendingOverflow = false;
+        }
+
+        // Check all existing and all known files
+        for (LibraryFolder folder : LibraryFolder.values()) {
+            java.util.Set<String> fileNameSet = changeMap.computeIfAbsent(folder, key -> new HashSet<>());
+            addAllFileNames(folder, fileNameSet);
+        }
+
+        for (Composition composition : compositionService.getAllCompositions()) {
+            changeMap.get(LibraryFolder.COMPOSITIONS).add(composition.getName() + ".xml");
+        }
+
+        for (Set set : compositionService.getAllSets()) {
+            changeMap.get(LibraryFolder.SETS).add(set.getName() + ".xml");
+        }
+
+        for (Project project : designerService.getAllProjects()) {
+            changeMap.get(LibraryFolder.DESIGNER).add(project.getName() + ".json");
+        }
+
+        return changeMap;
+    }
+
+    private void reload() {
+        Map<LibraryFolder, java.util.Set<String>> changeMap = takePendingChanges();
+        boolean changed = false;
+
+        for (Map.Entry<LibraryFolder, java.util.Set<String>> changeEntry : changeMap.entrySet()) {
+            for (String fileName : changeEntry.getValue()) {
+                switch (changeEntry.getKey()) {
+                    case COMPOSITIONS: {
+                        String name = getNameWithoutExtension(fileName, ".xml");
+                        changed |= name != null && compositionService.reloadComposition(name);
+                        break;
+                    }
+                    case SETS: {
+                        String name = getNameWithoutExtension(fileName, ".xml");
+                        changed |= name != null && compositionService.reloadSet(name);
+                        break;
+                    }
+                    case DESIGNER: {
+                        String name = getNameWithoutExtension(fileName, ".json");
+                        changed |= name != null && designerService.reloadProject(name);
+                        break;
+                    }
+                    case LEAD_SHEETS:
+                        changed |= leadSheetService.reloadLeadSheet(fileName);
+                        break;
+                }
+            }
+        }
+
+        if (!changed) {
+            return;
+        }
+
+        logger.info("Library changed outside the application");
+
+        try {
+            notificationService.notifyClientsLibraryChanged(playerService, setService);
+        } catch (Exception e) {
+            logger.error("Could not notify the clients about the library change", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        stop();
+        reloadExecutor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,311 @@
+package com.ascargon.rocketshow.composition;
+
+import com.ascargon.rocketshow.CapabilitiesService;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.gstreamer.GstDiscovererService;
+import com.ascargon.rocketshow.gstreamer.MediaInformation;
+import com.ascargon.rocketshow.util.FileFilterService;
+import com.ascargon.rocketshow.util.JaxbService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.sound.midi.MidiSystem;
+import javax.sound.midi.Sequence;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache the metadata of media files in memory and in a file in the base path. The metadata is identified by the
+ * path of the media file and only discovered again, if the size or the last modification of the file changes.
+ */
+@Service
+public class DefaultMediaMetadataService implements MediaMetadataService {
+
+    private final static Logger logger = LoggerFactory.getLogger(DefaultMediaMetadataService.class);
+
+    private final static String CACHE_FILE_NAME = "media-metadata.xml";
+
+    // Audio and video files are discovered on the pool of the Gstreamer discoverer service. MIDI files are
+    // parsed on this small pool.
+    private final static int MIDI_DISCOVERY_THREADS = 2;
+
+    // Discoveries mark the cache as changed and it's saved once after this delay, instead of after each file
+    private final static long SAVE_DELAY_MILLIS = 2000;
+
+    private final SettingsService settingsService;
+    private final CapabilitiesService capabilitiesService;
+    private final GstDiscovererService gstDiscovererService;
+    private final JaxbService jaxbService;
+    private final FileFilterService fileFilterService;
+
+    private final Map<String, MediaMetadata> mediaMetadataMap = new ConcurrentHashMap<>();
+
+    // The running discoveries by path, to discover a file requested several times at once only once
+    private final Map<String, CompletableFuture<MediaMetadata>> discoveryFutureMap = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final ScheduledExecutorService saveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "media-metadata-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ExecutorService midiDiscoveryExecutor = Executors.newFixedThreadPool(MIDI_DISCOVERY_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "midi-discoverer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DefaultMediaMetadataService(SettingsService settingsService, CapabilitiesService capabilitiesService, GstDiscovererService gstDiscovererService, JaxbService jaxbService, FileFilterService fileFilterService) {
+        this.settingsService = settingsService;
+        this.capabilitiesService = capabilitiesService;
+        this.gstDiscovererService = gstDiscovererService;
+        this.jaxbService = jaxbService;
+        this.fileFilterService = fileFilterService;
+
+        loadCache();
+    }
+
+    private File getCacheFile() {
+        return new File(settingsService.getSettings().getBasePath() + File.separator + CACHE_FILE_NAME);
+    }
+
+    private void loadCache() {
+        File cacheFile = getCacheFile();
+
+        if (!cacheFile.exists()) {
+            return;
+        }
+
+        try {
+            for (MediaMetadata mediaMetadata : jaxbService.unmarshal(MediaMetadataCache.class, cacheFile).getMediaMetadataList()) {
+                // Forget about deleted files
+                if (new File(mediaMetadata.getPath()).exists()) {
+                    mediaMetadataMap.put(mediaMetadata.getPath(), mediaMetadata);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Could not load the media metadata cache", e);
+        }
+
+        logger.info("Loaded the metadata of " + mediaMetadataMap.size() + " media files");
+    }
+
+    private synchronized void saveCache() {
+        // Changes made during the save are saved by the next one
+        dirty.set(false);
+
+        MediaMetadataCache mediaMetadataCache = new MediaMetadataCache();
+        mediaMetadataCache.setMediaMetadataList(new ArrayList<>(mediaMetadataMap.values()));
+
+        try {
+            jaxbService.marshal(mediaMetadataCache, getCacheFile());
+        } catch (Exception e) {
+            logger.error("Could not save the media metadata cache", e);
+        }
+    }
+
+    private void saveCacheIfDirty() {
+        if (dirty.get()) {
+            saveCache();
+        }
+    }
+
+    // Save the cache after a delay, together with all other changes in the meantime
+    private void markDirty() {
+        if (dirty.compareAndSet(false, true)) {
+            try {
+                saveExecutor.schedule(this::saveCacheIfDirty, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down -> saved on close
+            }
+        }
+    }
+
+    private MediaMetadata createMetadata(File file) {
+        MediaMetadata mediaMetadata = new MediaMetadata();
+
+        mediaMetadata.setPath(file.getAbsolutePath());
+        mediaMetadata.setSizeBytes(file.length());
+        mediaMetadata.setLastModifiedMillis(file.lastModified());
+
+        return mediaMetadata;
+    }
+
+    private MediaMetadata createMetadata(File file, MediaInformation mediaInformation) {
+        MediaMetadata mediaMetadata = createMetadata(file);
+
+        mediaMetadata.setDurationMillis(mediaInformation.getDurationMillis());
+        mediaMetadata.setChannels(mediaInformation.getChannels());
+        mediaMetadata.setSampleRate(mediaInformation.getSampleRate());
+        mediaMetadata.setCodec(mediaInformation.getCodec());
+
+        return mediaMetadata;
+    }
+
+    private MediaMetadata discoverMidi(File file) throws Exception {
+        MediaMetadata mediaMetadata = createMetadata(file);
+
+        // Getting duration with Gstreamer does not work (missing plugins)
+        Sequence sequence = MidiSystem.getSequence(file);
+        mediaMetadata.setDurationMillis(sequence.getMicrosecondLength() / 1000);
+
+        return mediaMetadata;
+    }
+
+    private CompletableFuture<MediaMetadata> discoverMidiAsync(File file) {
+        CompletableFuture<MediaMetadata> future = new CompletableFuture<>();
+
+        midiDiscoveryExecutor.execute(() -> {
+            try {
+                future.complete(discoverMidi(file));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
+
+    private MediaMetadata addMetadata(MediaMetadata mediaMetadata) {
+        mediaMetadataMap.put(mediaMetadata.getPath(), mediaMetadata);
+        markDirty();
+
+        return mediaMetadata;
+    }
+
+    @Override
+    public MediaMetadata getMetadata(File file, CompositionFile.CompositionFileType type) throws Exception {
+        try {
+            return discover(file, type).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<MediaMetadata> discover(File file, CompositionFile.CompositionFileType type) {
+        MediaMetadata mediaMetadata = mediaMetadataMap.get(file.getAbsolutePath());
+
+        // Don't wait for a free worker, if the metadata is known already
+        if (mediaMetadata != null && mediaMetadata.matches(file)) {
+            return CompletableFuture.completedFuture(mediaMetadata);
+        }
+
+        String path = file.getAbsolutePath();
+        CompletableFuture<MediaMetadata> future = discoveryFutureMap.computeIfAbsent(path, key -> startDiscovery(file, type));
+
+        // Not within computeIfAbsent, because a completed future runs this immediately
+        future.whenComplete((result, throwable) -> discoveryFutureMap.remove(path, future));
+
+        return future;
+    }
+
+    private CompletableFuture<MediaMetadata> startDiscovery(File file, CompositionFile.CompositionFileType type) {
+        if (type == CompositionFile.CompositionFileType.MIDI) {
+            return discoverMidiAsync(file).thenApply(this::addMetadata);
+        }
+
+        if (!capabilitiesService.getCapabilities().isGstreamer()) {
+            return CompletableFuture.failedFuture(new Exception("Gstreamer is not available"));
+        }
+
+        return gstDiscovererService.discover(file.getAbsolutePath())
+                .thenApply(mediaInformation -> addMetadata(createMetadata(file, mediaInformation)));
+    }
+
+    private List<File> getMediaFiles(String mediaPath) {
+        List<File> mediaFileList = new ArrayList<>();
+        File[] fileList = new File(settingsService.getSettings().getBasePath() + File.separator + settingsService.getSettings().getMediaPath() + File.separator + mediaPath).listFiles();
+
+        if (fileList != null) {
+            for (File file : fileList) {
+                if (file.isFile() && !fileFilterService.filterFile(file.getName())) {
+                    mediaFileList.add(file);
+                }
+            }
+        }
+
+        return mediaFileList;
+    }
+
+    @Override
+    public CompletableFuture<Integer> rescanAll() {
+        List<CompletableFuture<MediaMetadata>> midiFutureList = new ArrayList<>();
+        Map<String, File> gstFileMap = new HashMap<>();
+
+        for (File file : getMediaFiles(settingsService.getSettings().getMidiPath())) {
+            midiFutureList.add(discoverMidiAsync(file).exceptionally(throwable -> {
+                logger.error("Could not discover file '" + file.getPath() + "'", throwable);
+                return null;
+            }));
+        }
+
+        if (capabilitiesService.getCapabilities().isGstreamer()) {
+            for (File file : getMediaFiles(settingsService.getSettings().getAudioPath())) {
+                gstFileMap.put(file.getAbsolutePath(), file);
+            }
+
+            for (File file : getMediaFiles(settingsService.getSettings().getVideoPath())) {
+                gstFileMap.put(file.getAbsolutePath(), file);
+            }
+        }
+
+        CompletableFuture<Map<String, MediaInformation>> gstFuture = gstDiscovererService.discoverAll(gstFileMap.keySet());
+
+        return CompletableFuture.allOf(midiFutureList.toArray(new CompletableFuture[0])).thenCombine(gstFuture, (result, mediaInformationMap) -> {
+            int count = 0;
+
+            for (CompletableFuture<MediaMetadata> midiFuture : midiFutureList) {
+                MediaMetadata mediaMetadata = midiFuture.join();
+
+                if (mediaMetadata != null) {
+                    mediaMetadataMap.put(mediaMetadata.getPath(), mediaMetadata);
+                    count++;
+                }
+            }
+
+            for (Map.Entry<String, MediaInformation> mediaInformationEntry : mediaInformationMap.entrySet()) {
+                MediaMetadata mediaMetadata = createMetadata(gstFileMap.get(mediaInformationEntry.getKey()), mediaInformationEntry.getValue());
+                mediaMetadataMap.put(mediaMetadata.getPath(), mediaMetadata);
+                count++;
+            }
+
+            // Save the cache only once for the whole library
+            saveCache();
+
+            logger.info("Rescanned " + count + " media files");
+
+            return count;
+        });
+    }
+
+    @Override
+    public void remove(File file) {
+        if (mediaMetadataMap.remove(file.getAbsolutePath()) != null) {
+            markDirty();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        midiDiscoveryExecutor.shutdownNow();
+        saveExecutor.shutdownNow();
+
+        // Don't lose the changes of the last delay
+        saveCacheIfDirty();
+    }
+
+}
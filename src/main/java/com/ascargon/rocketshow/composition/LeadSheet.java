@@ -9,6 +9,14 @@ public class LeadSheet {
 
     private String instrumentUuid;
 
+    public LeadSheet() {
+    }
+
+    public LeadSheet(LeadSheet leadSheet) {
+        this.name = leadSheet.name;
+        this.instrumentUuid = leadSheet.instrumentUuid;
+    }
+
     public String getName() {
         return name;
     }
@@ -17,8 +17,14 @@ public interface LeadSheetService {
 
     void saveLeadSheetAddChunk(InputStream inputStream, String fileName) throws Exception;
 
+    // Save a chunk at its offset. Returns true, if the file is complete.
+    boolean saveLeadSheetAddChunk(InputStream inputStream, String fileName, String uploadId, long offset, long totalSizeBytes, String checksum) throws Exception;
+
     LeadSheet saveLeadSheetFinish(String fileName) throws Exception;
 
     File getImage(String name) throws Exception;
 
+    // Check a lead sheet after a change in the folder. Returns true, if it has been changed outside the application.
+    boolean reloadLeadSheet(String name);
+
 }
@@ -0,0 +1,16 @@
+package com.ascargon.rocketshow.composition;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Watch the library folders (compositions, sets, designer projects and lead sheets) for changes made outside the
+ * application and reload the changed files.
+ */
+@Service
+public interface LibraryWatcherService {
+
+    void start();
+
+    void stop();
+
+}
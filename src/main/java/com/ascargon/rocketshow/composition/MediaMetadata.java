@@ -0,0 +1,83 @@
+package com.ascargon.rocketshow.composition;
+
+import jakarta.xml.bind.annotation.XmlRootElement;
+import java.io.File;
+
+/**
+ * The technical information about a media file. The size and the last modification of the file are stored to
+ * detect changes.
+ */
+@XmlRootElement
+public class MediaMetadata {
+
+    private String path;
+    private long sizeBytes;
+    private long lastModifiedMillis;
+
+    private long durationMillis;
+    private int channels;
+    private int sampleRate;
+    private String codec;
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public long getLastModifiedMillis() {
+        return lastModifiedMillis;
+    }
+
+    public void setLastModifiedMillis(long lastModifiedMillis) {
+        this.lastModifiedMillis = lastModifiedMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public void setChannels(int channels) {
+        this.channels = channels;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    // Check, whether the metadata is still up to date with the file
+    public boolean matches(File file) {
+        return lastModifiedMillis == file.lastModified() && sizeBytes == file.length();
+    }
+
+}
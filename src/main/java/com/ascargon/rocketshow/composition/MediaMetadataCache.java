@@ -0,0 +1,27 @@
+package com.ascargon.rocketshow.composition;
+
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementWrapper;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The persisted metadata of all discovered media files.
+ */
+@XmlRootElement
+public class MediaMetadataCache {
+
+    private List<MediaMetadata> mediaMetadataList = new ArrayList<>();
+
+    @XmlElement(name = "file")
+    @XmlElementWrapper(name = "fileList")
+    public List<MediaMetadata> getMediaMetadataList() {
+        return mediaMetadataList;
+    }
+
+    public void setMediaMetadataList(List<MediaMetadata> mediaMetadataList) {
+        this.mediaMetadataList = mediaMetadataList;
+    }
+
+}
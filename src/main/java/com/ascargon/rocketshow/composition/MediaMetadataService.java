@@ -0,0 +1,25 @@
+package com.ascargon.rocketshow.composition;
+
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Discover and cache the technical information (duration, channels, etc.) of media files.
+ */
+@Service
+public interface MediaMetadataService {
+
+    // Get the metadata of a file from the cache or discover it, if the file is unknown or has been changed
+    MediaMetadata getMetadata(File file, CompositionFile.CompositionFileType type) throws Exception;
+
+    // Get the metadata of a file on the discovery worker pool
+    CompletableFuture<MediaMetadata> discover(File file, CompositionFile.CompositionFileType type);
+
+    void remove(File file);
+
+    // Discover all media files in the library again. Returns the number of discovered files.
+    CompletableFuture<Integer> rescanAll();
+
+}
@@ -1,59 +1,135 @@
 package com.ascargon.rocketshow.gstreamer;
 
 import com.sun.jna.Pointer;
-import com.sun.jna.Structure;
 import org.freedesktop.gstreamer.ClockTime;
 import org.freedesktop.gstreamer.lowlevel.GlibAPI;
 import org.freedesktop.gstreamer.lowlevel.GstAPI;
-import org.freedesktop.gstreamer.lowlevel.GstClockAPI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
 
+import static com.ascargon.rocketshow.gstreamer.GstApi.GST_API;
 import static com.ascargon.rocketshow.gstreamer.PbUtilsApi.PB_UTILS_API;
+import static org.freedesktop.gstreamer.lowlevel.GlibAPI.GLIB_API;
+import static org.freedesktop.gstreamer.lowlevel.GstMiniObjectAPI.GSTMINIOBJECT_API;
 import static org.freedesktop.gstreamer.lowlevel.GstPluginAPI.GSTPLUGIN_API;
 
+/**
+ * Discover media files on a pool of worker threads. Each worker owns its own discoverer, because a discoverer
+ * can only discover one file at a time.
+ */
 @Service
 public class DefaultGstDiscovererService implements GstDiscovererService {
 
     private final static Logger logger = LoggerFactory.getLogger(DefaultGstDiscovererService.class);
 
-    private Pointer discoverer = null;
+    private final static int WORKER_COUNT = Runtime.getRuntime().availableProcessors();
+
+    private final ExecutorService discovererExecutor = Executors.newFixedThreadPool(WORKER_COUNT, runnable -> {
+        Thread thread = new Thread(runnable, "gst-discoverer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // The discoverer of each worker thread and all created discoverers to free them on shutdown
+    private final ThreadLocal<Pointer> workerDiscoverer = new ThreadLocal<>();
+    private final Queue<Pointer> discovererList = new ConcurrentLinkedQueue<>();
+
+    private Pointer getWorkerDiscoverer() {
+        Pointer discoverer = workerDiscoverer.get();
 
-    @Override
-    public synchronized Pointer getDiscovererInformation(String path) throws Exception {
         if (discoverer == null) {
             discoverer = PB_UTILS_API.gst_discoverer_new(ClockTime.fromSeconds(5), null);
+            workerDiscoverer.set(discoverer);
+            discovererList.add(discoverer);
         }
 
+        return discoverer;
+    }
+
+    private MediaInformation discoverOnWorker(String path) throws Exception {
         GstAPI.GErrorStruct error = new GstAPI.GErrorStruct();
 
-        Pointer discovererInformation = PB_UTILS_API.gst_discoverer_discover_uri(discoverer, "file://" + path, error);
+        Pointer discovererInformation = PB_UTILS_API.gst_discoverer_discover_uri(getWorkerDiscoverer(), "file://" + path, error);
+
+        if (discovererInformation == null) {
+            throw new Exception("Could not get media information for file " + path);
+        }
 
-        // timing out is fine most of the time, because the required info is still found
-        if (PB_UTILS_API.gst_discoverer_info_get_result(discovererInformation)
-                != PbUtilsApi.GstDiscovererResult.GST_DISCOVERER_OK
-                && PB_UTILS_API.gst_discoverer_info_get_result(discovererInformation)
-                != PbUtilsApi.GstDiscovererResult.GST_DISCOVERER_TIMEOUT
-        ) {
-            // Unfortunately, error.message is always null. Don't know why. And
-            // getting the message from domain and code also does not work.
+        try {
+            // timing out is fine most of the time, because the required info is still found
+            PbUtilsApi.GstDiscovererResult result = PB_UTILS_API.gst_discoverer_info_get_result(discovererInformation);
 
-            throw new Exception("Could not get media information for file " + path + ". Result: " + PB_UTILS_API.gst_discoverer_info_get_result(discovererInformation).toString());
+            if (result != PbUtilsApi.GstDiscovererResult.GST_DISCOVERER_OK
+                    && result != PbUtilsApi.GstDiscovererResult.GST_DISCOVERER_TIMEOUT
+            ) {
+                // Unfortunately, error.message is always null. Don't know why. And
+                // getting the message from domain and code also does not work.
+
+                throw new Exception("Could not get media information for file " + path + ". Result: " + result);
+            }
+
+            MediaInformation mediaInformation = new MediaInformation();
+            mediaInformation.setDurationMillis(getDurationMillis(discovererInformation));
+            mediaInformation.setChannels(getChannels(discovererInformation));
+            mediaInformation.setSampleRate(getSampleRate(discovererInformation));
+            mediaInformation.setCodec(getCodec(discovererInformation));
+
+            return mediaInformation;
+        } finally {
+            // The information is a new reference owned by us
+            GST_API.g_object_unref(discovererInformation);
         }
+    }
 
-        return discovererInformation;
+    @Override
+    public CompletableFuture<MediaInformation> discover(String path) {
+        CompletableFuture<MediaInformation> future = new CompletableFuture<>();
+
+        discovererExecutor.execute(() -> {
+            try {
+                future.complete(discoverOnWorker(path));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
     }
 
     @Override
-    public long getDurationMillis(Pointer discovererInformation) {
+    public CompletableFuture<Map<String, MediaInformation>> discoverAll(Collection<String> pathList) {
+        Map<String, MediaInformation> mediaInformationMap = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futureList = new ArrayList<>();
+        long startMillis = System.currentTimeMillis();
+
+        for (String path : pathList) {
+            futureList.add(discover(path).handle((mediaInformation, throwable) -> {
+                if (throwable == null) {
+                    mediaInformationMap.put(path, mediaInformation);
+                } else {
+                    logger.error("Could not discover file '" + path + "'", throwable);
+                }
+
+                return null;
+            }));
+        }
+
+        return CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0])).thenApply(result -> {
+            logger.info("Discovered " + mediaInformationMap.size() + " of " + pathList.size() + " files with " + WORKER_COUNT + " discoverers in " + (System.currentTimeMillis() - startMillis) + " ms");
+            return mediaInformationMap;
+        });
+    }
+
+    private long getDurationMillis(Pointer discovererInformation) {
         return PB_UTILS_API.gst_discoverer_info_get_duration(discovererInformation) / 1000000;
     }
 
-    @Override
-    public int getChannels(Pointer discovererInformation) {
+    private int getChannels(Pointer discovererInformation) {
         // Get a list of GstDiscovererStreamInfo out of the discoverer information
         GlibAPI.GList gList = PB_UTILS_API.gst_discoverer_info_get_audio_streams(discovererInformation);
 
@@ -74,4 +150,80 @@ public class DefaultGstDiscovererService implements GstDiscovererService {
         return channels;
     }
 
+    private int getSampleRate(Pointer discovererInformation) {
+        GlibAPI.GList gList = PB_UTILS_API.gst_discoverer_info_get_audio_streams(discovererInformation);
+
+        int sampleRate = 0;
+
+        if (gList != null && gList.data != null) {
+            sampleRate = PB_UTILS_API.gst_discoverer_audio_info_get_sample_rate(gList.data);
+        }
+
+        GSTPLUGIN_API.gst_plugin_list_free(gList);
+
+        return sampleRate;
+    }
+
+    private String getCodec(GlibAPI.GList gList) {
+        if (gList == null || gList.data == null) {
+            return null;
+        }
+
+        Pointer caps = PB_UTILS_API.gst_discoverer_stream_info_get_caps(gList.data);
+
+        if (caps == null) {
+            return null;
+        }
+
+        Pointer description = PB_UTILS_API.gst_pb_utils_get_codec_description(caps);
+        GSTMINIOBJECT_API.gst_mini_object_unref(caps);
+
+        if (description == null) {
+            return null;
+        }
+
+        String codec = description.getString(0);
+        GLIB_API.g_free(description);
+
+        return codec;
+    }
+
+    // Get a description of the codec of the first video or audio stream
+    private String getCodec(Pointer discovererInformation) {
+        GlibAPI.GList gList = PB_UTILS_API.gst_discoverer_info_get_video_streams(discovererInformation);
+        String codec = getCodec(gList);
+        GSTPLUGIN_API.gst_plugin_list_free(gList);
+
+        if (codec != null) {
+            return codec;
+        }
+
+        gList = PB_UTILS_API.gst_discoverer_info_get_audio_streams(discovererInformation);
+        codec = getCodec(gList);
+        GSTPLUGIN_API.gst_plugin_list_free(gList);
+
+        return codec;
+    }
+
+    @PreDestroy
+    public void close() {
+        discovererExecutor.shutdownNow();
+
+        try {
+            // Don't free the discoverers, while they are still in use
+            if (!discovererExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        for (Pointer discoverer : discovererList) {
+            GST_API.g_object_unref(discoverer);
+        }
+
+        discovererList.clear();
+    }
+
 }
@@ -33,6 +33,9 @@ public interface GstApi extends Library {
     // Unref an object
     void gst_object_unref(Object object);
 
+    // Unref a plain GObject (e.g. discoverer information)
+    void g_object_unref(Pointer object);
+
     // Get the bus from an element (usually the pipeline)
     Bus gst_element_get_bus(Element element);
 
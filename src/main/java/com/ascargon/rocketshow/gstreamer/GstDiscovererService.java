@@ -1,15 +1,19 @@
 package com.ascargon.rocketshow.gstreamer;
 
-import com.sun.jna.Pointer;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public interface GstDiscovererService {
 
-    Pointer getDiscovererInformation(String path) throws Exception;
-
-    long getDurationMillis(Pointer discovererInformation);
+    // Discover a media file on the pool of discoverers
+    CompletableFuture<MediaInformation> discover(String path);
 
-    int getChannels(Pointer discovererInformation);
+    // Discover many media files (e.g. the whole library) with all discoverers in parallel. Files, which could not
+    // be discovered, are missing in the result.
+    CompletableFuture<Map<String, MediaInformation>> discoverAll(Collection<String> pathList);
 
 }
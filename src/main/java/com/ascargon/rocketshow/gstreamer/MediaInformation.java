@@ -0,0 +1,45 @@
+package com.ascargon.rocketshow.gstreamer;
+
+/**
+ * The information about a media file found by the Gstreamer discoverer.
+ */
+public class MediaInformation {
+
+    private long durationMillis;
+    private int channels;
+    private int sampleRate;
+    private String codec;
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public void setChannels(int channels) {
+        this.channels = channels;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+}
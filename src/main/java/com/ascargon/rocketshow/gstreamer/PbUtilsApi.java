@@ -41,4 +41,14 @@ public interface PbUtilsApi extends Library {
 
     int gst_discoverer_audio_info_get_channels(Pointer audio);
 
+    int gst_discoverer_audio_info_get_sample_rate(Pointer audio);
+
+    GlibAPI.GList gst_discoverer_info_get_video_streams(Pointer info);
+
+    // Returns a new reference to the caps
+    Pointer gst_discoverer_stream_info_get_caps(Pointer info);
+
+    // Returns a newly allocated string
+    Pointer gst_pb_utils_get_codec_description(Pointer caps);
+
 }
@@ -3,6 +3,8 @@ package com.ascargon.rocketshow.lighting;
 import com.ascargon.rocketshow.CapabilitiesService;
 import com.ascargon.rocketshow.SettingsService;
 import com.ascargon.rocketshow.api.ActivityNotificationLightingService;
+import com.ascargon.rocketshow.util.MetricsService;
+import com.ascargon.rocketshow.util.MetricsTimer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import ola.OlaClient;
 import ola.proto.Ola.UniverseInfoReply;
@@ -25,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class DefaultLightingService implements LightingService {
@@ -35,6 +38,12 @@ public class DefaultLightingService implements LightingService {
     private final CapabilitiesService capabilitiesService;
     private final ActivityNotificationLightingService activityNotificationLightingService;
 
+    private final MetricsTimer sendTimer;
+    private final MetricsTimer sendIntervalTimer;
+
+    // The last send, to measure the jitter of the send intervals
+    private final AtomicLong lastSendNanos = new AtomicLong(MetricsTimer.DISABLED);
+
     private final String OLA_URL = "http://localhost:9090/";
 
     // Cache the channel values and send them each time
@@ -59,11 +68,14 @@ public class DefaultLightingService implements LightingService {
     // is OLA initialized and at least one universe prepared?
     private boolean olaReady = false;
 
-    public DefaultLightingService(SettingsService settingsService, CapabilitiesService capabilitiesService, ActivityNotificationLightingService activityNotificationLightingService) {
+    public DefaultLightingService(SettingsService settingsService, CapabilitiesService capabilitiesService, ActivityNotificationLightingService activityNotificationLightingService, MetricsService metricsService) {
         this.settingsService = settingsService;
         this.capabilitiesService = capabilitiesService;
         this.activityNotificationLightingService = activityNotificationLightingService;
 
+        sendTimer = metricsService.getTimer("lighting_send_seconds", "Time to send the universe to OLA");
+        sendIntervalTimer = metricsService.getTimer("lighting_send_interval_seconds", "Time between two sends of the universe");
+
         RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(5000).build();
         httpClient = HttpClientBuilder.create().setDefaultRequestConfig(requestConfig).build();
 
@@ -112,6 +124,9 @@ public class DefaultLightingService implements LightingService {
     private void sendUniverse() {
         logger.trace("Send the lighting universe");
 
+        LightingSendEvent event = new LightingSendEvent();
+        event.begin();
+
         // Mix all current universes into one -> highest value per channel wins
         short[] mixedUniverse = new short[512];
 
@@ -133,17 +148,29 @@ public class DefaultLightingService implements LightingService {
         }
 
         if (olaReady) {
+            long startNanos = sendTimer.start();
             olaClient.sendDmx(1, mixedUniverse);
+            sendTimer.stop(startNanos);
+
+            if (startNanos != MetricsTimer.DISABLED) {
+                long previousSendNanos = lastSendNanos.getAndSet(startNanos);
+
+                if (previousSendNanos != MetricsTimer.DISABLED) {
+                    sendIntervalTimer.record(startNanos - previousSendNanos);
+                }
+            }
+        }
+
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.universes = lightingUniverseListCopy.size();
+            event.sent = olaReady;
+            event.commit();
         }
 
         if (settingsService.getSettings().getEnableMonitor()) {
-            HashMap<Integer, Integer> mixedActivityUniverse = new HashMap<>();
-            for (int i = 0; i < 512; i++) {
-                mixedActivityUniverse.put(i, (int) mixedUniverse[i]);
-            }
-            LightingUniverse activityUniverse = new LightingUniverse();
-            activityUniverse.setUniverse(mixedActivityUniverse);
-            activityNotificationLightingService.notifyClients(activityUniverse);
+            activityNotificationLightingService.notifyClients(mixedUniverse);
         }
     }
 
@@ -0,0 +1,21 @@
+package com.ascargon.rocketshow.lighting;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event for mixing the universes and sending them to OLA.
+ */
+@Name("rocketshow.LightingSend")
+@Label("Lighting Send")
+@Category({"Rocket Show", "Lighting"})
+@StackTrace(false)
+class LightingSendEvent extends Event {
+
+    @Label("Universes")
+    int universes;
+
+    @Label("Sent")
+    @Description("Whether OLA was ready to receive the universe")
+    boolean sent;
+
+}
@@ -15,6 +15,13 @@ public class Midi2LightingMapping {
 
 	private MappingType mappingType = MappingType.SIMPLE;
 
+	public Midi2LightingMapping() {
+	}
+
+	public Midi2LightingMapping(Midi2LightingMapping midi2LightingMapping) {
+		this.mappingType = midi2LightingMapping.mappingType;
+	}
+
     @SuppressWarnings("WeakerAccess")
 	public MappingType getMappingType() {
 		return mappingType;
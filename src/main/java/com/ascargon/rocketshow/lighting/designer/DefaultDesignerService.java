@@ -5,7 +5,11 @@ import com.ascargon.rocketshow.composition.CompositionPlayer;
 import com.ascargon.rocketshow.lighting.LightingService;
 import com.ascargon.rocketshow.lighting.LightingUniverse;
 import com.ascargon.rocketshow.util.FileFilterService;
+import com.ascargon.rocketshow.util.MetricsService;
+import com.ascargon.rocketshow.util.MetricsTimer;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.freedesktop.gstreamer.Pipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +23,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -36,8 +42,21 @@ public class DefaultDesignerService implements DesignerService {
     private final SettingsService settingsService;
     private final FileFilterService fileFilterService;
     private final LightingService lightingService;
+    private final FixtureProfileCacheService fixtureProfileCacheService;
 
-    private List<Project> projects;
+    private final MetricsTimer frameTimer;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // Changed by the library watcher as well
+    private final List<Project> projects = new CopyOnWriteArrayList<>();
+
+    // The projects by name and by the names of their compositions
+    private volatile Map<String, Project> projectMap = new HashMap<>();
+    private volatile Map<String, Project> compositionProjectMap = new HashMap<>();
+
+    // The modification time of each loaded project file, to detect outside changes
+    private final Map<String, Long> projectFileModifiedMap = new ConcurrentHashMap<>();
 
     // The currently played project, pipeline and player
     private Project project;
@@ -62,10 +81,13 @@ public class DefaultDesignerService implements DesignerService {
 
     private List<CachedFixture> cachedFixtures;
 
-    public DefaultDesignerService(SettingsService settingsService, FileFilterService fileFilterService, LightingService lightingService) {
+    public DefaultDesignerService(SettingsService settingsService, FileFilterService fileFilterService, LightingService lightingService, FixtureProfileCacheService fixtureProfileCacheService, MetricsService metricsService) {
         this.settingsService = settingsService;
         this.fileFilterService = fileFilterService;
         this.lightingService = lightingService;
+        this.fixtureProfileCacheService = fixtureProfileCacheService;
+
+        frameTimer = metricsService.getTimer("designer_frame_seconds", "Time to calculate a frame of the designer");
 
         if (settingsService.getSettings().getDesignerLivePreview()) {
             startPreview(0);
@@ -82,6 +104,29 @@ public class DefaultDesignerService implements DesignerService {
         }
     }
 
+    // Parse a project, but take the embedded fixture profiles from the cache, because they're the biggest part of
+    // the project and mostly unchanged between two saves
+    private Project readProject(JsonNode projectNode) throws IOException {
+        if (!projectNode.isObject()) {
+            return mapper.treeToValue(projectNode, Project.class);
+        }
+
+        JsonNode fixtureProfileNodes = ((ObjectNode) projectNode).remove("fixtureProfiles");
+        Project project = mapper.treeToValue(projectNode, Project.class);
+
+        if (fixtureProfileNodes != null && !fixtureProfileNodes.isNull()) {
+            List<FixtureProfile> fixtureProfiles = new ArrayList<>();
+
+            for (JsonNode fixtureProfileNode : fixtureProfileNodes) {
+                fixtureProfiles.add(fixtureProfileCacheService.getProfile(fixtureProfileNode));
+            }
+
+            project.setFixtureProfiles(fixtureProfiles);
+        }
+
+        return project;
+    }
+
     private void buildDesignerCache() {
         // Load all designer files
         File folder;
@@ -92,7 +137,8 @@ public class DefaultDesignerService implements DesignerService {
         folder = new File(settingsService.getSettings().getBasePath() + File.separator + settingsService.getSettings().getDesignerPath());
         fileList = folder.listFiles();
 
-        projects = new ArrayList<>();
+        projects.clear();
+        projectFileModifiedMap.clear();
 
         if (fileList != null) {
             for (File file : fileList) {
@@ -100,46 +146,71 @@ public class DefaultDesignerService implements DesignerService {
                     logger.debug("Found project '" + file.getName() + "'");
 
                     try {
-                        ObjectMapper mapper = new ObjectMapper();
-                        Project project = mapper.readValue(file, Project.class);
+                        Project project = readProject(mapper.readTree(file));
 
                         projects.add(project);
+                        projectFileModifiedMap.put(getProjectFileName(file), file.lastModified());
                     } catch (IOException e) {
                         logger.error("Could not load project '" + file.getName() + "'", e);
                     }
                 }
             }
         }
+
+        indexProjects();
     }
 
-    @Override
-    public Project getProjectByCompositionName(String compositionName) {
-        // Return the project for a specified composition (only one project is supported)
+    private String getProjectFileName(File file) {
+        String fileName = file.getName();
+
+        if (fileName.endsWith(".json")) {
+            return fileName.substring(0, fileName.length() - 5);
+        }
+
+        return fileName;
+    }
+
+    private void indexProjects() {
+        Map<String, Project> newProjectMap = new HashMap<>();
+        Map<String, Project> newCompositionProjectMap = new HashMap<>();
+
         for (Project project : projects) {
-            for (Composition composition : project.getCompositions()) {
-                if (compositionName.equals(composition.getName())) {
-                    return project;
+            newProjectMap.putIfAbsent(project.getName(), project);
+
+            if (project.getCompositions() != null) {
+                for (Composition composition : project.getCompositions()) {
+                    // Only one project per composition is supported -> the first one wins
+                    newCompositionProjectMap.putIfAbsent(composition.getName(), project);
                 }
             }
         }
 
-        return null;
+        projectMap = newProjectMap;
+        compositionProjectMap = newCompositionProjectMap;
+    }
+
+    @Override
+    public Project getProjectByCompositionName(String compositionName) {
+        // Return the project for a specified composition (only one project is supported)
+        if (compositionName == null) {
+            return null;
+        }
+
+        return compositionProjectMap.get(compositionName);
     }
 
     @Override
     public Project getProjectByName(String name) {
         // Return the project for a specified name
-        for (Project project : projects) {
-            if (project.getName().equals(name)) {
-                return project;
-            }
+        if (name == null) {
+            return null;
         }
 
-        return null;
+        return projectMap.get(name);
     }
 
     @Override
-    public void deleteProjectByName(String name) {
+    public synchronized void deleteProjectByName(String name) {
         // Delete the project
         File file = new File(settingsService.getSettings().getBasePath() + File.separator + settingsService.getSettings().getDesignerPath() + File.separator + name + ".json");
 
@@ -151,13 +222,10 @@ public class DefaultDesignerService implements DesignerService {
             }
         }
 
-        // Return the project for a specified name
-        for (Project project : projects) {
-            if (project.getName().equals(name)) {
-                projects.remove(project);
-                break;
-            }
-        }
+        projectFileModifiedMap.remove(name);
+
+        projects.removeIf(project -> project.getName().equals(name));
+        indexProjects();
     }
 
     @Override
@@ -166,33 +234,65 @@ public class DefaultDesignerService implements DesignerService {
     }
 
     @Override
-    public void saveProject(String project) throws IOException {
+    public synchronized void saveProject(String project) throws IOException {
         // Save a project as string, because we will not access properties
         // and unmarshalling might be incomplete, because the backend only cares
         // about a part of the properties not all (e.g. preview-related ones).
-        ObjectMapper mapper = new ObjectMapper();
-        Project projectObject = mapper.readValue(project, Project.class);
+        Project projectObject = readProject(mapper.readTree(project));
         String projectName = projectObject.getName();
         String designerPath = settingsService.getSettings().getBasePath() + File.separator + settingsService.getSettings().getDesignerPath();
 
         createDirectoryIfNotExists(designerPath);
 
-        BufferedWriter writer = new BufferedWriter(new FileWriter(designerPath + File.separator + projectName + ".json"));
+        File file = new File(designerPath + File.separator + projectName + ".json");
+        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
         writer.write(project);
         writer.close();
+        projectFileModifiedMap.put(projectName, file.lastModified());
 
         // Add the file to the cache
-        for (Project existingProject : projects) {
-            if (existingProject.getName().equals(projectName)) {
-                projects.remove(existingProject);
-                break;
-            }
-        }
+        projects.removeIf(existingProject -> existingProject.getName().equals(projectName));
         projects.add(projectObject);
+        indexProjects();
 
         logger.info("Designer project '" + projectName + "' saved");
     }
 
+    @Override
+    public synchronized boolean reloadProject(String name) {
+        File file = new File(settingsService.getSettings().getBasePath() + File.separator + settingsService.getSettings().getDesignerPath() + File.separator + name + ".json");
+        Project existingProject = getProjectByName(name);
+
+        if (file.isFile() && Objects.equals(projectFileModifiedMap.get(name), file.lastModified())) {
+            // Not changed (e.g. saved by ourselves)
+            return false;
+        }
+
+        if (existingProject != null) {
+            projects.remove(existingProject);
+        }
+
+        projectFileModifiedMap.remove(name);
+
+        if (file.isFile()) {
+            try {
+                projects.add(readProject(mapper.readTree(file)));
+                projectFileModifiedMap.put(name, file.lastModified());
+            } catch (IOException e) {
+                logger.error("Could not reload project '" + file.getName() + "'", e);
+            }
+
+            logger.info("Designer project '" + name + "' reloaded");
+        } else if (existingProject == null) {
+            return false;
+        } else {
+            logger.info("Designer project '" + name + "' removed");
+        }
+
+        indexProjects();
+        return true;
+    }
+
     private Fixture getFixtureByUuid(Project project, String uuid) {
         for (Fixture fixture : project.getFixtures()) {
             if (Objects.equals(fixture.getUuid(), uuid)) {
@@ -1016,6 +1116,11 @@ public class DefaultDesignerService implements DesignerService {
     }
 
     private void calculateUniverse(long timeMillis) {
+        long startNanos = frameTimer.start();
+
+        DesignerFrameEvent event = new DesignerFrameEvent();
+        event.begin();
+
         try {
             List<PresetRegionScene> presets = getPresets(timeMillis);
             Map<CachedFixture, List<FixtureChannelValue>> calculatedFixtures = getChannelValues(timeMillis, presets);
@@ -1023,12 +1128,29 @@ public class DefaultDesignerService implements DesignerService {
             // TODO make the dimmer value adjustable and fall back to the project settings
             setUniverseValues(calculatedFixtures);
 
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.positionMillis = timeMillis;
+                event.presets = presets.size();
+                event.fixtures = calculatedFixtures.size();
+                event.commit();
+            }
+
             logger.trace("DMX universe: " + lightingUniverses.get(0).getUniverse().toString());
         } catch (Exception e) {
             logger.error("Could not calculate the universe", e);
+        } finally {
+            frameTimer.stop(startNanos);
         }
     }
 
+    // Calculate the universe of a position without sending it, used by the benchmarks
+    HashMap<Integer, Integer> calculateFrame(long positionMillis) {
+        calculateUniverse(positionMillis);
+        return lightingUniverses.get(0).getUniverse();
+    }
+
     private void startTimer() {
         if (universeSenderHandle != null || settingsService.getSettings().getDesignerFrequencyHertz() == null) {
             logger.debug("Could not start preview timer (universeSenderHandle = " + universeSenderHandle + ", designerFrequencyHertz = " + settingsService.getSettings().getDesignerFrequencyHertz() + ")");
@@ -0,0 +1,207 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.util.MetricsService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.FileUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keep the recently used fixture profiles in memory: raw ones served by the fixture library and parsed ones embedded
+ * in the designer projects. A raw profile is read again, if its file has been modified. Parsed profiles are
+ * identified by the content of their tree, which allows all projects embedding the same profile to share a single
+ * instance. The profiles must therefore not be modified. A hit is 3 to 5 times faster than binding the profile and
+ * doesn't allocate (see FixtureProfileCacheBenchmark), at the cost of keeping the tree of each cached profile.
+ */
+@Service
+public class DefaultFixtureProfileCacheService implements FixtureProfileCacheService {
+
+    private final static int MAX_RAW_ENTRIES = 256;
+    private final static int MAX_PROFILE_ENTRIES = 256;
+
+    private final SettingsService settingsService;
+
+    // As strict as the designer binding the projects
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final AtomicLong rawHits = new AtomicLong();
+    private final AtomicLong rawMisses = new AtomicLong();
+    private final AtomicLong profileHits = new AtomicLong();
+    private final AtomicLong profileMisses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static class RawEntry {
+        private final String raw;
+        private final long lastModifiedMillis;
+        private final long sizeBytes;
+
+        private RawEntry(String raw, long lastModifiedMillis, long sizeBytes) {
+            this.raw = raw;
+            this.lastModifiedMillis = lastModifiedMillis;
+            this.sizeBytes = sizeBytes;
+        }
+    }
+
+    // Access ordered maps to evict the least recently used entries
+    private final Map<String, RawEntry> rawEntryMap = new LinkedHashMap<String, RawEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RawEntry> eldest) {
+            return evict(size() > MAX_RAW_ENTRIES);
+        }
+    };
+
+    // The tree is hashed once, instead of on each access of the map. Equal trees are only compared on a hit.
+    private static class ProfileKey {
+        private final JsonNode profileNode;
+        private final int hashCode;
+
+        private ProfileKey(JsonNode profileNode) {
+            this.profileNode = profileNode;
+
+            hashCode = profileNode.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof ProfileKey)) {
+                return false;
+            }
+
+            ProfileKey profileKey = (ProfileKey) object;
+            return hashCode == profileKey.hashCode && profileNode.equals(profileKey.profileNode);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private final Map<ProfileKey, FixtureProfile> profileMap = new LinkedHashMap<ProfileKey, FixtureProfile>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ProfileKey, FixtureProfile> eldest) {
+            return evict(size() > MAX_PROFILE_ENTRIES);
+        }
+    };
+
+    public DefaultFixtureProfileCacheService(SettingsService settingsService, MetricsService metricsService) {
+        this.settingsService = settingsService;
+
+        metricsService.registerCounter("fixture_cache_hits", "Fixture profile cache hits since the start", rawHits::get, "cache", "raw");
+        metricsService.registerCounter("fixture_cache_hits", "Fixture profile cache hits since the start", profileHits::get, "cache", "profile");
+        metricsService.registerCounter("fixture_cache_misses", "Fixture profile cache misses since the start", rawMisses::get, "cache", "raw");
+        metricsService.registerCounter("fixture_cache_misses", "Fixture profile cache misses since the start", profileMisses::get, "cache", "profile");
+        metricsService.registerCounter("fixture_cache_evictions", "Fixture profiles evicted from the cache since the start", evictions::get);
+    }
+
+    private boolean evict(boolean evict) {
+        if (evict) {
+            evictions.incrementAndGet();
+        }
+
+        return evict;
+    }
+
+    private File getFile(String uuid) {
+        return new File(settingsService.getSettings().getBasePath() + File.separator + settingsService.getSettings().getFixturePath() + File.separator + uuid + ".json");
+    }
+
+    private RawEntry getRawEntry(String uuid) throws IOException {
+        File file = getFile(uuid);
+        RawEntry rawEntry;
+
+        synchronized (rawEntryMap) {
+            rawEntry = rawEntryMap.get(uuid);
+        }
+
+        if (rawEntry != null && rawEntry.lastModifiedMillis == file.lastModified() && rawEntry.sizeBytes == file.length()) {
+            rawHits.incrementAndGet();
+            return rawEntry;
+        }
+
+        rawMisses.incrementAndGet();
+
+        // Read the file outside the lock. Take the modification before reading, to read it again on a change meanwhile.
+        long lastModifiedMillis = file.lastModified();
+        long sizeBytes = file.length();
+        rawEntry = new RawEntry(FileUtils.readFileToString(file, StandardCharsets.UTF_8), lastModifiedMillis, sizeBytes);
+
+        synchronized (rawEntryMap) {
+            rawEntryMap.put(uuid, rawEntry);
+        }
+
+        return rawEntry;
+    }
+
+    @Override
+    public String getRawProfile(String uuid) throws IOException {
+        return getRawEntry(uuid).raw;
+    }
+
+    @Override
+    public FixtureProfile getProfile(JsonNode profileNode) throws IOException {
+        FixtureProfile fixtureProfile;
+
+        ProfileKey profileKey = new ProfileKey(profileNode);
+
+        synchronized (profileMap) {
+            fixtureProfile = profileMap.get(profileKey);
+        }
+
+        if (fixtureProfile != null) {
+            profileHits.incrementAndGet();
+            return fixtureProfile;
+        }
+
+        profileMisses.incrementAndGet();
+
+        fixtureProfile = mapper.treeToValue(profileNode, FixtureProfile.class);
+
+        synchronized (profileMap) {
+            profileMap.put(profileKey, fixtureProfile);
+        }
+
+        return fixtureProfile;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (rawEntryMap) {
+            rawEntryMap.clear();
+        }
+
+        synchronized (profileMap) {
+            profileMap.clear();
+        }
+    }
+
+    @Override
+    public FixtureProfileCacheStatistics getStatistics() {
+        FixtureProfileCacheStatistics statistics = new FixtureProfileCacheStatistics();
+
+        statistics.setRawHits(rawHits.get());
+        statistics.setRawMisses(rawMisses.get());
+        statistics.setProfileHits(profileHits.get());
+        statistics.setProfileMisses(profileMisses.get());
+        statistics.setEvictions(evictions.get());
+
+        synchronized (rawEntryMap) {
+            statistics.setRawEntries(rawEntryMap.size());
+        }
+
+        synchronized (profileMap) {
+            statistics.setProfileEntries(profileMap.size());
+        }
+
+        return statistics;
+    }
+
+}
@@ -2,6 +2,8 @@ package com.ascargon.rocketshow.lighting.designer;
 
 import com.ascargon.rocketshow.SettingsService;
 import com.ascargon.rocketshow.util.FileFilterService;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
@@ -10,18 +12,15 @@ import org.springframework.stereotype.Service;
 
 import java.io.*;
 import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
-import java.nio.charset.StandardCharsets;
+import java.net.URLConnection;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 @Service
@@ -31,202 +30,358 @@ public class DefaultFixtureService implements FixtureService {
 
     private final SettingsService settingsService;
     private final FileFilterService fileFilterService;
+    private final FixtureProfileCacheService fixtureProfileCacheService;
 
     private final String MANUFACTURERS_FILE_NAME = "manufacturers.json";
 
-    private List<SearchFixtureTemplate> searchFixtureTemplates;
+    // The search index is stored in the fixture library, to be replaced together with it
+    private final static String SEARCH_INDEX_FILE_NAME = "search-index.json";
+    private final static int SEARCH_INDEX_VERSION = 1;
+
+    private final ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private volatile FixtureSearchIndex searchIndex;
+
+    private final static String FIXTURES_URL = "https://www.rocketshow.net/designer/downloads/fixtures.zip";
+    private final static int DOWNLOAD_TIMEOUT_MILLIS = 30000;
+
+    // Don't read fixture files, while the library is being swapped
+    private final ReadWriteLock libraryLock = new ReentrantReadWriteLock();
+
+    // Only run a single update at a time
+    private final Object updateLock = new Object();
 
     private String basePath = "";
 
-    public DefaultFixtureService(SettingsService settingsService, FileFilterService fileFilterService) {
+    public DefaultFixtureService(SettingsService settingsService, FileFilterService fileFilterService, FixtureProfileCacheService fixtureProfileCacheService) {
         this.settingsService = settingsService;
         this.fileFilterService = fileFilterService;
+        this.fixtureProfileCacheService = fixtureProfileCacheService;
 
         basePath = settingsService.getSettings().getBasePath() + File.separator + settingsService.getSettings().getFixturePath();
     }
 
-    private void processManufacturerDirectory(String manufacturerShortName, String manufacturerName, List<SearchFixtureTemplate> searchFixtureTemplates) throws Exception {
-        File folder;
-        File[] fileList;
+    private SearchFixtureTemplate createSearchFixtureTemplate(File file, String manufacturerShortName, String manufacturerName) throws Exception {
+        // Only read the tree instead of the whole profile, because just a few fields are required
+        JsonNode fixtureProfile = mapper.readTree(file);
+
+        SearchFixtureTemplate searchFixtureTemplate = new SearchFixtureTemplate();
+        searchFixtureTemplate.setUuid(manufacturerShortName + "/" + file.getName().substring(0, file.getName().length() - 5));
+        searchFixtureTemplate.setName(fixtureProfile.path("name").asText(null));
+        searchFixtureTemplate.setManufacturerShortName(manufacturerShortName);
+        searchFixtureTemplate.setManufacturerName(manufacturerName);
+
+        for (JsonNode category : fixtureProfile.path("categories")) {
+            searchFixtureTemplate.getCategories().add(category.asText());
+        }
+
+        for (JsonNode mode : fixtureProfile.path("modes")) {
+            searchFixtureTemplate.getChannelCounts().add(mode.path("channels").size());
+        }
+
+        return searchFixtureTemplate;
+    }
+
+    private List<SearchFixtureTemplate> processManufacturerDirectory(File fixturesDirectory, String manufacturerShortName, String manufacturerName) {
+        List<SearchFixtureTemplate> searchFixtureTemplates = new ArrayList<>();
 
         logger.debug("Get all fixtures for manufacturer '" + manufacturerShortName + "'");
 
-        folder = new File(basePath + File.separator + manufacturerShortName);
-        fileList = folder.listFiles();
+        File[] fileList = new File(fixturesDirectory, manufacturerShortName).listFiles();
 
         if (fileList != null) {
             for (File file : fileList) {
-                if (file.isFile() && !fileFilterService.filterFile(file.getName())) {
-                    logger.debug("Load fixture " + file.getAbsolutePath());
-
-                    ObjectMapper mapper = new ObjectMapper();
+                if (file.isFile() && file.getName().endsWith(".json") && !fileFilterService.filterFile(file.getName())) {
                     try {
-                        FixtureProfile fixtureProfile = mapper.readValue(file, FixtureProfile.class);
-
-                        SearchFixtureTemplate searchFixtureTemplate = new SearchFixtureTemplate();
-                        searchFixtureTemplate.setUuid(manufacturerShortName + "/" + file.getName().substring(0, file.getName().length() - 5));
-                        searchFixtureTemplate.setName(fixtureProfile.getName());
-                        searchFixtureTemplate.setManufacturerShortName(manufacturerShortName);
-                        searchFixtureTemplate.setManufacturerName(manufacturerName);
-
-                        searchFixtureTemplates.add(searchFixtureTemplate);
+                        searchFixtureTemplates.add(createSearchFixtureTemplate(file, manufacturerShortName, manufacturerName));
                     } catch (Exception e) {
-                        throw new Exception("Could not parse fixture " + file.getPath(), e);
+                        // Don't let a single broken profile break the whole search
+                        logger.error("Could not parse fixture " + file.getPath(), e);
                     }
                 }
             }
         }
+
+        return searchFixtureTemplates;
     }
 
-    private void buildCache() throws Exception {
-        List<SearchFixtureTemplate> searchFixtureTemplates = new ArrayList<>();
+    // Parse the profiles of the manufacturers in parallel
+    private FixtureSearchIndexFile buildSearchIndexFile(File fixturesDirectory) throws Exception {
+        File manufacturersFile = new File(fixturesDirectory, MANUFACTURERS_FILE_NAME);
+        Manufacturers manufacturers = mapper.readValue(manufacturersFile, Manufacturers.class);
+
+        FixtureSearchIndexFile searchIndexFile = new FixtureSearchIndexFile();
+        searchIndexFile.setVersion(SEARCH_INDEX_VERSION);
+        searchIndexFile.setManufacturersLastModifiedMillis(manufacturersFile.lastModified());
+
+        logger.debug("Found " + manufacturers.getManufacturers().size() + " manufacturers");
 
-        ObjectMapper mapper = new ObjectMapper();
-        Manufacturers manufacturers = mapper.readValue(new File(basePath + File.separator + MANUFACTURERS_FILE_NAME), Manufacturers.class);
+        searchIndexFile.setFixtureList(manufacturers.getManufacturers().entrySet().parallelStream()
+                .flatMap(entry -> processManufacturerDirectory(fixturesDirectory, entry.getKey(), entry.getValue().getName()).stream())
+                .collect(Collectors.toList()));
 
-        if (manufacturers.getManufacturers() != null) {
-            logger.debug("Found " + manufacturers.getManufacturers().size() + " manufacturers");
+        return searchIndexFile;
+    }
+
+    private FixtureSearchIndexFile loadSearchIndexFile(File fixturesDirectory) {
+        File file = new File(fixturesDirectory, SEARCH_INDEX_FILE_NAME);
 
-            for (Map.Entry<String, Manufacturer> entry : manufacturers.getManufacturers().entrySet()) {
-                processManufacturerDirectory(entry.getKey(), entry.getValue().getName(), searchFixtureTemplates);
+        if (!file.exists()) {
+            return null;
+        }
+
+        try {
+            FixtureSearchIndexFile searchIndexFile = mapper.readValue(file, FixtureSearchIndexFile.class);
+
+            if (searchIndexFile.getVersion() == SEARCH_INDEX_VERSION && searchIndexFile.getManufacturersLastModifiedMillis() == new File(fixturesDirectory, MANUFACTURERS_FILE_NAME).lastModified()) {
+                return searchIndexFile;
             }
+        } catch (Exception e) {
+            logger.error("Could not load the fixture search index", e);
+        }
+
+        return null;
+    }
+
+    private void saveSearchIndexFile(File fixturesDirectory, FixtureSearchIndexFile searchIndexFile) {
+        Path path = new File(fixturesDirectory, SEARCH_INDEX_FILE_NAME).toPath();
+        Path temporaryPath = new File(fixturesDirectory, SEARCH_INDEX_FILE_NAME + ".tmp").toPath();
+
+        try {
+            // Don't leave a partially written index
+            mapper.writeValue(temporaryPath.toFile(), searchIndexFile);
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            logger.error("Could not save the fixture search index", e);
         }
+    }
+
+    // Load the persisted search index of the library or build it, if it's missing or outdated
+    private FixtureSearchIndex loadSearchIndex(File fixturesDirectory) throws Exception {
+        long startMillis = System.currentTimeMillis();
+        FixtureSearchIndexFile searchIndexFile = loadSearchIndexFile(fixturesDirectory);
+
+        if (searchIndexFile == null) {
+            searchIndexFile = buildSearchIndexFile(fixturesDirectory);
+            saveSearchIndexFile(fixturesDirectory, searchIndexFile);
+
+            logger.info("Built the fixture search index with " + searchIndexFile.getFixtureList().size() + " fixtures in " + (System.currentTimeMillis() - startMillis) + " ms");
+        } else {
+            logger.info("Loaded the fixture search index with " + searchIndexFile.getFixtureList().size() + " fixtures in " + (System.currentTimeMillis() - startMillis) + " ms");
+        }
+
+        return new FixtureSearchIndex(searchIndexFile.getFixtureList());
+    }
+
+    private FixtureSearchIndex getSearchIndex() throws Exception {
+        FixtureSearchIndex currentSearchIndex = searchIndex;
+
+        if (currentSearchIndex != null) {
+            return currentSearchIndex;
+        }
+
+        synchronized (this) {
+            if (searchIndex == null) {
+                libraryLock.readLock().lock();
+
+                try {
+                    searchIndex = loadSearchIndex(new File(basePath));
+                } finally {
+                    libraryLock.readLock().unlock();
+                }
+            }
 
-        this.searchFixtureTemplates = searchFixtureTemplates;
+            return searchIndex;
+        }
     }
 
-    public void invalidateCache() {
-        searchFixtureTemplates = null;
+    public synchronized void invalidateCache() {
+        searchIndex = null;
     }
 
     @Override
     public List<SearchFixtureTemplate> searchFixtures(String uuid, String manufacturerShortName, String name, String mainCategory) throws Exception {
         // Return a list of fixtures based on the search criteria
-
-        if (searchFixtureTemplates == null) {
-            buildCache();
-        }
+        FixtureSearchIndex currentSearchIndex = getSearchIndex();
 
         if (uuid != null) {
-            for (SearchFixtureTemplate searchFixtureTemplate : searchFixtureTemplates) {
-                if (uuid.equals(searchFixtureTemplate.getUuid())) {
-                    List<SearchFixtureTemplate> filteredSearchFixtureTemplas = new ArrayList<>();
-                    filteredSearchFixtureTemplas.add(searchFixtureTemplate);
-                    return filteredSearchFixtureTemplas;
-                }
+            SearchFixtureTemplate searchFixtureTemplate = currentSearchIndex.getByUuid(uuid);
+
+            if (searchFixtureTemplate == null) {
+                return null;
             }
 
-            return null;
-        } else {
-            // TODO implement the remaining search criteria
+            List<SearchFixtureTemplate> filteredSearchFixtureTemplates = new ArrayList<>();
+            filteredSearchFixtureTemplates.add(searchFixtureTemplate);
+            return filteredSearchFixtureTemplates;
+        }
+
+        return currentSearchIndex.search(name, manufacturerShortName, mainCategory);
+    }
 
-            return searchFixtureTemplates;
+    @Override
+    public FixtureSearchResult searchFixtures(String query, String manufacturerShortName, String mainCategory, int page, int pageSize) throws Exception {
+        if (page < 0 || pageSize < 1) {
+            throw new Exception("Invalid page " + page + " with size " + pageSize);
         }
+
+        List<SearchFixtureTemplate> searchFixtureTemplateList = getSearchIndex().search(query, manufacturerShortName, mainCategory);
+
+        FixtureSearchResult fixtureSearchResult = new FixtureSearchResult();
+        fixtureSearchResult.setTotalCount(searchFixtureTemplateList.size());
+        fixtureSearchResult.setPage(page);
+        fixtureSearchResult.setPageSize(pageSize);
+
+        int fromIndex = (int) Math.min((long) page * pageSize, searchFixtureTemplateList.size());
+        int toIndex = (int) Math.min((long) fromIndex + pageSize, searchFixtureTemplateList.size());
+        fixtureSearchResult.setFixtureList(new ArrayList<>(searchFixtureTemplateList.subList(fromIndex, toIndex)));
+
+        return fixtureSearchResult;
     }
 
     @Override
     public String getFixture(String uuid) throws IOException {
         // Return a single fixture based on the uuid
-        File file = new File(basePath + File.separator + uuid + ".json");
-        return FileUtils.readFileToString(file, StandardCharsets.UTF_8);
-    }
-
-    private void extractFolder(String zipFile) throws ZipException, IOException {
-        int BUFFER = 2048;
-        File file = new File(zipFile);
-
-        ZipFile zip = new ZipFile(file);
-        String newPath = zipFile.substring(0, zipFile.length() - 4);
-
-        new File(newPath).mkdir();
-        Enumeration zipFileEntries = zip.entries();
-
-        // Process each entry
-        while (zipFileEntries.hasMoreElements()) {
-            // grab a zip file entry
-            ZipEntry entry = (ZipEntry) zipFileEntries.nextElement();
-            String currentEntry = entry.getName();
-            File destFile = new File(newPath, currentEntry);
-            //destFile = new File(newPath, destFile.getName());
-            File destinationParent = destFile.getParentFile();
-
-            // create the parent directory structure if needed
-            destinationParent.mkdirs();
-
-            if (!entry.isDirectory()) {
-                BufferedInputStream inputStream = new BufferedInputStream(zip
-                        .getInputStream(entry));
-                int currentByte;
-                // establish buffer for writing file
-                byte data[] = new byte[BUFFER];
-
-                // write the current file to disk
-                FileOutputStream fos = new FileOutputStream(destFile);
-                BufferedOutputStream dest = new BufferedOutputStream(fos,
-                        BUFFER);
-
-                // read and write until last byte is encountered
-                while ((currentByte = inputStream.read(data, 0, BUFFER)) != -1) {
-                    dest.write(data, 0, currentByte);
-                }
-                dest.flush();
-                dest.close();
-                inputStream.close();
+        libraryLock.readLock().lock();
+
+        try {
+            return fixtureProfileCacheService.getRawProfile(uuid);
+        } finally {
+            libraryLock.readLock().unlock();
+        }
+    }
+
+    // Extract a single entry and return the file, if it's a nested archive
+    private File extractEntry(ZipFile zip, ZipEntry entry, Path targetPath) {
+        Path path = targetPath.resolve(entry.getName()).normalize();
+
+        try {
+            // Don't write outside the target directory
+            if (!path.startsWith(targetPath)) {
+                throw new IOException("Invalid entry '" + entry.getName() + "' in fixture archive");
             }
 
-            if (currentEntry.endsWith(".zip")) {
-                // found a zip file, try to open
-                extractFolder(destFile.getAbsolutePath());
+            if (entry.isDirectory()) {
+                Files.createDirectories(path);
+                return null;
+            }
+
+            Files.createDirectories(path.getParent());
+
+            try (InputStream inputStream = zip.getInputStream(entry)) {
+                Files.copy(inputStream, path, StandardCopyOption.REPLACE_EXISTING);
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+
+        return entry.getName().endsWith(".zip") ? path.toFile() : null;
     }
 
-    private void createDirectoryIfNotExists(String directory) throws IOException {
-        Path path = Paths.get(directory);
+    // Extract the entries of the archive in parallel. Nested archives are extracted into a directory with their name.
+    private void extractArchive(File zipFile, File targetDirectory) throws IOException {
+        Path targetPath = targetDirectory.toPath().toAbsolutePath().normalize();
+        List<File> nestedZipFileList;
+
+        Files.createDirectories(targetPath);
+
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            nestedZipFileList = Collections.list(zip.entries()).parallelStream()
+                    .map(entry -> extractEntry(zip, entry, targetPath))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        for (File nestedZipFile : nestedZipFileList) {
+            extractArchive(nestedZipFile, new File(nestedZipFile.getParentFile(), nestedZipFile.getName().substring(0, nestedZipFile.getName().length() - 4)));
 
-        if (Files.notExists(path)) {
-            Files.createDirectories(path);
+            if (!nestedZipFile.delete()) {
+                logger.error("Could not delete nested fixtures ZIP file '" + nestedZipFile.getPath() + "'");
+            }
         }
     }
 
-    @Override
-    public void updateProfiles() throws IOException {
-        String fixturesPath = settingsService.getSettings().getBasePath() + "fixtures";
-        File fixturesDirectory = new File(fixturesPath);
+    // Replace the library and its search index at once. Synchronized like the lazy loading of the index, which
+    // would replace the new index otherwise. Takes the monitor before the library lock in the same order.
+    private synchronized void swapLibrary(File stagingDirectory, File fixturesDirectory, File previousDirectory, FixtureSearchIndex newSearchIndex) throws IOException {
+        libraryLock.writeLock().lock();
 
-        // Download the current profile set, if an internet connection is available
-        String downloadFile = settingsService.getSettings().getBasePath() + "fixtures.zip";
+        try {
+            if (fixturesDirectory.exists()) {
+                Files.move(fixturesDirectory.toPath(), previousDirectory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
 
-        // Download the fixtures ZIP
-        URL url = new URL("https://www.rocketshow.net/designer/downloads/fixtures.zip");
-        ReadableByteChannel readableByteChannel = Channels.newChannel(url.openStream());
-        FileOutputStream fileOutputStream = new FileOutputStream(downloadFile);
-        fileOutputStream.getChannel().transferFrom(readableByteChannel, 0, Long.MAX_VALUE);
-        fileOutputStream.close();
+            try {
+                Files.move(stagingDirectory.toPath(), fixturesDirectory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // Keep the current library
+                if (previousDirectory.exists()) {
+                    Files.move(previousDirectory.toPath(), fixturesDirectory.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                }
 
-        // Delete the local directory
-        FileUtils.deleteDirectory(fixturesDirectory);
+                throw e;
+            }
 
-        // Create the directory
-        createDirectoryIfNotExists(fixturesPath);
+            searchIndex = newSearchIndex;
+            fixtureProfileCacheService.clear();
+        } finally {
+            libraryLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateProfiles() throws Exception {
+        // Download the current profile set, if an internet connection is available
+        File downloadFile = new File(basePath + ".zip");
 
-        // Unzip the archive
-        extractFolder(downloadFile);
+        URLConnection connection = new URL(FIXTURES_URL).openConnection();
+        connection.setConnectTimeout(DOWNLOAD_TIMEOUT_MILLIS);
+        connection.setReadTimeout(DOWNLOAD_TIMEOUT_MILLIS);
 
-        // Delete the ZIP file
-        File systemFile = new File(downloadFile);
+        try {
+            try (InputStream inputStream = connection.getInputStream()) {
+                Files.copy(inputStream, downloadFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
 
-        if (!systemFile.exists()) {
-            return;
+            updateProfiles(downloadFile);
+        } finally {
+            if (downloadFile.exists() && !downloadFile.delete()) {
+                logger.error("Could not delete fixtures ZIP file '" + downloadFile.getPath() + "'");
+            }
         }
+    }
 
-        boolean result = systemFile.delete();
+    @Override
+    public void updateProfiles(File zipFile) throws Exception {
+        synchronized (updateLock) {
+            long startMillis = System.currentTimeMillis();
+
+            File fixturesDirectory = new File(basePath);
+            File stagingDirectory = new File(basePath + ".staging");
+            File previousDirectory = new File(basePath + ".previous");
+
+            // Remove the leftovers of an interrupted update
+            FileUtils.deleteDirectory(stagingDirectory);
+            FileUtils.deleteDirectory(previousDirectory);
+
+            // Prepare the new library and its index next to the current one, which is still used meanwhile
+            FixtureSearchIndex newSearchIndex;
+
+            try {
+                extractArchive(zipFile, stagingDirectory);
+                newSearchIndex = loadSearchIndex(stagingDirectory);
+                swapLibrary(stagingDirectory, fixturesDirectory, previousDirectory, newSearchIndex);
+            } catch (Exception e) {
+                FileUtils.deleteDirectory(stagingDirectory);
+                throw e;
+            }
 
-        if (!result) {
-            logger.error("Could not delete fixtures ZIP file '" + downloadFile + "'");
-        }
+            FileUtils.deleteDirectory(previousDirectory);
 
-        invalidateCache();
+            logger.info("Updated the fixture library with " + newSearchIndex.size() + " fixtures in " + (System.currentTimeMillis() - startMillis) + " ms");
+        }
     }
 
 }
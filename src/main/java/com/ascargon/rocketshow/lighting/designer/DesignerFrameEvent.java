@@ -0,0 +1,24 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event for the calculation of a designer frame.
+ */
+@Name("rocketshow.DesignerFrame")
+@Label("Designer Frame")
+@Category({"Rocket Show", "Lighting"})
+@StackTrace(false)
+class DesignerFrameEvent extends Event {
+
+    @Label("Position")
+    @Timespan(Timespan.MILLISECONDS)
+    long positionMillis;
+
+    @Label("Presets")
+    int presets;
+
+    @Label("Fixtures")
+    int fixtures;
+
+}
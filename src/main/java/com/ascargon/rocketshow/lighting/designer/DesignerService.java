@@ -20,6 +20,10 @@ public interface DesignerService {
 
     void saveProject(String project) throws IOException;
 
+    // Reload a project after its file has been changed, created or deleted outside the application. Returns true,
+    // if the project has changed.
+    boolean reloadProject(String name);
+
     void load(CompositionPlayer compositionPlayer, Project project, Pipeline pipeline);
 
     void play();
@@ -0,0 +1,19 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+
+public interface FixtureProfileCacheService {
+
+    // Get the profile file of the fixture library as it is, e.g. to send it to the web app
+    String getRawProfile(String uuid) throws IOException;
+
+    // Get the parsed profile of a profile embedded in a project. Equal profiles are only parsed once.
+    FixtureProfile getProfile(JsonNode profileNode) throws IOException;
+
+    void clear();
+
+    FixtureProfileCacheStatistics getStatistics();
+
+}
@@ -0,0 +1,23 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The hits and misses of the fixture profile cache since the start.
+ */
+@Getter
+@Setter
+public class FixtureProfileCacheStatistics {
+
+    private long rawHits;
+    private long rawMisses;
+    private int rawEntries;
+
+    private long profileHits;
+    private long profileMisses;
+    private int profileEntries;
+
+    private long evictions;
+
+}
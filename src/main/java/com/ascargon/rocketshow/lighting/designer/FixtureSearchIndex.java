@@ -0,0 +1,157 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import java.util.*;
+
+/**
+ * An immutable search index over the fixture library. The fixtures are sorted by manufacturer and name. Each token
+ * of the fixture and manufacturer names points to the positions of all fixtures containing it, which allows
+ * searching for token prefixes without scanning all fixtures.
+ */
+class FixtureSearchIndex {
+
+    private final List<SearchFixtureTemplate> searchFixtureTemplateList;
+    private final Map<String, SearchFixtureTemplate> uuidMap = new HashMap<>();
+
+    // The sorted tokens and the sorted positions of the fixtures per token
+    private final String[] tokens;
+    private final int[][] tokenPositions;
+
+    FixtureSearchIndex(Collection<SearchFixtureTemplate> searchFixtureTemplates) {
+        List<SearchFixtureTemplate> sortedList = new ArrayList<>(searchFixtureTemplates);
+        sortedList.sort(Comparator
+                .comparing((SearchFixtureTemplate template) -> normalize(template.getManufacturerName()))
+                .thenComparing(template -> normalize(template.getName()))
+                .thenComparing(SearchFixtureTemplate::getUuid));
+
+        searchFixtureTemplateList = Collections.unmodifiableList(sortedList);
+
+        Map<String, List<Integer>> tokenPositionMap = new TreeMap<>();
+
+        for (int i = 0; i < sortedList.size(); i++) {
+            SearchFixtureTemplate searchFixtureTemplate = sortedList.get(i);
+            uuidMap.put(searchFixtureTemplate.getUuid(), searchFixtureTemplate);
+
+            java.util.Set<String> tokenSet = new HashSet<>(tokenize(searchFixtureTemplate.getName()));
+            tokenSet.addAll(tokenize(searchFixtureTemplate.getManufacturerName()));
+
+            for (String token : tokenSet) {
+                // The positions are added in ascending order
+                tokenPositionMap.computeIfAbsent(token, key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        tokens = new String[tokenPositionMap.size()];
+        tokenPositions = new int[tokenPositionMap.size()][];
+
+        int tokenIndex = 0;
+
+        for (Map.Entry<String, List<Integer>> tokenPositionEntry : tokenPositionMap.entrySet()) {
+            tokens[tokenIndex] = tokenPositionEntry.getKey();
+            tokenPositions[tokenIndex] = tokenPositionEntry.getValue().stream().mapToInt(Integer::intValue).toArray();
+            tokenIndex++;
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    // Split a text into lower case words and numbers (e.g. "MAC Aura XB" -> "mac", "aura", "xb")
+    static List<String> tokenize(String text) {
+        List<String> tokenList = new ArrayList<>();
+
+        for (String token : normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokenList.add(token);
+            }
+        }
+
+        return tokenList;
+    }
+
+    // Get the positions of all fixtures containing a token starting with the prefix
+    private BitSet getPrefixPositions(String prefix) {
+        BitSet positions = new BitSet(searchFixtureTemplateList.size());
+        int tokenIndex = Arrays.binarySearch(tokens, prefix);
+
+        if (tokenIndex < 0) {
+            tokenIndex = -tokenIndex - 1;
+        }
+
+        // All tokens with the prefix follow each other in the sorted array
+        while (tokenIndex < tokens.length && tokens[tokenIndex].startsWith(prefix)) {
+            for (int position : tokenPositions[tokenIndex]) {
+                positions.set(position);
+            }
+
+            tokenIndex++;
+        }
+
+        return positions;
+    }
+
+    private boolean matches(SearchFixtureTemplate searchFixtureTemplate, String manufacturerShortName, String mainCategory) {
+        if (manufacturerShortName != null && !manufacturerShortName.equals(searchFixtureTemplate.getManufacturerShortName())) {
+            return false;
+        }
+
+        // The first category is the main category
+        if (mainCategory != null && (searchFixtureTemplate.getCategories().isEmpty() || !mainCategory.equalsIgnoreCase(searchFixtureTemplate.getCategories().get(0)))) {
+            return false;
+        }
+
+        return true;
+    }
+
+    SearchFixtureTemplate getByUuid(String uuid) {
+        return uuidMap.get(uuid);
+    }
+
+    List<SearchFixtureTemplate> getSearchFixtureTemplateList() {
+        return searchFixtureTemplateList;
+    }
+
+    // Search all fixtures matching all criteria. Each word of the query has to be the beginning of a word in the
+    // fixture or manufacturer name. Empty criteria are ignored.
+    List<SearchFixtureTemplate> search(String query, String manufacturerShortName, String mainCategory) {
+        BitSet positions = null;
+
+        for (String token : tokenize(query)) {
+            BitSet prefixPositions = getPrefixPositions(token);
+
+            if (positions == null) {
+                positions = prefixPositions;
+            } else {
+                positions.and(prefixPositions);
+            }
+        }
+
+        List<SearchFixtureTemplate> resultList = new ArrayList<>();
+
+        if (positions == null) {
+            // No query -> filter all fixtures
+            for (SearchFixtureTemplate searchFixtureTemplate : searchFixtureTemplateList) {
+                if (matches(searchFixtureTemplate, manufacturerShortName, mainCategory)) {
+                    resultList.add(searchFixtureTemplate);
+                }
+            }
+
+            return resultList;
+        }
+
+        for (int position = positions.nextSetBit(0); position >= 0; position = positions.nextSetBit(position + 1)) {
+            SearchFixtureTemplate searchFixtureTemplate = searchFixtureTemplateList.get(position);
+
+            if (matches(searchFixtureTemplate, manufacturerShortName, mainCategory)) {
+                resultList.add(searchFixtureTemplate);
+            }
+        }
+
+        return resultList;
+    }
+
+    int size() {
+        return searchFixtureTemplateList.size();
+    }
+
+}
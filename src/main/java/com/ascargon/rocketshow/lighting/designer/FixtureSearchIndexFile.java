@@ -0,0 +1,40 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The persisted search index of a fixture library. It's valid as long as the manufacturers file of the library has
+ * not been changed (e.g. by an update).
+ */
+class FixtureSearchIndexFile {
+
+    private int version;
+    private long manufacturersLastModifiedMillis;
+    private List<SearchFixtureTemplate> fixtureList = new ArrayList<>();
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    public long getManufacturersLastModifiedMillis() {
+        return manufacturersLastModifiedMillis;
+    }
+
+    public void setManufacturersLastModifiedMillis(long manufacturersLastModifiedMillis) {
+        this.manufacturersLastModifiedMillis = manufacturersLastModifiedMillis;
+    }
+
+    public List<SearchFixtureTemplate> getFixtureList() {
+        return fixtureList;
+    }
+
+    public void setFixtureList(List<SearchFixtureTemplate> fixtureList) {
+        this.fixtureList = fixtureList;
+    }
+
+}
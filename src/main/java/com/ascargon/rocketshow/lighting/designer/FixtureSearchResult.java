@@ -0,0 +1,48 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of fixtures found by a search.
+ */
+public class FixtureSearchResult {
+
+    private List<SearchFixtureTemplate> fixtureList = new ArrayList<>();
+    private int totalCount;
+    private int page;
+    private int pageSize;
+
+    public List<SearchFixtureTemplate> getFixtureList() {
+        return fixtureList;
+    }
+
+    public void setFixtureList(List<SearchFixtureTemplate> fixtureList) {
+        this.fixtureList = fixtureList;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public void setTotalCount(int totalCount) {
+        this.totalCount = totalCount;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+}
@@ -2,6 +2,7 @@ package com.ascargon.rocketshow.lighting.designer;
 
 import org.springframework.stereotype.Service;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
@@ -10,8 +11,16 @@ public interface FixtureService {
 
     List<SearchFixtureTemplate> searchFixtures(String uuid, String manufacturerShortName, String name, String mainCategory) throws Exception;
 
+    // Search the fixtures with words or their beginnings in the fixture or manufacturer name and return a page of the
+    // results, sorted by manufacturer and name. The page starts with 0.
+    FixtureSearchResult searchFixtures(String query, String manufacturerShortName, String mainCategory, int page, int pageSize) throws Exception;
+
     String getFixture(String uuid) throws Exception;
 
+    // Download the current fixture library and replace the local one with it
     void updateProfiles() throws Exception;
 
+    // Replace the local fixture library with the one in the ZIP file
+    void updateProfiles(File zipFile) throws Exception;
+
 }
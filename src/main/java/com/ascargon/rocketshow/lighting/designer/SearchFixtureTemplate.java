@@ -1,5 +1,8 @@
 package com.ascargon.rocketshow.lighting.designer;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A fixture template returned as a search result.
  *
@@ -11,6 +14,10 @@ public class SearchFixtureTemplate {
     private String name;
     private String manufacturerShortName;
     private String manufacturerName;
+    private List<String> categories = new ArrayList<>();
+
+    // The number of channels of each mode
+    private List<Integer> channelCounts = new ArrayList<>();
 
     public String getUuid() {
         return uuid;
@@ -44,4 +51,20 @@ public class SearchFixtureTemplate {
         this.manufacturerName = manufacturerName;
     }
 
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<String> categories) {
+        this.categories = categories;
+    }
+
+    public List<Integer> getChannelCounts() {
+        return channelCounts;
+    }
+
+    public void setChannelCounts(List<Integer> channelCounts) {
+        this.channelCounts = channelCounts;
+    }
+
 }
@@ -11,6 +11,9 @@ public class ActivityMidiSignal {
     private int note;
     private int velocity;
 
+    // The number of equal signals in the activity, the velocity is the last one
+    private int count = 1;
+
     public ActivityMidiSignal() {
     }
 
@@ -53,4 +56,12 @@ public class ActivityMidiSignal {
         this.velocity = velocity;
     }
 
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
 }
@@ -9,6 +9,14 @@ public class ChannelMapping {
 	private int channelFrom;
 	private int channelTo;
 
+	public ChannelMapping() {
+	}
+
+	public ChannelMapping(ChannelMapping channelMapping) {
+		this.channelFrom = channelMapping.channelFrom;
+		this.channelTo = channelMapping.channelTo;
+	}
+
 	public int getChannelFrom() {
 		return channelFrom;
 	}
@@ -13,6 +13,22 @@ public class MidiCompositionFile extends CompositionFile {
 
     private List<MidiRouting> midiRoutingList = new ArrayList<>();
 
+    public MidiCompositionFile() {
+    }
+
+    public MidiCompositionFile(MidiCompositionFile midiCompositionFile) {
+        super(midiCompositionFile);
+
+        for (MidiRouting midiRouting : midiCompositionFile.midiRoutingList) {
+            this.midiRoutingList.add(new MidiRouting(midiRouting));
+        }
+    }
+
+    @Override
+    public MidiCompositionFile copy() {
+        return new MidiCompositionFile(this);
+    }
+
     @XmlElement(name = "midiRouting")
     @XmlElementWrapper(name = "midiRoutingList")
     public List<MidiRouting> getMidiRoutingList() {
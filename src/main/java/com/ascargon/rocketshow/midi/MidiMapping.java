@@ -19,6 +19,25 @@ public class MidiMapping {
     // Completely ignore all parent's settings
     private Boolean overrideParent = false;
 
+    public MidiMapping() {
+    }
+
+    // Create a copy of a mapping without its parent
+    public MidiMapping(MidiMapping midiMapping) {
+        this.channelOffset = midiMapping.channelOffset;
+        this.noteOffset = midiMapping.noteOffset;
+        this.overrideParent = midiMapping.overrideParent;
+
+        if (midiMapping.channelMap == null) {
+            this.channelMap = null;
+            return;
+        }
+
+        for (ChannelMapping channelMapping : midiMapping.channelMap) {
+            this.channelMap.add(new ChannelMapping(channelMapping));
+        }
+    }
+
     @XmlTransient
     public MidiMapping getParent() {
         return parent;
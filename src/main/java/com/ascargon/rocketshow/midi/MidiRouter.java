@@ -4,11 +4,13 @@ import com.ascargon.rocketshow.SettingsService;
 import com.ascargon.rocketshow.api.ActivityNotificationMidiService;
 import com.ascargon.rocketshow.lighting.LightingService;
 import com.ascargon.rocketshow.lighting.Midi2LightingConvertService;
-import org.springframework.stereotype.Service;
+import com.ascargon.rocketshow.util.MetricsService;
+import com.ascargon.rocketshow.util.MetricsTimer;
 
 import javax.sound.midi.InvalidMidiDataException;
 import javax.sound.midi.MidiMessage;
 import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
 import javax.sound.midi.Transmitter;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -16,9 +18,9 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Route the MIDI input to the correct output based on a MIDI routing list.
+ * Route the MIDI input to the correct output based on a MIDI routing list. Created per MIDI source, the routings
+ * are timed with the source as label.
  */
-@Service
 public class MidiRouter {
 
     private final SettingsService settingsService;
@@ -31,7 +33,57 @@ public class MidiRouter {
 
     private List<Midi2MonitorReceiver> midi2MonitorReceiverList = new ArrayList<>();
 
-    public MidiRouter(SettingsService settingsService, Midi2LightingConvertService midi2LightingConvertService, LightingService lightingService, MidiDeviceOutService midiDeviceOutService, ActivityNotificationMidiService activityNotificationMidiService, List<MidiRouting> midiRoutingList) {
+    // Measure the time from passing a signal into a routing until the destination has processed it. Used for the
+    // signals sent by this router and the ones of the connected transmitters.
+    private static class TimedReceiver implements Receiver {
+        private final Receiver receiver;
+        private final MetricsTimer timer;
+        private final MidiSource midiSource;
+        private final int routing;
+        private final MidiDestination midiDestination;
+
+        private TimedReceiver(Receiver receiver, MetricsTimer timer, MidiSource midiSource, int routing, MidiDestination midiDestination) {
+            this.receiver = receiver;
+            this.timer = timer;
+            this.midiSource = midiSource;
+            this.routing = routing;
+            this.midiDestination = midiDestination;
+        }
+
+        @Override
+        public void send(MidiMessage midiMessage, long timeStamp) {
+            long startNanos = timer.start();
+
+            MidiSignalEvent event = new MidiSignalEvent();
+            event.begin();
+
+            receiver.send(midiMessage, timeStamp);
+
+            event.end();
+            timer.stop(startNanos);
+
+            if (event.shouldCommit()) {
+                event.source = midiSource.name();
+                event.routing = routing;
+                event.destination = midiDestination.name();
+                event.status = midiMessage.getStatus();
+
+                if (midiMessage instanceof ShortMessage) {
+                    event.data1 = ((ShortMessage) midiMessage).getData1();
+                    event.data2 = ((ShortMessage) midiMessage).getData2();
+                }
+
+                event.commit();
+            }
+        }
+
+        @Override
+        public void close() {
+            receiver.close();
+        }
+    }
+
+    public MidiRouter(SettingsService settingsService, Midi2LightingConvertService midi2LightingConvertService, LightingService lightingService, MidiDeviceOutService midiDeviceOutService, ActivityNotificationMidiService activityNotificationMidiService, MetricsService metricsService, MidiSource midiSource, List<MidiRouting> midiRoutingList) {
         this.settingsService = settingsService;
         this.midi2LightingConvertService = midi2LightingConvertService;
         this.lightingService = lightingService;
@@ -39,8 +91,16 @@ public class MidiRouter {
         this.activityNotificationMidiService = activityNotificationMidiService;
 
         // Create a receiver for each routing
-        for (MidiRouting midirouting : midiRoutingList) {
-            receiverList.put(midirouting, getReceiver(midirouting));
+        for (int i = 0; i < midiRoutingList.size(); i++) {
+            MidiRouting midiRouting = midiRoutingList.get(i);
+            Receiver receiver = getReceiver(midiRouting);
+
+            if (receiver != null) {
+                MetricsTimer timer = metricsService.getTimer("midi_routing_seconds", "Time to route a MIDI signal to its destination", "source", midiSource.name(), "routing", String.valueOf(i), "destination", midiRouting.getMidiDestination().name());
+                receiver = new TimedReceiver(receiver, timer, midiSource, i, midiRouting.getMidiDestination());
+            }
+
+            receiverList.put(midiRouting, receiver);
         }
     }
 
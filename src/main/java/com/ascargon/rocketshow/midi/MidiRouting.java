@@ -24,6 +24,18 @@ public class MidiRouting {
     // A list of remote device ids in case of destination type = REMOTE
     private List<String> remoteDeviceNameList = new ArrayList<>();
 
+    public MidiRouting() {
+    }
+
+    // Create a deep copy of a routing. The parent of the mapping is not copied, because it is set by the player.
+    // Missing parts (e.g. not contained in the snapshot or the JSON) stay missing.
+    public MidiRouting(MidiRouting midiRouting) {
+        this.midiDestination = midiRouting.midiDestination;
+        this.midiMapping = midiRouting.midiMapping == null ? null : new MidiMapping(midiRouting.midiMapping);
+        this.midi2LightingMapping = midiRouting.midi2LightingMapping == null ? null : new Midi2LightingMapping(midiRouting.midi2LightingMapping);
+        this.remoteDeviceNameList = midiRouting.remoteDeviceNameList == null ? null : new ArrayList<>(midiRouting.remoteDeviceNameList);
+    }
+
     public MidiDestination getMidiDestination() {
         return midiDestination;
     }
@@ -0,0 +1,32 @@
+package com.ascargon.rocketshow.midi;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event for routing a MIDI signal to a destination.
+ */
+@Name("rocketshow.MidiSignal")
+@Label("MIDI Signal")
+@Category({"Rocket Show", "MIDI"})
+@StackTrace(false)
+class MidiSignalEvent extends Event {
+
+    @Label("Source")
+    String source;
+
+    @Label("Routing")
+    int routing;
+
+    @Label("Destination")
+    String destination;
+
+    @Label("Status")
+    int status;
+
+    @Label("Data 1")
+    int data1;
+
+    @Label("Data 2")
+    int data2;
+
+}
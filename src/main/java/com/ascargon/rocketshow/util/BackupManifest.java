@@ -0,0 +1,60 @@
+package com.ascargon.rocketshow.util;
+
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementWrapper;
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The list of all backed up files with the hashes of their contents. An incremental backup only contains the files
+ * with a content unknown to its base backup, the other files are restored from the existing files.
+ */
+@XmlRootElement
+public class BackupManifest {
+
+    private String id;
+
+    // The id of the backup this incremental backup is based on or null for a full backup
+    private String baseId;
+
+    private long createdMillis;
+
+    private List<BackupManifestEntry> entryList = new ArrayList<>();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getBaseId() {
+        return baseId;
+    }
+
+    public void setBaseId(String baseId) {
+        this.baseId = baseId;
+    }
+
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    public void setCreatedMillis(long createdMillis) {
+        this.createdMillis = createdMillis;
+    }
+
+    @XmlElement(name = "file")
+    @XmlElementWrapper(name = "fileList")
+    public List<BackupManifestEntry> getEntryList() {
+        return entryList;
+    }
+
+    public void setEntryList(List<BackupManifestEntry> entryList) {
+        this.entryList = entryList;
+    }
+
+}
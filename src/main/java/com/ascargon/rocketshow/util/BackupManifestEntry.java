@@ -0,0 +1,67 @@
+package com.ascargon.rocketshow.util;
+
+import jakarta.xml.bind.annotation.XmlRootElement;
+
+/**
+ * A file in a backup. The size and the last modification are stored to detect changes without calculating the hash
+ * of the file again.
+ */
+@XmlRootElement
+public class BackupManifestEntry {
+
+    // The path relative to the base path, separated with slashes
+    private String path;
+    private long sizeBytes;
+    private long lastModifiedMillis;
+
+    // The SHA-256 hash of the content
+    private String hash;
+
+    // Whether the content is contained in the backup archive or has to be restored from an existing file
+    private boolean contained;
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public long getLastModifiedMillis() {
+        return lastModifiedMillis;
+    }
+
+    public void setLastModifiedMillis(long lastModifiedMillis) {
+        this.lastModifiedMillis = lastModifiedMillis;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public boolean isContained() {
+        return contained;
+    }
+
+    public void setContained(boolean contained) {
+        this.contained = contained;
+    }
+
+    public boolean matches(long sizeBytes, long lastModifiedMillis) {
+        return this.sizeBytes == sizeBytes && this.lastModifiedMillis == lastModifiedMillis;
+    }
+
+}
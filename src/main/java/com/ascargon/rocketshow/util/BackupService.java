@@ -2,18 +2,33 @@ package com.ascargon.rocketshow.util;
 
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 @Service
 public interface BackupService {
 
-    File create() throws Exception;
+    // Write the backup as a gzip compressed tar archive to the stream. An incremental backup only contains the
+    // files changed since the last backup. The id is chosen by the client to identify the state of the backup.
+    void create(OutputStream outputStream, boolean incremental, String id) throws Exception;
+
+    BackupState getState();
 
     void restoreInit() throws Exception;
 
     void restoreAddChunk(InputStream inputStream) throws Exception;
 
+    // Save a chunk at its offset. Returns true, if the backup file is complete.
+    boolean restoreAddChunk(InputStream inputStream, String uploadId, long offset, long totalSizeBytes, String checksum) throws Exception;
+
+    // Extract the uploaded backup to the staging directory without changing the backed up files
     void restoreFinish() throws Exception;
 
+    // Replace the backed up files with the staged backups. A full backup can be staged together with its incremental
+    // backups in any order.
+    void restoreApply() throws Exception;
+
+    // Discard the staged backups
+    void restoreCancel();
+
 }
@@ -0,0 +1,23 @@
+package com.ascargon.rocketshow.util;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The state of the last backup creation. The backup is downloaded by the browser directly, so the web app polls the
+ * state to show the progress and errors.
+ */
+@Getter
+@Setter
+public class BackupState {
+
+    // The id chosen by the client, which started the backup
+    private String id;
+
+    // Updated by the creating thread
+    private volatile boolean finished;
+
+    // The message of the error, which aborted the backup
+    private volatile String error;
+
+}
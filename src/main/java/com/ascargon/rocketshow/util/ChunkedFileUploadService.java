@@ -5,11 +5,19 @@ import org.springframework.stereotype.Service;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Path;
 
 @Service
 public interface ChunkedFileUploadService {
 
+    // Append a chunk to the file (for clients not sending the offset of the chunk)
     void handleChunk(InputStream inputStream, File file) throws IOException;
 
+    // Write a chunk at its offset into the file. Chunks may be retried or arrive out of order. Returns true, as
+    // soon as the whole file has been received (and the checksum, if provided, has been verified).
+    boolean handleChunk(InputStream inputStream, File file, String uploadId, long offset, long totalSizeBytes, String checksum) throws Exception;
+
+    // Get the state of an unfinished upload (to skip the received ranges when resuming it) or null, if the upload
+    // is not known. Clients use the same upload id for each attempt to upload a file.
+    UploadState getUploadState(String uploadId);
+
 }
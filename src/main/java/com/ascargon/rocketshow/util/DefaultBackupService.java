@@ -1,21 +1,34 @@
 package com.ascargon.rocketshow.util;
 
 import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.composition.LibraryWatcherService;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
 
 /**
- * Manages backups.
+ * Manages backups. Each backup contains a manifest with the hashes of all backed up files. An incremental backup
+ * only contains the files with a content unknown to the previous backup.
+ * <p>
+ * A restore extracts each uploaded backup into a staging directory first. A chain of a full backup and its
+ * incremental backups is applied at once: the newest backup defines the files and the contents it doesn't contain
+ * are taken from the other backups of the chain or existing files with the same hash. The backed up files are only
+ * replaced, if all backups have been read completely.
  *
  * @author Moritz A. Vieli
  */
@@ -26,24 +39,86 @@ public class DefaultBackupService implements BackupService {
 
     private final List<String> backedUpFileList = Arrays.asList("compositions", "designer", "fixtures", "media", "session.xml", "settings.xml");
 
+    private final static int COMPRESSION_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    // Tar file type bits of the mode
+    private final static int MODE_FILE = 0100000;
+    private final static int MODE_DIRECTORY = 040000;
+    private final static int MODE_SYMLINK = 0120000;
+
     private final SettingsService settingsService;
-    private final DiskSpaceService diskSpaceService;
     private final ChunkedFileUploadService chunkedFileUploadService;
-    private final RebootService rebootService;
+    private final JaxbService jaxbService;
+    private final LibraryWatcherService libraryWatcherService;
 
     private final static String BACKUP_FILE_NAME = "backup.tar.gz";
 
+    // The manifest of the last created or restored backup. It's contained in the archive with the same name.
+    private final static String MANIFEST_FILE_NAME = "backup-manifest.xml";
+
+    // Uploaded backups are extracted here before they replace the backed up files
+    private final static String RESTORE_STAGING_PATH = "restore-staging";
+
+    // The replaced files are moved here during the restore, to move them back on errors
+    private final static String PREVIOUS_PATH = "previous";
+
     private final File backupFile;
-    private final String workingDirectory;
 
-    public DefaultBackupService(SettingsService settingsService, DiskSpaceService diskSpaceService, ChunkedFileUploadService chunkedFileUploadService, RebootService rebootService) {
+    private volatile BackupState state = new BackupState();
+
+    private final ExecutorService compressionExecutor = Executors.newFixedThreadPool(COMPRESSION_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "backup-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // A file or directory to be backed up
+    private static class LocalFile {
+        private final Path path;
+        private final String name;
+        private final BasicFileAttributes attributes;
+
+        // Whether the file has been changed while it has been added to the archive
+        private boolean changed = false;
+
+        private LocalFile(Path path, String name, BasicFileAttributes attributes) {
+            this.path = path;
+            this.name = name;
+            this.attributes = attributes;
+        }
+    }
+
+    // An uploaded backup extracted to the staging directory
+    private static class StagedArchive {
+        private final Path path;
+
+        // Null for backups of older versions
+        private BackupManifest manifest;
+
+        // The hashes of the extracted files and the modes of the directories by their names
+        private final Map<String, String> hashMap = new HashMap<>();
+        private final Map<String, Integer> directoryModeMap = new LinkedHashMap<>();
+
+        private StagedArchive(Path path) {
+            this.path = path;
+        }
+    }
+
+    // The uploaded backups of the restore in progress
+    private final List<StagedArchive> stagedArchiveList = new ArrayList<>();
+
+    public DefaultBackupService(SettingsService settingsService, ChunkedFileUploadService chunkedFileUploadService, JaxbService jaxbService, LibraryWatcherService libraryWatcherService) {
         this.settingsService = settingsService;
-        this.diskSpaceService = diskSpaceService;
         this.chunkedFileUploadService = chunkedFileUploadService;
-        this.rebootService = rebootService;
+        this.jaxbService = jaxbService;
+        this.libraryWatcherService = libraryWatcherService;
 
         backupFile = new File(settingsService.getSettings().getBasePath() + BACKUP_FILE_NAME);
-        workingDirectory = new File(settingsService.getSettings().getBasePath()).getName();
+
+        // Remove the backups of a restore interrupted by a restart
+        deleteStaging();
     }
 
     private void deleteBackupFile() throws Exception {
@@ -56,31 +131,404 @@ public class DefaultBackupService implements BackupService {
         }
     }
 
+    private Path getBasePath() {
+        return Paths.get(settingsService.getSettings().getBasePath()).toAbsolutePath().normalize();
+    }
+
+    private File getManifestFile() {
+        return getBasePath().resolve(MANIFEST_FILE_NAME).toFile();
+    }
+
+    private BackupManifest loadManifest() {
+        File manifestFile = getManifestFile();
+
+        if (!manifestFile.exists()) {
+            return null;
+        }
+
+        try {
+            return jaxbService.unmarshal(BackupManifest.class, manifestFile);
+        } catch (Exception e) {
+            logger.error("Could not load the backup manifest", e);
+            return null;
+        }
+    }
+
+    private void saveManifest(BackupManifest manifest) {
+        try {
+            jaxbService.marshal(manifest, getManifestFile());
+        } catch (Exception e) {
+            logger.error("Could not save the backup manifest", e);
+        }
+    }
+
+    private Map<String, BackupManifestEntry> getEntryMap(BackupManifest manifest) {
+        Map<String, BackupManifestEntry> entryMap = new HashMap<>();
+
+        if (manifest != null) {
+            for (BackupManifestEntry entry : manifest.getEntryList()) {
+                entryMap.put(entry.getPath(), entry);
+            }
+        }
+
+        return entryMap;
+    }
+
+    private String getName(Path basePath, Path path) {
+        return basePath.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private BasicFileAttributes readAttributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system (e.g. Windows)
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    // Get all backed up files and directories. Directories are listed before their contents.
+    private List<LocalFile> getLocalFileList(Path basePath) throws IOException {
+        List<LocalFile> localFileList = new ArrayList<>();
+
+        for (String backedUpFile : backedUpFileList) {
+            Path path = basePath.resolve(backedUpFile);
+
+            if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                continue;
+            }
+
+            Files.walkFileTree(path, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                    localFileList.add(new LocalFile(directory, getName(basePath, directory), readAttributes(directory)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    BasicFileAttributes fileAttributes = readAttributes(file);
+
+                    // Skip sockets, devices, etc.
+                    if (fileAttributes.isRegularFile() || fileAttributes.isSymbolicLink()) {
+                        localFileList.add(new LocalFile(file, getName(basePath, file), fileAttributes));
+                    }
+
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        return localFileList;
+    }
+
+    private String getHash(Path path) throws Exception {
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            int length;
+
+            while ((length = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, length);
+            }
+        }
+
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    // Get the hash of the file from the last manifest, if the file has not been changed since
+    private String getCachedHash(LocalFile localFile, Map<String, BackupManifestEntry> cachedEntryMap) {
+        BackupManifestEntry cachedEntry = cachedEntryMap.get(localFile.name);
+
+        if (cachedEntry != null && cachedEntry.matches(localFile.attributes.size(), localFile.attributes.lastModifiedTime().toMillis())) {
+            return cachedEntry.getHash();
+        }
+
+        return null;
+    }
+
+    private String getHash(LocalFile localFile, Map<String, BackupManifestEntry> cachedEntryMap) throws Exception {
+        String hash = getCachedHash(localFile, cachedEntryMap);
+        return hash == null ? getHash(localFile.path) : hash;
+    }
+
+    private BackupManifestEntry createManifestEntry(LocalFile localFile, String hash, boolean contained) {
+        BackupManifestEntry entry = new BackupManifestEntry();
+
+        entry.setPath(localFile.name);
+        entry.setSizeBytes(localFile.attributes.size());
+
+        // Don't use the hash of a changed file as cache. It's calculated again and the file is contained in the next
+        // incremental backup.
+        entry.setLastModifiedMillis(localFile.changed ? -1 : localFile.attributes.lastModifiedTime().toMillis());
+        entry.setHash(hash);
+        entry.setContained(contained);
+
+        return entry;
+    }
+
+    private int getPermissionMode(java.util.Set<PosixFilePermission> permissionSet) {
+        int mode = 0;
+
+        // The permissions are ordered from the owner's read (0400) to the other's execute (01) permission
+        for (PosixFilePermission permission : permissionSet) {
+            mode |= 0400 >> permission.ordinal();
+        }
+
+        return mode;
+    }
+
+    private java.util.Set<PosixFilePermission> getPermissionSet(int mode) {
+        java.util.Set<PosixFilePermission> permissionSet = EnumSet.noneOf(PosixFilePermission.class);
+
+        for (PosixFilePermission permission : PosixFilePermission.values()) {
+            if ((mode & (0400 >> permission.ordinal())) != 0) {
+                permissionSet.add(permission);
+            }
+        }
+
+        return permissionSet;
+    }
+
+    private void setOwner(TarArchiveEntry entry, Path path) {
+        try {
+            // The numeric IDs are only available on unix systems
+            Map<String, Object> attributeMap = Files.readAttributes(path, "unix:uid,gid", LinkOption.NOFOLLOW_LINKS);
+            entry.setUserId(((Number) attributeMap.get("uid")).longValue());
+            entry.setGroupId(((Number) attributeMap.get("gid")).longValue());
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            // Keep the default IDs
+        }
+    }
+
+    private TarArchiveEntry createEntry(LocalFile localFile) throws IOException {
+        BasicFileAttributes attributes = localFile.attributes;
+        TarArchiveEntry entry;
+
+        if (attributes.isSymbolicLink()) {
+            entry = new TarArchiveEntry(localFile.name, TarConstants.LF_SYMLINK);
+            entry.setLinkName(Files.readSymbolicLink(localFile.path).toString());
+        } else if (attributes.isDirectory()) {
+            entry = new TarArchiveEntry(localFile.name + "/");
+        } else {
+            entry = new TarArchiveEntry(localFile.name);
+            entry.setSize(attributes.size());
+        }
+
+        entry.setModTime(attributes.lastModifiedTime().toMillis());
+
+        if (attributes instanceof PosixFileAttributes) {
+            // Preserve the permissions (e.g. execution rights of scripts) and the owner
+            PosixFileAttributes posixAttributes = (PosixFileAttributes) attributes;
+            int typeMode = attributes.isSymbolicLink() ? MODE_SYMLINK : attributes.isDirectory() ? MODE_DIRECTORY : MODE_FILE;
+
+            entry.setMode(typeMode | getPermissionMode(posixAttributes.permissions()));
+            entry.setUserName(posixAttributes.owner().getName());
+            entry.setGroupName(posixAttributes.group().getName());
+            setOwner(entry, localFile.path);
+        }
+
+        return entry;
+    }
+
+    // Read the attributes again, because the file might have been changed or deleted since the files have been
+    // listed. Returns null, if the file has been deleted.
+    private LocalFile refresh(LocalFile localFile) throws IOException {
+        try {
+            return new LocalFile(localFile.path, localFile.name, readAttributes(localFile.path));
+        } catch (NoSuchFileException e) {
+            logger.warn("Skip file '" + localFile.name + "', because it has been deleted during the backup");
+            return null;
+        }
+    }
+
+    // Add the file to the archive and return the hash of the added content. Exactly the size of the entry is added,
+    // also if the file is changed meanwhile. The file is only marked as changed in this case (like tar does), instead
+    // of aborting the whole backup.
+    private String addLocalFile(TarArchiveOutputStream tarOutputStream, LocalFile localFile) throws Exception {
+        tarOutputStream.putArchiveEntry(createEntry(localFile));
+
+        String hash = null;
+
+        if (localFile.attributes.isRegularFile()) {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remainingBytes = localFile.attributes.size();
+
+            try (InputStream inputStream = Files.newInputStream(localFile.path)) {
+                while (remainingBytes > 0) {
+                    int length = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remainingBytes));
+
+                    if (length == -1) {
+                        // The file has been truncated -> fill the entry
+                        length = (int) Math.min(buffer.length, remainingBytes);
+                        Arrays.fill(buffer, 0, length, (byte) 0);
+                        localFile.changed = true;
+                    }
+
+                    messageDigest.update(buffer, 0, length);
+                    tarOutputStream.write(buffer, 0, length);
+                    remainingBytes -= length;
+                }
+
+                if (inputStream.read() != -1) {
+                    // The file has been extended
+                    localFile.changed = true;
+                }
+            }
+
+            if (!localFile.changed) {
+                try {
+                    localFile.changed = !Files.getLastModifiedTime(localFile.path, LinkOption.NOFOLLOW_LINKS).equals(localFile.attributes.lastModifiedTime());
+                } catch (NoSuchFileException e) {
+                    localFile.changed = true;
+                }
+            }
+
+            if (localFile.changed) {
+                logger.warn("File '" + localFile.name + "' has been changed while it has been backed up");
+            }
+
+            hash = HexFormat.of().formatHex(messageDigest.digest());
+        }
+
+        tarOutputStream.closeArchiveEntry();
+
+        return hash;
+    }
+
+    private BackupManifest getHeader(BackupManifest manifest) {
+        BackupManifest header = new BackupManifest();
+
+        header.setId(manifest.getId());
+        header.setBaseId(manifest.getBaseId());
+        header.setCreatedMillis(manifest.getCreatedMillis());
+
+        return header;
+    }
+
+    private void addManifest(TarArchiveOutputStream tarOutputStream, BackupManifest manifest) throws Exception {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        jaxbService.marshal(manifest, byteArrayOutputStream);
+
+        TarArchiveEntry entry = new TarArchiveEntry(MANIFEST_FILE_NAME);
+        entry.setSize(byteArrayOutputStream.size());
+        entry.setModTime(manifest.getCreatedMillis());
+
+        tarOutputStream.putArchiveEntry(entry);
+        byteArrayOutputStream.writeTo(tarOutputStream);
+        tarOutputStream.closeArchiveEntry();
+    }
+
     @Override
-    public File create() throws Exception {
-        File backupFile = new File(settingsService.getSettings().getBasePath() + BACKUP_FILE_NAME);
+    public void create(OutputStream outputStream, boolean incremental, String id) throws Exception {
+        BackupState newState = new BackupState();
+        newState.setId(id);
+        state = newState;
 
-        deleteBackupFile();
+        try {
+            create(outputStream, incremental);
+        } catch (Exception e) {
+            newState.setError(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+            throw e;
+        } finally {
+            newState.setFinished(true);
+        }
+    }
+
+    @Override
+    public BackupState getState() {
+        return state;
+    }
+
+    private void create(OutputStream outputStream, boolean incremental) throws Exception {
+        Path basePath = getBasePath();
+        long startMillis = System.currentTimeMillis();
 
-        // check free disk space at least 50 % (because we use it for the backup file temporarily)
-        DiskSpace diskSpace = diskSpaceService.get();
+        BackupManifest lastManifest = loadManifest();
+        Map<String, BackupManifestEntry> cachedEntryMap = getEntryMap(lastManifest);
 
-        if (diskSpace.getUsedMB() > 0) {
-            // does not work on the mac e.g.
-            long usedDiskSpacePercentage = Math.round(100 * diskSpace.getUsedMB() / (diskSpace.getUsedMB() + diskSpace.getAvailableMB()));
-            if (usedDiskSpacePercentage > 50) {
-                throw new Exception("Not enough free disk space available on the device to create the backup (at least 50% required).");
+        if (incremental && lastManifest == null) {
+            logger.info("No previous backup available. Create a full backup instead of an incremental one.");
+            incremental = false;
+        }
+
+        logger.info("Create " + (incremental ? "incremental " : "") + "backup...");
+
+        BackupManifest manifest = new BackupManifest();
+        manifest.setId(UUID.randomUUID().toString());
+        manifest.setCreatedMillis(startMillis);
+
+        List<LocalFile> localFileList = getLocalFileList(basePath);
+        int containedFileCount = 0;
+
+        // Stream the tar archive directly to the client without a temporary file
+        // don't use zip, because the file permissions (e.g. execution rights) are not preserved
+        ParallelGzipOutputStream gzipOutputStream = new ParallelGzipOutputStream(new BufferedOutputStream(outputStream), compressionExecutor, COMPRESSION_THREADS);
+        TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(gzipOutputStream);
+        tarOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tarOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+        java.util.Set<String> lastHashSet = new HashSet<>();
+
+        if (incremental) {
+            manifest.setBaseId(lastManifest.getId());
+
+            for (BackupManifestEntry entry : lastManifest.getEntryList()) {
+                lastHashSet.add(entry.getHash());
             }
         }
 
-        // tar all backed up files
-        // don't use zip, because the file permissions (e.g. execution rights) are not preserved easily with java
-        ShellManager shellManager = new ShellManager(new String[]{"bash", "-c", "cd " + settingsService.getSettings().getBasePath() + " && tar -czpf " + BACKUP_FILE_NAME + " " + String.join(" ", backedUpFileList)});
-        shellManager.getProcess().waitFor();
-        shellManager.close();
+        try {
+            // The header identifies the backup before its files. The complete manifest is added last, because the
+            // hashes are calculated from the streamed contents.
+            addManifest(tarOutputStream, getHeader(manifest));
+
+            for (LocalFile listedFile : localFileList) {
+                LocalFile localFile = refresh(listedFile);
+
+                if (localFile == null) {
+                    continue;
+                }
+
+                if (!localFile.attributes.isRegularFile()) {
+                    // Directories and symlinks are always added, because they are tiny and define the complete
+                    // structure
+                    addLocalFile(tarOutputStream, localFile);
+                    continue;
+                }
+
+                if (incremental) {
+                    // Only add the contents unknown to the last backup
+                    String hash = getHash(localFile, cachedEntryMap);
+
+                    if (lastHashSet.contains(hash)) {
+                        manifest.getEntryList().add(createManifestEntry(localFile, hash, false));
+                        continue;
+                    }
+                }
+
+                String hash = addLocalFile(tarOutputStream, localFile);
+                manifest.getEntryList().add(createManifestEntry(localFile, hash, true));
+                containedFileCount++;
+            }
+
+            addManifest(tarOutputStream, manifest);
+
+            // Only finish the archive, if all files have been added. Otherwise, the client receives a truncated
+            // archive and does not mistake it for a complete one.
+            tarOutputStream.finish();
+            tarOutputStream.close();
+        } finally {
+            // Release the compression threads and buffers, if the backup failed (e.g. the client disconnected)
+            gzipOutputStream.abort();
+        }
+
+        // The next incremental backup is based on this one. It's only saved, if the archive has been sent completely.
+        saveManifest(manifest);
 
-        // Return the prepared zip
-        return backupFile;
+        logger.info("Backup with " + containedFileCount + " of " + manifest.getEntryList().size() + " files created in " + (System.currentTimeMillis() - startMillis) + " ms");
     }
 
     @Override
@@ -94,40 +542,429 @@ public class DefaultBackupService implements BackupService {
     }
 
     @Override
-    public void restoreFinish() throws Exception {
-        // automatic restore only works linux-based environments
+    public boolean restoreAddChunk(InputStream inputStream, String uploadId, long offset, long totalSizeBytes, String checksum) throws Exception {
+        return chunkedFileUploadService.handleChunk(inputStream, backupFile, uploadId, offset, totalSizeBytes, checksum);
+    }
+
+    private void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            return;
+        }
+
+        // Symlinks are deleted, but not followed
+        Files.walkFileTree(path, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException exception) throws IOException {
+                if (exception != null) {
+                    throw exception;
+                }
+
+                Files.delete(directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private Path getStagingPath() {
+        return getBasePath().resolve(RESTORE_STAGING_PATH);
+    }
+
+    // Get the path to restore a file to or null, if the file does not belong to the backed up files
+    private Path getRestorePath(Path rootPath, String name) {
+        Path path = rootPath.resolve(name).normalize();
+
+        if (!path.startsWith(rootPath) || path.equals(rootPath)) {
+            return null;
+        }
+
+        if (!backedUpFileList.contains(rootPath.relativize(path).getName(0).toString())) {
+            return null;
+        }
+
+        return path;
+    }
+
+    // Create the missing parent directories of the path. Existing parents must be directories and no symlinks.
+    // Otherwise, an archive could write anywhere through a symlink it contains itself.
+    private void createParentDirectories(Path rootPath, Path path) throws IOException {
+        Path parentPath = rootPath;
+
+        for (Path name : rootPath.relativize(path.getParent())) {
+            parentPath = parentPath.resolve(name);
+
+            if (Files.isSymbolicLink(parentPath)) {
+                throw new IOException("Could not restore file '" + rootPath.relativize(path) + "', because its parent is a symlink");
+            }
+
+            if (!Files.exists(parentPath, LinkOption.NOFOLLOW_LINKS)) {
+                Files.createDirectory(parentPath);
+            }
+        }
+
+        if (!path.getParent().toRealPath().startsWith(rootPath.toRealPath())) {
+            throw new IOException("Could not restore file '" + rootPath.relativize(path) + "' outside of the restored files");
+        }
+    }
+
+    // Whether the symlink target is relative and points to one of the backed up files
+    private boolean isSafeLinkTarget(Path rootPath, Path path, String linkName) {
+        Path target = Paths.get(linkName);
+
+        if (target.isAbsolute()) {
+            return false;
+        }
+
+        Path resolvedPath = path.getParent().resolve(target).normalize();
+        return resolvedPath.startsWith(rootPath) && getRestorePath(rootPath, rootPath.relativize(resolvedPath).toString()) != null;
+    }
+
+    private void restorePermissions(Path path, int mode) {
+        try {
+            Files.setPosixFilePermissions(path, getPermissionSet(mode));
+        } catch (UnsupportedOperationException | IOException e) {
+            // Not a POSIX file system
+        }
+    }
+
+    private void restoreOwner(Path path, TarArchiveEntry entry) {
+        PosixFileAttributeView attributeView = Files.getFileAttributeView(path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+
+        if (attributeView == null || entry.getUserName().isEmpty()) {
+            return;
+        }
+
+        try {
+            // Only works with the according privileges (like tar)
+            UserPrincipalLookupService lookupService = path.getFileSystem().getUserPrincipalLookupService();
+            attributeView.setOwner(lookupService.lookupPrincipalByName(entry.getUserName()));
+            attributeView.setGroup(lookupService.lookupPrincipalByGroupName(entry.getGroupName()));
+        } catch (UnsupportedOperationException | IOException e) {
+            // Keep the owner of the restoring process
+        }
+    }
+
+    // Extract the file and return its hash
+    private String extractFile(TarArchiveInputStream tarInputStream, Path path) throws Exception {
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+
+        try (OutputStream outputStream = new DigestOutputStream(Files.newOutputStream(path), messageDigest)) {
+            tarInputStream.transferTo(outputStream);
+        }
+
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    // Extract the entry into the staged archive. The permissions of directories are only restored, when the files
+    // are replaced, because read-only directories could not be filled otherwise.
+    private void extract(StagedArchive stagedArchive, TarArchiveEntry entry, TarArchiveInputStream tarInputStream) throws Exception {
+        Path rootPath = stagedArchive.path;
+        Path path = getRestorePath(rootPath, entry.getName());
+
+        if (path == null) {
+            logger.warn("Skip restoring file '" + entry.getName() + "', because it's not part of a backup");
+            return;
+        }
+
+        String name = getName(rootPath, path);
+
+        createParentDirectories(rootPath, path);
+
+        if (entry.isDirectory()) {
+            if (Files.isSymbolicLink(path)) {
+                throw new IOException("Could not restore directory '" + name + "', because it's a symlink");
+            }
+
+            Files.createDirectories(path);
+            stagedArchive.directoryModeMap.put(name, entry.getMode());
+        } else if (entry.isSymbolicLink()) {
+            if (!isSafeLinkTarget(rootPath, path, entry.getLinkName())) {
+                logger.warn("Skip restoring symlink '" + name + "' to '" + entry.getLinkName() + "', because it points outside of the backed up files");
+                return;
+            }
+
+            deleteRecursively(path);
+            Files.createSymbolicLink(path, Paths.get(entry.getLinkName()));
+        } else if (entry.isFile()) {
+            deleteRecursively(path);
+            stagedArchive.hashMap.put(name, extractFile(tarInputStream, path));
+            Files.setLastModifiedTime(path, FileTime.fromMillis(entry.getModTime().getTime()));
+            restorePermissions(path, entry.getMode());
+        } else {
+            logger.warn("Skip restoring file '" + name + "' of an unsupported type");
+            return;
+        }
+
+        restoreOwner(path, entry);
+    }
+
+    private BackupManifest readManifest(TarArchiveInputStream tarInputStream) throws Exception {
+        // Don't let the XML parser close the archive stream
+        return jaxbService.unmarshal(BackupManifest.class, new ByteArrayInputStream(tarInputStream.readAllBytes()));
+    }
+
+    // Extract the archive into a new directory in the staging directory. The existing files are not changed.
+    private StagedArchive stage(File archiveFile) throws Exception {
+        Path stagingPath = getStagingPath();
+        StagedArchive stagedArchive = new StagedArchive(stagingPath.resolve(String.valueOf(stagedArchiveList.size())));
+
+        deleteRecursively(stagedArchive.path);
+        Files.createDirectories(stagedArchive.path);
+
+        try (TarArchiveInputStream tarInputStream = new TarArchiveInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(archiveFile)), BUFFER_SIZE))) {
+            TarArchiveEntry entry;
+
+            while ((entry = tarInputStream.getNextTarEntry()) != null) {
+                if (MANIFEST_FILE_NAME.equals(entry.getName())) {
+                    // The header at the start is replaced by the complete manifest at the end
+                    stagedArchive.manifest = readManifest(tarInputStream);
+                } else {
+                    extract(stagedArchive, entry, tarInputStream);
+                }
+            }
+
+            if (stagedArchive.manifest != null) {
+                // Check the contents, to not restore a corrupt backup
+                for (BackupManifestEntry manifestEntry : stagedArchive.manifest.getEntryList()) {
+                    if (manifestEntry.isContained() && !manifestEntry.getHash().equals(stagedArchive.hashMap.get(manifestEntry.getPath()))) {
+                        throw new Exception("The content of file '" + manifestEntry.getPath() + "' in the backup is corrupt");
+                    }
+                }
+            }
+        } catch (Exception e) {
+            deleteRecursively(stagedArchive.path);
+            throw e;
+        }
+
+        return stagedArchive;
+    }
+
+    private long getCreatedMillis(StagedArchive stagedArchive) {
+        // Backups of older versions don't have a manifest and are always full backups
+        return stagedArchive.manifest == null ? Long.MIN_VALUE : stagedArchive.manifest.getCreatedMillis();
+    }
+
+    // Get the paths of all available contents by their hashes
+    private Map<String, Path> getContentPathMap(boolean includeLocalFiles) throws Exception {
+        Map<String, Path> contentPathMap = new HashMap<>();
+
+        for (StagedArchive stagedArchive : stagedArchiveList) {
+            for (Map.Entry<String, String> hashEntry : stagedArchive.hashMap.entrySet()) {
+                contentPathMap.putIfAbsent(hashEntry.getValue(), stagedArchive.path.resolve(hashEntry.getKey()));
+            }
+        }
+
+        if (includeLocalFiles) {
+            Path basePath = getBasePath();
+            Map<String, BackupManifestEntry> cachedEntryMap = getEntryMap(loadManifest());
+
+            for (LocalFile localFile : getLocalFileList(basePath)) {
+                if (localFile.attributes.isRegularFile()) {
+                    contentPathMap.putIfAbsent(getHash(localFile, cachedEntryMap), localFile.path);
+                }
+            }
+        }
+
+        return contentPathMap;
+    }
+
+    // Hard link the content, which doesn't need any space. Copy it, if the file system doesn't support hard links.
+    private void linkOrCopy(Path sourcePath, Path targetPath) throws IOException {
+        try {
+            Files.createLink(targetPath, sourcePath);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(sourcePath, targetPath, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    // Add the contents not contained in an incremental backup. They are taken from the other uploaded backups of the
+    // chain or the existing files with the same content. Fails without changing any existing file, if a content is
+    // not available.
+    private void addMissingContents(StagedArchive stagedArchive) throws Exception {
+        List<BackupManifestEntry> missingEntryList = new ArrayList<>();
+
+        for (BackupManifestEntry entry : stagedArchive.manifest.getEntryList()) {
+            if (!entry.isContained()) {
+                missingEntryList.add(entry);
+            }
+        }
+
+        if (missingEntryList.isEmpty()) {
+            return;
+        }
+
+        Map<String, Path> contentPathMap = getContentPathMap(false);
+
+        for (BackupManifestEntry entry : missingEntryList) {
+            if (!contentPathMap.containsKey(entry.getHash())) {
+                // Only hash the existing files, if required
+                contentPathMap = getContentPathMap(true);
+                break;
+            }
+        }
+
+        for (BackupManifestEntry entry : missingEntryList) {
+            if (!contentPathMap.containsKey(entry.getHash())) {
+                throw new Exception("The content of file '" + entry.getPath() + "' is not available. Restore the backup '" + stagedArchive.manifest.getBaseId() + "' together with this incremental backup.");
+            }
+        }
+
+        for (BackupManifestEntry entry : missingEntryList) {
+            Path path = getRestorePath(stagedArchive.path, entry.getPath());
+
+            if (path == null) {
+                logger.warn("Skip restoring file '" + entry.getPath() + "', because it's not part of a backup");
+                continue;
+            }
+
+            createParentDirectories(stagedArchive.path, path);
+            deleteRecursively(path);
+
+            // The modification time is shared with a hard linked existing file. It has the same content anyway.
+            linkOrCopy(contentPathMap.get(entry.getHash()), path);
+            Files.setLastModifiedTime(path, FileTime.fromMillis(entry.getLastModifiedMillis()));
+        }
+    }
+
+    // Replace the backed up files with the staged ones. The existing files are moved away first, to be able to move
+    // them back, if a file could not be replaced.
+    private void replaceBackedUpFiles(Path basePath, StagedArchive stagedArchive) throws IOException {
+        Path previousPath = getStagingPath().resolve(PREVIOUS_PATH);
+        List<String> replacedFileList = new ArrayList<>();
+
+        deleteRecursively(previousPath);
+        Files.createDirectories(previousPath);
+
+        try {
+            for (String backedUpFile : backedUpFileList) {
+                Path path = basePath.resolve(backedUpFile);
+                Path restoredPath = stagedArchive.path.resolve(backedUpFile);
+
+                if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.move(path, previousPath.resolve(backedUpFile));
+                }
+
+                replacedFileList.add(backedUpFile);
+
+                if (Files.exists(restoredPath, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.move(restoredPath, path);
+                }
+            }
+        } catch (IOException e) {
+            for (String backedUpFile : replacedFileList) {
+                Path path = basePath.resolve(backedUpFile);
+                Path existingPath = previousPath.resolve(backedUpFile);
+
+                deleteRecursively(path);
+
+                if (Files.exists(existingPath, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.move(existingPath, path);
+                }
+            }
+
+            throw e;
+        }
+
+        for (Map.Entry<String, Integer> directoryModeEntry : stagedArchive.directoryModeMap.entrySet()) {
+            restorePermissions(basePath.resolve(directoryModeEntry.getKey()), directoryModeEntry.getValue());
+        }
+    }
+
+    // Update the size and modification of the restored files, to use the manifest as hash cache
+    private BackupManifest getRestoredManifest(Path basePath, BackupManifest manifest) throws IOException {
+        List<BackupManifestEntry> entryList = new ArrayList<>();
+
+        for (BackupManifestEntry entry : manifest.getEntryList()) {
+            Path path = basePath.resolve(entry.getPath());
+
+            if (Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                entry.setSizeBytes(attributes.size());
+                entry.setLastModifiedMillis(attributes.lastModifiedTime().toMillis());
+                entryList.add(entry);
+            }
+        }
+
+        manifest.setEntryList(entryList);
+
+        return manifest;
+    }
+
+    private void deleteStaging() {
+        stagedArchiveList.clear();
+
+        try {
+            deleteRecursively(getStagingPath());
+        } catch (IOException e) {
+            logger.error("Could not delete the restore staging directory", e);
+        }
+    }
+
+    @Override
+    public synchronized void restoreFinish() throws Exception {
+        long startMillis = System.currentTimeMillis();
+
+        try {
+            StagedArchive stagedArchive = stage(backupFile);
+            stagedArchiveList.add(stagedArchive);
+
+            logger.info("Backup with " + stagedArchive.hashMap.size() + " files staged for the restore in " + (System.currentTimeMillis() - startMillis) + " ms");
+        } finally {
+            deleteBackupFile();
+        }
+    }
+
+    @Override
+    public synchronized void restoreApply() throws Exception {
+        if (stagedArchiveList.isEmpty()) {
+            throw new Exception("No backup has been uploaded");
+        }
+
         logger.info("Start restoring backup...");
 
-        // run async
-        Runnable task = () -> {
-            ShellManager shellManager;
+        Path basePath = getBasePath();
+        long startMillis = System.currentTimeMillis();
 
-            try {
-                // delete all backed up files/directories in the basepath
-                shellManager = new ShellManager(new String[]{"bash", "-c", "rm -rf " + String.join(" ", backedUpFileList)});
-                shellManager.getProcess().waitFor();
-                shellManager.close();
+        // The newest backup of the chain defines all files. The uploaded backups may be in any order.
+        StagedArchive newestArchive = Collections.max(stagedArchiveList, Comparator.comparingLong(this::getCreatedMillis));
 
-                // unpack the backup-file
-                shellManager = new ShellManager(new String[]{"tar", "-xzpf", settingsService.getSettings().getBasePath() + BACKUP_FILE_NAME});
-                shellManager.getProcess().waitFor();
-                shellManager.close();
+        // Don't reload each restored file. The device is rebooted after the restore anyway.
+        libraryWatcherService.stop();
 
-                // delete the backup file
-                shellManager = new ShellManager(new String[]{"rm", "-rf", settingsService.getSettings().getBasePath() + BACKUP_FILE_NAME});
-                shellManager.getProcess().waitFor();
-                shellManager.close();
+        try {
+            if (newestArchive.manifest != null) {
+                addMissingContents(newestArchive);
+            }
 
-                logger.info("Backup has been restored. Reboot...");
+            replaceBackedUpFiles(basePath, newestArchive);
 
-                rebootService.reboot();
-            } catch (Exception e) {
-                logger.error("Could not restore backup", e);
+            if (newestArchive.manifest == null) {
+                // The backup has been created by an older version. The next backup has to be a full one.
+                Files.deleteIfExists(getManifestFile().toPath());
+            } else {
+                saveManifest(getRestoredManifest(basePath, newestArchive.manifest));
             }
-        };
 
-        Thread thread = new Thread(task);
-        thread.start();
+            logger.info("Chain of " + stagedArchiveList.size() + " backups restored in " + (System.currentTimeMillis() - startMillis) + " ms");
+        } finally {
+            deleteStaging();
+            libraryWatcherService.start();
+        }
+    }
+
+    @Override
+    public synchronized void restoreCancel() {
+        deleteStaging();
+    }
+
+    @PreDestroy
+    public void close() {
+        compressionExecutor.shutdownNow();
     }
 
 }
@@ -1,28 +1,211 @@
 package com.ascargon.rocketshow.util;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import java.io.InputStream;
-import java.nio.file.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class DefaultChunkedFileUploadService implements ChunkedFileUploadService {
 
+    private final static Logger logger = LoggerFactory.getLogger(DefaultChunkedFileUploadService.class);
+
+    private final static int BUFFER_SIZE = 256 * 1024;
+
+    // The amount of direct buffers kept for reuse. Uploads are sent one by one, so a few buffers are enough.
+    private final static int BUFFER_POOL_SIZE = 4;
+
+    // Forget about uploads not continued for this time
+    private final static long UPLOAD_EXPIRY_MILLIS = 24 * 60 * 60 * 1000;
+
+    private final Map<String, UploadState> uploadStateMap = new ConcurrentHashMap<>();
+
+    // Direct buffers returned by finished requests. Requests finding the pool empty use a heap buffer.
+    private final BlockingQueue<ByteBuffer> bufferPool = new ArrayBlockingQueue<>(BUFFER_POOL_SIZE);
+
+    public DefaultChunkedFileUploadService() {
+        for (int i = 0; i < BUFFER_POOL_SIZE; i++) {
+            bufferPool.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        }
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer byteBuffer = bufferPool.poll();
+
+        if (byteBuffer == null) {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+
+        return byteBuffer;
+    }
+
+    private void releaseBuffer(ByteBuffer byteBuffer) {
+        if (byteBuffer.isDirect()) {
+            byteBuffer.clear();
+            bufferPool.offer(byteBuffer);
+        }
+    }
+
     public void handleChunk(InputStream inputStream, File file) throws IOException {
-        // Check if the file exists, if not, create it
-        if (!file.exists()) {
-            file.createNewFile();
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            write(inputStream, fileChannel, fileChannel.size(), Long.MAX_VALUE);
+        }
+    }
+
+    // Write the stream at the position into the channel and return the written bytes. Throws without writing
+    // anything beyond, if the stream is longer than the maximum bytes.
+    long write(InputStream inputStream, FileChannel fileChannel, long position, long maxBytes) throws IOException {
+        ReadableByteChannel inputChannel = Channels.newChannel(inputStream);
+        ByteBuffer byteBuffer = acquireBuffer();
+        long writtenBytes = 0;
+
+        try {
+            while (true) {
+                // Read one byte more than allowed, to detect a stream exceeding the maximum
+                byteBuffer.clear();
+                byteBuffer.limit((int) Math.min(byteBuffer.capacity() - 1, maxBytes - writtenBytes) + 1);
+
+                if (inputChannel.read(byteBuffer) == -1) {
+                    break;
+                }
+
+                byteBuffer.flip();
+
+                if (byteBuffer.remaining() > maxBytes - writtenBytes) {
+                    throw new IOException("The chunk exceeds the maximum of " + maxBytes + " bytes");
+                }
+
+                while (byteBuffer.hasRemaining()) {
+                    writtenBytes += fileChannel.write(byteBuffer, position + writtenBytes);
+                }
+            }
+        } finally {
+            releaseBuffer(byteBuffer);
+        }
+
+        return writtenBytes;
+    }
+
+    private String getChecksum(File file) throws Exception {
+        MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+        ByteBuffer byteBuffer = acquireBuffer();
+
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (fileChannel.read(byteBuffer) != -1) {
+                byteBuffer.flip();
+                messageDigest.update(byteBuffer);
+                byteBuffer.clear();
+            }
+        } finally {
+            releaseBuffer(byteBuffer);
+        }
+
+        return HexFormat.of().formatHex(messageDigest.digest());
+    }
+
+    // An upload can be continued, if the chunks go to the same file and the received bytes are still there
+    private boolean isResumable(UploadState uploadState, File file) {
+        return uploadState.getFile().equals(file) && file.length() >= uploadState.getReceivedEndBytes();
+    }
+
+    private void removeExpiredUploads() {
+        long nowMillis = System.currentTimeMillis();
+
+        uploadStateMap.values().removeIf(uploadState -> nowMillis - uploadState.getLastUpdateMillis() > UPLOAD_EXPIRY_MILLIS);
+    }
+
+    @Override
+    public boolean handleChunk(InputStream inputStream, File file, String uploadId, long offset, long totalSizeBytes, String checksum) throws Exception {
+        if (totalSizeBytes < 0 || offset < 0 || offset > totalSizeBytes) {
+            throw new Exception("Invalid offset " + offset + " of upload '" + uploadId + "' with " + totalSizeBytes + " bytes");
         }
 
-        // Open the file in append mode
-        try (FileOutputStream fos = new FileOutputStream(file, true)) {
-            byte[] buffer = new byte[1024];
-            int length;
-            while ((length = inputStream.read(buffer)) != -1) {
-                fos.write(buffer, 0, length);
+        UploadState uploadState;
+
+        synchronized (uploadStateMap) {
+            uploadState = uploadStateMap.get(uploadId);
+
+            if (uploadState != null && !isResumable(uploadState, file)) {
+                logger.info("Upload '" + uploadId + "' can't be resumed. Start again.");
+                uploadStateMap.remove(uploadId);
+                uploadState = null;
+            }
+
+            if (uploadState == null) {
+                removeExpiredUploads();
+
+                // A new upload -> start with an empty file. Other uploads to the file can't be resumed anymore.
+                uploadStateMap.values().removeIf(otherUploadState -> otherUploadState.getFile().equals(file));
+
+                if (file.exists() && !file.delete()) {
+                    throw new Exception("Could not delete file '" + file.getPath() + "'");
+                }
+
+                uploadState = new UploadState(uploadId, totalSizeBytes, file);
+                uploadStateMap.put(uploadId, uploadState);
             }
         }
+
+        if (totalSizeBytes != uploadState.getTotalSizeBytes()) {
+            throw new Exception("The total size of upload '" + uploadId + "' has changed");
+        }
+
+        if (checksum != null && !checksum.isEmpty()) {
+            uploadState.setChecksum(checksum.toLowerCase());
+        }
+
+        long writtenBytes;
+
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Never write beyond the total size
+            writtenBytes = write(inputStream, fileChannel, offset, totalSizeBytes - offset);
+        }
+
+        uploadState.addRange(offset, offset + writtenBytes);
+
+        // Only one of several concurrent final chunks finishes the upload
+        if (!uploadState.isComplete() || !uploadStateMap.remove(uploadId, uploadState)) {
+            return false;
+        }
+
+        if (uploadState.getChecksum() != null) {
+            String fileChecksum = getChecksum(file);
+
+            if (!fileChecksum.equals(uploadState.getChecksum())) {
+                if (!file.delete()) {
+                    logger.error("Could not delete the corrupt file '" + file.getPath() + "'");
+                }
+
+                throw new Exception("Checksum of file '" + file.getName() + "' does not match. Expected " + uploadState.getChecksum() + ", got " + fileChecksum);
+            }
+        }
+
+        logger.info("Upload of file '" + file.getName() + "' (" + totalSizeBytes + " bytes) finished");
+
+        return true;
+    }
+
+    @Override
+    public UploadState getUploadState(String uploadId) {
+        UploadState uploadState = uploadStateMap.get(uploadId);
+
+        if (uploadState == null || !isResumable(uploadState, uploadState.getFile())) {
+            return null;
+        }
+
+        return uploadState;
     }
 
 }
@@ -0,0 +1,256 @@
+package com.ascargon.rocketshow.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Send files to the client without copying them through the heap. If the connector supports it, the file is handed
+ * over to Tomcat, which sends it with sendfile after the request has been processed. Otherwise, the file channel
+ * transfers the requested range to the response.
+ */
+@Service
+public class DefaultFileDownloadService implements FileDownloadService {
+
+    private final static Logger logger = LoggerFactory.getLogger(DefaultFileDownloadService.class);
+
+    // Request attributes of Tomcat to send a file with sendfile (see Tomcat's DefaultServlet)
+    private final static String SENDFILE_SUPPORTED_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private final static String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private final static String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private final static String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    // Small files are written directly, because sendfile needs an additional poller round trip
+    private final static long SENDFILE_MIN_SIZE_BYTES = 48 * 1024;
+
+    // A single range of bytes, both positions are inclusive
+    private static class ByteRange {
+        private final long start;
+        private final long end;
+
+        private ByteRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private long getLength() {
+            return end - start + 1;
+        }
+    }
+
+    private String getETag(File file) {
+        return "\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()) + "\"";
+    }
+
+    private long getDateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            // Not a valid date -> ignore the header
+            return -1;
+        }
+    }
+
+    private boolean matchesETag(String header, String eTag) {
+        for (String value : header.split(",")) {
+            value = value.trim();
+
+            // Weak comparison is fine for If-None-Match
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String eTag, long lastModifiedMillis) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+        if (ifNoneMatch != null) {
+            // If-Modified-Since is ignored, when If-None-Match is present
+            return matchesETag(ifNoneMatch, eTag);
+        }
+
+        long ifModifiedSince = getDateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+
+        // HTTP dates have a precision of seconds
+        return ifModifiedSince != -1 && lastModifiedMillis / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private boolean isRangeValid(HttpServletRequest request, String eTag, long lastModifiedMillis) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+
+        if (ifRange == null) {
+            return true;
+        }
+
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Weak tags never match If-Range
+            return ifRange.equals(eTag);
+        }
+
+        long ifRangeMillis = getDateHeader(request, HttpHeaders.IF_RANGE);
+        return ifRangeMillis != -1 && lastModifiedMillis / 1000 == ifRangeMillis / 1000;
+    }
+
+    // Parse the range header. Returns null, if the whole file should be sent. Multiple ranges are not supported and
+    // the whole file is sent instead, which is allowed by RFC 7233. Throws an IllegalStateException, if the range
+    // cannot be satisfied.
+    private ByteRange parseRange(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.contains(",")) {
+            return null;
+        }
+
+        String range = header.substring("bytes=".length()).trim();
+        int separatorIndex = range.indexOf('-');
+
+        if (separatorIndex < 0) {
+            return null;
+        }
+
+        try {
+            String startValue = range.substring(0, separatorIndex).trim();
+            String endValue = range.substring(separatorIndex + 1).trim();
+
+            if (startValue.isEmpty()) {
+                // A suffix range (e.g. the last 500 bytes)
+                long suffixLength = Long.parseLong(endValue);
+
+                if (suffixLength <= 0 || length == 0) {
+                    throw new IllegalStateException();
+                }
+
+                return new ByteRange(Math.max(0, length - suffixLength), length - 1);
+            }
+
+            long start = Long.parseLong(startValue);
+            long end = length - 1;
+
+            if (!endValue.isEmpty()) {
+                long requestedEnd = Long.parseLong(endValue);
+
+                if (requestedEnd < start) {
+                    // Syntactically invalid -> ignore the header
+                    return null;
+                }
+
+                end = Math.min(requestedEnd, end);
+            }
+
+            if (start >= length) {
+                throw new IllegalStateException();
+            }
+
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void transfer(File file, ByteRange range, HttpServletResponse response) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel outputChannel = Channels.newChannel(response.getOutputStream());
+
+            long position = range.start;
+            long remaining = range.getLength();
+
+            while (remaining > 0) {
+                long transferred = fileChannel.transferTo(position, remaining, outputChannel);
+
+                if (transferred <= 0) {
+                    // The file has been truncated in the meantime
+                    break;
+                }
+
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    private void send(File file, ByteRange range, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(range.getLength());
+
+        if ("HEAD".equals(request.getMethod()) || range.getLength() == 0) {
+            return;
+        }
+
+        if (range.getLength() >= SENDFILE_MIN_SIZE_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTRIBUTE))) {
+            // Tomcat sends the file, after the request has been processed
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, range.start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, range.end + 1);
+            return;
+        }
+
+        transfer(file, range, response);
+    }
+
+    @Override
+    public void sendFile(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!file.isFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = file.length();
+        long lastModifiedMillis = file.lastModified();
+        String eTag = getETag(file);
+
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModifiedMillis);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Files may be replaced at any time -> let the browser revalidate its cache on each request
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+
+        if (isNotModified(request, eTag, lastModifiedMillis)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(file.getName()).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        ByteRange range = null;
+
+        if (isRangeValid(request, eTag, lastModifiedMillis)) {
+            try {
+                range = parseRange(request.getHeader(HttpHeaders.RANGE), length);
+            } catch (IllegalStateException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+        }
+
+        if (range == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            send(file, new ByteRange(0, length - 1), request, response);
+            return;
+        }
+
+        logger.trace("Send range " + range.start + "-" + range.end + " of file '" + file.getPath() + "'");
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start + "-" + range.end + "/" + length);
+        send(file, range, request, response);
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.ascargon.rocketshow.util;
+
+import com.ascargon.rocketshow.SettingsService;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+
+/**
+ * Run the flight recording with the low-overhead default profile of the JDK. The recording is kept on disk in a
+ * ring buffer, limited by the configured age and a maximum size.
+ */
+@Service
+public class DefaultFlightRecorderService implements FlightRecorderService {
+
+    private final static Logger logger = LoggerFactory.getLogger(DefaultFlightRecorderService.class);
+
+    private final static long MAX_SIZE_BYTES = 100 * 1024 * 1024;
+
+    private final SettingsService settingsService;
+
+    private Recording recording;
+
+    // Started by the settings, not manually. A manual recording is not stopped by saving the settings.
+    private boolean continuous;
+
+    public DefaultFlightRecorderService(SettingsService settingsService) {
+        this.settingsService = settingsService;
+
+        try {
+            updateSettings();
+        } catch (Exception e) {
+            logger.error("Could not start the flight recording", e);
+        }
+    }
+
+    private File getFile() {
+        return new File(settingsService.getSettings().getBasePath() + RECORDING_FILE_NAME);
+    }
+
+    @Override
+    public synchronized void start() throws Exception {
+        if (recording != null) {
+            return;
+        }
+
+        Recording newRecording = new Recording(Configuration.getConfiguration("default"));
+        newRecording.setName("Rocket Show");
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(Duration.ofMinutes(settingsService.getSettings().getFlightRecorderMaxAgeMinutes()));
+        newRecording.setMaxSize(MAX_SIZE_BYTES);
+        newRecording.start();
+
+        recording = newRecording;
+
+        logger.info("Flight recording started");
+    }
+
+    @Override
+    public synchronized void stop() throws Exception {
+        if (recording == null) {
+            return;
+        }
+
+        try {
+            recording.dump(getFile().toPath());
+        } finally {
+            recording.close();
+            recording = null;
+            continuous = false;
+        }
+
+        logger.info("Flight recording stopped");
+    }
+
+    @Override
+    public synchronized FlightRecording getFlightRecording() {
+        FlightRecording flightRecording = new FlightRecording();
+        flightRecording.setRecording(recording != null);
+        flightRecording.setAvailable(recording != null || getFile().exists());
+        flightRecording.setMaxAgeMinutes(settingsService.getSettings().getFlightRecorderMaxAgeMinutes());
+
+        if (recording != null && recording.getStartTime() != null) {
+            flightRecording.setStartMillis(recording.getStartTime().toEpochMilli());
+        }
+
+        return flightRecording;
+    }
+
+    @Override
+    public synchronized File createRecordingFile() throws Exception {
+        File file = getFile();
+
+        if (recording == null && !file.exists()) {
+            throw new Exception("No flight recording available");
+        }
+
+        // A separate file for each download, which is not overwritten by another download or by stopping the
+        // recording while it's being sent
+        Path recordingPath = Files.createTempFile(Path.of(settingsService.getSettings().getBasePath()), "flight-recording-", ".jfr");
+
+        try {
+            if (recording != null) {
+                recording.dump(recordingPath);
+            } else {
+                Files.copy(file.toPath(), recordingPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (Exception e) {
+            Files.deleteIfExists(recordingPath);
+            throw e;
+        }
+
+        return recordingPath.toFile();
+    }
+
+    @Override
+    public synchronized void updateSettings() throws Exception {
+        if (settingsService.getSettings().getEnableFlightRecorder()) {
+            // Apply a changed maximum age
+            if (recording != null) {
+                recording.setMaxAge(Duration.ofMinutes(settingsService.getSettings().getFlightRecorderMaxAgeMinutes()));
+            }
+
+            start();
+            continuous = true;
+        } else if (continuous) {
+            stop();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+}
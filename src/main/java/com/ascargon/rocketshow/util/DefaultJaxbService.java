@@ -0,0 +1,158 @@
+package com.ascargon.rocketshow.util;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import org.springframework.stereotype.Service;
+
+import javax.xml.transform.Source;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Creating a JAXB context is expensive, but a context is thread-safe and can be shared. Marshallers and
+ * unmarshallers are cheap compared to it, but not thread-safe. They are pooled per type to be reused.
+ */
+@Service
+public class DefaultJaxbService implements JaxbService {
+
+    // The maximum amount of idle (un)marshallers kept per type
+    private final static int MAX_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final Map<Class<?>, JAXBContext> contextMap = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Queue<Unmarshaller>> unmarshallerPoolMap = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Queue<Marshaller>> marshallerPoolMap = new ConcurrentHashMap<>();
+
+    private final MetricsService metricsService;
+
+    public DefaultJaxbService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+    }
+
+    private MetricsTimer getUnmarshalTimer(Class<?> type) {
+        return metricsService.getTimer("jaxb_unmarshal_seconds", "Time to load an XML file", "type", type.getSimpleName());
+    }
+
+    @Override
+    public JAXBContext getContext(Class<?> type) throws JAXBException {
+        JAXBContext context = contextMap.get(type);
+
+        if (context == null) {
+            // Don't create the context inside computeIfAbsent to be able to throw the checked exception.
+            // Creating it twice in a race is harmless.
+            context = JAXBContext.newInstance(type);
+
+            JAXBContext existingContext = contextMap.putIfAbsent(type, context);
+            if (existingContext != null) {
+                context = existingContext;
+            }
+        }
+
+        return context;
+    }
+
+    private Unmarshaller borrowUnmarshaller(Class<?> type) throws JAXBException {
+        Unmarshaller unmarshaller = unmarshallerPoolMap.computeIfAbsent(type, key -> new ConcurrentLinkedQueue<>()).poll();
+
+        if (unmarshaller == null) {
+            unmarshaller = getContext(type).createUnmarshaller();
+        }
+
+        return unmarshaller;
+    }
+
+    private Marshaller borrowMarshaller(Class<?> type) throws JAXBException {
+        Marshaller marshaller = marshallerPoolMap.computeIfAbsent(type, key -> new ConcurrentLinkedQueue<>()).poll();
+
+        if (marshaller == null) {
+            marshaller = getContext(type).createMarshaller();
+
+            // output pretty printed
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        }
+
+        return marshaller;
+    }
+
+    private <T> void release(Map<Class<?>, Queue<T>> poolMap, Class<?> type, T object) {
+        Queue<T> pool = poolMap.get(type);
+
+        // The size is only a rough limit, because it is not checked atomically
+        if (pool.size() < MAX_POOL_SIZE) {
+            pool.offer(object);
+        }
+    }
+
+    @Override
+    public <T> T unmarshal(Class<T> type, File file) throws JAXBException {
+        MetricsTimer timer = getUnmarshalTimer(type);
+        long startNanos = timer.start();
+        Unmarshaller unmarshaller = borrowUnmarshaller(type);
+
+        try {
+            return type.cast(unmarshaller.unmarshal(file));
+        } finally {
+            release(unmarshallerPoolMap, type, unmarshaller);
+            timer.stop(startNanos);
+        }
+    }
+
+    @Override
+    public <T> T unmarshal(Class<T> type, InputStream inputStream) throws JAXBException {
+        MetricsTimer timer = getUnmarshalTimer(type);
+        long startNanos = timer.start();
+        Unmarshaller unmarshaller = borrowUnmarshaller(type);
+
+        try {
+            return type.cast(unmarshaller.unmarshal(inputStream));
+        } finally {
+            release(unmarshallerPoolMap, type, unmarshaller);
+            timer.stop(startNanos);
+        }
+    }
+
+    @Override
+    public <T> T unmarshal(Class<T> type, Source source) throws JAXBException {
+        MetricsTimer timer = getUnmarshalTimer(type);
+        long startNanos = timer.start();
+        Unmarshaller unmarshaller = borrowUnmarshaller(type);
+
+        try {
+            return type.cast(unmarshaller.unmarshal(source));
+        } finally {
+            release(unmarshallerPoolMap, type, unmarshaller);
+            timer.stop(startNanos);
+        }
+    }
+
+    @Override
+    public void marshal(Object object, File file) throws JAXBException {
+        Class<?> type = object.getClass();
+        Marshaller marshaller = borrowMarshaller(type);
+
+        try {
+            marshaller.marshal(object, file);
+        } finally {
+            release(marshallerPoolMap, type, marshaller);
+        }
+    }
+
+    @Override
+    public void marshal(Object object, OutputStream outputStream) throws JAXBException {
+        Class<?> type = object.getClass();
+        Marshaller marshaller = borrowMarshaller(type);
+
+        try {
+            marshaller.marshal(object, outputStream);
+        } finally {
+            release(marshallerPoolMap, type, marshaller);
+        }
+    }
+
+}
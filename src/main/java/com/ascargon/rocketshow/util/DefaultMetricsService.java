@@ -0,0 +1,190 @@
+package com.ascargon.rocketshow.util;
+
+import org.springframework.stereotype.Service;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Keep the timers and gauges registered by the services. The metrics are disabled by default and enabled by the
+ * settings. This service must not depend on other services, because nearly all of them use it.
+ */
+@Service
+public class DefaultMetricsService implements MetricsService {
+
+    private final static String PREFIX = "rocketshow_";
+
+    private final static String COUNTER_SUFFIX = "_total";
+
+    private volatile boolean enabled = false;
+
+    private final Map<String, MetricsTimer> timerMap = new ConcurrentHashMap<>();
+    private final Map<String, Value> valueMap = new ConcurrentHashMap<>();
+
+    // A gauge or a counter, read when requested
+    private static class Value {
+        private final String name;
+        private final String description;
+        private final Metric.Type type;
+        private final Map<String, String> labels;
+        private final DoubleSupplier valueSupplier;
+
+        private Value(String name, String description, Metric.Type type, Map<String, String> labels, DoubleSupplier valueSupplier) {
+            this.name = name;
+            this.description = description;
+            this.type = type;
+            this.labels = labels;
+            this.valueSupplier = valueSupplier;
+        }
+    }
+
+    public DefaultMetricsService() {
+        registerJvmGauges();
+    }
+
+    private void registerJvmGauges() {
+        MemoryMXBean memoryMXBean = ManagementFactory.getMemoryMXBean();
+
+        registerGauge("jvm_memory_used_bytes", "Used memory", () -> memoryMXBean.getHeapMemoryUsage().getUsed(), "area", "heap");
+        registerGauge("jvm_memory_used_bytes", "Used memory", () -> memoryMXBean.getNonHeapMemoryUsage().getUsed(), "area", "nonheap");
+        registerGauge("jvm_memory_committed_bytes", "Committed memory", () -> memoryMXBean.getHeapMemoryUsage().getCommitted(), "area", "heap");
+        registerGauge("jvm_memory_committed_bytes", "Committed memory", () -> memoryMXBean.getNonHeapMemoryUsage().getCommitted(), "area", "nonheap");
+        registerGauge("jvm_memory_max_bytes", "Maximum memory", () -> memoryMXBean.getHeapMemoryUsage().getMax(), "area", "heap");
+
+        for (GarbageCollectorMXBean garbageCollectorMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            registerCounter("jvm_gc_collections", "Garbage collections since the start", garbageCollectorMXBean::getCollectionCount, "gc", garbageCollectorMXBean.getName());
+            registerCounter("jvm_gc_collection_seconds", "Time spent in garbage collections since the start", () -> garbageCollectorMXBean.getCollectionTime() / 1000d, "gc", garbageCollectorMXBean.getName());
+        }
+
+        registerGauge("jvm_threads_live", "Live threads", () -> ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    private static Map<String, String> getLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be pairs of name and value");
+        }
+
+        Map<String, String> labelMap = new LinkedHashMap<>();
+
+        for (int i = 0; i < labels.length; i += 2) {
+            labelMap.put(labels[i], labels[i + 1]);
+        }
+
+        return labelMap;
+    }
+
+    private static String getKey(String name, String... labels) {
+        return name + String.join("\u0000", labels);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public MetricsTimer getTimer(String name, String description, String... labels) {
+        return timerMap.computeIfAbsent(getKey(name, labels), key -> new MetricsTimer(this, name, description, getLabels(labels)));
+    }
+
+    @Override
+    public void registerGauge(String name, String description, DoubleSupplier valueSupplier, String... labels) {
+        valueMap.put(getKey(name, labels), new Value(name, description, Metric.Type.GAUGE, getLabels(labels), valueSupplier));
+    }
+
+    @Override
+    public void registerCounter(String name, String description, DoubleSupplier valueSupplier, String... labels) {
+        name += COUNTER_SUFFIX;
+        valueMap.put(getKey(name, labels), new Value(name, description, Metric.Type.COUNTER, getLabels(labels), valueSupplier));
+    }
+
+    @Override
+    public List<Metric> getMetrics() {
+        List<Metric> metricList = new ArrayList<>();
+
+        for (Value value : valueMap.values()) {
+            Metric metric = new Metric();
+            metric.setName(value.name);
+            metric.setDescription(value.description);
+            metric.setType(value.type);
+            metric.setLabels(value.labels);
+            metric.setValue(value.valueSupplier.getAsDouble());
+            metricList.add(metric);
+        }
+
+        for (MetricsTimer timer : timerMap.values()) {
+            metricList.add(timer.createMetric());
+        }
+
+        // Keep the series of a metric together
+        metricList.sort(Comparator.comparing(Metric::getName).thenComparing(metric -> metric.getLabels().toString()));
+
+        return metricList;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static void appendSeries(StringBuilder text, String name, Map<String, String> labels, String extraLabel, String extraValue, double value) {
+        text.append(PREFIX).append(name);
+
+        if (!labels.isEmpty() || extraLabel != null) {
+            List<String> labelList = new ArrayList<>();
+
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                labelList.add(label.getKey() + "=\"" + escape(label.getValue()) + "\"");
+            }
+
+            if (extraLabel != null) {
+                labelList.add(extraLabel + "=\"" + extraValue + "\"");
+            }
+
+            text.append('{').append(String.join(",", labelList)).append('}');
+        }
+
+        text.append(' ').append(value).append('\n');
+    }
+
+    @Override
+    public String getPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        String lastName = null;
+
+        for (Metric metric : getMetrics()) {
+            if (!metric.getName().equals(lastName)) {
+                text.append("# HELP ").append(PREFIX).append(metric.getName()).append(' ').append(metric.getDescription()).append('\n');
+                text.append("# TYPE ").append(PREFIX).append(metric.getName()).append(' ').append(metric.getType().name().toLowerCase()).append('\n');
+                lastName = metric.getName();
+            }
+
+            if (metric.getType() != Metric.Type.HISTOGRAM) {
+                appendSeries(text, metric.getName(), metric.getLabels(), null, null, metric.getValue());
+                continue;
+            }
+
+            for (Map.Entry<String, Long> bucket : metric.getBuckets().entrySet()) {
+                appendSeries(text, metric.getName() + "_bucket", metric.getLabels(), "le", bucket.getKey(), bucket.getValue());
+            }
+
+            appendSeries(text, metric.getName() + "_sum", metric.getLabels(), null, null, metric.getSumSeconds());
+            appendSeries(text, metric.getName() + "_count", metric.getLabels(), null, null, metric.getCount());
+        }
+
+        return text.toString();
+    }
+
+}
@@ -3,8 +3,6 @@ package com.ascargon.rocketshow.util;
 import com.ascargon.rocketshow.SessionService;
 import com.ascargon.rocketshow.SettingsService;
 import com.ascargon.rocketshow.api.NotificationService;
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.Unmarshaller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -38,22 +36,21 @@ public class DefaultUpdateService implements UpdateService {
     private final SettingsService settingsService;
     private final SessionService sessionService;
     private final RebootService rebootService;
+    private final JaxbService jaxbService;
 
-    public DefaultUpdateService(NotificationService notificationService, SettingsService settingsService, SessionService sessionService, RebootService rebootService) {
+    public DefaultUpdateService(NotificationService notificationService, SettingsService settingsService, SessionService sessionService, RebootService rebootService, JaxbService jaxbService) {
         this.notificationService = notificationService;
         this.settingsService = settingsService;
         this.sessionService = sessionService;
         this.rebootService = rebootService;
+        this.jaxbService = jaxbService;
     }
 
     @Override
     public VersionInfo getCurrentVersionInfo() throws Exception {
         File file = new File(settingsService.getSettings().getBasePath() + File.separator + CURRENT_VERSION);
 
-        JAXBContext jaxbContext = JAXBContext.newInstance(VersionInfo.class);
-
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-        return (VersionInfo) jaxbUnmarshaller.unmarshal(file);
+        return jaxbService.unmarshal(VersionInfo.class, file);
     }
 
     private String getRemoteBaseUrl(boolean testBranch) {
@@ -69,10 +66,7 @@ public class DefaultUpdateService implements UpdateService {
         URL url = new URL(getRemoteBaseUrl(testBranch) + "currentversion2.xml");
         InputStream inputStream = url.openStream();
 
-        JAXBContext jaxbContext = JAXBContext.newInstance(VersionInfo.class);
-
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-        return (VersionInfo) jaxbUnmarshaller.unmarshal(inputStream);
+        return jaxbService.unmarshal(VersionInfo.class, inputStream);
     }
 
     private void downloadUpdateFile(String name, boolean testBranch) throws Exception {
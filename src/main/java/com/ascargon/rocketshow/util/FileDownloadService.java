@@ -0,0 +1,17 @@
+package com.ascargon.rocketshow.util;
+
+import org.springframework.stereotype.Service;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+
+@Service
+public interface FileDownloadService {
+
+    // Send a file to the response. Supports conditional requests (ETag, Last-Modified) and single byte ranges,
+    // which allows browsers to seek in long audio and video files without downloading them again.
+    void sendFile(File file, HttpServletRequest request, HttpServletResponse response) throws IOException;
+
+}
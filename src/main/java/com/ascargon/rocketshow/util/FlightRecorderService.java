@@ -0,0 +1,30 @@
+package com.ascargon.rocketshow.util;
+
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+
+/**
+ * Keep a continuous Java Flight Recorder recording of the last minutes, including the custom events of the
+ * real-time paths (category "Rocket Show"). It can be downloaded after a glitch and opened with JDK Mission Control.
+ */
+@Service
+public interface FlightRecorderService {
+
+    String RECORDING_FILE_NAME = "flight-recording.jfr";
+
+    void start() throws Exception;
+
+    // Stop the recording and keep its data for a download
+    void stop() throws Exception;
+
+    FlightRecording getFlightRecording();
+
+    // Write the data recorded so far into a new file, without stopping a running recording. The caller has to
+    // delete the file.
+    File createRecordingFile() throws Exception;
+
+    // Start or stop the recording according to the settings
+    void updateSettings() throws Exception;
+
+}
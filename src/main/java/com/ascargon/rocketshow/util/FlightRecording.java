@@ -0,0 +1,21 @@
+package com.ascargon.rocketshow.util;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * The state of the flight recording.
+ */
+@Getter
+@Setter
+public class FlightRecording {
+
+    private boolean recording;
+
+    // Whether a recording can be downloaded, also after it has been stopped
+    private boolean available;
+
+    private Long startMillis;
+    private int maxAgeMinutes;
+
+}
@@ -0,0 +1,32 @@
+package com.ascargon.rocketshow.util;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import org.springframework.stereotype.Service;
+
+import javax.xml.transform.Source;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Marshal and unmarshal XML files with cached JAXB contexts and pooled (un)marshallers.
+ */
+@Service
+public interface JaxbService {
+
+    JAXBContext getContext(Class<?> type) throws JAXBException;
+
+    <T> T unmarshal(Class<T> type, File file) throws JAXBException;
+
+    <T> T unmarshal(Class<T> type, InputStream inputStream) throws JAXBException;
+
+    <T> T unmarshal(Class<T> type, Source source) throws JAXBException;
+
+    // Marshal the object as formatted XML into the file
+    void marshal(Object object, File file) throws JAXBException;
+
+    // Marshal the object as formatted XML into the stream
+    void marshal(Object object, OutputStream outputStream) throws JAXBException;
+
+}
@@ -0,0 +1,34 @@
+package com.ascargon.rocketshow.util;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The current value of a gauge or a counter or the histogram of a timer.
+ */
+@Getter
+@Setter
+public class Metric {
+
+    public enum Type {
+        GAUGE, COUNTER, HISTOGRAM
+    }
+
+    private String name;
+    private String description;
+    private Type type;
+    private Map<String, String> labels = new LinkedHashMap<>();
+
+    // Gauge and counter
+    private Double value;
+
+    // Histogram, the buckets with their upper bound in seconds and the cumulative count
+    private Long count;
+    private Double sumSeconds;
+    private Double maxSeconds;
+    private Map<String, Long> buckets = new LinkedHashMap<>();
+
+}
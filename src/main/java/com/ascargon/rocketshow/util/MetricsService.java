@@ -0,0 +1,36 @@
+package com.ascargon.rocketshow.util;
+
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Collect timings, gauges and counters of the real-time paths, to analyze stutters during a show. Timers don't record
+ * anything while the metrics are disabled. Gauges and counters are only read, when the metrics are requested.
+ * <p>
+ * Labels are passed as pairs of name and value. Their values should be bounded (e.g. no composition names), because
+ * each combination is a separate series.
+ */
+@Service
+public interface MetricsService {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    // Get the timer with the name and labels, created on the first request. Callers on hot paths should keep it.
+    MetricsTimer getTimer(String name, String description, String... labels);
+
+    void registerGauge(String name, String description, DoubleSupplier valueSupplier, String... labels);
+
+    // Register a value, which only increases since the start (e.g. the number of sent messages). The name gets the
+    // suffix "_total".
+    void registerCounter(String name, String description, DoubleSupplier valueSupplier, String... labels);
+
+    List<Metric> getMetrics();
+
+    // The metrics in the Prometheus text exposition format
+    String getPrometheusText();
+
+}
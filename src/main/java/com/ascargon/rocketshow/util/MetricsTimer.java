@@ -0,0 +1,102 @@
+package com.ascargon.rocketshow.util;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Record durations into a histogram with fixed buckets. Nothing is recorded, while the metrics are disabled:
+ *
+ * <pre>
+ * long startNanos = timer.start();
+ * ...
+ * timer.stop(startNanos);
+ * </pre>
+ */
+public class MetricsTimer {
+
+    // The start time returned while the metrics are disabled. Not 0, because System.nanoTime() may return any value.
+    public final static long DISABLED = Long.MIN_VALUE;
+
+    // The upper bounds of the buckets, the last bucket is unbounded
+    final static double[] BUCKET_SECONDS = {0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30};
+    private final static long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            BUCKET_NANOS[i] = Math.round(BUCKET_SECONDS[i] * 1000000000d);
+        }
+    }
+
+    private final MetricsService metricsService;
+
+    private final String name;
+    private final String description;
+    private final Map<String, String> labels;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_SECONDS.length + 1);
+
+    MetricsTimer(MetricsService metricsService, String name, String description, Map<String, String> labels) {
+        this.metricsService = metricsService;
+        this.name = name;
+        this.description = description;
+        this.labels = labels;
+    }
+
+    // Get the start time or DISABLED, if the metrics are disabled
+    public long start() {
+        return metricsService.isEnabled() ? System.nanoTime() : DISABLED;
+    }
+
+    public void stop(long startNanos) {
+        if (startNanos != DISABLED) {
+            record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public void record(long nanos) {
+        if (!metricsService.isEnabled()) {
+            return;
+        }
+
+        int bucket = 0;
+
+        while (bucket < BUCKET_NANOS.length && nanos > BUCKET_NANOS[bucket]) {
+            bucket++;
+        }
+
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        sumNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    Metric createMetric() {
+        Metric metric = new Metric();
+
+        metric.setName(name);
+        metric.setDescription(description);
+        metric.setType(Metric.Type.HISTOGRAM);
+        metric.setLabels(labels);
+        metric.setCount(count.sum());
+        metric.setSumSeconds(sumNanos.sum() / 1000000000d);
+        metric.setMaxSeconds(maxNanos.get() / 1000000000d);
+
+        // Cumulative counts as in Prometheus
+        long cumulativeCount = 0;
+
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            cumulativeCount += buckets.get(i);
+            metric.getBuckets().put(Double.toString(BUCKET_SECONDS[i]), cumulativeCount);
+        }
+
+        metric.getBuckets().put("+Inf", cumulativeCount + buckets.get(BUCKET_SECONDS.length));
+
+        return metric;
+    }
+
+}
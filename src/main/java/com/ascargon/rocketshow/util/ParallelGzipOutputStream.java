@@ -0,0 +1,178 @@
+package com.ascargon.rocketshow.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compress a stream with gzip on multiple threads. The data is split into blocks, which are compressed in parallel
+ * as separate gzip members and written in order. A concatenation of gzip members is a valid gzip file, which can be
+ * read by gzip, tar and Java's GZIPInputStream.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    private final static int BLOCK_SIZE = 1024 * 1024;
+
+    private final OutputStream outputStream;
+    private final ExecutorService executorService;
+
+    // Limit the number of blocks in memory, if the output is slower than the compression
+    private final int maxPendingBlocks;
+    private final Deque<Future<byte[]>> pendingBlockQueue = new ArrayDeque<>();
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength = 0;
+    private boolean empty = true;
+    private boolean closed = false;
+
+    public ParallelGzipOutputStream(OutputStream outputStream, ExecutorService executorService, int threads) {
+        this.outputStream = outputStream;
+        this.executorService = executorService;
+
+        maxPendingBlocks = threads * 2;
+    }
+
+    private static byte[] compress(byte[] data, int length) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(length / 2 + 64);
+
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(byteArrayOutputStream)) {
+            gzipOutputStream.write(data, 0, length);
+        }
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private void writeOldestBlock() throws IOException {
+        try {
+            outputStream.write(pendingBlockQueue.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Compression has been interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Could not compress block", e.getCause());
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+
+        byte[] data = block;
+        int length = blockLength;
+
+        pendingBlockQueue.addLast(executorService.submit(() -> compress(data, length)));
+        empty = false;
+
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+
+        // Write the finished blocks at the head of the queue without waiting
+        while (!pendingBlockQueue.isEmpty() && (pendingBlockQueue.size() >= maxPendingBlocks || pendingBlockQueue.peekFirst().isDone())) {
+            writeOldestBlock();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+
+        block[blockLength++] = (byte) b;
+
+        if (blockLength == BLOCK_SIZE) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+
+        while (len > 0) {
+            int count = Math.min(len, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, block, blockLength, count);
+
+            blockLength += count;
+            off += count;
+            len -= count;
+
+            if (blockLength == BLOCK_SIZE) {
+                submitBlock();
+            }
+        }
+    }
+
+    // Compress the remaining data and write all blocks. Does not close the underlying stream.
+    public void finish() throws IOException {
+        ensureOpen();
+
+        submitBlock();
+
+        while (!pendingBlockQueue.isEmpty()) {
+            writeOldestBlock();
+        }
+
+        if (empty) {
+            // Write a valid gzip file without any content
+            outputStream.write(compress(new byte[0], 0));
+            empty = false;
+        }
+
+        outputStream.flush();
+    }
+
+    private void release() {
+        closed = true;
+
+        for (Future<byte[]> future : pendingBlockQueue) {
+            future.cancel(true);
+        }
+
+        pendingBlockQueue.clear();
+        block = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            finish();
+        } finally {
+            release();
+            outputStream.close();
+        }
+    }
+
+    // Discard the pending blocks and close the underlying stream without writing the remaining data, e.g. after an
+    // error. Does nothing, if the stream has already been closed.
+    public void abort() {
+        if (closed) {
+            return;
+        }
+
+        release();
+
+        try {
+            outputStream.close();
+        } catch (IOException e) {
+            // The stream is broken anyway
+        }
+    }
+
+}
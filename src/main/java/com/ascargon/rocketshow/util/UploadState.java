@@ -0,0 +1,127 @@
+package com.ascargon.rocketshow.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The state of a chunked upload: the byte ranges received so far, to accept retried or out-of-order chunks, to
+ * resume an interrupted upload and to detect, when the file is complete. The state is only kept in memory until the
+ * upload is complete or expired.
+ */
+public class UploadState {
+
+    private final String uploadId;
+    private final long totalSizeBytes;
+
+    // The file the chunks are written to
+    private final File file;
+
+    // The SHA-256 checksum (hex) of the whole file, if provided by the client
+    private String checksum;
+
+    // The received ranges (start -> end, exclusive), merged and without overlaps
+    private final TreeMap<Long, Long> receivedRangeMap = new TreeMap<>();
+
+    private long lastUpdateMillis = System.currentTimeMillis();
+
+    public UploadState(String uploadId, long totalSizeBytes, File file) {
+        this.uploadId = uploadId;
+        this.totalSizeBytes = totalSizeBytes;
+        this.file = file;
+    }
+
+    public synchronized void addRange(long start, long end) {
+        lastUpdateMillis = System.currentTimeMillis();
+
+        if (end <= start) {
+            return;
+        }
+
+        // Merge with the overlapping or adjacent ranges
+        Map.Entry<Long, Long> floorEntry = receivedRangeMap.floorEntry(start);
+
+        if (floorEntry != null && floorEntry.getValue() >= start) {
+            start = floorEntry.getKey();
+            end = Math.max(end, floorEntry.getValue());
+        }
+
+        Map.Entry<Long, Long> nextEntry = receivedRangeMap.ceilingEntry(start);
+
+        while (nextEntry != null && nextEntry.getKey() <= end) {
+            end = Math.max(end, nextEntry.getValue());
+            receivedRangeMap.remove(nextEntry.getKey());
+            nextEntry = receivedRangeMap.ceilingEntry(start);
+        }
+
+        receivedRangeMap.put(start, end);
+    }
+
+    public synchronized long getReceivedBytes() {
+        long receivedBytes = 0;
+
+        for (Map.Entry<Long, Long> rangeEntry : receivedRangeMap.entrySet()) {
+            receivedBytes += rangeEntry.getValue() - rangeEntry.getKey();
+        }
+
+        return receivedBytes;
+    }
+
+    public synchronized List<long[]> getReceivedRangeList() {
+        List<long[]> receivedRangeList = new ArrayList<>();
+
+        for (Map.Entry<Long, Long> rangeEntry : receivedRangeMap.entrySet()) {
+            receivedRangeList.add(new long[]{rangeEntry.getKey(), rangeEntry.getValue()});
+        }
+
+        return receivedRangeList;
+    }
+
+    // The end of the last received range (the size the file has at least)
+    @JsonIgnore
+    public synchronized long getReceivedEndBytes() {
+        Map.Entry<Long, Long> lastEntry = receivedRangeMap.lastEntry();
+
+        return lastEntry == null ? 0 : lastEntry.getValue();
+    }
+
+    public synchronized boolean isComplete() {
+        Map.Entry<Long, Long> firstEntry = receivedRangeMap.firstEntry();
+
+        if (totalSizeBytes == 0) {
+            return true;
+        }
+
+        return firstEntry != null && firstEntry.getKey() == 0 && firstEntry.getValue() >= totalSizeBytes;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public long getTotalSizeBytes() {
+        return totalSizeBytes;
+    }
+
+    @JsonIgnore
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized String getChecksum() {
+        return checksum;
+    }
+
+    public synchronized void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    public synchronized long getLastUpdateMillis() {
+        return lastUpdateMillis;
+    }
+
+}
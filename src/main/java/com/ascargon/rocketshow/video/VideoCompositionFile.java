@@ -4,6 +4,18 @@ import com.ascargon.rocketshow.composition.CompositionFile;
 
 public class VideoCompositionFile extends CompositionFile {
 
+    public VideoCompositionFile() {
+    }
+
+    public VideoCompositionFile(VideoCompositionFile videoCompositionFile) {
+        super(videoCompositionFile);
+    }
+
+    @Override
+    public VideoCompositionFile copy() {
+        return new VideoCompositionFile(this);
+    }
+
     public CompositionFileType getType() {
         return CompositionFileType.VIDEO;
     }
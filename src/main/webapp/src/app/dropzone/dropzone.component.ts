@@ -1,8 +1,10 @@
 import { Component, EventEmitter, Input, Output } from "@angular/core";
 import { TranslateService } from "@ngx-translate/core";
 import { DropzoneConfigInterface } from "ngx-dropzone-wrapper";
+import { forkJoin, from } from "rxjs";
 import { map } from "rxjs/operators";
 import { AppHttpInterceptor } from "../app-http-interceptor/app-http-interceptor";
+import { UploadService } from "../services/upload.service";
 
 @Component({
   selector: "app-dropzone",
@@ -10,6 +12,9 @@ import { AppHttpInterceptor } from "../app-http-interceptor/app-http-interceptor
   styleUrl: "./dropzone.component.scss",
 })
 export class DropzoneComponent {
+  // The Dropzone default
+  private static readonly CHUNK_SIZE = 2000000;
+
   @Output() error = new EventEmitter();
   @Output() success = new EventEmitter();
   @Output() addedFile = new EventEmitter();
@@ -39,7 +44,8 @@ export class DropzoneComponent {
 
   constructor(
     private translateService: TranslateService,
-    private appHttpInterceptor: AppHttpInterceptor
+    private appHttpInterceptor: AppHttpInterceptor,
+    private uploadService: UploadService
   ) {
     this.translateService
       .get("editor.dropzone-message")
@@ -54,6 +60,45 @@ export class DropzoneComponent {
     this.updateConfig();
   }
 
+  // Before a file is queued: compute its checksum and check, whether an earlier attempt to upload it
+  // has been interrupted
+  private prepareUpload(file: any, done: (error?: string) => void) {
+    const uploadId = this.uploadService.getUploadId(file);
+
+    file.upload.uuid = uploadId;
+
+    forkJoin([
+      this.uploadService.getResumeOffset(uploadId),
+      from(this.uploadService.getChecksum(file)),
+    ]).subscribe({
+      next: ([resumeOffset, checksum]) => {
+        file.resumeOffset = resumeOffset < file.size ? resumeOffset : 0;
+        file.checksum = checksum;
+        done();
+      },
+      error: (error) => done(String(error)),
+    });
+  }
+
+  // The Dropzone default parameters, but with the offset in the whole file, when resuming
+  private getParams(chunk: any) {
+    if (!chunk) {
+      return {};
+    }
+
+    const file = chunk.file;
+
+    return {
+      dzuuid: file.upload.uuid,
+      dzchunkindex: chunk.index,
+      dztotalfilesize: file.size,
+      dzchunksize: DropzoneComponent.CHUNK_SIZE,
+      dztotalchunkcount: file.upload.totalChunkCount,
+      dzchunkbyteoffset: file.resumeOffset + chunk.index * DropzoneComponent.CHUNK_SIZE,
+      checksum: file.checksum,
+    };
+  }
+
   updateConfig() {
     this.dropzoneConfig = {
       url: this.appHttpInterceptor.getRestUrl() + this._url,
@@ -64,6 +109,14 @@ export class DropzoneComponent {
       timeout: 0,
       chunking: true,
       forceChunking: true,
+      chunkSize: DropzoneComponent.CHUNK_SIZE,
+      // Chunks are written at their offset on the server -> failed chunks can be retried
+      retryChunks: true,
+      accept: (file, done) => this.prepareUpload(file, done),
+      // Only upload the part not received by the server yet
+      transformFile: (file: any, done) => done(file.slice(file.resumeOffset)),
+      params: (files, xhr, chunk) => this.getParams(chunk),
+      retryChunksLimit: 10,
       parallelUploads: 1,
       maxFiles: this._maxFiles,
       previewTemplate: `
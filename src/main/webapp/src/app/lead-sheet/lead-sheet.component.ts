@@ -2,6 +2,8 @@ import { LeadSheetService } from './../services/lead-sheet.service';
 import { Subscription, timer } from 'rxjs';
 import { State } from './../models/state';
 import { StateService } from './../services/state.service';
+import { PositionService } from './../services/position.service';
+import { Position } from './../models/position';
 import { Component, OnInit, ElementRef, ViewChild } from '@angular/core';
 import { environment } from '../../environments/environment';
 
@@ -21,7 +23,8 @@ export class LeadSheetComponent implements OnInit {
 
   constructor(
     public stateService: StateService,
-    public leadSheetService: LeadSheetService
+    public leadSheetService: LeadSheetService,
+    private positionService: PositionService
   ) { }
 
   ngOnInit() {
@@ -36,6 +39,22 @@ export class LeadSheetComponent implements OnInit {
       this.currentState = state;
     });
 
+    // Resynchronize the scroll position with the position of the device
+    this.positionService.subject.subscribe((position: Position) => {
+      if (position.compositionName != this.currentState.currentCompositionName) {
+        return;
+      }
+
+      this.currentState.positionMillis = position.positionMillis;
+
+      if (this.lastPlayTime) {
+        this.lastPlayTime = new Date();
+      }
+
+      this.update();
+    });
+    this.positionService.startMonitor();
+
     this.leadSheetService.doShow.subscribe(() => {
       // Wait one tick for the image height to be calculated correctly after the show
       setTimeout(() => {
@@ -1,6 +1,7 @@
 export class ActivityAudioChannel {
     index: number = 0;
     volumeDb: number = -500;
+    holdDb: number = -500;
 
     constructor(data?: any) {
         if(!data) {
@@ -9,5 +10,6 @@ export class ActivityAudioChannel {
         
         this.index = data.index;
         this.volumeDb = data.volumeDb;
+        this.holdDb = data.holdDb;
     }
 }
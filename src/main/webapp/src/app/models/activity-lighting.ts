@@ -1,10 +1,11 @@
 export class ActivityLighting {
+    universeId: number;
 
-    constructor(data?: any) {
-        if(!data) {
-        	return;
-        }
-        
-        // TODO
+    // One value per channel
+    values: Uint8Array;
+
+    constructor(universeId?: number, values?: Uint8Array) {
+        this.universeId = universeId;
+        this.values = values;
     }
 }
@@ -6,6 +6,10 @@ export class ActivityMidi {
     midiSources: string[] = [];
     midiDestinations: string[] = [];
 
+    // All signals of the activity with their count
+    midiSignals: MidiSignal[] = [];
+    signalCount: number = 0;
+
     constructor(data?: any) {
         if(!data) {
         	return;
@@ -25,5 +29,13 @@ export class ActivityMidi {
                 this.midiDestinations.push(midiDestination);
             }
         }
+
+        if(data.midiSignals) {
+            for(let midiSignal of data.midiSignals) {
+                this.midiSignals.push(new MidiSignal(midiSignal));
+            }
+        }
+
+        this.signalCount = data.signalCount;
     }
 }
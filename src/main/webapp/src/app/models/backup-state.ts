@@ -0,0 +1,15 @@
+export class BackupState {
+    id: string;
+    finished: boolean;
+    error: string;
+
+    constructor(data?: any) {
+        if(!data) {
+        	return;
+        }
+
+        this.id = data.id;
+        this.finished = data.finished;
+        this.error = data.error;
+    }
+}
@@ -13,6 +13,9 @@ export class Composition {
     leadSheetList: LeadSheet[] = [];
     loop: boolean;
 
+    // Only the summary without the files, load the composition to get them
+    summary: boolean = false;
+
     constructor(data?: any) {
         if (!data) {
             return;
@@ -32,6 +35,7 @@ export class Composition {
         }
 
         this.loop = data.loop;
+        this.summary = !!data.summary;
     }
 
     // Return a file object based on its type
@@ -70,6 +74,9 @@ export class Composition {
         // These properties belong to the set compositions -> remove them
         object.autoStartNextComposition = undefined;
 
+        // Only set by the server
+        object.summary = undefined;
+
         for (let file of this.fileList) {
             if (file instanceof CompositionMidiFile) {
                 let fileObj: any = {};
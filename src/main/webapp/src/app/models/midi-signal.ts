@@ -4,6 +4,9 @@ export class MidiSignal {
     note: number = 0;
     velocity: number = 0;
 
+    // The number of equal signals in an activity
+    count: number = 1;
+
     constructor(data?: any) {
         if(!data) {
         	return;
@@ -13,5 +16,9 @@ export class MidiSignal {
         this.channel = data.channel;
         this.note = data.note;
         this.velocity = data.velocity;
+
+        if(data.count) {
+            this.count = data.count;
+        }
     }
 }
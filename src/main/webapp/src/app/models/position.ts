@@ -0,0 +1,23 @@
+export class Position {
+    compositionName: string;
+    positionMillis: number = 0;
+
+    // The time of the pipeline clock, when the position has been queried (-1 without a pipeline)
+    clockTimeMillis: number = -1;
+
+    // The time of the device, when the position has been queried
+    timestampMillis: number = 0;
+    playing: boolean = false;
+
+    constructor(data?: any) {
+        if(!data) {
+        	return;
+        }
+
+        this.compositionName = data.compositionName;
+        this.positionMillis = data.positionMillis;
+        this.clockTimeMillis = data.clockTimeMillis;
+        this.timestampMillis = data.timestampMillis;
+        this.playing = data.playing;
+    }
+}
@@ -53,7 +53,12 @@ export class Settings {
     enableRaspberryGpio: boolean;
     instrumentList: Instrument[] = [];
     enableMonitor: boolean;
+    audioMonitorFrequencyHertz: number;
     designerFrequencyHertz: number;
+    positionFrequencyHertz: number;
+    enableMetrics: boolean;
+    enableFlightRecorder: boolean;
+    flightRecorderMaxAgeMinutes: number;
     designerLivePreview: boolean;
     updateTestBranch: boolean;
 
@@ -170,7 +175,12 @@ export class Settings {
         }
 
         this.enableMonitor = data.enableMonitor;
+        this.audioMonitorFrequencyHertz = data.audioMonitorFrequencyHertz;
         this.designerFrequencyHertz = data.designerFrequencyHertz;
+        this.positionFrequencyHertz = data.positionFrequencyHertz;
+        this.enableMetrics = data.enableMetrics;
+        this.enableFlightRecorder = data.enableFlightRecorder;
+        this.flightRecorderMaxAgeMinutes = data.flightRecorderMaxAgeMinutes;
         this.designerLivePreview = data.designerLivePreview;
         this.updateTestBranch = data.updateTestBranch;
     }
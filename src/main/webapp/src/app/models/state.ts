@@ -8,6 +8,7 @@ export class State {
     currentSetName: string;
     updateFinished: boolean;
     error: string;
+    libraryChanged: boolean;
 
     constructor(data?: any) {
         if(!data) {
@@ -23,5 +24,6 @@ export class State {
         this.currentSetName = data.currentSetName;
         this.updateFinished = data.updateFinished;
         this.error = data.error;
+        this.libraryChanged = data.libraryChanged;
     }
 }
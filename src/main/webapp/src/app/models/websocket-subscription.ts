@@ -0,0 +1,10 @@
+// The messages a monitor wants to receive, see WebSocketSubscription.java. Missing filters don't restrict the
+// messages.
+export class WebSocketSubscription {
+    subscribed: boolean = true;
+    universes: number[];
+    midiSources: string[];
+    midiDestinations: string[];
+    audioBuses: number[];
+    maxFrequencyHertz: number;
+}
@@ -19,6 +19,8 @@ import { ActivityAudioBus } from "../models/activity-audio-bus";
 import { ActivityAudioChannel } from "../models/activity-audio-channel";
 import { ActivityLightingService } from "../services/activity-lighting.service";
 import { ActivityLighting } from "../models/activity-lighting";
+import { PositionService } from "../services/position.service";
+import { Position } from "../models/position";
 
 @Component({
   selector: "app-play",
@@ -52,6 +54,7 @@ export class PlayComponent implements OnInit, OnDestroy {
   activityMidiSubscription: Subscription;
   activityAudioSubscription: Subscription;
   activityLightingSubscription: Subscription;
+  positionSubscription: Subscription;
 
   activityMidiIn: boolean = false;
   activityMidiInStopTimeout: any;
@@ -73,6 +76,7 @@ export class PlayComponent implements OnInit, OnDestroy {
     private activityMidiService: ActivityMidiService,
     public activityAudioService: ActivityAudioService,
     public activityLightingService: ActivityLightingService,
+    private positionService: PositionService,
     public settingsService: SettingsService,
     private changeDetectorRef: ChangeDetectorRef
   ) {
@@ -113,6 +117,7 @@ export class PlayComponent implements OnInit, OnDestroy {
     for (let bus of this.activityAudio.activityAudioBusList) {
       for (let channel of bus.activityAudioChannelList) {
         channel.volumeDb = -500;
+        channel.holdDb = -500;
       }
     }
   }
@@ -204,25 +209,27 @@ export class PlayComponent implements OnInit, OnDestroy {
             this.resetChannelVolumes();
           }, 1000);
 
-          // Map the audio activity from the backend into the frontend monitoring activity,
-          // based on the settings (e.g. if more channels are played than specified in the settings,
-          // they will not be shown)
+          // Map the audio activity from the backend into the frontend monitoring activity. The buses
+          // are sent in the order of the settings and channels not specified in the settings are not sent.
           this.resetChannelVolumes();
 
-          for (let settingsBus of this.activityAudio.activityAudioBusList) {
-            for (let activityBus of activityAudio.activityAudioBusList) {
-              if (settingsBus.name == activityBus.name) {
-                for (let settingsChannel of settingsBus.activityAudioChannelList) {
-                  for (let activityChannel of activityBus.activityAudioChannelList) {
-                    if (settingsChannel.index == activityChannel.index) {
-                      // Increase the sensitivity by factor 5 to make also more silent tracks visible
-                      settingsChannel.volumeDb = activityChannel.volumeDb / 5;
-                    }
-                  }
-                }
+          activityAudio.activityAudioBusList.forEach((activityBus, busIndex) => {
+            const settingsBus = this.activityAudio.activityAudioBusList[busIndex];
+
+            if (!settingsBus) {
+              return;
+            }
+
+            for (let activityChannel of activityBus.activityAudioChannelList) {
+              const settingsChannel = settingsBus.activityAudioChannelList[activityChannel.index];
+
+              if (settingsChannel) {
+                // Increase the sensitivity by factor 5 to make also more silent tracks visible
+                settingsChannel.volumeDb = activityChannel.volumeDb / 5;
+                settingsChannel.holdDb = activityChannel.holdDb;
               }
             }
-          }
+          });
         }
       );
     this.activityAudioService.startMonitor();
@@ -247,6 +254,27 @@ export class PlayComponent implements OnInit, OnDestroy {
         }
       );
     this.activityLightingService.startMonitor();
+
+    // Resynchronize the played time with the position of the device
+    this.positionSubscription = this.positionService.subject.subscribe(
+      (position: Position) => {
+        if (
+          this.sliding ||
+          position.compositionName != this.currentState.currentCompositionName
+        ) {
+          return;
+        }
+
+        this.lastPlayTime = new Date();
+        this.currentState.positionMillis = position.positionMillis;
+
+        if (!position.playing) {
+          this.positionMillis = position.positionMillis;
+          this.playTime = this.msToTime(position.positionMillis);
+        }
+      }
+    );
+    this.positionService.startMonitor();
   }
 
   ngOnDestroy() {
@@ -259,6 +287,9 @@ export class PlayComponent implements OnInit, OnDestroy {
     this.activityMidiService.stopMonitor();
     this.activityAudioService.stopMonitor();
     this.activityLightingService.stopMonitor();
+
+    this.positionSubscription.unsubscribe();
+    this.positionService.stopMonitor();
   }
 
   private loadAllSets() {
@@ -5,6 +5,9 @@ import { HttpClient } from '@angular/common/http';
 import { environment } from '../../environments/environment';
 import { SettingsService } from './settings.service';
 import { ActivityAudio } from '../models/activity-audio';
+import { ActivityAudioBus } from '../models/activity-audio-bus';
+import { ActivityAudioChannel } from '../models/activity-audio-channel';
+import { WebSocketSubscription } from '../models/websocket-subscription';
 
 @Injectable({
   providedIn: 'root'
@@ -21,6 +24,10 @@ export class ActivityAudioService {
 
   monitors: number = 0;
 
+  // The filters of the monitor. The monitor is paused, while the page is hidden (e.g. on a locked tablet).
+  subscription: WebSocketSubscription = new WebSocketSubscription();
+  private visibilityListener = () => this.sendSubscription();
+
   constructor(private http: HttpClient, settingsService: SettingsService
   ) {
     // Create the backend-url
@@ -39,21 +46,70 @@ export class ActivityAudioService {
     if (!this.websocket) {
       // Connect to the websocket backend
       const wsConfig = { reconnectIfNotNormalClose: true } as WebSocketConfig;
-      this.websocket = new $WebSocket(this.wsUrl, null, wsConfig);
+      this.websocket = new $WebSocket(this.wsUrl, null, wsConfig, 'arraybuffer');
+      this.websocket.onOpen(() => this.sendSubscription());
+      document.addEventListener('visibilitychange', this.visibilityListener);
 
       this.websocket.onMessage(
         (msg: MessageEvent) => {
-          this.subject.next(new ActivityAudio(JSON.parse(msg.data)));
+          this.subject.next(this.decodeFrame(msg.data));
         },
         { autoApply: false }
       );
     }
   }
 
+  // Decode the levels of all buses, in the order of the settings. The frame format is described in
+  // AudioLevelMeter.java.
+  private decodeFrame(data: ArrayBuffer): ActivityAudio {
+    const view = new Uint8Array(data);
+    const activityAudio = new ActivityAudio();
+    const busCount = view[0];
+    let offset = 1;
+
+    for (let i = 0; i < busCount; i++) {
+      const activityAudioBus = new ActivityAudioBus();
+      const channelCount = view[offset++];
+
+      for (let j = 0; j < channelCount; j++) {
+        const activityAudioChannel = new ActivityAudioChannel();
+        activityAudioChannel.index = j;
+        activityAudioChannel.volumeDb = this.decodeDb(view[offset++]);
+        activityAudioChannel.holdDb = this.decodeDb(view[offset++]);
+        activityAudioBus.activityAudioChannelList.push(activityAudioChannel);
+      }
+
+      activityAudio.activityAudioBusList.push(activityAudioBus);
+    }
+
+    return activityAudio;
+  }
+
+  // Steps of 0.5 dB, the highest step is silence
+  private decodeDb(value: number): number {
+    return value == 255 ? -500 : -value / 2;
+  }
+
+  subscribe(subscription: WebSocketSubscription) {
+    this.subscription = subscription;
+    this.sendSubscription();
+  }
+
+  private sendSubscription() {
+    if (!this.websocket) {
+      return;
+    }
+
+    const subscription = Object.assign(new WebSocketSubscription(), this.subscription);
+    subscription.subscribed = this.subscription.subscribed && !document.hidden;
+    this.websocket.send4Direct(JSON.stringify(subscription));
+  }
+
   stopMonitor() {
     this.monitors--;
 
     if (this.monitors < 1 && this.websocket) {
+      document.removeEventListener('visibilitychange', this.visibilityListener);
       this.websocket.close();
       this.websocket = undefined;
     }
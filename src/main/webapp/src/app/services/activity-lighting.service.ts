@@ -1,6 +1,7 @@
 import { Injectable } from '@angular/core';
 import { Subject } from 'rxjs';
 import { ActivityLighting } from '../models/activity-lighting';
+import { WebSocketSubscription } from '../models/websocket-subscription';
 import { $WebSocket, WebSocketConfig } from 'angular2-websocket';
 import { HttpClient } from '@angular/common/http';
 import { environment } from '../../environments/environment';
@@ -20,6 +21,14 @@ export class ActivityLightingService {
 
   monitors: number = 0;
 
+  // The filters of the monitor. The monitor is paused, while the page is hidden (e.g. on a locked tablet).
+  subscription: WebSocketSubscription = new WebSocketSubscription();
+  private visibilityListener = () => this.sendSubscription();
+
+  // The values of each universe and the sequence number of the last applied frame
+  private universes: Map<number, Uint8Array> = new Map();
+  private sequences: Map<number, number> = new Map();
+
   constructor(private http: HttpClient
   ) {
     // Create the backend-url
@@ -38,23 +47,80 @@ export class ActivityLightingService {
     if(!this.websocket) {
     // Connect to the websocket backend
     const wsConfig = { reconnectIfNotNormalClose: true } as WebSocketConfig;
-    this.websocket = new $WebSocket(this.wsUrl, null, wsConfig);
+    this.websocket = new $WebSocket(this.wsUrl, null, wsConfig, 'arraybuffer');
+    this.websocket.onOpen(() => this.sendSubscription());
+    document.addEventListener('visibilitychange', this.visibilityListener);
 
     this.websocket.onMessage(
       (msg: MessageEvent) => {
-        this.subject.next(new ActivityLighting(JSON.parse(msg.data)));
+        const activityLighting = this.applyFrame(msg.data);
+
+        if (activityLighting) {
+          this.subject.next(activityLighting);
+        }
       },
       { autoApply: false }
     );
     }
   }
 
+  // Apply a keyframe or a delta to the universe. Deltas are skipped, until a keyframe has been received after a
+  // missed frame. The frame format is described in LightingActivityFrameEncoder.java.
+  private applyFrame(data: ArrayBuffer): ActivityLighting {
+    const view = new DataView(data);
+    const type = view.getUint8(0);
+    const universeId = view.getUint8(1);
+    const sequence = view.getUint32(2);
+    let values = this.universes.get(universeId);
+
+    if (type == 0) {
+      values = new Uint8Array(data.slice(6, 6 + 512));
+      this.universes.set(universeId, values);
+    } else {
+      if (!values || this.sequences.get(universeId) != sequence - 1) {
+        this.sequences.delete(universeId);
+        return undefined;
+      }
+
+      let offset = 6;
+
+      while (offset < data.byteLength) {
+        const start = view.getUint16(offset);
+        const count = view.getUint16(offset + 2);
+        values.set(new Uint8Array(data, offset + 4, count), start);
+        offset += 4 + count;
+      }
+    }
+
+    this.sequences.set(universeId, sequence);
+
+    return new ActivityLighting(universeId, values);
+  }
+
+  subscribe(subscription: WebSocketSubscription) {
+    this.subscription = subscription;
+    this.sendSubscription();
+  }
+
+  private sendSubscription() {
+    if (!this.websocket) {
+      return;
+    }
+
+    const subscription = Object.assign(new WebSocketSubscription(), this.subscription);
+    subscription.subscribed = this.subscription.subscribed && !document.hidden;
+    this.websocket.send4Direct(JSON.stringify(subscription));
+  }
+
   stopMonitor() {
     this.monitors --;
 
     if(this.monitors < 1 && this.websocket) {
+      document.removeEventListener('visibilitychange', this.visibilityListener);
       this.websocket.close();
       this.websocket = undefined;
+      this.universes.clear();
+      this.sequences.clear();
     }
   }
 
@@ -3,6 +3,7 @@ import { $WebSocket, WebSocketConfig } from 'angular2-websocket/angular2-websock
 import { Subject } from 'rxjs';
 import { HttpClient } from '@angular/common/http';
 import { ActivityMidi } from '../models/activity-midi';
+import { WebSocketSubscription } from '../models/websocket-subscription';
 import { environment } from '../../environments/environment';
 
 @Injectable({
@@ -20,6 +21,10 @@ export class ActivityMidiService {
 
   monitors: number = 0;
 
+  // The filters of the monitor. The monitor is paused, while the page is hidden (e.g. on a locked tablet).
+  subscription: WebSocketSubscription = new WebSocketSubscription();
+  private visibilityListener = () => this.sendSubscription();
+
   constructor(private http: HttpClient
   ) {
     // Create the backend-url
@@ -39,6 +44,8 @@ export class ActivityMidiService {
     // Connect to the websocket backend
     const wsConfig = { reconnectIfNotNormalClose: true } as WebSocketConfig;
     this.websocket = new $WebSocket(this.wsUrl, null, wsConfig);
+    this.websocket.onOpen(() => this.sendSubscription());
+    document.addEventListener('visibilitychange', this.visibilityListener);
 
     this.websocket.onMessage(
       (msg: MessageEvent) => {
@@ -49,10 +56,26 @@ export class ActivityMidiService {
     }
   }
 
+  subscribe(subscription: WebSocketSubscription) {
+    this.subscription = subscription;
+    this.sendSubscription();
+  }
+
+  private sendSubscription() {
+    if (!this.websocket) {
+      return;
+    }
+
+    const subscription = Object.assign(new WebSocketSubscription(), this.subscription);
+    subscription.subscribed = this.subscription.subscribed && !document.hidden;
+    this.websocket.send4Direct(JSON.stringify(subscription));
+  }
+
   stopMonitor() {
     this.monitors --;
 
     if(this.monitors < 1 && this.websocket) {
+      document.removeEventListener('visibilitychange', this.visibilityListener);
       this.websocket.close();
       this.websocket = undefined;
     }
@@ -4,6 +4,8 @@ import { map } from "rxjs/operators";
 import { Composition } from './../models/composition';
 import { Set } from './../models/set';
 import { Injectable } from '@angular/core';
+import { StateService } from './state.service';
+import { State } from '../models/state';
 
 @Injectable()
 export class CompositionService {
@@ -16,7 +18,19 @@ export class CompositionService {
   // Fires, when compositions have changed (new ones, deleted)
   compositionsChanged: Subject<void> = new Subject<void>();
 
-  constructor(private http: HttpClient) { }
+  constructor(
+    private http: HttpClient,
+    private stateService: StateService
+  ) {
+    this.stateService.state.subscribe((state: State) => {
+      if (state.libraryChanged) {
+        // The library has been changed on the device -> reload it
+        this.compositions = undefined;
+        this.sets = undefined;
+        this.compositionsChanged.next();
+      }
+    });
+  }
 
   getCurrentSet(clearCache: boolean = false): Observable<Set> {
     if (this.currentSet && !clearCache) {
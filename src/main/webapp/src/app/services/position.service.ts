@@ -0,0 +1,70 @@
+import { Injectable } from '@angular/core';
+import { $WebSocket, WebSocketConfig } from 'angular2-websocket/angular2-websocket';
+import { Subject } from 'rxjs';
+import { environment } from '../../environments/environment';
+import { Position } from '../models/position';
+
+@Injectable({
+  providedIn: 'root'
+})
+export class PositionService {
+
+  // The position of the device, sent periodically while playing
+  public subject: Subject<Position> = new Subject();
+
+  // The websocket endpoint url
+  private wsUrl: string;
+
+  // The websocket connection
+  websocket: $WebSocket;
+
+  monitors: number = 0;
+
+  // Skip positions queried before the last one, e.g. a periodic one sent right after a seek
+  private lastTimestampMillis: number = 0;
+
+  constructor() {
+    // Create the backend-url
+    if (environment.name == 'dev') {
+      this.wsUrl = 'ws://' + environment.localBackend + '/';
+    } else {
+      this.wsUrl = 'ws://' + window.location.hostname + ':' + window.location.port + '/';
+    }
+
+    this.wsUrl += 'api/position';
+  }
+
+  startMonitor() {
+    this.monitors++;
+
+    if (!this.websocket) {
+      // Connect to the websocket backend
+      const wsConfig = { reconnectIfNotNormalClose: true } as WebSocketConfig;
+      this.websocket = new $WebSocket(this.wsUrl, null, wsConfig);
+
+      this.websocket.onMessage(
+        (msg: MessageEvent) => {
+          const position = new Position(JSON.parse(msg.data));
+
+          if (position.timestampMillis < this.lastTimestampMillis) {
+            return;
+          }
+
+          this.lastTimestampMillis = position.timestampMillis;
+          this.subject.next(position);
+        },
+        { autoApply: false }
+      );
+    }
+  }
+
+  stopMonitor() {
+    this.monitors--;
+
+    if (this.monitors < 1 && this.websocket) {
+      this.websocket.close();
+      this.websocket = undefined;
+      this.lastTimestampMillis = 0;
+    }
+  }
+}
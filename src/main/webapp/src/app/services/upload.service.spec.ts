@@ -0,0 +1,25 @@
+import { TestBed, inject } from "@angular/core/testing";
+import { HttpClientTestingModule } from "@angular/common/http/testing";
+
+import { UploadService } from "./upload.service";
+
+describe("UploadService", () => {
+  beforeEach(() => {
+    TestBed.configureTestingModule({
+      imports: [HttpClientTestingModule],
+      providers: [UploadService],
+    });
+  });
+
+  it("should be created", inject([UploadService], (service: UploadService) => {
+    expect(service).toBeTruthy();
+  }));
+
+  it("should compute the checksum of a file", async () => {
+    const service = TestBed.inject(UploadService);
+
+    expect(await service.getChecksum(new Blob(["abc"]))).toBe(
+      "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"
+    );
+  });
+});
@@ -0,0 +1,51 @@
+import { HttpClient } from "@angular/common/http";
+import { Injectable } from "@angular/core";
+import { Observable, of } from "rxjs";
+import { catchError, map } from "rxjs/operators";
+import { Sha256 } from "../sha256";
+
+@Injectable({
+  providedIn: "root",
+})
+export class UploadService {
+  // Read files in slices, to not load large videos into memory
+  private static readonly SLICE_SIZE = 4 * 1024 * 1024;
+
+  constructor(private http: HttpClient) {}
+
+  // The id stays the same for each attempt to upload a file, so the server can resume it
+  getUploadId(file: File): string {
+    return file.name + "-" + file.size + "-" + file.lastModified;
+  }
+
+  // Get the amount of bytes from the start of the file, which the server received during an
+  // interrupted attempt (0, if the upload is not known)
+  getResumeOffset(uploadId: string): Observable<number> {
+    return this.http
+      .get("upload/state?uploadId=" + encodeURIComponent(uploadId))
+      .pipe(
+        map((response: any) => {
+          const receivedRangeList: number[][] = response.receivedRangeList;
+
+          if (receivedRangeList.length > 0 && receivedRangeList[0][0] == 0) {
+            return receivedRangeList[0][1];
+          }
+
+          return 0;
+        }),
+        catchError(() => of(0))
+      );
+  }
+
+  // Get the SHA-256 checksum (hex) of the file, verified by the server after the upload
+  async getChecksum(file: Blob): Promise<string> {
+    const sha256 = new Sha256();
+
+    for (let offset = 0; offset < file.size; offset += UploadService.SLICE_SIZE) {
+      const slice = file.slice(offset, offset + UploadService.SLICE_SIZE);
+      sha256.update(new Uint8Array(await slice.arrayBuffer()));
+    }
+
+    return sha256.digest();
+  }
+}
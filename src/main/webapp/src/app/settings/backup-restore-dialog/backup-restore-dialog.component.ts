@@ -1,12 +1,14 @@
 import { Component, OnDestroy, OnInit } from "@angular/core";
+import { HttpClient } from "@angular/common/http";
 import { BsModalRef } from "ngx-bootstrap/modal";
 import { Subject, Subscription } from "rxjs";
 import { StateService } from "../../services/state.service";
 import { WaitDialogService } from "../../services/wait-dialog.service";
-import { map } from "rxjs/operators";
+import { catchError, finalize, map } from "rxjs/operators";
 import { State } from "../../models/state";
 import { InfoDialogService } from "../../services/info-dialog.service";
 import { ReloadClearCacheService } from "../../services/reload-clear-cache.service";
+import { ToastGeneralErrorService } from "../../services/toast-general-error.service";
 
 @Component({
   selector: "app-backup-restore-dialog",
@@ -20,12 +22,18 @@ export class BackupRestoreDialogComponent implements OnInit, OnDestroy {
   private stateChangedSubscription: Subscription;
   public isRestoringBackup: boolean = false;
 
+  // A full backup can be restored together with its incremental backups
+  private addedFileCount: number = 0;
+  private restoredFileCount: number = 0;
+
   constructor(
     private bsModalRef: BsModalRef,
     private stateService: StateService,
     private waitDialogService: WaitDialogService,
     private infoDialogService: InfoDialogService,
-    private reloadClearCacheService: ReloadClearCacheService
+    private reloadClearCacheService: ReloadClearCacheService,
+    private toastGeneralErrorService: ToastGeneralErrorService,
+    private http: HttpClient
   ) {}
 
   ngOnInit() {
@@ -54,12 +62,16 @@ export class BackupRestoreDialogComponent implements OnInit, OnDestroy {
   }
 
   public cancel(): void {
+    // Discard the already uploaded backups
+    this.http.post("system/restore-backup-cancel", undefined).subscribe();
+
     this.onClose.next(1);
     this.bsModalRef.hide();
   }
 
   public onAddedFile(args: any) {
     this.uploading = true;
+    this.addedFileCount++;
   }
 
   public onUploadError(args: any) {
@@ -68,8 +80,30 @@ export class BackupRestoreDialogComponent implements OnInit, OnDestroy {
   }
 
   public onUploadSuccess(args: any) {
-    this.uploading = false;
+    this.restoredFileCount++;
+
+    if (this.restoredFileCount < this.addedFileCount) {
+      // Wait for the following incremental backups
+      return;
+    }
+
+    // All backups have been uploaded -> restore them and reboot the device
     this.waitDialogService.show("settings.backup.wait-restore");
-    this.isRestoringBackup = true;
+
+    this.http
+      .post("system/restore-backup-apply", undefined)
+      .pipe(
+        catchError((err) => {
+          this.waitDialogService.hide();
+          return this.toastGeneralErrorService.show(err);
+        }),
+        finalize(() => {
+          this.uploading = false;
+        })
+      )
+      .subscribe(() => {
+        this.isRestoringBackup = true;
+        this.http.post("system/reboot", undefined).subscribe();
+      });
   }
 }
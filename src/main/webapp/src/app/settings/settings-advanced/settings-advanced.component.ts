@@ -117,15 +117,23 @@ export class SettingsAdvancedComponent implements OnInit, OnDestroy {
     });
   }
 
-  private downloadFile(blob: Blob) {
-    saveAs(blob, "logs.zip");
+  private downloadFile(blob: Blob, fileName: string) {
+    saveAs(blob, fileName);
   }
 
   downloadLogs() {
     this.http
       .get("system/download-logs", { responseType: "blob" })
       .subscribe((blob) => {
-        this.downloadFile(blob);
+        this.downloadFile(blob, "logs.zip");
+      });
+  }
+
+  downloadFlightRecording() {
+    this.http
+      .get("flight-recorder/download", { responseType: "blob" })
+      .subscribe((blob) => {
+        this.downloadFile(blob, "flight-recording.jfr");
       });
   }
 }
@@ -9,14 +9,15 @@ import { SettingsService } from "../../services/settings.service";
 import { CompositionService } from "../../services/composition.service";
 import { Composition } from "../../models/composition";
 import { Version } from "../../models/version";
-import { catchError, finalize, map } from "rxjs/operators";
+import { map } from "rxjs/operators";
 import { OperatingSystemInformation } from "../../models/operating-system-information";
 import { OperatingSystemInformationService } from "../../services/operating-system-information.service";
-import { Subscription } from "rxjs";
+import { Subscription, timer } from "rxjs";
 import { BackupRestoreDialogComponent } from "../backup-restore-dialog/backup-restore-dialog.component";
-import { saveAs } from "file-saver/FileSaver";
+import { environment } from "../../../environments/environment";
 import { WaitDialogService } from "../../services/wait-dialog.service";
 import { ToastGeneralErrorService } from "../../services/toast-general-error.service";
+import { BackupState } from "../../models/backup-state";
 
 @Component({
   selector: "app-settings-system",
@@ -123,34 +124,48 @@ export class SettingsSystemComponent implements OnInit, OnDestroy {
     });
   }
 
-  private getCurrentDateString(): string {
-    const today: Date = new Date();
-    const year: number = today.getFullYear();
-    const month: string = String(today.getMonth() + 1).padStart(2, "0");
-    const day: string = String(today.getDate()).padStart(2, "0");
+  backupCreate(incremental: boolean = false) {
+    // The backup is streamed by the server. Let the browser download it to the disk directly instead of
+    // keeping the whole archive in memory. The server names the file with its creation time.
+    let url: string;
 
-    return `${year}-${month}-${day}`;
-  }
+    if (environment.name == "dev") {
+      url = "http://" + environment.localBackend + "/";
+    } else {
+      url = "/";
+    }
 
-  private downloadFile(blob: Blob) {
-    saveAs(blob, "rocket-show-backup-" + this.getCurrentDateString() + ".tar.gz");
-  }
+    // Identify this backup in the state polled from the server
+    const id: string = Date.now() + "-" + Math.random().toString(36).substring(2);
 
-  backupCreate() {
     this.waitDialogService.show("settings.backup.wait-create");
-    this.http
-      .get("system/create-backup", { responseType: "blob" })
-      .pipe(
-        catchError((err) => {
-          return this.toastGeneralErrorService.show(err);
-        }),
-        finalize(() => {
-          this.waitDialogService.hide();
-        })
-      )
-      .subscribe((blob: any) => {
-        this.downloadFile(blob);
+
+    const link: HTMLAnchorElement = document.createElement("a");
+    link.href = url + "api/system/create-backup?incremental=" + incremental + "&id=" + id;
+    document.body.appendChild(link);
+    link.click();
+    document.body.removeChild(link);
+
+    this.waitForBackup(id);
+  }
+
+  private waitForBackup(id: string) {
+    let stateSubscription: Subscription = timer(1000, 1000).subscribe(() => {
+      this.http.get("system/backup-state").subscribe((result: any) => {
+        const state = new BackupState(result);
+
+        if (state.id != id || !state.finished) {
+          return;
+        }
+
+        stateSubscription.unsubscribe();
+        this.waitDialogService.hide();
+
+        if (state.error) {
+          this.toastGeneralErrorService.showMessage(state.error);
+        }
       });
+    });
   }
 
   backupRestore() {
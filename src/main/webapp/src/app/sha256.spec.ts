@@ -0,0 +1,28 @@
+import { Sha256 } from "./sha256";
+
+describe("Sha256", () => {
+  function getChecksum(text: string, sliceLength: number): string {
+    const data = new TextEncoder().encode(text);
+    const sha256 = new Sha256();
+
+    for (let offset = 0; offset < data.length; offset += sliceLength) {
+      sha256.update(data.subarray(offset, offset + sliceLength));
+    }
+
+    return sha256.digest();
+  }
+
+  it("should hash empty data", () => {
+    expect(getChecksum("", 1)).toBe("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+  });
+
+  it("should hash data in slices", () => {
+    const text = "abcdbcdecdefdefgefghfghighijhijkijkljklmklmnlmnomnopnopq";
+    const checksum = "248d6a61d20638b8e5c026930c3e6039a33ce45964ff2167f6ecedd419db06c1";
+
+    expect(getChecksum("abc", 3)).toBe("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    expect(getChecksum(text, text.length)).toBe(checksum);
+    expect(getChecksum(text, 1)).toBe(checksum);
+    expect(getChecksum(text, 7)).toBe(checksum);
+  });
+});
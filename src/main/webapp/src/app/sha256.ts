@@ -0,0 +1,127 @@
+// An incremental SHA-256 implementation. The Web Crypto API is only available in secure contexts (not on the
+// plain HTTP the devices are usually reached with) and can't hash a file in slices.
+export class Sha256 {
+  private static readonly K = new Uint32Array([
+    0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5, 0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+    0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3, 0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+    0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc, 0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+    0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7, 0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+    0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13, 0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+    0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3, 0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+    0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5, 0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+    0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208, 0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2,
+  ]);
+
+  private readonly hash = new Uint32Array([
+    0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a, 0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19,
+  ]);
+
+  private readonly words = new Uint32Array(64);
+
+  // The bytes of an incomplete block, waiting for the next update
+  private readonly block = new Uint8Array(64);
+  private blockLength = 0;
+
+  private totalLength = 0;
+
+  update(data: Uint8Array) {
+    let offset = 0;
+
+    this.totalLength += data.length;
+
+    if (this.blockLength > 0) {
+      offset = Math.min(64 - this.blockLength, data.length);
+      this.block.set(data.subarray(0, offset), this.blockLength);
+      this.blockLength += offset;
+
+      if (this.blockLength < 64) {
+        return;
+      }
+
+      this.processBlock(this.block, 0);
+      this.blockLength = 0;
+    }
+
+    for (; offset + 64 <= data.length; offset += 64) {
+      this.processBlock(data, offset);
+    }
+
+    this.block.set(data.subarray(offset), 0);
+    this.blockLength = data.length - offset;
+  }
+
+  // Get the hex checksum of all data. The instance can't be updated anymore.
+  digest(): string {
+    // Pad with a one bit, zeros and the length in bits to a multiple of the block size
+    const padding = new Uint8Array((this.blockLength < 56 ? 64 : 128) - this.blockLength);
+    const paddingView = new DataView(padding.buffer);
+
+    padding[0] = 0x80;
+    paddingView.setUint32(padding.length - 8, Math.floor(this.totalLength / 0x20000000));
+    paddingView.setUint32(padding.length - 4, (this.totalLength * 8) >>> 0);
+
+    this.update(padding);
+
+    let checksum = "";
+
+    for (const value of this.hash) {
+      checksum += value.toString(16).padStart(8, "0");
+    }
+
+    return checksum;
+  }
+
+  private processBlock(data: Uint8Array, offset: number) {
+    const words = this.words;
+    const hash = this.hash;
+
+    for (let i = 0; i < 16; i++) {
+      const j = offset + i * 4;
+      words[i] = (data[j] << 24) | (data[j + 1] << 16) | (data[j + 2] << 8) | data[j + 3];
+    }
+
+    for (let i = 16; i < 64; i++) {
+      const w15 = words[i - 15];
+      const w2 = words[i - 2];
+      const s0 = ((w15 >>> 7) | (w15 << 25)) ^ ((w15 >>> 18) | (w15 << 14)) ^ (w15 >>> 3);
+      const s1 = ((w2 >>> 17) | (w2 << 15)) ^ ((w2 >>> 19) | (w2 << 13)) ^ (w2 >>> 10);
+      words[i] = words[i - 16] + s0 + words[i - 7] + s1;
+    }
+
+    let a = hash[0];
+    let b = hash[1];
+    let c = hash[2];
+    let d = hash[3];
+    let e = hash[4];
+    let f = hash[5];
+    let g = hash[6];
+    let h = hash[7];
+
+    for (let i = 0; i < 64; i++) {
+      const s1 = ((e >>> 6) | (e << 26)) ^ ((e >>> 11) | (e << 21)) ^ ((e >>> 25) | (e << 7));
+      const ch = (e & f) ^ (~e & g);
+      const t1 = (h + s1 + ch + Sha256.K[i] + words[i]) | 0;
+      const s0 = ((a >>> 2) | (a << 30)) ^ ((a >>> 13) | (a << 19)) ^ ((a >>> 22) | (a << 10));
+      const maj = (a & b) ^ (a & c) ^ (b & c);
+      const t2 = (s0 + maj) | 0;
+
+      h = g;
+      g = f;
+      f = e;
+      e = (d + t1) | 0;
+      d = c;
+      c = b;
+      b = a;
+      a = (t1 + t2) | 0;
+    }
+
+    hash[0] += a;
+    hash[1] += b;
+    hash[2] += c;
+    hash[3] += d;
+    hash[4] += e;
+    hash[5] += f;
+    hash[6] += g;
+    hash[7] += h;
+  }
+}
@@ -0,0 +1,100 @@
+package com.ascargon.rocketshow;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class DefaultRemoteDeviceSyncServiceTest {
+
+    private final static double DELTA = 1e-9;
+
+    private DefaultRemoteDeviceSyncService remoteDeviceSyncService;
+
+    private RemoteDevice remoteDevice;
+
+    @BeforeEach
+    public void setUp() {
+        Settings settings = new Settings();
+        settings.setRemoteSyncMaxDriftMillis(200);
+
+        SettingsService settingsService = mock(SettingsService.class);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        remoteDeviceSyncService = new DefaultRemoteDeviceSyncService(settingsService);
+
+        remoteDevice = mock(RemoteDevice.class);
+        when(remoteDevice.getName()).thenReturn("remote");
+    }
+
+    @Test
+    public void testDeadBand() {
+        assertEquals(1, DefaultRemoteDeviceSyncService.getCorrectionRate(0, 1, 1000), DELTA);
+        assertEquals(1, DefaultRemoteDeviceSyncService.getCorrectionRate(20, 1, 1000), DELTA);
+        assertEquals(1, DefaultRemoteDeviceSyncService.getCorrectionRate(-20, 1, 1000), DELTA);
+    }
+
+    @Test
+    public void testRateSteps() {
+        // Ahead -> slow down, behind -> speed up, in steps of 0.25%
+        assertEquals(0.9975, DefaultRemoteDeviceSyncService.getCorrectionRate(25, 1, 5000), DELTA);
+        assertEquals(1.0025, DefaultRemoteDeviceSyncService.getCorrectionRate(-25, 1, 5000), DELTA);
+
+        // Capped at 0.5%
+        assertEquals(0.995, DefaultRemoteDeviceSyncService.getCorrectionRate(25, 1, 1000), DELTA);
+        assertEquals(1.005, DefaultRemoteDeviceSyncService.getCorrectionRate(-150, 1, 1000), DELTA);
+    }
+
+    @Test
+    public void testHysteresis() {
+        // Keep the step while catching up, even within the dead band
+        assertEquals(0.9975, DefaultRemoteDeviceSyncService.getCorrectionRate(10, 0.9975, 5000), DELTA);
+        assertEquals(1.0025, DefaultRemoteDeviceSyncService.getCorrectionRate(-10, 1.0025, 5000), DELTA);
+
+        // A smaller drift does not reduce the step
+        assertEquals(0.995, DefaultRemoteDeviceSyncService.getCorrectionRate(15, 0.995, 5000), DELTA);
+
+        // A growing drift increases it
+        assertEquals(0.995, DefaultRemoteDeviceSyncService.getCorrectionRate(60, 0.9975, 5000), DELTA);
+
+        // Back to normal when caught up or overshot
+        assertEquals(1, DefaultRemoteDeviceSyncService.getCorrectionRate(4, 0.9975, 5000), DELTA);
+        assertEquals(1, DefaultRemoteDeviceSyncService.getCorrectionRate(-8, 0.9975, 5000), DELTA);
+        assertEquals(1, DefaultRemoteDeviceSyncService.getCorrectionRate(8, 1.0025, 5000), DELTA);
+    }
+
+    @Test
+    public void testOnlyRateChangesAreSent() {
+        long[] driftsMillis = {3, 12, 25, 22, 18, 12, 7, 3, 2, 15};
+
+        for (long driftMillis : driftsMillis) {
+            remoteDeviceSyncService.correct(remoteDevice, driftMillis, 1000);
+        }
+
+        // One slow down and one reset for ten measurements
+        verify(remoteDevice, times(2)).setPlaybackRate(anyDouble());
+        verify(remoteDevice).setPlaybackRate(0.995);
+        verify(remoteDevice).setPlaybackRate(1);
+        verify(remoteDevice, never()).seek(anyLong());
+    }
+
+    @Test
+    public void testSeekOnLargeDrift() {
+        remoteDeviceSyncService.correct(remoteDevice, -50, 1000);
+        verify(remoteDevice).setPlaybackRate(1.005);
+
+        remoteDeviceSyncService.correct(remoteDevice, 250, 1000);
+        verify(remoteDevice).seek(1000);
+
+        // The seek has reset the remote rate -> no reset is sent and a new drift starts a new correction
+        remoteDeviceSyncService.correct(remoteDevice, 3, 2000);
+        remoteDeviceSyncService.correct(remoteDevice, -30, 3000);
+
+        verify(remoteDevice, never()).setPlaybackRate(1);
+        verify(remoteDevice, times(2)).setPlaybackRate(1.005);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.ascargon.rocketshow.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AudioLevelMeterTest {
+
+    private final AudioLevelMeter audioLevelMeter = new AudioLevelMeter();
+
+    @BeforeEach
+    public void setUp() {
+        // A stereo bus and a mono bus
+        audioLevelMeter.setChannelCount(3);
+        audioLevelMeter.mapChannels(new int[]{2, 1});
+    }
+
+    // Get the level and the held peak of a channel in dB
+    private static double[] decode(ByteBuffer frame, int bus, int channel) {
+        assertEquals(2, frame.get(0));
+
+        int position = 1;
+
+        for (int i = 0; i < bus; i++) {
+            position += 1 + frame.get(position) * 2;
+        }
+
+        assertTrue(channel < frame.get(position));
+        position += 1 + channel * 2;
+
+        return new double[]{-(frame.get(position) & 0xFF) / 2d, -(frame.get(position + 1) & 0xFF) / 2d};
+    }
+
+    @Test
+    public void holdsPeakBeforeDecaying() {
+        audioLevelMeter.update(new double[]{-6, -12, -40}, 1000);
+
+        ByteBuffer frame = audioLevelMeter.encode(null);
+        assertArrayEquals(new double[]{-6, -6}, decode(frame, 0, 0));
+        assertArrayEquals(new double[]{-12, -12}, decode(frame, 0, 1));
+        assertArrayEquals(new double[]{-40, -40}, decode(frame, 1, 0));
+
+        // The level decays with 20 dB/s, the peak is held for a second
+        audioLevelMeter.update(null, 1500);
+        assertArrayEquals(new double[]{-16, -6}, decode(audioLevelMeter.encode(null), 0, 0));
+
+        audioLevelMeter.update(null, 2000);
+        assertArrayEquals(new double[]{-26, -6}, decode(audioLevelMeter.encode(null), 0, 0));
+
+        // The held peak decays after a second, but not below the level
+        audioLevelMeter.update(null, 2500);
+        assertArrayEquals(new double[]{-36, -16}, decode(audioLevelMeter.encode(null), 0, 0));
+    }
+
+    @Test
+    public void holdsNewPeakAgain() {
+        audioLevelMeter.update(new double[]{-6, -6, -6}, 1000);
+        audioLevelMeter.update(null, 2500);
+
+        // A new peak above the level but below the held peak is held from now on
+        audioLevelMeter.update(new double[]{-20, -3, -6}, 3000);
+        ByteBuffer frame = audioLevelMeter.encode(null);
+        assertArrayEquals(new double[]{-20, -20}, decode(frame, 0, 0));
+        assertArrayEquals(new double[]{-3, -3}, decode(frame, 0, 1));
+
+        audioLevelMeter.update(null, 3900);
+        assertArrayEquals(new double[]{-38, -20}, decode(audioLevelMeter.encode(null), 0, 0));
+    }
+
+    @Test
+    public void decaysToSilence() {
+        audioLevelMeter.update(new double[]{0, 0, 0}, 1000);
+        assertTrue(audioLevelMeter.isFrameRequired());
+
+        audioLevelMeter.update(null, 5000);
+        assertTrue(audioLevelMeter.isFrameRequired());
+
+        audioLevelMeter.update(null, 9000);
+        assertArrayEquals(new double[]{AudioLevelMeter.SILENCE_DB, AudioLevelMeter.SILENCE_DB}, decode(audioLevelMeter.encode(null), 0, 0));
+
+        // The frame with the silence is sent once
+        assertTrue(audioLevelMeter.isFrameRequired());
+
+        audioLevelMeter.update(null, 9100);
+        assertFalse(audioLevelMeter.isFrameRequired());
+    }
+
+    @Test
+    public void clampsLevels() {
+        audioLevelMeter.update(new double[]{3, -200, Double.NEGATIVE_INFINITY}, 1000);
+
+        ByteBuffer frame = audioLevelMeter.encode(null);
+        assertArrayEquals(new double[]{0, 0}, decode(frame, 0, 0));
+        assertArrayEquals(new double[]{AudioLevelMeter.SILENCE_DB, AudioLevelMeter.SILENCE_DB}, decode(frame, 0, 1));
+        assertArrayEquals(new double[]{AudioLevelMeter.SILENCE_DB, AudioLevelMeter.SILENCE_DB}, decode(frame, 1, 0));
+    }
+
+    @Test
+    public void encodesSubscribedBusesOnly() {
+        audioLevelMeter.update(new double[]{-6, -12, -40}, 1000);
+
+        ByteBuffer frame = audioLevelMeter.encode(Set.of(1));
+
+        // The stereo bus is sent without channels
+        assertEquals(5, frame.remaining());
+        assertEquals(0, frame.get(1));
+        assertArrayEquals(new double[]{-40, -40}, decode(frame, 1, 0));
+    }
+
+    @Test
+    public void mapsAvailableChannelsOnly() {
+        audioLevelMeter.setChannelCount(1);
+        audioLevelMeter.mapChannels(new int[]{2, 1});
+        audioLevelMeter.update(new double[]{-6}, 1000);
+
+        ByteBuffer frame = audioLevelMeter.encode(null);
+        assertEquals(1, frame.get(0));
+        assertEquals(1, frame.get(1));
+        assertEquals(4, frame.remaining());
+    }
+
+}
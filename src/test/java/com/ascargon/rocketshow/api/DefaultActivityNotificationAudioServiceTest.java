@@ -0,0 +1,35 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.SettingsService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DefaultActivityNotificationAudioServiceTest {
+
+    @Test
+    public void keepsPostedLevels() {
+        WebSocketBroadcaster broadcaster = mock(WebSocketBroadcaster.class);
+        when(broadcaster.hasSubscribers()).thenReturn(true);
+
+        WebSocketBroadcastService webSocketBroadcastService = mock(WebSocketBroadcastService.class);
+        when(webSocketBroadcastService.createBroadcaster(any())).thenReturn(broadcaster);
+
+        DefaultActivityNotificationAudioService audioService = new DefaultActivityNotificationAudioService(mock(SettingsService.class), webSocketBroadcastService);
+
+        double[] firstDbs = {-10, -20};
+        double[] secondDbs = {-30, -5};
+
+        // The peaks are merged without the meter running, but the posted arrays stay unchanged
+        audioService.notifyClients(firstDbs);
+        audioService.notifyClients(secondDbs);
+
+        assertArrayEquals(new double[]{-10, -20}, firstDbs);
+        assertArrayEquals(new double[]{-30, -5}, secondDbs);
+
+        audioService.close();
+    }
+
+}
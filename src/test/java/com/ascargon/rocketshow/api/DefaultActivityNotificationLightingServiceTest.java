@@ -0,0 +1,49 @@
+package com.ascargon.rocketshow.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DefaultActivityNotificationLightingServiceTest {
+
+    @Test
+    public void sendsCurrentUniverseToNewClient() {
+        List<ByteBuffer> frameList = new CopyOnWriteArrayList<>();
+
+        WebSocketBroadcaster broadcaster = mock(WebSocketBroadcaster.class);
+
+        doAnswer(invocation -> {
+            frameList.add(((BinaryMessage) invocation.getArgument(0)).getPayload());
+            return null;
+        }).when(broadcaster).broadcast(any(BinaryMessage.class), any());
+
+        WebSocketBroadcastService webSocketBroadcastService = mock(WebSocketBroadcastService.class);
+        when(webSocketBroadcastService.createBroadcaster(any())).thenReturn(broadcaster);
+
+        DefaultActivityNotificationLightingService lightingService = new DefaultActivityNotificationLightingService(webSocketBroadcastService);
+
+        // The universe changes without any client
+        short[] universe = new short[512];
+        universe[0] = 10;
+        lightingService.notifyClients(universe);
+        universe[0] = 20;
+        lightingService.notifyClients(universe);
+
+        assertTrue(frameList.isEmpty());
+
+        lightingService.afterConnectionEstablished(mock(WebSocketSession.class));
+
+        assertEquals(1, frameList.size());
+        assertEquals(LightingActivityFrameEncoder.TYPE_KEYFRAME, frameList.get(0).get(0));
+        assertEquals(20, frameList.get(0).get(6));
+    }
+
+}
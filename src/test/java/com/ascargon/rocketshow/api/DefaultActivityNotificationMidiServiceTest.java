@@ -0,0 +1,141 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.midi.ActivityMidiSignal;
+import com.ascargon.rocketshow.midi.MidiDirection;
+import com.ascargon.rocketshow.midi.MidiSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.midi.ShortMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DefaultActivityNotificationMidiServiceTest {
+
+    private final static int THREADS = 8;
+    private final static int SIGNALS = 200000;
+
+    private final List<ActivityMidi> activityList = new CopyOnWriteArrayList<>();
+
+    private final DefaultActivityNotificationMidiService midiService;
+
+    public DefaultActivityNotificationMidiServiceTest() throws Exception {
+        WebSocketBroadcaster broadcaster = mock(WebSocketBroadcaster.class);
+        when(broadcaster.hasSubscribers()).thenReturn(true);
+
+        doAnswer(invocation -> {
+            activityList.add(invocation.getArgument(0));
+            return null;
+        }).when(broadcaster).broadcast(any(ActivityMidi.class), any());
+
+        WebSocketBroadcastService webSocketBroadcastService = mock(WebSocketBroadcastService.class);
+        when(webSocketBroadcastService.createBroadcaster(any())).thenReturn(broadcaster);
+
+        midiService = new DefaultActivityNotificationMidiService(webSocketBroadcastService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        midiService.close();
+    }
+
+    private int getSignalCount() {
+        return activityList.stream().mapToInt(ActivityMidi::getSignalCount).sum();
+    }
+
+    @Test
+    public void recordsAllSignalsOfConcurrentSenders() throws Exception {
+        Map<String, AtomicInteger> expectedCountMap = new ConcurrentHashMap<>();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Thread> threadList = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            int channel = thread;
+
+            threadList.add(new Thread(() -> {
+                try {
+                    startLatch.await();
+
+                    for (int i = 0; i < SIGNALS / THREADS; i++) {
+                        ShortMessage shortMessage = new ShortMessage(i % 3 == 0 ? ShortMessage.NOTE_OFF : ShortMessage.NOTE_ON, channel, i % 128, 100);
+                        midiService.notifyClients(shortMessage, MidiDirection.IN, MidiSource.IN_DEVICE, null);
+                        expectedCountMap.computeIfAbsent(shortMessage.getCommand() + "/" + channel + "/" + (i % 128), key -> new AtomicInteger()).incrementAndGet();
+
+                        // Send in bursts spanning several windows
+                        if (i % 5000 == 0) {
+                            Thread.sleep(20);
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+
+        threadList.forEach(Thread::start);
+        startLatch.countDown();
+
+        for (Thread thread : threadList) {
+            thread.join();
+        }
+
+        // Wait for the last window
+        long timeoutMillis = System.currentTimeMillis() + 5000;
+
+        while (getSignalCount() < SIGNALS && System.currentTimeMillis() < timeoutMillis) {
+            Thread.sleep(10);
+        }
+
+        Thread.sleep(100);
+
+        assertEquals(SIGNALS, getSignalCount());
+        assertTrue(activityList.size() > 1);
+
+        Map<String, Integer> countMap = new ConcurrentHashMap<>();
+
+        for (ActivityMidi activityMidi : activityList) {
+            assertEquals(MidiDirection.IN, activityMidi.getMidiDirection());
+            assertEquals(List.of(MidiSource.IN_DEVICE), activityMidi.getMidiSources());
+            assertSame(activityMidi.getMidiSignals().get(0), activityMidi.getMidiSignal());
+
+            for (ActivityMidiSignal midiSignal : activityMidi.getMidiSignals()) {
+                assertEquals(100, midiSignal.getVelocity());
+                countMap.merge(midiSignal.getCommand() + "/" + midiSignal.getChannel() + "/" + midiSignal.getNote(), midiSignal.getCount(), Integer::sum);
+            }
+        }
+
+        assertEquals(expectedCountMap.size(), countMap.size());
+
+        for (Map.Entry<String, AtomicInteger> expectedCountEntry : expectedCountMap.entrySet()) {
+            assertEquals(expectedCountEntry.getValue().get(), countMap.get(expectedCountEntry.getKey()), expectedCountEntry.getKey());
+        }
+    }
+
+    @Test
+    public void ignoresSystemMessages() throws Exception {
+        midiService.notifyClients(new ShortMessage(ShortMessage.TIMING_CLOCK), MidiDirection.IN, MidiSource.IN_DEVICE, null);
+        midiService.notifyClients(new ShortMessage(ShortMessage.NOTE_ON, 1, 60, 90), MidiDirection.OUT, MidiSource.MIDI_FILE, null);
+
+        long timeoutMillis = System.currentTimeMillis() + 5000;
+
+        while (activityList.isEmpty() && System.currentTimeMillis() < timeoutMillis) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, activityList.size());
+        assertEquals(1, activityList.get(0).getSignalCount());
+        assertEquals(MidiDirection.OUT, activityList.get(0).getMidiDirection());
+        assertEquals(60, activityList.get(0).getMidiSignal().getNote());
+        assertEquals(90, activityList.get(0).getMidiSignal().getVelocity());
+    }
+
+}
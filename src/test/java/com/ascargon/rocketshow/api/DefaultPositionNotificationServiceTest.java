@@ -0,0 +1,152 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.PlayerService;
+import com.ascargon.rocketshow.Settings;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.composition.CompositionPlayer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DefaultPositionNotificationServiceTest {
+
+    private final List<Position> positionList = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final AtomicReference<CompositionPlayer.PlayState> playState = new AtomicReference<>(CompositionPlayer.PlayState.PLAYING);
+
+    private DefaultPositionNotificationService positionNotificationService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Settings settings = new Settings();
+        settings.setPositionFrequencyHertz(100);
+
+        SettingsService settingsService = mock(SettingsService.class);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        WebSocketBroadcaster broadcaster = mock(WebSocketBroadcaster.class);
+        when(broadcaster.hasSubscribers()).thenAnswer(invocation -> subscribed.get());
+        doAnswer(invocation -> {
+            subscribed.set(true);
+            return null;
+        }).when(broadcaster).addSession(any());
+        doAnswer(invocation -> {
+            subscribed.set(false);
+            return null;
+        }).when(broadcaster).removeSession(any());
+        doAnswer(invocation -> {
+            positionList.add(invocation.getArgument(0));
+            return null;
+        }).when(broadcaster).broadcast(any(Position.class));
+
+        WebSocketBroadcastService webSocketBroadcastService = mock(WebSocketBroadcastService.class);
+        when(webSocketBroadcastService.createBroadcaster(any())).thenReturn(broadcaster);
+
+        PlayerService playerService = mock(PlayerService.class);
+        when(playerService.getPlayState()).thenAnswer(invocation -> playState.get());
+        when(playerService.getCompositionName()).thenReturn("composition");
+        when(playerService.getPositionMillis()).thenReturn(1000L);
+        when(playerService.getClockTimeMillis()).thenReturn(5000L);
+
+        positionNotificationService = new DefaultPositionNotificationService(settingsService, webSocketBroadcastService);
+        positionNotificationService.start(playerService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        positionNotificationService.close();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws Exception {
+        long endMillis = System.currentTimeMillis() + 5000;
+
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < endMillis, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+
+    private Position getLastPosition() {
+        return positionList.get(positionList.size() - 1);
+    }
+
+    @Test
+    public void tickerRunsWhileClientsAreConnected() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+
+        assertFalse(positionNotificationService.isTickerRunning());
+
+        positionNotificationService.afterConnectionEstablished(session);
+        assertTrue(positionNotificationService.isTickerRunning());
+
+        waitUntil(() -> positionList.size() >= 3);
+
+        Position position = positionList.get(0);
+        assertEquals("composition", position.getCompositionName());
+        assertEquals(1000, position.getPositionMillis());
+        assertEquals(5000, position.getClockTimeMillis());
+        assertTrue(position.isPlaying());
+
+        // The ticker stops itself, as soon as the last client is gone
+        positionNotificationService.afterConnectionClosed(session, CloseStatus.NORMAL);
+        waitUntil(() -> !positionNotificationService.isTickerRunning());
+
+        positionNotificationService.afterConnectionEstablished(session);
+        assertTrue(positionNotificationService.isTickerRunning());
+    }
+
+    @Test
+    public void sendsPositionOnceMoreAfterStopping() throws Exception {
+        positionNotificationService.afterConnectionEstablished(mock(WebSocketSession.class));
+        waitUntil(() -> positionList.size() >= 3);
+
+        playState.set(CompositionPlayer.PlayState.STOPPED);
+
+        // Wait for the stopped position and a few more ticks
+        waitUntil(() -> !getLastPosition().isPlaying());
+        Thread.sleep(200);
+
+        assertEquals(1, positionList.stream().filter(position -> !position.isPlaying()).count());
+        assertFalse(getLastPosition().isPlaying());
+        assertTrue(positionNotificationService.isTickerRunning());
+
+        // Playing again continues the positions
+        int count = positionList.size();
+        playState.set(CompositionPlayer.PlayState.PLAYING);
+        waitUntil(() -> positionList.size() > count);
+        assertTrue(getLastPosition().isPlaying());
+    }
+
+    @Test
+    public void notifiesClientsWhenNotPlaying() throws Exception {
+        playState.set(CompositionPlayer.PlayState.STOPPED);
+
+        // Without clients nothing is sent
+        positionNotificationService.notifyClients();
+        assertTrue(positionList.isEmpty());
+
+        positionNotificationService.afterConnectionEstablished(mock(WebSocketSession.class));
+        Thread.sleep(100);
+        assertTrue(positionList.isEmpty());
+
+        // E.g. after seeking while stopped
+        positionNotificationService.notifyClients();
+
+        assertEquals(1, positionList.size());
+        assertFalse(positionList.get(0).isPlaying());
+        assertEquals(5000, positionList.get(0).getClockTimeMillis());
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.ascargon.rocketshow.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LightingActivityFrameEncoderTest {
+
+    private final LightingActivityFrameEncoder frameEncoder = new LightingActivityFrameEncoder(3);
+
+    private final short[] universe = new short[512];
+
+    // The values of the universe as decoded by a client
+    private final byte[] decodedValues = new byte[512];
+    private int decodedSequence = -1;
+
+    // Apply a frame as the web app does and return its type
+    private byte decode(ByteBuffer frame) {
+        byte type = frame.get();
+        assertEquals(3, frame.get());
+        int sequence = frame.getInt();
+
+        if (type == LightingActivityFrameEncoder.TYPE_KEYFRAME) {
+            assertEquals(512, frame.remaining());
+            frame.get(decodedValues);
+        } else {
+            // A delta is only valid after the previous frame
+            assertEquals(decodedSequence + 1, sequence);
+
+            while (frame.hasRemaining()) {
+                int start = frame.getShort();
+                int count = frame.getShort();
+                frame.get(decodedValues, start, count);
+            }
+        }
+
+        decodedSequence = sequence;
+        return type;
+    }
+
+    private byte[] getValues() {
+        byte[] values = new byte[512];
+
+        for (int i = 0; i < 512; i++) {
+            values[i] = (byte) universe[i];
+        }
+
+        return values;
+    }
+
+    // Get the runs of a delta as start and count pairs
+    private int[] getRuns(ByteBuffer frame) {
+        ByteBuffer buffer = frame.duplicate();
+        assertEquals(LightingActivityFrameEncoder.TYPE_DELTA, buffer.get());
+        buffer.position(6);
+
+        int[] runs = new int[0];
+
+        while (buffer.hasRemaining()) {
+            runs = Arrays.copyOf(runs, runs.length + 2);
+            runs[runs.length - 2] = buffer.getShort();
+            runs[runs.length - 1] = buffer.getShort();
+            buffer.position(buffer.position() + runs[runs.length - 1]);
+        }
+
+        return runs;
+    }
+
+    @Test
+    public void startsWithKeyframe() {
+        universe[0] = 255;
+        universe[511] = 300;
+
+        ByteBuffer frame = frameEncoder.encode(universe);
+
+        assertEquals(6 + 512, frame.remaining());
+        assertEquals(LightingActivityFrameEncoder.TYPE_KEYFRAME, decode(frame));
+        assertEquals((byte) 255, decodedValues[0]);
+
+        // Clamped to a single byte
+        assertEquals((byte) 255, decodedValues[511]);
+    }
+
+    @Test
+    public void skipsUnchangedFrames() {
+        decode(frameEncoder.encode(universe));
+
+        assertNull(frameEncoder.encode(universe));
+
+        universe[7] = 1;
+        assertEquals(LightingActivityFrameEncoder.TYPE_DELTA, decode(frameEncoder.encode(universe)));
+        assertEquals(2, decodedSequence);
+    }
+
+    @Test
+    public void mergesCloseRuns() {
+        frameEncoder.encode(universe);
+
+        // A gap of 4 channels costs as much as a new run header and is included in the run
+        universe[10] = 1;
+        universe[15] = 1;
+
+        // A gap of 5 channels starts a new run
+        universe[21] = 1;
+        universe[22] = 1;
+
+        ByteBuffer frame = frameEncoder.encode(universe);
+
+        assertArrayEquals(new int[]{10, 6, 21, 2}, getRuns(frame));
+        assertEquals(6 + 4 + 6 + 4 + 2, frame.remaining());
+    }
+
+    @Test
+    public void sendsKeyframeIfDeltaIsLarger() {
+        frameEncoder.encode(universe);
+
+        // Every second channel changed
+        for (int i = 0; i < 512; i += 2) {
+            universe[i] = 10;
+        }
+
+        assertEquals(6 + 512, frameEncoder.encode(universe).remaining());
+    }
+
+    @Test
+    public void sendsKeyframeRegularly() {
+        assertEquals(LightingActivityFrameEncoder.TYPE_KEYFRAME, decode(frameEncoder.encode(universe)));
+
+        for (int frame = 1; frame <= 81; frame++) {
+            universe[frame] = 1;
+            byte type = decode(frameEncoder.encode(universe));
+
+            // Every 41st frame is a keyframe, so a client recovers after 40 deltas at most
+            assertEquals(frame % 41 == 0 ? LightingActivityFrameEncoder.TYPE_KEYFRAME : LightingActivityFrameEncoder.TYPE_DELTA, type, "frame " + frame);
+        }
+    }
+
+    @Test
+    public void encodesCurrentUniverseForNewClient() {
+        decode(frameEncoder.encode(universe));
+
+        // No client connected meanwhile
+        universe[100] = 42;
+        frameEncoder.update(universe);
+
+        ByteBuffer keyframe = frameEncoder.encodeNextKeyframe();
+        assertEquals(LightingActivityFrameEncoder.TYPE_KEYFRAME, decode(keyframe));
+        assertArrayEquals(getValues(), decodedValues);
+
+        // The following frame is a delta again
+        universe[101] = 43;
+        assertEquals(LightingActivityFrameEncoder.TYPE_DELTA, decode(frameEncoder.encode(universe)));
+        assertArrayEquals(getValues(), decodedValues);
+    }
+
+    @Test
+    public void decodesRandomChanges() {
+        Random random = new Random(42);
+        long totalBytes = 0;
+        int frames = 0;
+
+        for (int i = 0; i < 2000; i++) {
+            // A few fixtures with 8 channels each fading or jumping
+            for (int fixture = random.nextInt(4); fixture >= 0; fixture--) {
+                int start = random.nextInt(64) * 8;
+
+                for (int channel = start; channel < start + 1 + random.nextInt(8); channel++) {
+                    universe[channel] = (short) random.nextInt(256);
+                }
+            }
+
+            ByteBuffer frame = frameEncoder.encode(universe);
+
+            if (frame != null) {
+                totalBytes += frame.remaining();
+                frames++;
+                decode(frame);
+            }
+
+            assertArrayEquals(getValues(), decodedValues, "frame " + i);
+        }
+
+        // About 36 bytes instead of the 6 KB of the previous JSON map
+        assertEquals(2000, frames);
+        assertTrue((double) totalBytes / frames < 40, "average frame size " + (double) totalBytes / frames);
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.midi.ActivityMidiSignal;
+import com.ascargon.rocketshow.midi.MidiDestination;
+import com.ascargon.rocketshow.midi.MidiDirection;
+import com.ascargon.rocketshow.midi.MidiSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.midi.ShortMessage;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MidiActivityWindowTest {
+
+    private final MidiActivityWindow window = new MidiActivityWindow();
+
+    @Test
+    public void countsSignalsInOrderOfTheirFirstOccurrence() throws Exception {
+        window.record(new ShortMessage(ShortMessage.PITCH_BEND, 15, 127, 64), MidiDirection.OUT, MidiSource.MIDI_FILE, MidiDestination.LIGHTING);
+        window.record(new ShortMessage(ShortMessage.NOTE_ON, 0, 60, 100), MidiDirection.IN, MidiSource.IN_DEVICE, MidiDestination.OUT_DEVICE);
+        window.record(new ShortMessage(ShortMessage.NOTE_ON, 0, 60, 80), MidiDirection.IN, MidiSource.IN_DEVICE, null);
+        window.record(new ShortMessage(ShortMessage.TIMING_CLOCK), MidiDirection.IN, MidiSource.IN_DEVICE, null);
+
+        ActivityMidi activityMidi = window.createActivity();
+        List<ActivityMidiSignal> midiSignalList = activityMidi.getMidiSignals();
+
+        assertEquals(2, midiSignalList.size());
+        assertEquals(3, activityMidi.getSignalCount());
+        assertSame(midiSignalList.get(0), activityMidi.getMidiSignal());
+
+        assertEquals(ShortMessage.PITCH_BEND, midiSignalList.get(0).getCommand());
+        assertEquals(15, midiSignalList.get(0).getChannel());
+        assertEquals(127, midiSignalList.get(0).getNote());
+        assertEquals(64, midiSignalList.get(0).getVelocity());
+        assertEquals(1, midiSignalList.get(0).getCount());
+
+        // The last velocity of a note is kept
+        assertEquals(ShortMessage.NOTE_ON, midiSignalList.get(1).getCommand());
+        assertEquals(60, midiSignalList.get(1).getNote());
+        assertEquals(80, midiSignalList.get(1).getVelocity());
+        assertEquals(2, midiSignalList.get(1).getCount());
+
+        assertEquals(MidiDirection.IN_OUT, activityMidi.getMidiDirection());
+        assertEquals(List.of(MidiSource.IN_DEVICE, MidiSource.MIDI_FILE), activityMidi.getMidiSources());
+        assertEquals(List.of(MidiDestination.OUT_DEVICE, MidiDestination.LIGHTING), activityMidi.getMidiDestinations());
+    }
+
+    @Test
+    public void isEmptyAfterReset() throws Exception {
+        window.scheduled.set(true);
+        window.record(new ShortMessage(ShortMessage.CONTROL_CHANGE, 3, 7, 127), MidiDirection.IN, MidiSource.REMOTE, null);
+        assertFalse(window.isEmpty());
+
+        window.reset();
+
+        assertTrue(window.isEmpty());
+        assertFalse(window.scheduled.get());
+
+        // The counts start again after the reset
+        window.record(new ShortMessage(ShortMessage.CONTROL_CHANGE, 3, 7, 10), MidiDirection.OUT, null, null);
+        ActivityMidi activityMidi = window.createActivity();
+
+        assertEquals(1, activityMidi.getSignalCount());
+        assertEquals(1, activityMidi.getMidiSignal().getCount());
+        assertEquals(MidiDirection.OUT, activityMidi.getMidiDirection());
+        assertTrue(activityMidi.getMidiSources().isEmpty());
+    }
+
+}
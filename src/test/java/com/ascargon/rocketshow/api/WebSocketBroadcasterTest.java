@@ -0,0 +1,114 @@
+package com.ascargon.rocketshow.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.standard.StandardWebSocketSession;
+
+import javax.websocket.Session;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class WebSocketBroadcasterTest {
+
+    // A single sender thread, which a stalled client could block for all others
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    private final WebSocketBroadcaster broadcaster = new WebSocketBroadcaster("test", new ObjectMapper(), executorService);
+
+    @AfterEach
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    private WebSocketSession mockSession(String id, List<String> receivedList, long sendMillis) throws IOException {
+        WebSocketSession session = mock(WebSocketSession.class);
+
+        when(session.getId()).thenReturn(id);
+        when(session.isOpen()).thenReturn(true);
+
+        doAnswer(invocation -> {
+            if (sendMillis > 0) {
+                // A stalled client, whose send is aborted by the container's send timeout
+                Thread.sleep(sendMillis);
+                throw new SocketTimeoutException("Send timed out");
+            }
+
+            receivedList.add(((TextMessage) invocation.getArgument(0)).getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+
+        return session;
+    }
+
+    @Test
+    public void evictsStalledClientWithoutBlockingOthers() throws Exception {
+        List<String> receivedList = new CopyOnWriteArrayList<>();
+        WebSocketSession stalledSession = mockSession("stalled", receivedList, 200);
+        WebSocketSession session = mockSession("session", receivedList, 0);
+
+        broadcaster.addSession(stalledSession);
+        broadcaster.addSession(session);
+
+        for (int i = 0; i < 10; i++) {
+            broadcaster.broadcast(new TextMessage("message " + i));
+        }
+
+        // The stalled session is closed by its sender thread without waiting for the busy pool
+        verify(stalledSession, timeout(2000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(2, TimeUnit.SECONDS));
+
+        assertEquals(10, receivedList.size());
+        assertEquals("message 9", receivedList.get(9));
+
+        WebSocketBroadcastStatistics statistics = broadcaster.getStatistics();
+        assertEquals(1, statistics.getSessions());
+        assertEquals(1, statistics.getEvictedSessions());
+        assertEquals(0, statistics.getQueuedBytes());
+    }
+
+    @Test
+    public void evictsIdleClientExceedingBufferDirectly() throws Exception {
+        WebSocketSession session = mockSession("session", new CopyOnWriteArrayList<>(), 0);
+        broadcaster.addSession(session);
+
+        // Larger than the buffer limit, without any message being sent
+        broadcaster.broadcast(new TextMessage("x".repeat(600 * 1024)));
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(session, never()).sendMessage(any());
+        assertEquals(0, broadcaster.getStatistics().getQueuedBytes());
+    }
+
+    @Test
+    public void setsBlockingSendTimeout() {
+        Map<String, Object> userProperties = new HashMap<>();
+        Session nativeSession = mock(Session.class);
+        when(nativeSession.getUserProperties()).thenReturn(userProperties);
+        when(nativeSession.getId()).thenReturn("native");
+
+        StandardWebSocketSession session = new StandardWebSocketSession(null, null, null, null);
+        session.initializeNativeSession(nativeSession);
+
+        broadcaster.addSession(session);
+
+        assertEquals(5000L, userProperties.get("org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT"));
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.ascargon.rocketshow.api;
+
+import com.ascargon.rocketshow.midi.MidiDestination;
+import com.ascargon.rocketshow.midi.MidiSource;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WebSocketSubscriptionTest {
+
+    // Read like the broadcaster does
+    private final ObjectReader subscriptionReader = new ObjectMapper().readerFor(WebSocketSubscription.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private WebSocketSubscription read(String json) throws Exception {
+        return subscriptionReader.readValue(json.replace('\'', '"'));
+    }
+
+    @Test
+    public void readsFilters() throws Exception {
+        WebSocketSubscription subscription = read("{'universes': [1, 2], 'midiSources': ['IN_DEVICE'], 'midiDestinations': ['LIGHTING'], 'audioBuses': [0], 'maxFrequencyHertz': 10, 'unknown': true}");
+
+        assertTrue(subscription.isSubscribed());
+        assertEquals(Set.of(1, 2), subscription.getUniverses());
+        assertEquals(Set.of(MidiSource.IN_DEVICE), subscription.getMidiSources());
+        assertEquals(Set.of(MidiDestination.LIGHTING), subscription.getMidiDestinations());
+        assertEquals(Set.of(0), subscription.getAudioBuses());
+        assertEquals(10, subscription.getMaxFrequencyHertz());
+    }
+
+    @Test
+    public void doesNotRestrictWithoutFilters() throws Exception {
+        WebSocketSubscription subscription = read("{}");
+
+        assertTrue(subscription.isSubscribed());
+        assertNull(subscription.getUniverses());
+        assertNull(subscription.getMidiSources());
+        assertNull(subscription.getMidiDestinations());
+        assertNull(subscription.getAudioBuses());
+        assertNull(subscription.getMaxFrequencyHertz());
+        assertEquals(new WebSocketSubscription(), subscription);
+    }
+
+    @Test
+    public void comparesAllFilters() throws Exception {
+        WebSocketSubscription subscription = read("{'universes': [1, 2], 'audioBuses': [0, 1], 'maxFrequencyHertz': 10}");
+        WebSocketSubscription equalSubscription = read("{'audioBuses': [1, 0], 'universes': [2, 1], 'maxFrequencyHertz': 10}");
+
+        assertEquals(subscription, equalSubscription);
+        assertEquals(subscription.hashCode(), equalSubscription.hashCode());
+
+        assertNotEquals(subscription, read("{'universes': [1, 2], 'audioBuses': [0, 1], 'maxFrequencyHertz': 20}"));
+        assertNotEquals(subscription, read("{'universes': [1], 'audioBuses': [0, 1], 'maxFrequencyHertz': 10}"));
+        assertNotEquals(subscription, read("{'universes': [1, 2], 'audioBuses': [0], 'maxFrequencyHertz': 10}"));
+        assertNotEquals(subscription, read("{'universes': [1, 2], 'audioBuses': [0, 1], 'maxFrequencyHertz': 10, 'subscribed': false}"));
+        assertNotEquals(read("{'midiSources': ['IN_DEVICE']}"), read("{'midiSources': ['REMOTE']}"));
+        assertNotEquals(read("{'midiDestinations': ['LIGHTING']}"), read("{'midiDestinations': []}"));
+    }
+
+    @Test
+    public void sharesMessageBetweenEqualSubscriptions() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        WebSocketBroadcaster broadcaster = new WebSocketBroadcaster("test", new ObjectMapper(), executorService);
+
+        String[] payloads = {"{\"audioBuses\": [0, 1]}", "{\"audioBuses\": [1, 0]}", "{\"audioBuses\": [1]}"};
+
+        for (int i = 0; i < payloads.length; i++) {
+            WebSocketSession session = mock(WebSocketSession.class);
+            when(session.getId()).thenReturn("session " + i);
+            when(session.isOpen()).thenReturn(true);
+
+            broadcaster.addSession(session);
+            broadcaster.subscribe(session, payloads[i]);
+        }
+
+        // The message is created once per distinct subscription
+        AtomicInteger createdMessages = new AtomicInteger();
+
+        broadcaster.broadcastSample(subscription -> {
+            createdMessages.incrementAndGet();
+            return new TextMessage(subscription.getAudioBuses().toString());
+        });
+
+        assertEquals(2, createdMessages.get());
+        assertEquals(2, broadcaster.getStatistics().getMessages());
+
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(2, TimeUnit.SECONDS));
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.ascargon.rocketshow.composition;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompositionIndexTest {
+
+    private static CompositionIndexEntry createEntry(String name, long durationMillis) {
+        CompositionIndexEntry entry = new CompositionIndexEntry();
+        entry.setName(name);
+        entry.setDurationMillis(durationMillis);
+        return entry;
+    }
+
+    private static List<String> getNames(CompositionIndex index) {
+        return index.getEntryList().stream().map(CompositionIndexEntry::getName).toList();
+    }
+
+    @Test
+    public void looksUpSortedEntries() {
+        CompositionIndex index = new CompositionIndex(List.of(createEntry("c", 3), createEntry("a", 1), createEntry("b", 2)));
+
+        assertEquals(List.of("a", "b", "c"), getNames(index));
+        assertEquals(3, index.size());
+
+        assertEquals(0, index.getPosition("a"));
+        assertEquals(2, index.getPosition("c"));
+        assertEquals(-1, index.getPosition("d"));
+        assertEquals(-1, index.getPosition(null));
+
+        assertEquals(2, index.getEntry("b").getDurationMillis());
+        assertNull(index.getEntry("d"));
+        assertEquals("c", index.getEntry(2).getName());
+        assertNull(index.getEntry(3));
+        assertNull(index.getEntry(-1));
+
+        assertThrows(UnsupportedOperationException.class, () -> index.getEntryList().clear());
+    }
+
+    @Test
+    public void createsChangedIndex() {
+        CompositionIndex index = new CompositionIndex(List.of(createEntry("b", 2), createEntry("d", 4)));
+
+        CompositionIndex addedIndex = index.withEntry(createEntry("a", 1)).withEntry(createEntry("c", 3));
+        assertEquals(List.of("a", "b", "c", "d"), getNames(addedIndex));
+        assertEquals(2, addedIndex.getPosition("c"));
+
+        CompositionIndex replacedIndex = addedIndex.withEntry(createEntry("b", 20));
+        assertEquals(4, replacedIndex.size());
+        assertEquals(20, replacedIndex.getEntry("b").getDurationMillis());
+
+        CompositionIndex removedIndex = replacedIndex.withoutEntry("a");
+        assertEquals(List.of("b", "c", "d"), getNames(removedIndex));
+        assertEquals(0, removedIndex.getPosition("b"));
+        assertSame(removedIndex, removedIndex.withoutEntry("a"));
+
+        // The original indexes are unchanged
+        assertEquals(List.of("b", "d"), getNames(index));
+        assertEquals(2, addedIndex.getEntry("b").getDurationMillis());
+        assertEquals(0, new CompositionIndex().size());
+    }
+
+}
@@ -0,0 +1,286 @@
+package com.ascargon.rocketshow.composition;
+
+import com.ascargon.rocketshow.audio.AudioCompositionFile;
+import com.ascargon.rocketshow.lighting.Midi2LightingMapping;
+import com.ascargon.rocketshow.midi.ChannelMapping;
+import com.ascargon.rocketshow.midi.MidiCompositionFile;
+import com.ascargon.rocketshow.midi.MidiDestination;
+import com.ascargon.rocketshow.midi.MidiMapping;
+import com.ascargon.rocketshow.midi.MidiRouting;
+import com.ascargon.rocketshow.video.VideoCompositionFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompositionSnapshotTest {
+
+    @TempDir
+    Path path;
+
+    private static Composition createComposition() {
+        Composition composition = new Composition();
+        composition.setName("Song");
+        composition.setNotes("Notes");
+        composition.setDurationMillis(180000);
+        composition.setLoop(true);
+
+        AudioCompositionFile audioCompositionFile = new AudioCompositionFile();
+        audioCompositionFile.setName("song.wav");
+        audioCompositionFile.setOutputBus("bus1");
+        audioCompositionFile.setChannels(6);
+        audioCompositionFile.setOffsetMillis(-250);
+        audioCompositionFile.setDurationMillis(180000);
+        composition.getCompositionFileList().add(audioCompositionFile);
+
+        ChannelMapping channelMapping = new ChannelMapping();
+        channelMapping.setChannelFrom(1);
+        channelMapping.setChannelTo(10);
+
+        MidiRouting midiRouting = new MidiRouting();
+        midiRouting.setMidiDestination(MidiDestination.REMOTE);
+        midiRouting.getMidiMapping().getChannelMap().add(channelMapping);
+        midiRouting.getMidiMapping().setNoteOffset(-12);
+        midiRouting.getMidiMapping().setOverrideParent(true);
+        midiRouting.getMidi2LightingMapping().setMappingType(Midi2LightingMapping.MappingType.SIMPLE);
+        midiRouting.setRemoteDeviceIdList(List.of("a", "b"));
+
+        MidiCompositionFile midiCompositionFile = new MidiCompositionFile();
+        midiCompositionFile.setName("song.mid");
+        midiCompositionFile.setActive(false);
+        midiCompositionFile.getMidiRoutingList().add(midiRouting);
+        composition.getCompositionFileList().add(midiCompositionFile);
+
+        VideoCompositionFile videoCompositionFile = new VideoCompositionFile();
+        videoCompositionFile.setName("song.mp4");
+        videoCompositionFile.setLoop(true);
+        composition.getCompositionFileList().add(videoCompositionFile);
+
+        LeadSheet leadSheet = new LeadSheet();
+        leadSheet.setName("song.pdf");
+        leadSheet.setInstrumentUuid("guitar");
+        composition.getLeadSheetList().add(leadSheet);
+
+        return composition;
+    }
+
+    // All optional values missing
+    private static Composition createEmptyComposition() {
+        Composition composition = new Composition();
+        composition.setName("Empty");
+
+        AudioCompositionFile audioCompositionFile = new AudioCompositionFile();
+        composition.getCompositionFileList().add(audioCompositionFile);
+
+        MidiMapping midiMapping = new MidiMapping();
+        midiMapping.setChannelMap(null);
+        midiMapping.setChannelOffset(null);
+        midiMapping.setNoteOffset(null);
+        midiMapping.setOverrideParent(null);
+
+        MidiRouting midiRoutingWithoutParts = new MidiRouting();
+        midiRoutingWithoutParts.setMidiDestination(null);
+        midiRoutingWithoutParts.setMidiMapping(null);
+        midiRoutingWithoutParts.setMidi2LightingMapping(null);
+        midiRoutingWithoutParts.setRemoteDeviceIdList(null);
+
+        MidiRouting midiRoutingWithEmptyMapping = new MidiRouting();
+        midiRoutingWithEmptyMapping.setMidiMapping(midiMapping);
+
+        MidiCompositionFile midiCompositionFile = new MidiCompositionFile();
+        midiCompositionFile.getMidiRoutingList().add(midiRoutingWithoutParts);
+        midiCompositionFile.getMidiRoutingList().add(midiRoutingWithEmptyMapping);
+        composition.getCompositionFileList().add(midiCompositionFile);
+
+        composition.getLeadSheetList().add(new LeadSheet());
+
+        return composition;
+    }
+
+    private static CompositionIndexEntry createIndexEntry(Composition composition) {
+        CompositionIndexEntry indexEntry = new CompositionIndexEntry();
+        indexEntry.setName(composition.getName());
+        indexEntry.setDurationMillis(composition.getDurationMillis());
+        indexEntry.setLastModifiedMillis(1234);
+        indexEntry.setSizeBytes(5678);
+
+        for (CompositionFile compositionFile : composition.getCompositionFileList()) {
+            indexEntry.getFileNameList().add(compositionFile.getName());
+        }
+
+        return indexEntry;
+    }
+
+    private static void assertCompositionEquals(Composition expected, Composition actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getNotes(), actual.getNotes());
+        assertEquals(expected.getDurationMillis(), actual.getDurationMillis());
+        assertEquals(expected.isLoop(), actual.isLoop());
+        assertEquals(expected.getCompositionFileList().size(), actual.getCompositionFileList().size());
+
+        for (int i = 0; i < expected.getCompositionFileList().size(); i++) {
+            CompositionFile expectedFile = expected.getCompositionFileList().get(i);
+            CompositionFile actualFile = actual.getCompositionFileList().get(i);
+
+            assertEquals(expectedFile.getClass(), actualFile.getClass());
+            assertEquals(expectedFile.getName(), actualFile.getName());
+            assertEquals(expectedFile.isActive(), actualFile.isActive());
+            assertEquals(expectedFile.getDurationMillis(), actualFile.getDurationMillis());
+            assertEquals(expectedFile.isLoop(), actualFile.isLoop());
+            assertEquals(expectedFile.getOffsetMillis(), actualFile.getOffsetMillis());
+
+            if (expectedFile instanceof AudioCompositionFile) {
+                assertEquals(((AudioCompositionFile) expectedFile).getOutputBus(), ((AudioCompositionFile) actualFile).getOutputBus());
+                assertEquals(((AudioCompositionFile) expectedFile).getChannels(), ((AudioCompositionFile) actualFile).getChannels());
+            }
+
+            if (expectedFile instanceof MidiCompositionFile) {
+                List<MidiRouting> expectedRoutingList = ((MidiCompositionFile) expectedFile).getMidiRoutingList();
+                List<MidiRouting> actualRoutingList = ((MidiCompositionFile) actualFile).getMidiRoutingList();
+
+                assertEquals(expectedRoutingList.size(), actualRoutingList.size());
+
+                for (int j = 0; j < expectedRoutingList.size(); j++) {
+                    assertMidiRoutingEquals(expectedRoutingList.get(j), actualRoutingList.get(j));
+                }
+            }
+        }
+
+        assertEquals(expected.getLeadSheetList().size(), actual.getLeadSheetList().size());
+
+        for (int i = 0; i < expected.getLeadSheetList().size(); i++) {
+            assertEquals(expected.getLeadSheetList().get(i).getName(), actual.getLeadSheetList().get(i).getName());
+            assertEquals(expected.getLeadSheetList().get(i).getInstrumentUuid(), actual.getLeadSheetList().get(i).getInstrumentUuid());
+        }
+    }
+
+    private static void assertMidiRoutingEquals(MidiRouting expected, MidiRouting actual) {
+        assertEquals(expected.getMidiDestination(), actual.getMidiDestination());
+        assertEquals(expected.getRemoteDeviceIdList(), actual.getRemoteDeviceIdList());
+
+        if (expected.getMidi2LightingMapping() == null) {
+            assertNull(actual.getMidi2LightingMapping());
+        } else {
+            assertEquals(expected.getMidi2LightingMapping().getMappingType(), actual.getMidi2LightingMapping().getMappingType());
+        }
+
+        if (expected.getMidiMapping() == null) {
+            assertNull(actual.getMidiMapping());
+            return;
+        }
+
+        assertEquals(expected.getMidiMapping().getChannelOffset(), actual.getMidiMapping().getChannelOffset());
+        assertEquals(expected.getMidiMapping().getNoteOffset(), actual.getMidiMapping().getNoteOffset());
+        assertEquals(expected.getMidiMapping().isOverrideParent(), actual.getMidiMapping().isOverrideParent());
+
+        if (expected.getMidiMapping().getChannelMap() == null) {
+            assertNull(actual.getMidiMapping().getChannelMap());
+            return;
+        }
+
+        assertEquals(expected.getMidiMapping().getChannelMap().size(), actual.getMidiMapping().getChannelMap().size());
+
+        for (int i = 0; i < expected.getMidiMapping().getChannelMap().size(); i++) {
+            assertEquals(expected.getMidiMapping().getChannelMap().get(i).getChannelFrom(), actual.getMidiMapping().getChannelMap().get(i).getChannelFrom());
+            assertEquals(expected.getMidiMapping().getChannelMap().get(i).getChannelTo(), actual.getMidiMapping().getChannelMap().get(i).getChannelTo());
+        }
+    }
+
+    @Test
+    public void encodesCompositions() throws Exception {
+        for (Composition composition : List.of(createComposition(), createEmptyComposition())) {
+            assertCompositionEquals(composition, CompositionSnapshot.decodeComposition(CompositionSnapshot.encodeComposition(composition)));
+        }
+    }
+
+    @Test
+    public void writesAndReadsSnapshot() throws Exception {
+        Composition composition = createComposition();
+        Composition emptyComposition = createEmptyComposition();
+
+        SetComposition setComposition = new SetComposition();
+        setComposition.setName("Song");
+        setComposition.setDurationMillis(180000);
+        setComposition.setAutoStartNextComposition(true);
+
+        Set set = new Set();
+        set.setName("Set");
+        set.getSetCompositionList().add(setComposition);
+
+        File setFile = path.resolve("Set.xml").toFile();
+        Files.writeString(setFile.toPath(), "set");
+
+        CompositionSnapshot snapshot = new CompositionSnapshot();
+        snapshot.addComposition(createIndexEntry(composition), CompositionSnapshot.encodeComposition(composition));
+        snapshot.addComposition(createIndexEntry(emptyComposition), CompositionSnapshot.encodeComposition(emptyComposition));
+        snapshot.addSet(new CompositionSnapshot.SetEntry(setFile.lastModified(), setFile.length(), set));
+
+        File file = path.resolve("library.snapshot").toFile();
+        snapshot.write(file);
+
+        CompositionSnapshot readSnapshot = CompositionSnapshot.read(file);
+
+        assertEquals(2, readSnapshot.getCompositionIndexEntryList().size());
+
+        CompositionIndexEntry indexEntry = readSnapshot.getCompositionIndexEntryList().get(0);
+        assertEquals("Song", indexEntry.getName());
+        assertEquals(180000, indexEntry.getDurationMillis());
+        assertEquals(1234, indexEntry.getLastModifiedMillis());
+        assertEquals(5678, indexEntry.getSizeBytes());
+        assertEquals(List.of("song.wav", "song.mid", "song.mp4"), indexEntry.getFileNameList());
+
+        // The file names of the empty composition are null
+        assertEquals(2, readSnapshot.getCompositionIndexEntryList().get(1).getFileNameList().size());
+
+        assertCompositionEquals(composition, CompositionSnapshot.decodeComposition(readSnapshot.getCompositionDataMap().get("Song")));
+        assertCompositionEquals(emptyComposition, CompositionSnapshot.decodeComposition(readSnapshot.getCompositionDataMap().get("Empty")));
+
+        // Decoding doesn't consume the data
+        assertCompositionEquals(composition, CompositionSnapshot.decodeComposition(readSnapshot.getCompositionDataMap().get("Song")));
+
+        CompositionSnapshot.SetEntry setEntry = readSnapshot.getSetEntryMap().get("Set");
+        assertTrue(setEntry.matches(setFile));
+        assertNull(setEntry.getSet().getNotes());
+        assertEquals("Song", setEntry.getSet().getSetCompositionList().get(0).getName());
+        assertEquals(180000, setEntry.getSet().getSetCompositionList().get(0).getDurationMillis());
+        assertTrue(setEntry.getSet().getSetCompositionList().get(0).isAutoStartNextComposition());
+
+        Files.writeString(setFile.toPath(), "changed set");
+        assertFalse(setEntry.matches(setFile));
+    }
+
+    @Test
+    public void rejectsOtherVersion() throws Exception {
+        File file = path.resolve("library.snapshot").toFile();
+        new CompositionSnapshot().write(file);
+
+        assertNotNull(CompositionSnapshot.read(file));
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.seek(4);
+            randomAccessFile.writeInt(2);
+        }
+
+        IOException exception = assertThrows(IOException.class, () -> CompositionSnapshot.read(file));
+        assertTrue(exception.getMessage().contains("version 2"));
+    }
+
+    @Test
+    public void rejectsOtherFile() throws Exception {
+        File file = path.resolve("library.snapshot").toFile();
+
+        Files.writeString(file.toPath(), "<xml/>");
+        assertThrows(IOException.class, () -> CompositionSnapshot.read(file));
+
+        Files.write(file.toPath(), new byte[0]);
+        assertThrows(IOException.class, () -> CompositionSnapshot.read(file));
+    }
+
+}
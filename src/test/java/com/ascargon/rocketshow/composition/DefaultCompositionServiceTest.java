@@ -0,0 +1,83 @@
+package com.ascargon.rocketshow.composition;
+
+import com.ascargon.rocketshow.Settings;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.audio.AudioCompositionFile;
+import com.ascargon.rocketshow.util.DefaultJaxbService;
+import com.ascargon.rocketshow.util.DefaultMetricsService;
+import com.ascargon.rocketshow.util.JaxbService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultCompositionServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    private final JaxbService jaxbService = new DefaultJaxbService(new DefaultMetricsService());
+
+    private DefaultCompositionService compositionService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Settings settings = new Settings();
+        settings.setBasePath(basePath.toString() + File.separator);
+
+        SettingsService settingsService = mock(SettingsService.class);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        Composition composition = new Composition();
+        composition.setName("Song");
+        composition.setDurationMillis(1000);
+
+        AudioCompositionFile audioCompositionFile = new AudioCompositionFile();
+        audioCompositionFile.setName("song.wav");
+        composition.getCompositionFileList().add(audioCompositionFile);
+
+        Files.createDirectories(basePath.resolve("compositions"));
+        jaxbService.marshal(composition, basePath.resolve("compositions/Song.xml").toFile());
+
+        compositionService = new DefaultCompositionService(settingsService, mock(MediaMetadataService.class), jaxbService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        compositionService.close();
+    }
+
+    @Test
+    public void clonesCompositionInsteadOfSummary() {
+        Composition summary = new Composition();
+        summary.setName("Song");
+        summary.setSummary(true);
+
+        Composition composition = compositionService.cloneComposition(summary);
+
+        assertFalse(composition.isSummary());
+        assertEquals(1, composition.getCompositionFileList().size());
+        assertEquals("song.wav", composition.getCompositionFileList().get(0).getName());
+    }
+
+    @Test
+    public void listsLoadedOrSummarizedCompositions() {
+        Composition composition = compositionService.getAllCompositions().get(0);
+
+        assertEquals("Song", composition.getName());
+        assertEquals(1000, composition.getDurationMillis());
+
+        // A summary doesn't contain the files
+        assertEquals(composition.isSummary(), composition.getCompositionFileList().isEmpty());
+        assertFalse(compositionService.getComposition("Song").isSummary());
+    }
+
+}
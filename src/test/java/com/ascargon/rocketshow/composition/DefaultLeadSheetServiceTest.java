@@ -0,0 +1,94 @@
+package com.ascargon.rocketshow.composition;
+
+import com.ascargon.rocketshow.Settings;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.util.ChunkedFileUploadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class DefaultLeadSheetServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    private Path leadSheetPath;
+
+    private DefaultLeadSheetService leadSheetService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Settings settings = new Settings();
+        settings.setBasePath(basePath.toString() + "/");
+        settings.setMediaPath("media");
+        settings.setLeadSheetPath("leadsheets");
+
+        SettingsService settingsService = mock(SettingsService.class);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        leadSheetPath = basePath.resolve("media/leadsheets");
+        Files.createDirectories(leadSheetPath);
+        Files.writeString(leadSheetPath.resolve("existing.png"), "existing");
+
+        ChunkedFileUploadService chunkedFileUploadService = mock(ChunkedFileUploadService.class);
+
+        doAnswer(invocation -> {
+            File file = invocation.getArgument(1);
+            Files.write(file.toPath(), ((InputStream) invocation.getArgument(0)).readAllBytes());
+            return true;
+        }).when(chunkedFileUploadService).handleChunk(any(), any(), any(), anyLong(), anyLong(), any());
+
+        leadSheetService = new DefaultLeadSheetService(settingsService, chunkedFileUploadService);
+    }
+
+    // Change a file outside the application, with a clearly different modification time
+    private void writeOutside(String name, String content) throws Exception {
+        Path path = leadSheetPath.resolve(name);
+        Files.writeString(path, content);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() + 10000));
+    }
+
+    @Test
+    public void ignoresOwnChanges() throws Exception {
+        assertFalse(leadSheetService.reloadLeadSheet("existing.png"));
+
+        assertTrue(leadSheetService.saveLeadSheetAddChunk(new ByteArrayInputStream(new byte[]{1, 2}), "new.png", "upload", 0, 2, null));
+        leadSheetService.saveLeadSheetFinish("new.png");
+        assertFalse(leadSheetService.reloadLeadSheet("new.png"));
+
+        leadSheetService.deleteLeadSheet("existing.png");
+        assertFalse(leadSheetService.reloadLeadSheet("existing.png"));
+        assertFalse(Files.exists(leadSheetPath.resolve("existing.png")));
+    }
+
+    @Test
+    public void detectsOutsideChanges() throws Exception {
+        writeOutside("existing.png", "changed");
+        assertTrue(leadSheetService.reloadLeadSheet("existing.png"));
+
+        // Only reported once
+        assertFalse(leadSheetService.reloadLeadSheet("existing.png"));
+
+        writeOutside("added.png", "added");
+        assertTrue(leadSheetService.reloadLeadSheet("added.png"));
+
+        Files.delete(leadSheetPath.resolve("added.png"));
+        assertTrue(leadSheetService.reloadLeadSheet("added.png"));
+        assertFalse(leadSheetService.reloadLeadSheet("added.png"));
+
+        // Temporary files removed again before the check
+        assertFalse(leadSheetService.reloadLeadSheet("unknown.png"));
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.ascargon.rocketshow.composition;
+
+import com.ascargon.rocketshow.Capabilities;
+import com.ascargon.rocketshow.CapabilitiesService;
+import com.ascargon.rocketshow.Settings;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.gstreamer.GstDiscovererService;
+import com.ascargon.rocketshow.gstreamer.MediaInformation;
+import com.ascargon.rocketshow.util.FileFilterService;
+import com.ascargon.rocketshow.util.JaxbService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class DefaultMediaMetadataServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    private final GstDiscovererService gstDiscovererService = mock(GstDiscovererService.class);
+    private final JaxbService jaxbService = mock(JaxbService.class);
+
+    private DefaultMediaMetadataService mediaMetadataService;
+
+    @BeforeEach
+    public void setUp() {
+        Settings settings = new Settings();
+        settings.setBasePath(basePath.toString());
+
+        SettingsService settingsService = mock(SettingsService.class);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        Capabilities capabilities = new Capabilities();
+        capabilities.setGstreamer(true);
+
+        CapabilitiesService capabilitiesService = mock(CapabilitiesService.class);
+        when(capabilitiesService.getCapabilities()).thenReturn(capabilities);
+
+        mediaMetadataService = new DefaultMediaMetadataService(settingsService, capabilitiesService, gstDiscovererService, jaxbService, mock(FileFilterService.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mediaMetadataService.close();
+    }
+
+    private File createFile(String name) throws Exception {
+        File file = basePath.resolve(name).toFile();
+        Files.writeString(file.toPath(), name);
+        return file;
+    }
+
+    private static MediaInformation getMediaInformation(long durationMillis) {
+        MediaInformation mediaInformation = new MediaInformation();
+        mediaInformation.setDurationMillis(durationMillis);
+        return mediaInformation;
+    }
+
+    @Test
+    public void discoversConcurrentRequestsOnce() throws Exception {
+        File file = createFile("song.wav");
+        CompletableFuture<MediaInformation> discovererFuture = new CompletableFuture<>();
+        when(gstDiscovererService.discover(anyString())).thenReturn(discovererFuture);
+
+        CompletableFuture<MediaMetadata> future = mediaMetadataService.discover(file, CompositionFile.CompositionFileType.AUDIO);
+        assertSame(future, mediaMetadataService.discover(file, CompositionFile.CompositionFileType.AUDIO));
+
+        discovererFuture.complete(getMediaInformation(1000));
+        assertEquals(1000, future.join().getDurationMillis());
+
+        // Cached now
+        assertEquals(1000, mediaMetadataService.getMetadata(file, CompositionFile.CompositionFileType.AUDIO).getDurationMillis());
+        verify(gstDiscovererService, times(1)).discover(anyString());
+    }
+
+    @Test
+    public void discoversAgainAfterFailure() throws Exception {
+        File file = createFile("song.wav");
+        when(gstDiscovererService.discover(anyString()))
+                .thenReturn(CompletableFuture.failedFuture(new Exception("Not discovered")))
+                .thenReturn(CompletableFuture.completedFuture(getMediaInformation(2000)));
+
+        assertThrows(Exception.class, () -> mediaMetadataService.getMetadata(file, CompositionFile.CompositionFileType.AUDIO));
+        assertEquals(2000, mediaMetadataService.getMetadata(file, CompositionFile.CompositionFileType.AUDIO).getDurationMillis());
+    }
+
+    @Test
+    public void savesCacheOnceForSeveralDiscoveries() throws Exception {
+        when(gstDiscovererService.discover(anyString())).thenAnswer(invocation -> CompletableFuture.completedFuture(getMediaInformation(1000)));
+
+        for (int i = 0; i < 20; i++) {
+            mediaMetadataService.getMetadata(createFile("song" + i + ".wav"), CompositionFile.CompositionFileType.AUDIO);
+        }
+
+        verify(jaxbService, timeout(5000).times(1)).marshal(any(), any(File.class));
+
+        MediaMetadataCache[] savedCache = new MediaMetadataCache[1];
+        doAnswer(invocation -> savedCache[0] = invocation.getArgument(0)).when(jaxbService).marshal(any(), any(File.class));
+
+        // Saved on close, without waiting for the delay
+        mediaMetadataService.remove(basePath.resolve("song0.wav").toFile());
+        mediaMetadataService.close();
+
+        assertEquals(19, savedCache[0].getMediaMetadataList().size());
+    }
+
+}
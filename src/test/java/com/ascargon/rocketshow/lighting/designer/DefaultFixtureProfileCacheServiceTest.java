@@ -0,0 +1,82 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import com.ascargon.rocketshow.Settings;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.util.DefaultMetricsService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultFixtureProfileCacheServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private DefaultFixtureProfileCacheService fixtureProfileCacheService;
+
+    @BeforeEach
+    public void setUp() {
+        Settings settings = new Settings();
+        settings.setBasePath(basePath.toString());
+        settings.setFixturePath("fixtures");
+
+        SettingsService settingsService = mock(SettingsService.class);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        fixtureProfileCacheService = new DefaultFixtureProfileCacheService(settingsService, new DefaultMetricsService());
+    }
+
+    private JsonNode readTree(String json) throws IOException {
+        return mapper.readTree(json.replace('\'', '"'));
+    }
+
+    @Test
+    public void sharesEqualProfiles() throws Exception {
+        FixtureProfile fixtureProfile = fixtureProfileCacheService.getProfile(readTree("{'uuid': 'generic/par', 'name': 'Par'}"));
+
+        assertSame(fixtureProfile, fixtureProfileCacheService.getProfile(readTree("{'uuid': 'generic/par', 'name': 'Par'}")));
+        assertEquals("Par", fixtureProfile.getName());
+
+        // Changed content or another uuid is parsed again
+        assertNotSame(fixtureProfile, fixtureProfileCacheService.getProfile(readTree("{'uuid': 'generic/par', 'name': 'Par 2'}")));
+        assertNotSame(fixtureProfile, fixtureProfileCacheService.getProfile(readTree("{'uuid': 'generic/par2', 'name': 'Par'}")));
+
+        FixtureProfileCacheStatistics statistics = fixtureProfileCacheService.getStatistics();
+        assertEquals(1, statistics.getProfileHits());
+        assertEquals(3, statistics.getProfileMisses());
+        assertEquals(3, statistics.getProfileEntries());
+
+        fixtureProfileCacheService.clear();
+        assertNotSame(fixtureProfile, fixtureProfileCacheService.getProfile(readTree("{'uuid': 'generic/par', 'name': 'Par'}")));
+    }
+
+    @Test
+    public void readsModifiedRawProfile() throws Exception {
+        Path file = basePath.resolve("fixtures/generic/par.json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "{}");
+
+        assertEquals("{}", fixtureProfileCacheService.getRawProfile("generic/par"));
+        assertEquals("{}", fixtureProfileCacheService.getRawProfile("generic/par"));
+
+        Files.writeString(file, "{\"name\": \"Par\"}");
+        assertEquals("{\"name\": \"Par\"}", fixtureProfileCacheService.getRawProfile("generic/par"));
+
+        FixtureProfileCacheStatistics statistics = fixtureProfileCacheService.getStatistics();
+        assertEquals(1, statistics.getRawHits());
+        assertEquals(2, statistics.getRawMisses());
+    }
+
+}
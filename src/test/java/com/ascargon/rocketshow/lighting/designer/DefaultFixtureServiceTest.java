@@ -0,0 +1,103 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import com.ascargon.rocketshow.Settings;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.util.FileFilterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DefaultFixtureServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    private FixtureProfileCacheService fixtureProfileCacheService;
+
+    private DefaultFixtureService fixtureService;
+
+    @BeforeEach
+    public void setUp() {
+        Settings settings = new Settings();
+        settings.setBasePath(basePath.toString());
+        settings.setFixturePath("fixtures");
+
+        SettingsService settingsService = mock(SettingsService.class);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        fixtureProfileCacheService = mock(FixtureProfileCacheService.class);
+
+        fixtureService = new DefaultFixtureService(settingsService, mock(FileFilterService.class), fixtureProfileCacheService);
+    }
+
+    private File getResource(String name) throws URISyntaxException {
+        return new File(getClass().getResource(name).toURI());
+    }
+
+    private List<String> search(String query) throws Exception {
+        return fixtureService.searchFixtures(query, null, null, 0, 10).getFixtureList().stream()
+                .map(SearchFixtureTemplate::getUuid)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void updatesFromArchive() throws Exception {
+        fixtureService.updateProfiles(getResource("fixtures.zip"));
+
+        // The nested archive has been extracted into the directory of its manufacturer
+        assertTrue(Files.isRegularFile(basePath.resolve("fixtures/martin/aura-xb.json")));
+        assertFalse(Files.exists(basePath.resolve("fixtures/martin.zip")));
+        assertTrue(Files.isRegularFile(basePath.resolve("fixtures/search-index.json")));
+        assertFalse(Files.exists(basePath.resolve("fixtures.staging")));
+        assertFalse(Files.exists(basePath.resolve("fixtures.previous")));
+
+        assertEquals(List.of("generic/dimmer", "generic/rgb-par", "martin/aura-xb"), search(null));
+        assertEquals(List.of("martin/aura-xb"), search("mac au"));
+
+        SearchFixtureTemplate searchFixtureTemplate = fixtureService.searchFixtures("martin/aura-xb", null, null, null).get(0);
+        assertEquals("Martin", searchFixtureTemplate.getManufacturerName());
+        assertEquals(List.of("Moving Head", "Color Changer"), searchFixtureTemplate.getCategories());
+        assertEquals(List.of(5), searchFixtureTemplate.getChannelCounts());
+
+        verify(fixtureProfileCacheService).clear();
+    }
+
+    @Test
+    public void rejectsEntriesOutsideOfLibrary() throws Exception {
+        fixtureService.updateProfiles(getResource("fixtures.zip"));
+
+        IOException exception = assertThrows(IOException.class, () -> fixtureService.updateProfiles(getResource("fixtures-zip-slip.zip")));
+        assertTrue(exception.getMessage().contains("../zip-slip.json"));
+
+        assertFalse(Files.exists(basePath.resolve("zip-slip.json")));
+        assertFalse(Files.exists(basePath.resolve("fixtures.staging")));
+
+        // The current library and its index are still used
+        assertTrue(Files.isRegularFile(basePath.resolve("fixtures/martin/aura-xb.json")));
+        assertEquals(List.of("generic/dimmer", "generic/rgb-par", "martin/aura-xb"), search(null));
+        verify(fixtureProfileCacheService, times(1)).clear();
+    }
+
+    @Test
+    public void loadsPersistedSearchIndex() throws Exception {
+        fixtureService.updateProfiles(getResource("fixtures.zip"));
+
+        // The profiles are not read again, if the persisted index is up to date
+        Files.delete(basePath.resolve("fixtures/generic/dimmer.json"));
+        fixtureService.invalidateCache();
+
+        assertEquals(List.of("generic/dimmer"), search("dim"));
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.ascargon.rocketshow.lighting.designer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FixtureSearchIndexTest {
+
+    private static SearchFixtureTemplate createTemplate(String manufacturerShortName, String manufacturerName, String name, String... categories) {
+        SearchFixtureTemplate searchFixtureTemplate = new SearchFixtureTemplate();
+        searchFixtureTemplate.setUuid(manufacturerShortName + "/" + String.join("-", FixtureSearchIndex.tokenize(name)));
+        searchFixtureTemplate.setManufacturerShortName(manufacturerShortName);
+        searchFixtureTemplate.setManufacturerName(manufacturerName);
+        searchFixtureTemplate.setName(name);
+        searchFixtureTemplate.getCategories().addAll(List.of(categories));
+        return searchFixtureTemplate;
+    }
+
+    private final FixtureSearchIndex searchIndex = new FixtureSearchIndex(List.of(
+            createTemplate("martin", "Martin", "MAC Aura XB", "Moving Head", "Color Changer"),
+            createTemplate("generic", "Generic", "RGB Par", "Color Changer"),
+            createTemplate("martin", "Martin", "MAC Aura", "Moving Head"),
+            createTemplate("generic", "Generic", "Dimmer", "Dimmer"),
+            createTemplate("cameo", "Cameo", "Auro Spot 300", "Moving Head")
+    ));
+
+    private static List<String> getUuids(List<SearchFixtureTemplate> searchFixtureTemplateList) {
+        return searchFixtureTemplateList.stream().map(SearchFixtureTemplate::getUuid).collect(Collectors.toList());
+    }
+
+    @Test
+    public void tokenizes() {
+        assertEquals(List.of("mac", "aura", "xb"), FixtureSearchIndex.tokenize("MAC Aura XB"));
+        assertEquals(List.of("led", "par", "64", "rgbw"), FixtureSearchIndex.tokenize("  LED-Par 64 (RGBW) "));
+        assertEquals(List.of(), FixtureSearchIndex.tokenize(null));
+    }
+
+    @Test
+    public void sortsByManufacturerAndName() {
+        assertEquals(5, searchIndex.size());
+        assertEquals(List.of("cameo/auro-spot-300", "generic/dimmer", "generic/rgb-par", "martin/mac-aura", "martin/mac-aura-xb"),
+                getUuids(searchIndex.search(null, null, null)));
+    }
+
+    @Test
+    public void searchesAllTokenPrefixes() {
+        // Each word has to be the beginning of a word in the fixture or manufacturer name
+        assertEquals(List.of("cameo/auro-spot-300", "martin/mac-aura", "martin/mac-aura-xb"), getUuids(searchIndex.search("au", null, null)));
+        assertEquals(List.of("martin/mac-aura", "martin/mac-aura-xb"), getUuids(searchIndex.search("Aura", null, null)));
+        assertEquals(List.of("martin/mac-aura-xb"), getUuids(searchIndex.search("martin xb", null, null)));
+        assertEquals(List.of("cameo/auro-spot-300"), getUuids(searchIndex.search("spot 3", null, null)));
+        assertEquals(List.of(), getUuids(searchIndex.search("ura", null, null)));
+        assertEquals(List.of(), getUuids(searchIndex.search("aura spot", null, null)));
+    }
+
+    @Test
+    public void filtersByManufacturerAndMainCategory() {
+        assertEquals(List.of("generic/dimmer", "generic/rgb-par"), getUuids(searchIndex.search("", "generic", null)));
+        assertEquals(List.of("generic/rgb-par"), getUuids(searchIndex.search(null, null, "color changer")));
+        assertEquals(List.of("martin/mac-aura", "martin/mac-aura-xb"), getUuids(searchIndex.search("a", "martin", "Moving Head")));
+        assertEquals(List.of(), getUuids(searchIndex.search("dimmer", "martin", null)));
+    }
+
+    @Test
+    public void getsByUuid() {
+        assertEquals("MAC Aura XB", searchIndex.getByUuid("martin/mac-aura-xb").getName());
+        assertNull(searchIndex.getByUuid("martin/unknown"));
+    }
+
+}
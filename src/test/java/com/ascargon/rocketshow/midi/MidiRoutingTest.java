@@ -0,0 +1,62 @@
+package com.ascargon.rocketshow.midi;
+
+import com.ascargon.rocketshow.lighting.Midi2LightingMapping;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MidiRoutingTest {
+
+    @Test
+    public void copiesAllParts() {
+        ChannelMapping channelMapping = new ChannelMapping();
+        channelMapping.setChannelFrom(1);
+        channelMapping.setChannelTo(2);
+
+        MidiRouting midiRouting = new MidiRouting();
+        midiRouting.setMidiDestination(MidiDestination.REMOTE);
+        midiRouting.getMidiMapping().getChannelMap().add(channelMapping);
+        midiRouting.getMidiMapping().setParent(new MidiMapping());
+        midiRouting.getMidi2LightingMapping().setMappingType(Midi2LightingMapping.MappingType.EXACT);
+        midiRouting.setRemoteDeviceIdList(new ArrayList<>(List.of("stage")));
+
+        MidiRouting copy = new MidiRouting(midiRouting);
+
+        assertEquals(MidiDestination.REMOTE, copy.getMidiDestination());
+        assertEquals(Midi2LightingMapping.MappingType.EXACT, copy.getMidi2LightingMapping().getMappingType());
+        assertEquals(List.of("stage"), copy.getRemoteDeviceIdList());
+        assertEquals(2, copy.getMidiMapping().getChannelMap().get(0).getChannelTo());
+
+        // Deep copy without the parent, which is set by the player
+        assertNotSame(midiRouting.getMidiMapping().getChannelMap().get(0), copy.getMidiMapping().getChannelMap().get(0));
+        assertNotSame(midiRouting.getRemoteDeviceIdList(), copy.getRemoteDeviceIdList());
+        assertNull(copy.getMidiMapping().getParent());
+    }
+
+    @Test
+    public void copiesRoutingWithMissingParts() {
+        // E.g. read from a snapshot or JSON without these parts
+        MidiRouting midiRouting = new MidiRouting();
+        midiRouting.setMidiMapping(null);
+        midiRouting.setMidi2LightingMapping(null);
+        midiRouting.setRemoteDeviceIdList(null);
+
+        MidiRouting copy = new MidiRouting(midiRouting);
+
+        assertNull(copy.getMidiMapping());
+        assertNull(copy.getMidi2LightingMapping());
+        assertNull(copy.getRemoteDeviceIdList());
+    }
+
+    @Test
+    public void copiesMappingWithoutChannelMap() {
+        MidiRouting midiRouting = new MidiRouting();
+        midiRouting.getMidiMapping().setChannelMap(null);
+
+        assertNull(new MidiRouting(midiRouting).getMidiMapping().getChannelMap());
+    }
+
+}
@@ -0,0 +1,288 @@
+package com.ascargon.rocketshow.util;
+
+import com.ascargon.rocketshow.Settings;
+import com.ascargon.rocketshow.SettingsService;
+import com.ascargon.rocketshow.composition.LibraryWatcherService;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultBackupServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    @TempDir
+    Path outsidePath;
+
+    private DefaultBackupService backupService;
+
+    @BeforeEach
+    public void setUp() {
+        Settings settings = new Settings();
+        settings.setBasePath(basePath.toString() + "/");
+
+        SettingsService settingsService = mock(SettingsService.class);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        backupService = new DefaultBackupService(settingsService, mock(ChunkedFileUploadService.class), new DefaultJaxbService(new DefaultMetricsService()), mock(LibraryWatcherService.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        backupService.close();
+    }
+
+    private void write(String name, String content) throws IOException {
+        Path path = basePath.resolve(name);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content);
+    }
+
+    // Get the contents of all backed up files by their names
+    private Map<String, String> getFiles() throws IOException {
+        Map<String, String> fileMap = new TreeMap<>();
+
+        for (String backedUpFile : Arrays.asList("compositions", "media", "settings.xml")) {
+            Path path = basePath.resolve(backedUpFile);
+
+            if (!Files.exists(path)) {
+                continue;
+            }
+
+            try (Stream<Path> pathStream = Files.walk(path)) {
+                for (Path file : (Iterable<Path>) pathStream::iterator) {
+                    String name = basePath.relativize(file).toString();
+
+                    if (Files.isSymbolicLink(file)) {
+                        fileMap.put(name, "-> " + Files.readSymbolicLink(file));
+                    } else if (Files.isRegularFile(file)) {
+                        fileMap.put(name, Files.readString(file));
+                    } else {
+                        fileMap.put(name + "/", "");
+                    }
+                }
+            }
+        }
+
+        return fileMap;
+    }
+
+    private byte[] create(boolean incremental) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        backupService.create(outputStream, incremental, "test");
+
+        assertTrue(backupService.getState().isFinished());
+        assertNull(backupService.getState().getError());
+
+        return outputStream.toByteArray();
+    }
+
+    // Upload the backup as the client would do
+    private void stage(byte[] backup) throws Exception {
+        Files.write(basePath.resolve("backup.tar.gz"), backup);
+        backupService.restoreFinish();
+    }
+
+    private void deleteBackedUpFiles() throws IOException {
+        for (String backedUpFile : Arrays.asList("compositions", "media", "settings.xml", "backup-manifest.xml")) {
+            Path path = basePath.resolve(backedUpFile);
+
+            if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                continue;
+            }
+
+            try (Stream<Path> pathStream = Files.walk(path)) {
+                pathStream.sorted((a, b) -> b.compareTo(a)).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    private byte[] createArchive(TarArchiveEntry... entries) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        try (TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(new GZIPOutputStream(byteArrayOutputStream))) {
+            for (TarArchiveEntry entry : entries) {
+                byte[] content = entry.isFile() ? entry.getName().getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+                if (entry.isFile()) {
+                    entry.setSize(content.length);
+                }
+
+                tarOutputStream.putArchiveEntry(entry);
+                tarOutputStream.write(content);
+                tarOutputStream.closeArchiveEntry();
+            }
+        }
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static TarArchiveEntry symlink(String name, String linkName) {
+        TarArchiveEntry entry = new TarArchiveEntry(name, TarConstants.LF_SYMLINK);
+        entry.setLinkName(linkName);
+        return entry;
+    }
+
+    @Test
+    public void restoresChainOfFullAndIncrementalBackups() throws Exception {
+        write("settings.xml", "settings");
+        write("compositions/a.xml", "a");
+        write("compositions/b.xml", "b");
+        write("media/audio/song.wav", new Random(42).ints(100000, 'a', 'z').collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString());
+        write("media/audio/old.wav", "old");
+
+        byte[] fullBackup = create(false);
+
+        write("compositions/a.xml", "a changed");
+        write("compositions/c.xml", "c");
+        Files.move(basePath.resolve("media/audio/song.wav"), basePath.resolve("media/audio/renamed.wav"));
+        Files.delete(basePath.resolve("media/audio/old.wav"));
+        Files.createSymbolicLink(basePath.resolve("media/link.wav"), Path.of("audio/renamed.wav"));
+
+        byte[] incrementalBackup = create(true);
+        Map<String, String> expectedFileMap = getFiles();
+
+        // The incremental backup only contains the changed contents, not the renamed song
+        assertTrue(incrementalBackup.length < fullBackup.length / 10);
+
+        // Restore on another device without any of the files. The order of the upload doesn't matter.
+        deleteBackedUpFiles();
+        write("compositions/unknown.xml", "unknown");
+
+        stage(incrementalBackup);
+        stage(fullBackup);
+        backupService.restoreApply();
+
+        assertEquals(expectedFileMap, getFiles());
+        assertFalse(Files.exists(basePath.resolve("restore-staging")));
+
+        // The next incremental backup is based on the restored one and only contains the new composition
+        write("compositions/d.xml", "d");
+        byte[] nextBackup = create(true);
+
+        deleteBackedUpFiles();
+        stage(fullBackup);
+        stage(incrementalBackup);
+        stage(nextBackup);
+        backupService.restoreApply();
+
+        expectedFileMap.put("compositions/d.xml", "d");
+        assertEquals(expectedFileMap, getFiles());
+    }
+
+    @Test
+    public void restoresIncrementalBackupWithExistingContents() throws Exception {
+        write("compositions/a.xml", "a");
+        write("media/big.wav", "big");
+        create(false);
+
+        write("compositions/a.xml", "a changed");
+        byte[] incrementalBackup = create(true);
+        Map<String, String> expectedFileMap = getFiles();
+
+        write("compositions/a.xml", "a");
+        Files.move(basePath.resolve("media/big.wav"), basePath.resolve("media/moved.wav"));
+
+        stage(incrementalBackup);
+        backupService.restoreApply();
+
+        assertEquals(expectedFileMap, getFiles());
+    }
+
+    @Test
+    public void failsWithoutChangesIfContentIsMissing() throws Exception {
+        write("compositions/a.xml", "a");
+        create(false);
+
+        write("compositions/b.xml", "b");
+        byte[] incrementalBackup = create(true);
+
+        deleteBackedUpFiles();
+        write("compositions/other.xml", "other");
+        Map<String, String> existingFileMap = getFiles();
+
+        stage(incrementalBackup);
+        Exception exception = assertThrows(Exception.class, () -> backupService.restoreApply());
+
+        assertTrue(exception.getMessage().contains("compositions/a.xml"));
+        assertEquals(existingFileMap, getFiles());
+    }
+
+    @Test
+    public void keepsFilesIfBackupIsTruncated() throws Exception {
+        write("compositions/a.xml", "a");
+        write("media/song.wav", "x".repeat(100000));
+        byte[] backup = create(false);
+
+        write("compositions/a.xml", "a changed");
+        Map<String, String> existingFileMap = getFiles();
+
+        assertThrows(IOException.class, () -> stage(Arrays.copyOf(backup, backup.length / 2)));
+        assertThrows(Exception.class, () -> backupService.restoreApply());
+
+        assertEquals(existingFileMap, getFiles());
+    }
+
+    @Test
+    public void skipsSymlinksOutsideOfBackedUpFiles() throws Exception {
+        stage(createArchive(
+                new TarArchiveEntry("media/"),
+                symlink("media/x", outsidePath.toString()),
+                new TarArchiveEntry("media/x/passwd"),
+                symlink("media/up", "../../outside"),
+                new TarArchiveEntry("../escaped"),
+                new TarArchiveEntry("media/inside.wav"),
+                symlink("media/link.wav", "inside.wav")
+        ));
+        backupService.restoreApply();
+
+        // The file has been restored to a directory instead of the symlink's target
+        assertTrue(Files.isDirectory(basePath.resolve("media/x"), LinkOption.NOFOLLOW_LINKS));
+        assertEquals("media/x/passwd", Files.readString(basePath.resolve("media/x/passwd")));
+
+        try (Stream<Path> pathStream = Files.list(outsidePath)) {
+            assertEquals(0, pathStream.count());
+        }
+
+        assertFalse(Files.exists(basePath.resolve("media/up"), LinkOption.NOFOLLOW_LINKS));
+        assertFalse(Files.exists(basePath.getParent().resolve("escaped")));
+        assertEquals(Path.of("inside.wav"), Files.readSymbolicLink(basePath.resolve("media/link.wav")));
+    }
+
+    @Test
+    public void rejectsFilesBeneathSymlinks() throws Exception {
+        write("compositions/a.xml", "a");
+        Map<String, String> existingFileMap = getFiles();
+
+        assertThrows(IOException.class, () -> stage(createArchive(
+                new TarArchiveEntry("compositions/"),
+                symlink("media", "compositions"),
+                new TarArchiveEntry("media/a.xml")
+        )));
+
+        assertEquals(existingFileMap, getFiles());
+    }
+
+}
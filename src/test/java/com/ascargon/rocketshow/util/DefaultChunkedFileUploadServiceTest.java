@@ -0,0 +1,172 @@
+package com.ascargon.rocketshow.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DefaultChunkedFileUploadServiceTest {
+
+    @TempDir
+    Path path;
+
+    private final DefaultChunkedFileUploadService chunkedFileUploadService = new DefaultChunkedFileUploadService();
+
+    private boolean upload(File file, byte[] content, int offset, int length, String checksum) throws Exception {
+        return chunkedFileUploadService.handleChunk(new ByteArrayInputStream(content, offset, length), file, "upload", offset, content.length, checksum);
+    }
+
+    private static byte[] getContent(int size) {
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        return content;
+    }
+
+    @Test
+    public void writesChunksAtTheirOffset() throws Exception {
+        // Larger than a buffer
+        byte[] content = getContent(700 * 1024);
+        File file = path.resolve("file").toFile();
+        int chunkSize = 100 * 1024;
+
+        // Out of order and a retried chunk
+        assertFalse(upload(file, content, 3 * chunkSize, chunkSize, null));
+        assertFalse(upload(file, content, 0, chunkSize, null));
+        assertFalse(upload(file, content, 0, chunkSize, null));
+        assertFalse(upload(file, content, 6 * chunkSize, content.length - 6 * chunkSize, null));
+        assertFalse(upload(file, content, chunkSize, 2 * chunkSize, null));
+        assertFalse(upload(file, content, 4 * chunkSize, chunkSize, null));
+        assertTrue(upload(file, content, 5 * chunkSize, chunkSize, null));
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void verifiesChecksum() throws Exception {
+        byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        File file = path.resolve("file").toFile();
+        String checksum = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+        assertTrue(upload(file, content, 0, content.length, checksum.toUpperCase()));
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+
+        File corruptFile = path.resolve("corrupt").toFile();
+        assertThrows(Exception.class, () -> upload(corruptFile, content, 0, content.length, checksum.replace(checksum.charAt(0), checksum.charAt(0) == 'a' ? 'b' : 'a')));
+        assertFalse(corruptFile.exists());
+    }
+
+    @Test
+    public void rejectsChunkBeyondTotalSize() throws Exception {
+        byte[] content = getContent(1000);
+        File file = path.resolve("file").toFile();
+
+        // The chunk at offset 900 claims 200 bytes of a 1000 bytes upload
+        byte[] chunk = getContent(1100);
+        assertThrows(Exception.class, () -> chunkedFileUploadService.handleChunk(new ByteArrayInputStream(chunk, 900, 200), file, "upload", 900, content.length, null));
+
+        // Nothing has been written beyond the total size
+        assertTrue(file.length() <= content.length);
+
+        assertThrows(Exception.class, () -> chunkedFileUploadService.handleChunk(new ByteArrayInputStream(content), file, "upload", -1, content.length, null));
+        assertThrows(Exception.class, () -> chunkedFileUploadService.handleChunk(new ByteArrayInputStream(content), file, "upload", 1001, content.length, null));
+
+        // The upload can still be completed
+        assertTrue(upload(file, content, 0, content.length, null));
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void rejectsChangedTotalSize() throws Exception {
+        byte[] content = getContent(1000);
+        File file = path.resolve("file").toFile();
+
+        assertFalse(upload(file, content, 0, 500, null));
+        assertThrows(Exception.class, () -> chunkedFileUploadService.handleChunk(new ByteArrayInputStream(content, 500, 500), file, "upload", 500, 2000, null));
+    }
+
+    @Test
+    public void resumesUpload() throws Exception {
+        byte[] content = getContent(1000);
+        File file = path.resolve("file").toFile();
+
+        assertNull(chunkedFileUploadService.getUploadState("upload"));
+
+        assertFalse(upload(file, content, 0, 300, null));
+        assertFalse(upload(file, content, 300, 300, null));
+
+        // The connection dropped -> the client asks for the received ranges and continues behind them
+        UploadState uploadState = chunkedFileUploadService.getUploadState("upload");
+        assertEquals(1, uploadState.getReceivedRangeList().size());
+        assertArrayEquals(new long[]{0, 600}, uploadState.getReceivedRangeList().get(0));
+
+        assertTrue(upload(file, content, 600, 400, null));
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+        assertNull(chunkedFileUploadService.getUploadState("upload"));
+    }
+
+    @Test
+    public void restartsUploadWithMissingFile() throws Exception {
+        byte[] content = getContent(1000);
+        File file = path.resolve("file").toFile();
+
+        assertFalse(upload(file, content, 0, 500, null));
+        assertTrue(file.delete());
+
+        // The received bytes are gone -> nothing to skip
+        assertNull(chunkedFileUploadService.getUploadState("upload"));
+
+        assertFalse(upload(file, content, 500, 500, null));
+        assertTrue(upload(file, content, 0, 500, null));
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void newUploadReplacesUploadToSameFile() throws Exception {
+        byte[] content = getContent(1000);
+        File file = path.resolve("file").toFile();
+
+        assertFalse(upload(file, content, 0, 500, null));
+        assertFalse(chunkedFileUploadService.handleChunk(new ByteArrayInputStream(content, 0, 100), file, "other", 0, content.length, null));
+
+        assertNull(chunkedFileUploadService.getUploadState("upload"));
+        assertNotNull(chunkedFileUploadService.getUploadState("other"));
+    }
+
+    @Test
+    public void appendsChunksWithoutOffset() throws Exception {
+        byte[] content = getContent(300 * 1024);
+        File file = path.resolve("file").toFile();
+
+        chunkedFileUploadService.handleChunk(new ByteArrayInputStream(content, 0, 1000), file);
+        chunkedFileUploadService.handleChunk(new ByteArrayInputStream(content, 1000, content.length - 1000), file);
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+    }
+
+    @Test
+    public void writesExactlyTheMaximum() throws Exception {
+        byte[] content = getContent(256 * 1024);
+        File file = path.resolve("file").toFile();
+
+        // A multiple of the buffer size
+        try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertEquals(content.length, chunkedFileUploadService.write(new ByteArrayInputStream(content), fileChannel, 0, content.length));
+        }
+
+        assertArrayEquals(content, Files.readAllBytes(file.toPath()));
+    }
+
+}
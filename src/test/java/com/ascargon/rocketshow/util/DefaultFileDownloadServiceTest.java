@@ -0,0 +1,117 @@
+package com.ascargon.rocketshow.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DefaultFileDownloadServiceTest {
+
+    @TempDir
+    Path path;
+
+    private final DefaultFileDownloadService fileDownloadService = new DefaultFileDownloadService();
+
+    private File file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        file = path.resolve("song.wav").toFile();
+        Files.writeString(file.toPath(), "0123456789");
+    }
+
+    private MockHttpServletResponse get(String range) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileDownloadService.sendFile(file, request, response);
+        return response;
+    }
+
+    private void assertRange(String range, String contentRange, String content) throws Exception {
+        MockHttpServletResponse response = get(range);
+
+        assertEquals(206, response.getStatus(), range);
+        assertEquals(contentRange, response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+        assertEquals(content, response.getContentAsString(), range);
+        assertEquals(content.length(), response.getContentLengthLong(), range);
+    }
+
+    private void assertWholeFile(String range) throws Exception {
+        MockHttpServletResponse response = get(range);
+
+        assertEquals(200, response.getStatus(), range);
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+        assertEquals("0123456789", response.getContentAsString(), range);
+    }
+
+    @Test
+    public void sendsRanges() throws Exception {
+        assertRange("bytes=2-5", "bytes 2-5/10", "2345");
+        assertRange("bytes=7-", "bytes 7-9/10", "789");
+        assertRange("bytes=-3", "bytes 7-9/10", "789");
+        assertRange("bytes=-30", "bytes 0-9/10", "0123456789");
+        assertRange("bytes=8-100", "bytes 8-9/10", "89");
+        assertRange("bytes= 4 - 4 ", "bytes 4-4/10", "4");
+    }
+
+    @Test
+    public void sendsWholeFileForUnsupportedRanges() throws Exception {
+        assertWholeFile(null);
+        assertWholeFile("bytes=0-1,4-5");
+        assertWholeFile("items=0-1");
+        assertWholeFile("bytes=5-2");
+        assertWholeFile("bytes=a-b");
+        assertWholeFile("bytes=5");
+    }
+
+    @Test
+    public void rejectsUnsatisfiableRanges() throws Exception {
+        for (String range : new String[]{"bytes=10-", "bytes=20-30", "bytes=-0"}) {
+            MockHttpServletResponse response = get(range);
+
+            assertEquals(416, response.getStatus(), range);
+            assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+        }
+    }
+
+    @Test
+    public void ignoresRangeOfChangedFile() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"outdated\"");
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileDownloadService.sendFile(file, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    public void sendsNotModified() throws Exception {
+        String eTag = get(null).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/" + eTag);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        fileDownloadService.sendFile(file, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentLength());
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.ascargon.rocketshow.util;
+
+import com.ascargon.rocketshow.Settings;
+import com.ascargon.rocketshow.SettingsService;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultFlightRecorderServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    private DefaultFlightRecorderService flightRecorderService;
+
+    @BeforeEach
+    public void setUp() {
+        Settings settings = new Settings();
+        settings.setBasePath(basePath.toString() + "/");
+        settings.setEnableFlightRecorder(false);
+        settings.setFlightRecorderMaxAgeMinutes(1);
+
+        SettingsService settingsService = mock(SettingsService.class);
+        when(settingsService.getSettings()).thenReturn(settings);
+
+        flightRecorderService = new DefaultFlightRecorderService(settingsService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        flightRecorderService.close();
+    }
+
+    private void assertRecording(File file) throws Exception {
+        assertTrue(file.length() > 0);
+        assertFalse(RecordingFile.readAllEvents(file.toPath()).isEmpty());
+    }
+
+    @Test
+    public void createsFilePerDownload() throws Exception {
+        assertThrows(Exception.class, () -> flightRecorderService.createRecordingFile());
+
+        flightRecorderService.start();
+
+        File file = flightRecorderService.createRecordingFile();
+        File otherFile = flightRecorderService.createRecordingFile();
+
+        assertNotEquals(file, otherFile);
+        assertRecording(file);
+        assertRecording(otherFile);
+
+        // Stopping the recording does not touch the files of running downloads
+        long length = file.length();
+        flightRecorderService.stop();
+        assertEquals(length, file.length());
+
+        File stoppedFile = flightRecorderService.createRecordingFile();
+        assertNotEquals(basePath.resolve(FlightRecorderService.RECORDING_FILE_NAME).toFile(), stoppedFile);
+        assertRecording(stoppedFile);
+
+        Files.delete(file.toPath());
+        Files.delete(otherFile.toPath());
+        Files.delete(stoppedFile.toPath());
+
+        // Only the recording of the stopped recording remains
+        try (Stream<Path> pathStream = Files.list(basePath)) {
+            assertEquals(1, pathStream.count());
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.ascargon.rocketshow.util;
+
+import com.ascargon.rocketshow.composition.Composition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DefaultJaxbServiceTest {
+
+    @TempDir
+    Path basePath;
+
+    private final DefaultJaxbService jaxbService = new DefaultJaxbService(new DefaultMetricsService());
+
+    @Test
+    public void sharesContextPerType() throws Exception {
+        assertSame(jaxbService.getContext(Composition.class), jaxbService.getContext(Composition.class));
+    }
+
+    @Test
+    public void loadsConcurrently() throws Exception {
+        List<File> fileList = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            Composition composition = new Composition();
+            composition.setName("Composition " + i);
+
+            File file = basePath.resolve(i + ".xml").toFile();
+            jaxbService.marshal(composition, file);
+            fileList.add(file);
+        }
+
+        // The pooled unmarshallers are never shared between two threads
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        List<Future<String>> futureList = new ArrayList<>();
+
+        try {
+            for (int round = 0; round < 10; round++) {
+                for (File file : fileList) {
+                    futureList.add(executorService.submit(() -> jaxbService.unmarshal(Composition.class, file).getName()));
+                }
+            }
+
+            for (int i = 0; i < futureList.size(); i++) {
+                assertEquals("Composition " + (i % fileList.size()), futureList.get(i).get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.ascargon.rocketshow.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DefaultMetricsServiceTest {
+
+    private final DefaultMetricsService metricsService = new DefaultMetricsService();
+
+    @Test
+    public void exportsCountersWithSuffix() {
+        AtomicLong messages = new AtomicLong(3);
+
+        metricsService.registerCounter("test_messages", "Messages since the start", messages::get, "endpoint", "a");
+        metricsService.registerGauge("test_sessions", "Sessions", () -> 2, "endpoint", "a");
+
+        String text = metricsService.getPrometheusText();
+
+        assertTrue(text.contains("# TYPE rocketshow_test_messages_total counter\n"));
+        assertTrue(text.contains("rocketshow_test_messages_total{endpoint=\"a\"} 3.0\n"));
+        assertTrue(text.contains("# TYPE rocketshow_test_sessions gauge\n"));
+        assertTrue(text.contains("rocketshow_test_sessions{endpoint=\"a\"} 2.0\n"));
+
+        // The JVM counters
+        assertTrue(text.contains("# TYPE rocketshow_jvm_gc_collections_total counter\n"));
+    }
+
+    @Test
+    public void exportsHistograms() {
+        metricsService.setEnabled(true);
+        metricsService.getTimer("test_seconds", "Test", "type", "a").record(1000);
+
+        String text = metricsService.getPrometheusText();
+
+        assertTrue(text.contains("# TYPE rocketshow_test_seconds histogram\n"));
+        assertTrue(text.contains("rocketshow_test_seconds_bucket{type=\"a\",le=\"1.0E-4\"} 1.0\n"));
+        assertTrue(text.contains("rocketshow_test_seconds_count{type=\"a\"} 1.0\n"));
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.ascargon.rocketshow.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTimerTest {
+
+    private final DefaultMetricsService metricsService = new DefaultMetricsService();
+
+    private final MetricsTimer timer = new MetricsTimer(metricsService, "test_seconds", "Test", Map.of());
+
+    @Test
+    public void recordsIntoCumulativeBuckets() {
+        metricsService.setEnabled(true);
+
+        // On the upper bound of the first bucket
+        timer.record(100000);
+        timer.record(100001);
+        timer.record(2000000);
+        timer.record(60000000000L);
+
+        Metric metric = timer.createMetric();
+
+        assertEquals(Metric.Type.HISTOGRAM, metric.getType());
+        assertEquals(4, metric.getCount());
+        assertEquals(60.002200001, metric.getSumSeconds(), 1e-9);
+        assertEquals(60, metric.getMaxSeconds(), 1e-9);
+        assertEquals(1, metric.getBuckets().get("1.0E-4"));
+        assertEquals(2, metric.getBuckets().get("2.5E-4"));
+        assertEquals(2, metric.getBuckets().get("0.001"));
+        assertEquals(3, metric.getBuckets().get("0.0025"));
+        assertEquals(3, metric.getBuckets().get("30.0"));
+        assertEquals(4, metric.getBuckets().get("+Inf"));
+    }
+
+    @Test
+    public void recordsNothingWhileDisabled() {
+        long startNanos = timer.start();
+
+        assertEquals(MetricsTimer.DISABLED, startNanos);
+
+        // Enabled in the meantime
+        metricsService.setEnabled(true);
+        timer.stop(startNanos);
+
+        metricsService.setEnabled(false);
+        timer.record(1000);
+
+        assertEquals(0, timer.createMetric().getCount());
+    }
+
+    @Test
+    public void recordsStartTimesOfAnyValue() {
+        metricsService.setEnabled(true);
+
+        long startNanos = timer.start();
+        assertNotEquals(MetricsTimer.DISABLED, startNanos);
+        timer.stop(startNanos);
+
+        // System.nanoTime() may return 0 or negative values
+        timer.stop(0);
+        timer.stop(-1000);
+
+        assertEquals(3, timer.createMetric().getCount());
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.ascargon.rocketshow.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelGzipOutputStreamTest {
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(3);
+
+    @AfterEach
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzipInputStream.readAllBytes();
+        }
+    }
+
+    @Test
+    public void compressesMultipleBlocksInOrder() throws IOException {
+        // Some blocks of compressible and random data with an incomplete last block
+        byte[] data = new byte[3 * 1024 * 1024 + 12345];
+        new Random(42).nextBytes(data);
+
+        for (int i = 0; i < data.length / 2; i++) {
+            data[i] = (byte) (i % 7);
+        }
+
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        try (ParallelGzipOutputStream gzipOutputStream = new ParallelGzipOutputStream(byteArrayOutputStream, executorService, 1)) {
+            gzipOutputStream.write(data, 0, 1000);
+            gzipOutputStream.write(data[1000]);
+            gzipOutputStream.write(data, 1001, data.length - 1001);
+        }
+
+        assertArrayEquals(data, decompress(byteArrayOutputStream.toByteArray()));
+    }
+
+    @Test
+    public void writesValidEmptyFile() throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+
+        new ParallelGzipOutputStream(byteArrayOutputStream, executorService, 2).close();
+
+        assertEquals(0, decompress(byteArrayOutputStream.toByteArray()).length);
+    }
+
+    @Test
+    public void abortDiscardsRemainingData() throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        ParallelGzipOutputStream gzipOutputStream = new ParallelGzipOutputStream(byteArrayOutputStream, executorService, 2);
+
+        gzipOutputStream.write(new byte[1000]);
+        gzipOutputStream.abort();
+
+        // Nothing of the incomplete block has been written and the stream can't be used anymore
+        assertEquals(0, byteArrayOutputStream.size());
+        assertThrows(IOException.class, () -> gzipOutputStream.write(1));
+
+        // Closing an aborted stream does not finish it
+        gzipOutputStream.close();
+        assertEquals(0, byteArrayOutputStream.size());
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.ascargon.rocketshow.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UploadStateTest {
+
+    private static String toString(List<long[]> rangeList) {
+        StringBuilder stringBuilder = new StringBuilder();
+
+        for (long[] range : rangeList) {
+            stringBuilder.append("[").append(range[0]).append(",").append(range[1]).append(")");
+        }
+
+        return stringBuilder.toString();
+    }
+
+    @Test
+    public void mergesOverlappingAndAdjacentRanges() {
+        UploadState uploadState = new UploadState("test", 100, new File("test"));
+
+        uploadState.addRange(50, 60);
+        uploadState.addRange(10, 20);
+        uploadState.addRange(30, 40);
+        assertEquals("[10,20)[30,40)[50,60)", toString(uploadState.getReceivedRangeList()));
+
+        // Adjacent
+        uploadState.addRange(20, 25);
+        assertEquals("[10,25)[30,40)[50,60)", toString(uploadState.getReceivedRangeList()));
+
+        // Spanning several ranges
+        uploadState.addRange(22, 55);
+        assertEquals("[10,60)", toString(uploadState.getReceivedRangeList()));
+
+        // Retried and contained
+        uploadState.addRange(30, 40);
+        uploadState.addRange(10, 60);
+        assertEquals("[10,60)", toString(uploadState.getReceivedRangeList()));
+        assertEquals(50, uploadState.getReceivedBytes());
+
+        // Empty
+        uploadState.addRange(70, 70);
+        assertEquals("[10,60)", toString(uploadState.getReceivedRangeList()));
+    }
+
+    @Test
+    public void isCompleteWithAllBytes() {
+        UploadState uploadState = new UploadState("test", 100, new File("test"));
+
+        uploadState.addRange(50, 100);
+        assertFalse(uploadState.isComplete());
+
+        uploadState.addRange(1, 50);
+        assertFalse(uploadState.isComplete());
+
+        uploadState.addRange(0, 1);
+        assertTrue(uploadState.isComplete());
+        assertEquals(100, uploadState.getReceivedBytes());
+    }
+
+    @Test
+    public void isCompleteWithoutBytes() {
+        assertTrue(new UploadState("test", 0, new File("test")).isComplete());
+    }
+
+}